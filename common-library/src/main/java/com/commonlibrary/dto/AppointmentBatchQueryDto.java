@@ -0,0 +1,33 @@
+package com.commonlibrary.dto;
+
+import com.commonlibrary.entity.AppointmentStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Query over the appointments of many patients in one call.
+ * Null statuses or time bounds mean no filter on them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentBatchQueryDto {
+
+    private List<Long> patientIds;
+    private List<AppointmentStatus> statuses;
+    private LocalDateTime fromTime; // inclusive
+    private LocalDateTime toTime;   // exclusive
+
+    @Builder.Default
+    private Integer page = 0;
+
+    @Builder.Default
+    private Integer size = 100;
+
+    // Only return the counts by status, no appointments
+    @Builder.Default
+    private Boolean aggregateOnly = false;
+}
@@ -0,0 +1,27 @@
+package com.commonlibrary.dto;
+
+import com.commonlibrary.entity.AppointmentStatus;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a batch appointment query, or only its counts in aggregate-only mode
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentBatchResultDto {
+
+    private List<AppointmentDto> appointments; // ordered by scheduled time, empty in aggregate-only mode
+    private Integer page;
+    private Integer size;
+    private Long totalElements;
+    private Integer totalPages;
+
+    // Aggregate-only mode: matching appointments per status, and those of them not yet started
+    private Map<AppointmentStatus, Long> countsByStatus;
+    private Map<AppointmentStatus, Long> upcomingCountsByStatus;
+}
@@ -65,6 +65,13 @@ public class CaseOverviewMetrics implements Serializable {
      */
     private Double avgResponseTime;
     
+    /**
+     * Assignment time percentiles (hours) and resolution time percentiles (days)
+     * Key: "p50", "p90", "p99"
+     */
+    private Map<String, Double> assignmentTimePercentiles;
+    private Map<String, Double> resolutionTimePercentiles;
+    
     /**
      * Distribution by status
      * Key: Status name, Value: Count
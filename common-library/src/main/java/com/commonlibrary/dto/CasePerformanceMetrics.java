@@ -58,5 +58,7 @@ public class CasePerformanceMetrics implements Serializable {
         private Double avgAssignmentTime; // hours
         private Double avgResolutionTime; // days
         private Double slaCompliance; // percentage
+        private Map<String, Double> assignmentTimePercentiles; // hours, keys "p50", "p90", "p99"
+        private Map<String, Double> resolutionTimePercentiles; // days, keys "p50", "p90", "p99"
     }
 }
\ No newline at end of file
@@ -65,4 +65,72 @@ public class WorkloadManagementConfig {
      * Maximum search days for next available slot
      */
     private Integer maxSearchDaysForSlot = 30;
-}
\ No newline at end of file
+
+    /**
+     * Interval for rebuilding the in-memory candidate index from the database in minutes
+     */
+    private Integer candidateIndexRebuildIntervalMinutes = 10;
+
+    /**
+     * Doctors per chunk of the batch workload recalculation (one bulk active-case fetch and one
+     * transaction per chunk)
+     */
+    private Integer recalculationChunkSize = 200;
+
+    /**
+     * Chunks of the batch workload recalculation processed at the same time
+     */
+    private Integer recalculationParallelism = 4;
+
+    /**
+     * Seconds a doctor capacity snapshot is served from cache without a ledger write
+     */
+    private Integer capacityCacheTtlSeconds = 30;
+
+    /**
+     * Maximum number of cached doctor capacity snapshots
+     */
+    private Integer capacityCacheMaxEntries = 10000;
+
+    /**
+     * Days of hourly workload history kept per specialization
+     */
+    private Integer historyRetentionDays = 90;
+
+    /**
+     * Minutes between samples of the per-specialization workload totals within an hour of history
+     */
+    private Integer historySampleIntervalMinutes = 5;
+
+    /**
+     * Days of history the capacity forecast learns its hourly profile from
+     */
+    private Integer forecastLookbackDays = 28;
+
+    /**
+     * Projected average workload percentage at which a specialization counts as saturated
+     */
+    private Double forecastSaturationPercentage = 90.0;
+
+    /**
+     * Minutes a doctor's in-memory availability timeline is kept without being used
+     */
+    private Integer availabilityTimelineIdleMinutes = 30;
+
+    /**
+     * Minutes after which a doctor's availability timeline is reloaded from the database even if
+     * it is in constant use, so writes that bypassed this instance (other instances, direct
+     * database edits) are picked up
+     */
+    private Integer availabilityTimelineMaxAgeMinutes = 10;
+
+    /**
+     * Maximum number of doctors (least loaded first) a free-slot search merges
+     */
+    private Integer slotSearchMaxDoctors = 200;
+
+    /**
+     * Seconds an appointment slot reservation is held if its booking transaction never completes
+     */
+    private Integer slotReservationTtlSeconds = 30;
+}
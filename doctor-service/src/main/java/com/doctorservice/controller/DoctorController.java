@@ -14,7 +14,9 @@ import com.doctorservice.feign.PatientServiceClient;
 import com.doctorservice.feign.PaymentServiceClient;
 import com.doctorservice.repository.AppointmentRepository;
 import com.doctorservice.repository.DoctorRepository;
+import com.doctorservice.service.AppointmentSlotSearchService;
 import com.doctorservice.service.DoctorService;
+import com.doctorservice.service.DoctorWorkloadService;
 import com.doctorservice.service.InternalDoctorService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -49,6 +51,8 @@ public class DoctorController {
     private final InternalDoctorService internalDoctorService;
     private final NotificationServiceClient notificationServiceClient;
     private final PaymentServiceClient paymentServiceClient;
+    private final DoctorWorkloadService doctorWorkloadService;
+    private final AppointmentSlotSearchService slotSearchService;
 
     /**
      * Get Doctor Dashboard Data
@@ -201,6 +205,19 @@ public class DoctorController {
         return ResponseEntity.ok(ApiResponse.success(slotDtos, "Available slots retrieved successfully"));
     }
 
+    /**
+     * Search the earliest free appointment slots across doctors
+     *
+     * @param request Specialization or doctor IDs, date range and timezone, duration and limit
+     * @return Free slots ordered by start time, in server and requested time
+     */
+    @PostMapping("/appointments/slot-search")
+    public ResponseEntity<ApiResponse<List<SlotSearchResultDto>>> searchFreeSlots(
+            @Valid @RequestBody SlotSearchRequestDto request) {
+        List<SlotSearchResultDto> slots = slotSearchService.searchFreeSlots(request);
+        return ResponseEntity.ok(ApiResponse.success(slots, "Free slots retrieved successfully"));
+    }
+
     /**
      * Check if a specific time slot is available
      *
@@ -707,6 +724,18 @@ public class DoctorController {
         return ResponseEntity.ok(ApiResponse.success(null, "Doctor status updated to " + request.getStatus()));
     }
 
+    /**
+     * Doctors who can take an emergency case now (emergency mode first, then least loaded)
+     * Called by patient-service to warm its emergency on-call pool
+     */
+    @GetMapping("/emergency-available")
+    public ResponseEntity<ApiResponse<List<DoctorCapacityDto>>> getEmergencyAvailableDoctors(
+            @RequestParam(required = false) String specialization,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<DoctorCapacityDto> doctors = doctorWorkloadService.getEmergencyAvailableDoctors(specialization, limit);
+        return ResponseEntity.ok(ApiResponse.success(doctors));
+    }
+
     /**
      * Get All Doctors with Filters
      * Internal endpoint called by admin-service
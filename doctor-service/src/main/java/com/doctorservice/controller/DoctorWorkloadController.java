@@ -4,7 +4,10 @@ package com.doctorservice.controller;
 import com.commonlibrary.dto.ApiResponse;
 import com.doctorservice.dto.DoctorWorkloadDto;
 import com.doctorservice.dto.UpdateAvailabilityDto;
+import com.doctorservice.dto.WorkloadForecastDto;
+import com.doctorservice.dto.WorkloadHeatMapCellDto;
 import com.doctorservice.service.DoctorWorkloadService;
+import com.doctorservice.service.WorkloadHistoryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +27,7 @@ import java.util.Map;
 public class DoctorWorkloadController {
 
     private final DoctorWorkloadService workloadService;
+    private final WorkloadHistoryService workloadHistoryService;
 
     /**
      * Get detailed workload information for a doctor
@@ -127,6 +131,55 @@ public class DoctorWorkloadController {
         return ResponseEntity.ok(ApiResponse.success("Batch workload recalculation completed"));
     }
 
+    /**
+     * Progress of the running batch recalculation and duration of the last one
+     */
+    @GetMapping("/recalculation-status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getRecalculationStatus() {
+        return ResponseEntity.ok(ApiResponse.success(workloadService.getRecalculationStatus()));
+    }
+
+    /**
+     * Hourly utilization and queue depth per specialization (heat map), oldest hour first
+     */
+    @GetMapping("/heat-map")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<WorkloadHeatMapCellDto>>> getWorkloadHeatMap(
+            @RequestParam(defaultValue = "168") int hours,
+            @RequestParam(required = false) String specialization) {
+        return ResponseEntity.ok(ApiResponse.success(workloadHistoryService.getHeatMap(specialization, hours)));
+    }
+
+    /**
+     * Projected capacity shortfalls per specialization for the next 24 to 72 hours
+     */
+    @GetMapping("/forecast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<WorkloadForecastDto>>> getCapacityForecast(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(required = false) String specialization) {
+        return ResponseEntity.ok(ApiResponse.success(workloadHistoryService.forecast(specialization, hours)));
+    }
+
+    /**
+     * Affected rows and duration of the last run of each workload maintenance job
+     */
+    @GetMapping("/maintenance-status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getMaintenanceStatus() {
+        return ResponseEntity.ok(ApiResponse.success(workloadService.getMaintenanceStatus()));
+    }
+
+    /**
+     * Hit and miss counts of the capacity snapshot cache used by the capacity API
+     */
+    @GetMapping("/capacity-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCapacityCacheStatistics() {
+        return ResponseEntity.ok(ApiResponse.success(workloadService.getCapacityCacheStatistics()));
+    }
+
     /**
      * Update doctor availability and time slots
      */
@@ -7,11 +7,14 @@ import com.doctorservice.dto.DoctorDetailsDto;
 import com.doctorservice.dto.DoctorDocumentDto;
 import com.doctorservice.dto.DoctorDocumentListDto;
 import com.doctorservice.dto.DocumentVerificationDto;
+import com.doctorservice.dto.SlotSearchRequestDto;
+import com.doctorservice.dto.SlotSearchResultDto;
 import com.doctorservice.entity.Appointment;
 import com.doctorservice.entity.Doctor;
 import com.doctorservice.repository.AppointmentRepository;
 import com.doctorservice.repository.DoctorDocumentRepository;
 import com.doctorservice.repository.DoctorRepository;
+import com.doctorservice.service.AppointmentSlotSearchService;
 import com.doctorservice.service.DoctorDocumentService;
 import com.doctorservice.service.DoctorService;
 import com.doctorservice.service.InternalDoctorService;
@@ -43,6 +46,7 @@ public class InternalDoctorController {
     private final DoctorService doctorService;
     private final AppointmentRepository appointmentRepository;
     private final DoctorDocumentService doctorDocumentService;
+    private final AppointmentSlotSearchService slotSearchService;
     
     @GetMapping("/pending-verifications")
     public List<PendingVerificationDto> getPendingVerifications() {
@@ -81,7 +85,7 @@ public class InternalDoctorController {
             try{
                 doctorsCapacities = internalDoctorWorkloadController.getBatchCapacity(doctorIds).getBody().getData();
                 for( DoctorDto doctor : doctors ) {
-                    doctorsCapacities.stream().filter(d-> d.getDoctorId() == doctor.getId()).
+                    doctorsCapacities.stream().filter(d-> d.getDoctorId().equals(doctor.getId())).
                             findFirst().ifPresent(d -> {
                                 d.setFullName(doctor.getFullName());
                                 System.out.println( "While getting doctors with capacity - Doctor: " + d.getFullName());
@@ -418,6 +422,15 @@ public class InternalDoctorController {
         return ResponseEntity.ok(ApiResponse.success(dtos));
     }
 
+    /**
+     * Earliest free appointment slots across a specialization or a set of doctors (internal use)
+     */
+    @PostMapping("/appointments/slot-search")
+    public ResponseEntity<ApiResponse<List<SlotSearchResultDto>>> searchFreeSlots(
+            @RequestBody SlotSearchRequestDto request) {
+        return ResponseEntity.ok(ApiResponse.success(slotSearchService.searchFreeSlots(request)));
+    }
+
     /**
      * Get all appointments for multiple patients (batch operation)
      */
@@ -427,9 +440,9 @@ public class InternalDoctorController {
 
         log.info("Internal: Getting appointments for {} patients", patientIds.size());
 
-        List<Appointment> allAppointments = patientIds.stream()
-                .flatMap(patientId -> appointmentRepository.findByPatientId(patientId).stream())
-                .collect(Collectors.toList());
+        List<Appointment> allAppointments = patientIds.isEmpty()
+                ? new ArrayList<>()
+                : appointmentRepository.findByPatientIdIn(patientIds);
 
         List<AppointmentDto> dtos = allAppointments.stream()
                 .map(doctorService::convertToAppointmentDto)
@@ -438,6 +451,20 @@ public class InternalDoctorController {
         return ResponseEntity.ok(ApiResponse.success(dtos));
     }
 
+    /**
+     * Query the appointments of multiple patients with status and time filters, paged,
+     * or only their counts by status (batch operation)
+     */
+    @PostMapping("/appointments/patients/query")
+    public ResponseEntity<ApiResponse<AppointmentBatchResultDto>> queryAppointmentsForPatients(
+            @RequestBody AppointmentBatchQueryDto query) {
+
+        log.info("Internal: Querying appointments for {} patients (aggregateOnly={})",
+                query.getPatientIds() != null ? query.getPatientIds().size() : 0, query.getAggregateOnly());
+
+        return ResponseEntity.ok(ApiResponse.success(doctorService.queryPatientsAppointments(query)));
+    }
+
     /**
      * Count appointments by patient and status (internal use)
      */
@@ -2,7 +2,6 @@ package com.doctorservice.controller;
 
 import com.commonlibrary.dto.ApiResponse;
 import com.commonlibrary.dto.DoctorCapacityDto;
-import com.doctorservice.dto.DoctorWorkloadDto;
 import com.doctorservice.service.DoctorWorkloadService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -48,63 +47,27 @@ public class InternalDoctorWorkloadController {
 
     /**
      * Get doctor capacity information for case assignment algorithms
+     * Answered from the local capacity ledger, no calls back into patient-service
      */
     @GetMapping("/{doctorId}/capacity")
     public ResponseEntity<ApiResponse<DoctorCapacityDto>> getDoctorCapacity(@PathVariable Long doctorId) {
 
-        DoctorWorkloadDto workload = workloadService.getDoctorWorkload(doctorId);
-
-        // Convert to capacity DTO
-        DoctorCapacityDto capacity = DoctorCapacityDto.builder()
-                .doctorId(workload.getDoctorId())
-                .activeCases(workload.getActiveCases())
-                .maxActiveCases(workload.getMaxActiveCases())
-                .todayAppointments(workload.getTodayAppointments())
-                .maxDailyAppointments(workload.getMaxDailyAppointments())
-                .workloadPercentage(workload.getWorkloadPercentage())
-                .consultationCount(workload.getConsultationCount())
-                .isAvailable(workload.getIsAvailable())
-                .emergencyMode(workload.getEmergencyMode())
-                .build();
-
+        DoctorCapacityDto capacity = workloadService.getDoctorCapacity(doctorId);
         return ResponseEntity.ok(ApiResponse.success(capacity));
     }
 
     /**
      * Get multiple doctors' capacity for batch operations
+     * Answered from the capacity snapshot cache, misses from the local ledger in a single query
      */
     @GetMapping("/batch-capacity")
     public ResponseEntity<ApiResponse<List<DoctorCapacityDto>>> getBatchCapacity(
             @RequestBody List<Long> doctorIds) {
 
-        List<DoctorCapacityDto> capacities = doctorIds.stream()
-                .map(this::buildCapacityDto)
-                .toList();
-
-        return ResponseEntity.ok(ApiResponse.success(capacities));
-    }
-
-    private DoctorCapacityDto buildCapacityDto(Long doctorId) {
-        try {
-            DoctorWorkloadDto workload = workloadService.getDoctorWorkload(doctorId);
-            return DoctorCapacityDto.builder()
-                    .doctorId(workload.getDoctorId())
-                    .activeCases(workload.getActiveCases())
-                    .maxActiveCases(workload.getMaxActiveCases())
-                    .todayAppointments(workload.getTodayAppointments())
-                    .maxDailyAppointments(workload.getMaxDailyAppointments())
-                    .workloadPercentage(workload.getWorkloadPercentage())
-                    .consultationCount(workload.getConsultationCount())
-                    .isAvailable(workload.getIsAvailable())
-                    .emergencyMode(workload.getEmergencyMode())
-                    .build();
-        } catch (Exception e) {
-            log.error("Error getting capacity for doctor {}: {}", doctorId, e.getMessage());
-            return DoctorCapacityDto.builder()
-                    .doctorId(doctorId)
-                    .isAvailable(false)
-                    .workloadPercentage(100.0)
-                    .build();
-        }
+        DoctorWorkloadService.CapacityBatch batch = workloadService.getDoctorCapacities(doctorIds);
+        log.debug("Batch capacity for {} doctors: {} cached, {} recomputed",
+                doctorIds.size(), batch.cached(), batch.recomputed());
+        return ResponseEntity.ok(ApiResponse.success(batch.capacities(),
+                "Capacities retrieved (cached: " + batch.cached() + ", recomputed: " + batch.recomputed() + ")"));
     }
 }
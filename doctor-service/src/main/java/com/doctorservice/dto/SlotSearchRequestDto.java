@@ -0,0 +1,32 @@
+package com.doctorservice.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class SlotSearchRequestDto {
+    // Either a specialization or a set of doctors
+    private String specialization;
+    private List<Long> doctorIds;
+
+    // Dates in the requested timezone, inclusive
+    @NotNull(message = "From date is required")
+    private LocalDate fromDate;
+
+    @NotNull(message = "To date is required")
+    private LocalDate toDate;
+
+    @Min(value = 5, message = "Duration must be at least 5 minutes")
+    private Integer duration = 30;
+
+    private String timezone; // IANA zone of the caller, defaults to the server zone
+
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 200, message = "Limit must be at most 200")
+    private Integer limit = 20;
+}
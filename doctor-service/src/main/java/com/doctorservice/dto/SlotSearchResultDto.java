@@ -0,0 +1,20 @@
+package com.doctorservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class SlotSearchResultDto {
+    private Long doctorId;
+    private String doctorName;
+    private String specialization;
+    private LocalDateTime startTime; // server time, as passed to appointment scheduling
+    private LocalDateTime endTime;
+    private LocalDateTime localStartTime; // in the requested timezone
+    private LocalDateTime localEndTime;
+    private String timezone;
+    private Integer duration;
+}
@@ -0,0 +1,30 @@
+package com.doctorservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class WorkloadForecastDto {
+    private String specialization;
+    private Double currentUtilization;
+    private Integer caseCapacity;
+    private Integer historyHours;
+    private LocalDateTime firstSaturationAt;
+    private Integer maxShortfall;
+    private String recommendation; // ENABLE_EMERGENCY_MODE, OK or INSUFFICIENT_HISTORY
+    private List<ProjectedHour> hours;
+
+    @Data
+    @Builder
+    public static class ProjectedHour {
+        private LocalDateTime hour;
+        private Double projectedUtilization;
+        private Integer projectedQueueDepth;
+        private Integer projectedFreeSlots;
+        private Integer shortfall;
+    }
+}
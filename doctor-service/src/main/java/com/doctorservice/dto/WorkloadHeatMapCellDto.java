@@ -0,0 +1,21 @@
+package com.doctorservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class WorkloadHeatMapCellDto {
+    private String specialization;
+    private LocalDateTime hour;
+    private Double averageUtilization;
+    private Double peakUtilization;
+    private Integer doctorCount;
+    private Integer availableDoctors;
+    private Integer activeCases;
+    private Integer caseCapacity;
+    private Integer queueDepth;
+    private Boolean inProgress;
+}
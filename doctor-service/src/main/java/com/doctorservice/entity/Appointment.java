@@ -10,7 +10,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+    @Index(name = "idx_appointment_patient_time", columnList = "patient_id, scheduled_time")
+})
 @Getter
 @Setter
 @Builder
@@ -0,0 +1,31 @@
+package com.doctorservice.entity;
+
+import com.commonlibrary.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A claim on one fixed-size cell of a doctor's schedule, written by every booking for the cells its
+ * appointment and trailing buffer cover. The unique (doctor_id, slot_start) constraint makes an
+ * overlapping booking on any service instance wait for the first one to commit before it checks
+ * the stored appointments.
+ */
+@Entity
+@Table(name = "appointment_slot_claims",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"doctor_id", "slot_start"}),
+        indexes = @Index(name = "idx_appointment_slot_claim_start", columnList = "slot_start"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSlotClaim extends BaseEntity {
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "slot_start", nullable = false)
+    private LocalDateTime slotStart;
+}
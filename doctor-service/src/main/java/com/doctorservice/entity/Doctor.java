@@ -101,6 +101,9 @@ public class Doctor extends BaseEntity {
 
     private LocalDateTime lastWorkloadUpdate;
 
+    // Epoch millis of the patient-service snapshot behind activeCases (capacity ledger)
+    private Long activeCasesAsOf;
+
     @Column(nullable = false)
     private Integer maxActiveCases = 10;
 
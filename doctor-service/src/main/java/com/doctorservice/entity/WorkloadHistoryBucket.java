@@ -0,0 +1,60 @@
+package com.doctorservice.entity;
+
+import com.commonlibrary.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One hour of workload history for one specialization, rolled up from workload change events
+ */
+@Entity
+@Table(name = "workload_history_buckets",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"specialization", "bucket_start"}),
+        indexes = @Index(name = "idx_workload_history_bucket_start", columnList = "bucket_start"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkloadHistoryBucket extends BaseEntity {
+
+    @Column(nullable = false)
+    private String specialization;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    /**
+     * Time-weighted mean of the specialization's average workload percentage over the hour
+     */
+    @Column(nullable = false)
+    private Double averageUtilization;
+
+    @Column(nullable = false)
+    private Double peakUtilization;
+
+    @Column(nullable = false)
+    private Integer doctorCount;
+
+    @Column(nullable = false)
+    private Integer availableDoctors;
+
+    @Column(nullable = false)
+    private Integer activeCases;
+
+    /**
+     * Sum of the doctors' active case limits at the end of the hour
+     */
+    @Column(nullable = false)
+    private Integer caseCapacity;
+
+    /**
+     * Cases waiting for a doctor at the end of the hour (null if patient-service did not answer)
+     */
+    private Integer queueDepth;
+
+    @Column(nullable = false)
+    private Integer changeEvents;
+}
@@ -5,16 +5,24 @@ import com.commonlibrary.dto.CustomPatientDto;
 import com.commonlibrary.dto.RescheduleRequestResponseDto;
 import com.doctorservice.dto.CaseAssignmentDto;
 import com.commonlibrary.dto.CaseDto;
+import com.commonlibrary.entity.CaseStatus;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @FeignClient(name = "patient-service")
 public interface PatientServiceClient {
 
+    /**
+     * Response header of getDoctorsActiveCaseCounts: when the counts were taken (epoch millis,
+     * patient-service clock)
+     */
+    String COUNTS_AS_OF_HEADER = "X-Counts-As-Of";
+
     @PutMapping("/api/patients/cases/{caseId}/status")
     void updateCaseStatus(@PathVariable Long caseId,
                           @RequestParam String status,
@@ -63,6 +71,13 @@ public interface PatientServiceClient {
     @GetMapping("/api/patients/cases/doctor/{doctorId}/active")
     ResponseEntity<ApiResponse<List<CaseDto>>> getDoctorActiveCases(@PathVariable("doctorId") Long doctorId);
 
+    @PostMapping("/api/patients-internal/doctors/active-case-counts")
+    ResponseEntity<ApiResponse<Map<Long, Map<CaseStatus, Long>>>> getDoctorsActiveCaseCounts(
+            @RequestBody List<Long> doctorIds);
+
+    @GetMapping("/api/patients-internal/cases/statistics/waiting-by-specialization")
+    ResponseEntity<ApiResponse<Map<String, Long>>> getWaitingCasesBySpecialization();
+
 
     @GetMapping("/api/patients/cases/doctor/{doctorId}/all")
     ResponseEntity<ApiResponse<List<CaseDto>>> getAllDoctorCases(@PathVariable("doctorId") Long doctorId);
@@ -13,6 +13,7 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Component
@@ -37,7 +38,11 @@ public class DoctorEventConsumer {
                     caseId, newStatus, doctorId);
             
             // Update doctor's workload or case assignments
-            if (doctorId != null && ("ACCEPTED".equals(newStatus) || "CLOSED".equals(newStatus))) {
+            if (doctorId != null && caseEvent.get("doctorActiveCases") != null) {
+                workloadService.applyActiveCasesSnapshot(doctorId,
+                        Integer.valueOf(caseEvent.get("doctorActiveCases").toString()),
+                        getTimestamp(caseEvent));
+            } else if (doctorId != null && ("ACCEPTED".equals(newStatus) || "CLOSED".equals(newStatus))) {
                 workloadService.loadDoctorWorkload(doctorId);
             } else {
                 log.error("No need for updating doctor's workload");
@@ -53,42 +58,65 @@ public class DoctorEventConsumer {
         try {
             Long doctorId = Long.valueOf(doctorEvent.get("doctorId").toString());
             log.info("Kafka - Updating workload for doctor {}", doctorId);
-            // Update doctor's workload or case assignments
-            workloadService.loadDoctorWorkload(doctorId);
+            // Apply the pushed active case count, fall back to a full reload for older producers
+            if (doctorEvent.get("activeCases") != null) {
+                workloadService.applyActiveCasesSnapshot(doctorId,
+                        Integer.valueOf(doctorEvent.get("activeCases").toString()),
+                        getTimestamp(doctorEvent));
+            } else {
+                workloadService.loadDoctorWorkload(doctorId);
+            }
         } catch (Exception e) {
             log.error("Kafka - Error updating workload for doctor: {}", e.getMessage(), e);
         }
     }
 
     /**
-     * Handle appointment scheduling events
+     * Handle appointment scheduling events (new or rescheduled appointments)
      */
     @KafkaListener(topics = "appointment-scheduled", groupId = "doctor-workload-group")
-    public void handleAppointmentScheduled(String eventData) {
+    public void handleAppointmentScheduled(Map<String, Object> appointmentEvent) {
         try {
-            log.debug("Received appointment scheduled event: {}", eventData);
-
-            // Parse event and update doctor workload
-            // workloadService.loadDoctorWorkload(doctorId);
-
+            log.debug("Received appointment scheduled event: {}", appointmentEvent);
+            Long doctorId = Long.valueOf(appointmentEvent.get("doctorId").toString());
+            LocalDateTime scheduledTime = getDateTime(appointmentEvent, "scheduledTime");
+            if (scheduledTime != null) {
+                workloadService.applyAppointmentChange(doctorId,
+                        getDateTime(appointmentEvent, "previousScheduledTime"), scheduledTime);
+            } else {
+                workloadService.refreshAppointmentLoad(doctorId);
+            }
         } catch (Exception e) {
             log.error("Error handling appointment scheduled event: {}", e.getMessage(), e);
         }
     }
 
     /**
-     * Handle appointment completion events
+     * Handle appointment completion events.
+     * A completed appointment still counts towards the doctor's appointments of its day,
+     * so the capacity ledger does not change.
      */
     @KafkaListener(topics = "appointment-completed", groupId = "doctor-workload-group")
-    public void handleAppointmentCompleted(String eventData) {
-        try {
-            log.debug("Received appointment completed event: {}", eventData);
-
-            // Parse event and update doctor workload
-            // workloadService.loadDoctorWorkload(doctorId);
+    public void handleAppointmentCompleted(Map<String, Object> appointmentEvent) {
+        log.debug("Received appointment completed event: {}", appointmentEvent);
+    }
 
+    /**
+     * Handle appointment cancellation events
+     */
+    @KafkaListener(topics = "appointment-cancelled", groupId = "doctor-workload-group")
+    public void handleAppointmentCancelled(Map<String, Object> appointmentEvent) {
+        try {
+            log.debug("Received appointment cancelled event: {}", appointmentEvent);
+            Long doctorId = Long.valueOf(appointmentEvent.get("doctorId").toString());
+            LocalDateTime scheduledTime = getDateTime(appointmentEvent, "scheduledTime");
+            if (scheduledTime != null) {
+                workloadService.applyAppointmentChange(doctorId, scheduledTime, null);
+            } else {
+                workloadService.refreshAppointmentLoad(doctorId);
+            }
         } catch (Exception e) {
-            log.error("Error handling appointment completed event: {}", e.getMessage(), e);
+            log.error("Error handling appointment cancelled event: {}", e.getMessage(), e);
         }
     }
 
@@ -163,4 +191,16 @@ public class DoctorEventConsumer {
             log.error("Error processing case's appointment confirmation: {}", e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    private Long getTimestamp(Map<String, Object> event) {
+        return event.get("timestamp") != null ? Long.valueOf(event.get("timestamp").toString()) : null;
+    }
+
+    /**
+     * ISO date-time field of an event; null when missing or in an older (non-string) format
+     */
+    private LocalDateTime getDateTime(Map<String, Object> event, String key) {
+        Object value = event.get(key);
+        return value instanceof String text ? LocalDateTime.parse(text) : null;
+    }
+}
@@ -3,6 +3,7 @@ package com.doctorservice.kafka;
 import com.commonlibrary.dto.NotificationDto;
 import com.commonlibrary.entity.NotificationPriority;
 import com.commonlibrary.entity.NotificationType;
+import com.commonlibrary.entity.VerificationStatus;
 import com.doctorservice.entity.Doctor;
 import com.doctorservice.feign.PatientServiceClient;
 import com.doctorservice.repository.DoctorRepository;
@@ -165,6 +166,70 @@ public class DoctorEventProducer {
         }
     }
 
+    /**
+     * Publish an appointment lifecycle event (appointment-scheduled / -completed / -cancelled)
+     * consumed to keep the doctor's capacity ledger current
+     */
+    public void sendAppointmentWorkloadEvent(String topic, Long appointmentId, Long doctorId,
+                                             LocalDateTime scheduledTime) {
+        sendAppointmentWorkloadEvent(topic, appointmentId, doctorId, scheduledTime, null);
+    }
+
+    /**
+     * Same as above for a rescheduled appointment, which also carries its previous time so the
+     * ledger can move it between days
+     */
+    public void sendAppointmentWorkloadEvent(String topic, Long appointmentId, Long doctorId,
+                                             LocalDateTime scheduledTime, LocalDateTime previousScheduledTime) {
+        try {
+            Map<String, Object> appointmentEvent = new HashMap<>();
+            appointmentEvent.put("appointmentId", appointmentId);
+            appointmentEvent.put("doctorId", doctorId);
+            appointmentEvent.put("scheduledTime", scheduledTime != null ? scheduledTime.toString() : null);
+            if (previousScheduledTime != null) {
+                appointmentEvent.put("previousScheduledTime", previousScheduledTime.toString());
+            }
+            appointmentEvent.put("timestamp", System.currentTimeMillis());
+
+            kafkaTemplate.send(topic, appointmentEvent);
+            log.info("Kafka - {} event sent for appointment {} of doctor {}", topic, appointmentId, doctorId);
+        } catch (Exception e) {
+            log.error("Error sending {} event for appointment {}: {}", topic, appointmentId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Publish a doctor's current capacity (workload, availability, emergency mode).
+     * patient-service keeps its emergency on-call pool current from these events.
+     */
+    public void sendDoctorCapacityUpdate(Doctor doctor) {
+        try {
+            Map<String, Object> capacityEvent = new HashMap<>();
+            capacityEvent.put("doctorId", doctor.getId());
+            capacityEvent.put("fullName", doctor.getFullName());
+            capacityEvent.put("primarySpecialization", doctor.getPrimarySpecialization());
+            capacityEvent.put("subSpecializations", doctor.getSubSpecializations());
+            capacityEvent.put("verified", doctor.getVerificationStatus() == VerificationStatus.VERIFIED);
+            capacityEvent.put("isAvailable", doctor.getIsAvailable());
+            capacityEvent.put("emergencyMode", doctor.getEmergencyMode());
+            capacityEvent.put("activeCases", doctor.getActiveCases());
+            capacityEvent.put("maxActiveCases", doctor.getMaxActiveCases());
+            capacityEvent.put("todayAppointments", doctor.getTodayAppointments());
+            capacityEvent.put("maxDailyAppointments", doctor.getMaxDailyAppointments());
+            capacityEvent.put("workloadPercentage", doctor.getWorkloadPercentage());
+            capacityEvent.put("averageRating", doctor.getRating());
+            capacityEvent.put("consultationCount", doctor.getConsultationCount());
+            capacityEvent.put("completionRate", doctor.getCompletionRate());
+            capacityEvent.put("yearsOfExperience", doctor.getYearsOfExperience());
+            capacityEvent.put("timestamp", System.currentTimeMillis());
+
+            kafkaTemplate.send("doctor-capacity-update-topic", capacityEvent);
+            log.debug("Kafka - capacity update sent for doctor {}", doctor.getId());
+        } catch (Exception e) {
+            log.error("Error sending capacity update for doctor {}: {}", doctor.getId(), e.getMessage(), e);
+        }
+    }
+
     public void sendCaseStatusUpdateEventFromDoctor(Long caseId, String oldStatus, String newStatus,
                                                     Long patientId, Long doctorId) {
 
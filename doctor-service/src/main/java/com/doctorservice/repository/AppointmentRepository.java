@@ -3,6 +3,8 @@ package com.doctorservice.repository;
 import com.commonlibrary.entity.AssignmentStatus;
 import com.doctorservice.entity.Appointment;
 import com.commonlibrary.entity.AppointmentStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -128,6 +130,16 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             AppointmentStatus excludeStatus
     );
 
+    /**
+     * Appointments of a doctor from a point in time on, excluding the given statuses
+     * Used to load the doctor's availability timeline
+     */
+    List<Appointment> findByDoctorIdAndScheduledTimeGreaterThanEqualAndStatusNotIn(
+            Long doctorId,
+            LocalDateTime fromTime,
+            List<AppointmentStatus> excludeStatuses
+    );
+
     /**
      * Alternative query using @Query annotation for more complex filtering
      */
@@ -223,4 +235,41 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             @Param("statuses") List<AppointmentStatus> statuses
     );
 
+    List<Appointment> findByPatientIdIn(List<Long> patientIds);
+
+    /**
+     * One page of the appointments of many patients, optionally bounded in time
+     */
+    @Query("SELECT a FROM Appointment a WHERE " +
+            "a.patientId IN :patientIds AND " +
+            "a.status IN :statuses AND " +
+            "(:fromTime IS NULL OR a.scheduledTime >= :fromTime) AND " +
+            "(:toTime IS NULL OR a.scheduledTime < :toTime)")
+    Page<Appointment> findPatientsAppointments(
+            @Param("patientIds") List<Long> patientIds,
+            @Param("statuses") List<AppointmentStatus> statuses,
+            @Param("fromTime") LocalDateTime fromTime,
+            @Param("toTime") LocalDateTime toTime,
+            Pageable pageable
+    );
+
+    /**
+     * Appointment counts of many patients in one grouped query: rows of
+     * [status, count, count scheduled at or after :now]
+     */
+    @Query("SELECT a.status, COUNT(a), SUM(CASE WHEN a.scheduledTime >= :now THEN 1 ELSE 0 END) " +
+            "FROM Appointment a WHERE " +
+            "a.patientId IN :patientIds AND " +
+            "a.status IN :statuses AND " +
+            "(:fromTime IS NULL OR a.scheduledTime >= :fromTime) AND " +
+            "(:toTime IS NULL OR a.scheduledTime < :toTime) " +
+            "GROUP BY a.status")
+    List<Object[]> countPatientsAppointmentsByStatus(
+            @Param("patientIds") List<Long> patientIds,
+            @Param("statuses") List<AppointmentStatus> statuses,
+            @Param("fromTime") LocalDateTime fromTime,
+            @Param("toTime") LocalDateTime toTime,
+            @Param("now") LocalDateTime now
+    );
+
 }
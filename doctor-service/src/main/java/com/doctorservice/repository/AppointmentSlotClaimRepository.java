@@ -0,0 +1,37 @@
+package com.doctorservice.repository;
+
+import com.doctorservice.entity.AppointmentSlotClaim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AppointmentSlotClaimRepository extends JpaRepository<AppointmentSlotClaim, Long> {
+
+    /**
+     * Claim the doctor's cells starting every cellMinutes in [firstCell, lastCell]. A cell claimed
+     * by a transaction still in progress makes this wait for that transaction to end; a cell
+     * claimed by a committed booking is left as it is.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO appointment_slot_claims (doctor_id, slot_start, created_at, updated_at, version) " +
+            "SELECT :doctorId, cell, :now, :now, 0 FROM generate_series(CAST(:firstCell AS TIMESTAMP), " +
+            "CAST(:lastCell AS TIMESTAMP), make_interval(mins => :cellMinutes)) AS cell " +
+            "ON CONFLICT (doctor_id, slot_start) DO NOTHING",
+            nativeQuery = true)
+    int claimCells(@Param("doctorId") Long doctorId,
+                   @Param("firstCell") LocalDateTime firstCell,
+                   @Param("lastCell") LocalDateTime lastCell,
+                   @Param("cellMinutes") int cellMinutes,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AppointmentSlotClaim c WHERE c.slotStart < :cutoff")
+    int deleteClaimsBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -11,4 +11,5 @@ import java.util.List;
 public interface CalendarAvailabilityRepository extends JpaRepository<CalendarAvailability, Long> {
     List<CalendarAvailability> findByDoctorId(Long doctorId);
     List<CalendarAvailability> findByDoctorIdAndAvailableDate(Long doctorId, LocalDate date);
+    List<CalendarAvailability> findByDoctorIdAndAvailableDateGreaterThanEqual(Long doctorId, LocalDate fromDate);
 }
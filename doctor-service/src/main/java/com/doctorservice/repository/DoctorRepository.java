@@ -1,14 +1,19 @@
 package com.doctorservice.repository;
 
+import com.commonlibrary.entity.AppointmentStatus;
 import com.doctorservice.entity.Doctor;
 import com.commonlibrary.entity.VerificationStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +35,173 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 
     // ===== WORKLOAD MANAGEMENT QUERIES =====
 
+    @Query("SELECT d.id FROM Doctor d ORDER BY d.id")
+    List<Long> findAllIds();
+
+    /**
+     * Workload totals of the verified doctors per primary specialization: rows of [specialization,
+     * doctorCount, availableDoctors, activeCases, caseCapacity, workloadPercentageSum]
+     */
+    @Query("SELECT d.primarySpecialization, COUNT(d), SUM(CASE WHEN d.isAvailable = true THEN 1 ELSE 0 END), " +
+            "COALESCE(SUM(d.activeCases), 0), COALESCE(SUM(d.maxActiveCases), 0), " +
+            "COALESCE(SUM(d.workloadPercentage), 0.0) FROM Doctor d " +
+            "WHERE d.verificationStatus = 'VERIFIED' AND d.primarySpecialization IS NOT NULL " +
+            "GROUP BY d.primarySpecialization")
+    List<Object[]> summarizeVerifiedWorkloadBySpecialization();
+
+    /**
+     * Counted appointments of the doctor in [dayStart, dayEnd), for the bulk ledger updates below
+     */
+    String DAY_APPOINTMENTS = "(SELECT COUNT(a) FROM Appointment a WHERE a.doctor.id = d.id " +
+            "AND a.scheduledTime >= :dayStart AND a.scheduledTime < :dayEnd AND a.status IN :statuses)";
+
+    String SET_DAY_APPOINTMENTS = "UPDATE Doctor d SET d.todayAppointments = " + DAY_APPOINTMENTS + ", " +
+            "d.workloadPercentage = LEAST(100.0, d.activeCases * 50.0 / :maxActiveCases + " +
+            DAY_APPOINTMENTS + " * 50.0 / :maxDailyAppointments), " +
+            "d.isAvailable = CASE WHEN d.activeCases >= :maxActiveCases OR " +
+            DAY_APPOINTMENTS + " >= :maxDailyAppointments THEN false ELSE d.isAvailable END, " +
+            "d.lastWorkloadUpdate = :now ";
+
+    /**
+     * Capacity ledger: recount today's appointments and the derived workload fields of every
+     * doctor in one statement (daily reset)
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(SET_DAY_APPOINTMENTS)
+    int resetTodayAppointments(@Param("dayStart") LocalDateTime dayStart,
+                               @Param("dayEnd") LocalDateTime dayEnd,
+                               @Param("statuses") List<AppointmentStatus> statuses,
+                               @Param("maxActiveCases") Integer maxActiveCases,
+                               @Param("maxDailyAppointments") Integer maxDailyAppointments,
+                               @Param("now") LocalDateTime now);
+
+    /**
+     * Capacity ledger: same recount, limited to verified doctors not updated since cutoffTime
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(SET_DAY_APPOINTMENTS + "WHERE d.verificationStatus = 'VERIFIED' AND d.lastWorkloadUpdate < :cutoffTime")
+    int refreshStaleTodayAppointments(@Param("cutoffTime") LocalDateTime cutoffTime,
+                                      @Param("dayStart") LocalDateTime dayStart,
+                                      @Param("dayEnd") LocalDateTime dayEnd,
+                                      @Param("statuses") List<AppointmentStatus> statuses,
+                                      @Param("maxActiveCases") Integer maxActiveCases,
+                                      @Param("maxDailyAppointments") Integer maxDailyAppointments,
+                                      @Param("now") LocalDateTime now);
+
+    /**
+     * Capacity ledger: same recount for one doctor, keeping the ledger's active cases
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(SET_DAY_APPOINTMENTS + "WHERE d.id = :doctorId")
+    int recountTodayAppointments(@Param("doctorId") Long doctorId,
+                                 @Param("dayStart") LocalDateTime dayStart,
+                                 @Param("dayEnd") LocalDateTime dayEnd,
+                                 @Param("statuses") List<AppointmentStatus> statuses,
+                                 @Param("maxActiveCases") Integer maxActiveCases,
+                                 @Param("maxDailyAppointments") Integer maxDailyAppointments,
+                                 @Param("now") LocalDateTime now);
+
+    /**
+     * Active cases after reconciliation: the patient-service count, unless the ledger already
+     * holds a newer pushed snapshot
+     */
+    String RECONCILED_ACTIVE_CASES = "(CASE WHEN d.activeCasesAsOf IS NULL OR d.activeCasesAsOf <= :asOf " +
+            "THEN :activeCases ELSE d.activeCases END)";
+
+    /**
+     * Capacity ledger reconciliation of one doctor in one statement: the active case count
+     * counted by patient-service at asOf (skipped when a newer snapshot was applied meanwhile),
+     * today's appointments recounted, and the derived workload fields. Counter updates that
+     * commit concurrently are never overwritten by values read earlier.
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Doctor d SET d.activeCases = " + RECONCILED_ACTIVE_CASES + ", " +
+            "d.activeCasesAsOf = CASE WHEN d.activeCasesAsOf IS NULL OR d.activeCasesAsOf <= :asOf " +
+            "THEN :asOf ELSE d.activeCasesAsOf END, " +
+            "d.todayAppointments = " + DAY_APPOINTMENTS + ", " +
+            "d.workloadPercentage = LEAST(100.0, " + RECONCILED_ACTIVE_CASES + " * 50.0 / :maxActiveCases + " +
+            DAY_APPOINTMENTS + " * 50.0 / :maxDailyAppointments), " +
+            "d.isAvailable = CASE WHEN " + RECONCILED_ACTIVE_CASES + " >= :maxActiveCases OR " +
+            DAY_APPOINTMENTS + " >= :maxDailyAppointments THEN false ELSE d.isAvailable END, " +
+            "d.lastWorkloadUpdate = :now " +
+            "WHERE d.id = :doctorId")
+    int reconcileWorkload(@Param("doctorId") Long doctorId,
+                          @Param("activeCases") Integer activeCases,
+                          @Param("asOf") Long asOf,
+                          @Param("dayStart") LocalDateTime dayStart,
+                          @Param("dayEnd") LocalDateTime dayEnd,
+                          @Param("statuses") List<AppointmentStatus> statuses,
+                          @Param("maxActiveCases") Integer maxActiveCases,
+                          @Param("maxDailyAppointments") Integer maxDailyAppointments,
+                          @Param("now") LocalDateTime now);
+
+    @Query("SELECT d.id FROM Doctor d WHERE d.verificationStatus = 'VERIFIED' AND " +
+            "d.emergencyMode = true AND d.emergencyModeEnabledAt < :cutoffTime")
+    List<Long> findIdsWithEmergencyModeEnabledBefore(@Param("cutoffTime") LocalDateTime cutoffTime);
+
+    /**
+     * Turn off emergency mode for the given doctors if it is still on since before cutoffTime,
+     * and fall back to the normal availability rule in the same statement
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Doctor d SET d.emergencyMode = false, d.emergencyModeReason = null, " +
+            "d.emergencyModeEnabledAt = null, " +
+            "d.isAvailable = CASE WHEN d.activeCases >= :maxActiveCases OR " +
+            "d.todayAppointments >= :maxDailyAppointments THEN false ELSE d.isAvailable END, " +
+            "d.lastWorkloadUpdate = :now " +
+            "WHERE d.id IN :doctorIds AND d.emergencyMode = true AND d.emergencyModeEnabledAt < :cutoffTime")
+    int disableEmergencyModes(@Param("doctorIds") List<Long> doctorIds,
+                              @Param("cutoffTime") LocalDateTime cutoffTime,
+                              @Param("maxActiveCases") Integer maxActiveCases,
+                              @Param("maxDailyAppointments") Integer maxDailyAppointments,
+                              @Param("now") LocalDateTime now);
+
+    /**
+     * Capacity ledger: set the active case count pushed by patient-service and the derived
+     * workload fields in one statement. Skipped (returns 0) when a newer snapshot was applied.
+     * caseLoad is the case half of the workload percentage, computed by the caller.
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Doctor d SET d.activeCases = :activeCases, d.activeCasesAsOf = :asOf, " +
+            "d.workloadPercentage = LEAST(100.0, :caseLoad + d.todayAppointments * 50.0 / :maxDailyAppointments), " +
+            "d.isAvailable = CASE WHEN :activeCases >= :maxActiveCases OR d.todayAppointments >= :maxDailyAppointments " +
+            "THEN false ELSE d.isAvailable END, " +
+            "d.lastWorkloadUpdate = :now " +
+            "WHERE d.id = :doctorId AND (d.activeCasesAsOf IS NULL OR d.activeCasesAsOf <= :asOf)")
+    int applyActiveCases(@Param("doctorId") Long doctorId,
+                         @Param("activeCases") Integer activeCases,
+                         @Param("asOf") Long asOf,
+                         @Param("caseLoad") Double caseLoad,
+                         @Param("maxActiveCases") Integer maxActiveCases,
+                         @Param("maxDailyAppointments") Integer maxDailyAppointments,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Capacity ledger: add delta to today's appointment counter (never below zero) and refresh
+     * the derived workload fields in one statement, so concurrent events cannot lose updates
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Doctor d SET d.todayAppointments = GREATEST(d.todayAppointments + :delta, 0), " +
+            "d.workloadPercentage = LEAST(100.0, d.activeCases * 50.0 / :maxActiveCases + " +
+            "GREATEST(d.todayAppointments + :delta, 0) * 50.0 / :maxDailyAppointments), " +
+            "d.isAvailable = CASE WHEN d.activeCases >= :maxActiveCases OR " +
+            "GREATEST(d.todayAppointments + :delta, 0) >= :maxDailyAppointments " +
+            "THEN false ELSE d.isAvailable END, " +
+            "d.lastWorkloadUpdate = :now " +
+            "WHERE d.id = :doctorId")
+    int adjustTodayAppointments(@Param("doctorId") Long doctorId,
+                                @Param("delta") int delta,
+                                @Param("maxActiveCases") Integer maxActiveCases,
+                                @Param("maxDailyAppointments") Integer maxDailyAppointments,
+                                @Param("now") LocalDateTime now);
+
     @Query("SELECT d FROM Doctor d WHERE " +
             "d.verificationStatus = 'VERIFIED' AND " +
             "d.isAvailable = true AND " +
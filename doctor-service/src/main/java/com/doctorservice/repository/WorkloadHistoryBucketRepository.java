@@ -0,0 +1,59 @@
+package com.doctorservice.repository;
+
+import com.doctorservice.entity.WorkloadHistoryBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WorkloadHistoryBucketRepository extends JpaRepository<WorkloadHistoryBucket, Long> {
+
+    /**
+     * Write the closing bucket of an hour. Every service instance closes the same hour from the same
+     * doctors table, so a second write replaces the totals, keeps the higher peak and the known queue
+     * depth, and adds its change events (each instance counts only the changes it committed).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO workload_history_buckets (specialization, bucket_start, average_utilization, " +
+            "peak_utilization, doctor_count, available_doctors, active_cases, case_capacity, queue_depth, " +
+            "change_events, created_at, updated_at, version) " +
+            "VALUES (:specialization, :bucketStart, :averageUtilization, :peakUtilization, :doctorCount, " +
+            ":availableDoctors, :activeCases, :caseCapacity, :queueDepth, :changeEvents, :now, :now, 0) " +
+            "ON CONFLICT (specialization, bucket_start) DO UPDATE SET " +
+            "average_utilization = EXCLUDED.average_utilization, " +
+            "peak_utilization = GREATEST(workload_history_buckets.peak_utilization, EXCLUDED.peak_utilization), " +
+            "doctor_count = EXCLUDED.doctor_count, available_doctors = EXCLUDED.available_doctors, " +
+            "active_cases = EXCLUDED.active_cases, case_capacity = EXCLUDED.case_capacity, " +
+            "queue_depth = COALESCE(EXCLUDED.queue_depth, workload_history_buckets.queue_depth), " +
+            "change_events = workload_history_buckets.change_events + EXCLUDED.change_events, " +
+            "updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int upsertBucket(@Param("specialization") String specialization,
+                     @Param("bucketStart") LocalDateTime bucketStart,
+                     @Param("averageUtilization") double averageUtilization,
+                     @Param("peakUtilization") double peakUtilization,
+                     @Param("doctorCount") int doctorCount,
+                     @Param("availableDoctors") int availableDoctors,
+                     @Param("activeCases") int activeCases,
+                     @Param("caseCapacity") int caseCapacity,
+                     @Param("queueDepth") Integer queueDepth,
+                     @Param("changeEvents") int changeEvents,
+                     @Param("now") LocalDateTime now);
+
+    List<WorkloadHistoryBucket> findByBucketStartGreaterThanEqualOrderByBucketStartAsc(LocalDateTime from);
+
+    List<WorkloadHistoryBucket> findBySpecializationAndBucketStartGreaterThanEqualOrderByBucketStartAsc(
+            String specialization, LocalDateTime from);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WorkloadHistoryBucket b WHERE b.bucketStart < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
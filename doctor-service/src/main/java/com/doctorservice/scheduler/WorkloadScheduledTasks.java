@@ -2,16 +2,15 @@ package com.doctorservice.scheduler;
 
 import com.doctorservice.config.WorkloadManagementConfig;
 import com.doctorservice.service.DoctorWorkloadService;
-import com.doctorservice.entity.Doctor;
+import com.doctorservice.service.WorkloadHistoryService;
+import com.doctorservice.repository.AppointmentSlotClaimRepository;
 import com.doctorservice.repository.DoctorRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -19,14 +18,16 @@ import java.util.List;
 public class WorkloadScheduledTasks {
 
     private final DoctorWorkloadService workloadService;
+    private final WorkloadHistoryService workloadHistoryService;
     private final DoctorRepository doctorRepository;
+    private final AppointmentSlotClaimRepository appointmentSlotClaimRepository;
     private final WorkloadManagementConfig config;
 
     /**
      * Automatically recalculate workload for all doctors every 30 minutes
+     * (not transactional: the recalculation commits chunk by chunk)
      */
     @Scheduled(fixedRateString = "#{${doctor.workload.auto-recalculation-interval-minutes:30} * 60000}")
-    @Transactional
     public void autoRecalculateWorkloads() {
         if (!config.getAutoRecalculationEnabled()) {
             return;
@@ -43,33 +44,38 @@ public class WorkloadScheduledTasks {
     }
 
     /**
-     * Update today's appointment counts at the start of each day
+     * Update today's appointment counts at the start of each day (one bulk statement)
      */
     @Scheduled(cron = "0 0 0 * * *") // Daily at midnight
-    @Transactional
     public void resetDailyCounters() {
         log.info("Starting daily counter reset");
         
         try {
-            List<Doctor> allDoctors = doctorRepository.findAll();
-            
-            for (Doctor doctor : allDoctors) {
-                doctor.setTodayAppointments(0);
-                // Recalculate will update with actual appointments for today
-                workloadService.loadDoctorWorkload(doctor.getId());
-            }
-            
-            log.info("Daily counter reset completed for {} doctors", allDoctors.size());
+            int updated = workloadService.resetDailyAppointmentCounters();
+            log.info("Daily counter reset completed for {} doctors", updated);
         } catch (Exception e) {
             log.error("Error in daily counter reset: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * Drop the appointment slot claims of past cells; a claim only matters while its booking
+     * transaction runs and past times cannot be booked
+     */
+    @Scheduled(cron = "0 15 0 * * *") // Daily at 00:15
+    public void purgePastSlotClaims() {
+        try {
+            int deleted = appointmentSlotClaimRepository.deleteClaimsBefore(LocalDateTime.now().minusHours(1));
+            log.info("Purged {} past appointment slot claims", deleted);
+        } catch (Exception e) {
+            log.error("Error purging appointment slot claims: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * Automatically disable emergency mode after configured hours
      */
     @Scheduled(fixedRate = 3600000) // Every hour
-    @Transactional
     public void autoDisableEmergencyMode() {
         if (!config.getEmergencyModeAutoDisable()) {
             return;
@@ -78,24 +84,10 @@ public class WorkloadScheduledTasks {
         log.debug("Checking for emergency modes to auto-disable");
         
         try {
-            List<Doctor> emergencyDoctors = doctorRepository.findDoctorsInEmergencyMode();
-            LocalDateTime cutoffTime = LocalDateTime.now().minusHours(config.getEmergencyModeMaxHours());
-            
-            int disabledCount = 0;
-            for (Doctor doctor : emergencyDoctors) {
-                if (doctor.getEmergencyModeEnabledAt() != null && 
-                    doctor.getEmergencyModeEnabledAt().isBefore(cutoffTime)) {
-                    
-                    workloadService.disableEmergencyMode(doctor.getId());
-                    disabledCount++;
-                    
-                    log.info("Auto-disabled emergency mode for doctor {} after {} hours", 
-                            doctor.getId(), config.getEmergencyModeMaxHours());
-                }
-            }
-            
+            int disabledCount = workloadService.disableExpiredEmergencyModes(config.getEmergencyModeMaxHours());
             if (disabledCount > 0) {
-                log.info("Auto-disabled emergency mode for {} doctors", disabledCount);
+                log.info("Auto-disabled emergency mode for {} doctors after {} hours",
+                        disabledCount, config.getEmergencyModeMaxHours());
             }
         } catch (Exception e) {
             log.error("Error in emergency mode auto-disable: {}", e.getMessage(), e);
@@ -103,28 +95,17 @@ public class WorkloadScheduledTasks {
     }
 
     /**
-     * Clean up stale workload data and recalculate
+     * Clean up stale workload data: recount today's appointments of doctors not updated recently
+     * (active cases are reconciled by the batch recalculation)
      */
     @Scheduled(fixedRate = 7200000) // Every 2 hours
-    @Transactional
     public void cleanupStaleWorkloadData() {
         log.debug("Checking for stale workload data");
         
         try {
-            LocalDateTime cutoffTime = LocalDateTime.now().minusHours(config.getWorkloadStaleHours());
-            List<Doctor> staleWorkloadDoctors = doctorRepository.findDoctorsWithOutdatedWorkload(cutoffTime);
-            
-            if (!staleWorkloadDoctors.isEmpty()) {
-                log.info("Found {} doctors with stale workload data, recalculating", staleWorkloadDoctors.size());
-                
-                for (Doctor doctor : staleWorkloadDoctors) {
-                    try {
-                        workloadService.loadDoctorWorkload(doctor.getId());
-                    } catch (Exception e) {
-                        log.warn("Failed to recalculate workload for doctor {}: {}", 
-                                doctor.getId(), e.getMessage());
-                    }
-                }
+            int updated = workloadService.refreshStaleWorkloads(config.getWorkloadStaleHours());
+            if (updated > 0) {
+                log.info("Refreshed stale workload data of {} doctors", updated);
             }
         } catch (Exception e) {
             log.error("Error in stale workload cleanup: {}", e.getMessage(), e);
@@ -170,15 +151,15 @@ public class WorkloadScheduledTasks {
             Double averageWorkload = doctorRepository.getAverageWorkloadPercentage();
             long totalDoctors = doctorRepository.count();
             long availableDoctors = doctorRepository.countAvailableDoctorsForNewCases();
-            List<Doctor> overloadedDoctors = doctorRepository.findOverloadedDoctors();
             
             log.info("Daily Workload Statistics:");
             log.info("- Total Doctors: {}", totalDoctors);
             log.info("- Available for New Cases: {}", availableDoctors);
             log.info("- Average Workload: {}%", averageWorkload != null ? String.format("%.2f", averageWorkload) : "N/A");
-            log.info("- Overloaded Doctors: {}", overloadedDoctors.size());
+            workloadHistoryService.getCurrentLoad().forEach((specialization, load) ->
+                    log.info("- {}: {}", specialization, load));
             
-            // Could store these statistics in a database table for historical tracking
+            // Hourly history per specialization is kept by WorkloadHistoryService (heat map, forecast)
             
         } catch (Exception e) {
             log.error("Error generating workload statistics: {}", e.getMessage(), e);
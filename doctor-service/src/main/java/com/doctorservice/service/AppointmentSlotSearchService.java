@@ -0,0 +1,199 @@
+package com.doctorservice.service;
+
+import com.commonlibrary.entity.VerificationStatus;
+import com.commonlibrary.exception.BusinessException;
+import com.doctorservice.config.WorkloadManagementConfig;
+import com.doctorservice.dto.SlotSearchRequestDto;
+import com.doctorservice.dto.SlotSearchResultDto;
+import com.doctorservice.entity.Doctor;
+import com.doctorservice.repository.DoctorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Earliest free appointment slots across many doctors in one request.
+ *
+ * Every matching doctor contributes an ascending iterator of free slot starts from their
+ * availability timeline; the iterators are merged through a priority queue keyed by the next
+ * start, so only as many slots are produced as are returned (plus one look-ahead per doctor).
+ * Ties on the same start go to the less loaded doctor.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AppointmentSlotSearchService {
+
+    private static final int SLOT_INTERVAL_MINUTES = 30;
+    private static final int BUFFER_MINUTES = 15;
+
+    private static final Comparator<SlotCursor> EARLIEST_FIRST = Comparator
+            .comparing((SlotCursor cursor) -> cursor.next)
+            .thenComparingDouble(cursor -> cursor.workloadPercentage)
+            .thenComparingLong(cursor -> cursor.doctor.getId());
+
+    private final DoctorRepository doctorRepository;
+    private final DoctorAvailabilityTimeline availabilityTimeline;
+    private final TimezoneService timezoneService;
+    private final WorkloadManagementConfig config;
+
+    /**
+     * Earliest free slots of the requested doctors (or of the verified doctors of the requested
+     * specialization) between fromDate and toDate in the requested timezone. Days on which a doctor
+     * already has their maximum daily appointments are skipped.
+     */
+    public List<SlotSearchResultDto> searchFreeSlots(SlotSearchRequestDto request) {
+        if ((request.getDoctorIds() == null || request.getDoctorIds().isEmpty())
+                && (request.getSpecialization() == null || request.getSpecialization().isBlank())) {
+            throw new BusinessException("Either a specialization or doctor IDs are required", HttpStatus.BAD_REQUEST);
+        }
+        if (request.getFromDate() == null || request.getToDate() == null) {
+            throw new BusinessException("From and to dates are required", HttpStatus.BAD_REQUEST);
+        }
+        if (request.getToDate().isBefore(request.getFromDate())) {
+            throw new BusinessException("To date must not be before from date", HttpStatus.BAD_REQUEST);
+        }
+        if (ChronoUnit.DAYS.between(request.getFromDate(), request.getToDate()) >= config.getMaxSearchDaysForSlot()) {
+            throw new BusinessException("Date range cannot exceed " + config.getMaxSearchDaysForSlot() + " days",
+                    HttpStatus.BAD_REQUEST);
+        }
+        String timezone = request.getTimezone() != null && !request.getTimezone().isBlank()
+                ? request.getTimezone() : ZoneId.systemDefault().getId();
+        if (!timezoneService.isValidTimezone(timezone)) {
+            throw new BusinessException("Invalid timezone: " + timezone, HttpStatus.BAD_REQUEST);
+        }
+
+        int duration = request.getDuration() != null ? request.getDuration() : 30;
+        int limit = request.getLimit() != null ? request.getLimit() : 20;
+
+        // The requested dates are local to the caller, the timelines are in server time
+        ZoneId requestZone = ZoneId.of(timezone);
+        ZoneId serverZone = ZoneId.systemDefault();
+        LocalDateTime windowStart = request.getFromDate().atStartOfDay(requestZone)
+                .withZoneSameInstant(serverZone).toLocalDateTime();
+        LocalDateTime windowEnd = request.getToDate().plusDays(1).atStartOfDay(requestZone)
+                .withZoneSameInstant(serverZone).toLocalDateTime();
+        LocalDate serverFromDate = windowStart.toLocalDate();
+        LocalDate serverToDate = windowEnd.minusNanos(1).toLocalDate();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime notBefore = now.isAfter(windowStart) ? now : windowStart.minusNanos(1);
+
+        List<Doctor> doctors = findDoctors(request);
+        PriorityQueue<SlotCursor> heads = new PriorityQueue<>(Math.max(1, doctors.size()), EARLIEST_FIRST);
+        for (Doctor doctor : doctors) {
+            Iterator<LocalDateTime> slots = availabilityTimeline.freeSlotIterator(doctor.getId(), serverFromDate,
+                    serverToDate, duration, SLOT_INTERVAL_MINUTES, BUFFER_MINUTES, notBefore);
+            SlotCursor cursor = new SlotCursor(doctor, slots,
+                    fullDays(doctor, serverFromDate, serverToDate));
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        List<SlotSearchResultDto> results = new ArrayList<>(Math.min(limit, 64));
+        while (results.size() < limit && !heads.isEmpty()) {
+            SlotCursor cursor = heads.poll();
+            if (!cursor.next.isBefore(windowEnd)) {
+                continue; // ascending, so nothing further from this doctor fits the window
+            }
+            results.add(toResult(cursor.doctor, cursor.next, duration, serverZone, requestZone));
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        log.debug("Slot search over {} doctors returned {} slots", doctors.size(), results.size());
+        return results;
+    }
+
+    private List<Doctor> findDoctors(SlotSearchRequestDto request) {
+        List<Doctor> doctors;
+        if (request.getDoctorIds() != null && !request.getDoctorIds().isEmpty()) {
+            doctors = doctorRepository.findAllById(new LinkedHashSet<>(request.getDoctorIds()));
+        } else {
+            doctors = doctorRepository.findByPrimarySpecializationAndVerificationStatus(
+                    request.getSpecialization(), VerificationStatus.VERIFIED);
+        }
+
+        return doctors.stream()
+                // isAvailable is the case-capacity flag (also off once today's appointments are
+                // full), not appointment availability; per-day limits and the timeline decide here
+                .filter(doctor -> doctor.getVerificationStatus() == VerificationStatus.VERIFIED)
+                .sorted(Comparator.comparingDouble(AppointmentSlotSearchService::workloadOf))
+                .limit(config.getSlotSearchMaxDoctors())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Days from fromDate to toDate on which the doctor has reached their maximum daily appointments
+     */
+    private Set<LocalDate> fullDays(Doctor doctor, LocalDate fromDate, LocalDate toDate) {
+        Integer maxDailyAppointments = doctor.getMaxDailyAppointments();
+        if (maxDailyAppointments == null) {
+            return Collections.emptySet();
+        }
+        Set<LocalDate> fullDays = new HashSet<>();
+        availabilityTimeline.countAppointmentsPerDay(doctor.getId(), fromDate, toDate).forEach((date, count) -> {
+            if (count >= maxDailyAppointments) {
+                fullDays.add(date);
+            }
+        });
+        return fullDays;
+    }
+
+    private SlotSearchResultDto toResult(Doctor doctor, LocalDateTime start, int duration,
+                                         ZoneId serverZone, ZoneId requestZone) {
+        LocalDateTime end = start.plusMinutes(duration);
+        return SlotSearchResultDto.builder()
+                .doctorId(doctor.getId())
+                .doctorName(doctor.getFullName())
+                .specialization(doctor.getPrimarySpecialization())
+                .startTime(start)
+                .endTime(end)
+                .localStartTime(start.atZone(serverZone).withZoneSameInstant(requestZone).toLocalDateTime())
+                .localEndTime(end.atZone(serverZone).withZoneSameInstant(requestZone).toLocalDateTime())
+                .timezone(requestZone.getId())
+                .duration(duration)
+                .build();
+    }
+
+    private static double workloadOf(Doctor doctor) {
+        return doctor.getWorkloadPercentage() != null ? doctor.getWorkloadPercentage() : 0.0;
+    }
+
+    /**
+     * A doctor's free-slot iterator with its next start pulled out for the merge
+     */
+    private static final class SlotCursor {
+        private final Doctor doctor;
+        private final double workloadPercentage;
+        private final Iterator<LocalDateTime> slots;
+        private final Set<LocalDate> fullDays;
+        private LocalDateTime next;
+
+        private SlotCursor(Doctor doctor, Iterator<LocalDateTime> slots, Set<LocalDate> fullDays) {
+            this.doctor = doctor;
+            this.workloadPercentage = workloadOf(doctor);
+            this.slots = slots;
+            this.fullDays = fullDays;
+        }
+
+        private boolean advance() {
+            while (slots.hasNext()) {
+                next = slots.next();
+                if (!fullDays.contains(next.toLocalDate())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
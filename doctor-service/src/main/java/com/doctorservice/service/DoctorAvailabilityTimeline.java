@@ -0,0 +1,675 @@
+package com.doctorservice.service;
+
+import com.commonlibrary.entity.AppointmentStatus;
+import com.doctorservice.config.WorkloadManagementConfig;
+import com.doctorservice.entity.Appointment;
+import com.doctorservice.entity.CalendarAvailability;
+import com.doctorservice.repository.AppointmentRepository;
+import com.doctorservice.repository.CalendarAvailabilityRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory per-doctor timeline of booked and blocked time, used for appointment conflict
+ * checks and free-slot enumeration.
+ *
+ * A doctor's timeline holds their appointments (all but CANCELLED and NO_SHOW) and blocked
+ * CalendarAvailability ranges, each sorted by start time, plus the non-blocked CalendarAvailability
+ * windows that replace the default 9:00-17:00 working hours on their date. It is loaded from the
+ * database on first use and kept current by onAppointmentSaved / onCalendarAvailabilitySaved after
+ * the writing transaction commits. Timelines not used for
+ * doctor.workload.availability-timeline-idle-minutes are dropped and reloaded on next use, and a
+ * timeline older than doctor.workload.availability-timeline-max-age-minutes is reloaded however
+ * often it is used, so writes made by other service instances are seen within that time.
+ * DoctorService repeats the appointment overlap check against the database when booking.
+ *
+ * A conflict check is a range query over the ranges starting in [from - longest range, to), so it
+ * costs O(log n) plus the few ranges in that window.
+ *
+ * Booking goes through reserve, a compare-and-set on the doctor's timeline: the conflict check and
+ * a short-lived reservation of the range happen under the timeline's lock, so of two concurrent
+ * requests for overlapping times only one gets through. The reservation is held until the booking
+ * transaction completes (the committed appointment takes its place) or, as a safety net, for
+ * doctor.workload.slot-reservation-ttl-seconds. A timeline that is reloaded (invalidated or aged)
+ * carries its held reservations over to the new one. Reservations are per service instance;
+ * across instances DoctorService claims the booked schedule cells in the database, which orders
+ * overlapping bookings only.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DoctorAvailabilityTimeline {
+
+    public static final LocalTime DEFAULT_DAY_START = LocalTime.of(9, 0);
+    public static final LocalTime DEFAULT_DAY_END = LocalTime.of(17, 0);
+    public static final int DEFAULT_APPOINTMENT_MINUTES = 30;
+
+    private static final List<AppointmentStatus> FREE_STATUSES =
+            List.of(AppointmentStatus.CANCELLED, AppointmentStatus.NO_SHOW);
+
+    private final AppointmentRepository appointmentRepository;
+    private final CalendarAvailabilityRepository calendarAvailabilityRepository;
+    private final WorkloadManagementConfig config;
+
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+
+    /**
+     * Per doctor, bumped on every write, so a timeline loaded from the database while the doctor's
+     * schedule changed is used once but not cached
+     */
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // Reservation ids are negative so they never collide with appointment ids in the same set
+    private final AtomicLong reservationSequence = new AtomicLong();
+
+    public enum RangeType { APPOINTMENT, RESERVATION, BLOCK }
+
+    /**
+     * A booked (appointment) or blocked time range, end exclusive
+     */
+    public record BookedRange(RangeType type, long id, LocalDateTime start, LocalDateTime end, String reason) {
+
+        public long durationMinutes() {
+            return Duration.between(start, end).toMinutes();
+        }
+    }
+
+    /**
+     * First appointment or block that conflicts with [start, end). Appointments keep
+     * bufferMinutes clear on both sides, blocks do not.
+     *
+     * @param excludeAppointmentId appointment to ignore (the one being rescheduled), may be null
+     */
+    public Optional<BookedRange> findConflict(Long doctorId, LocalDateTime start, LocalDateTime end,
+                                              int bufferMinutes, Long excludeAppointmentId) {
+        Timeline timeline = timelineFor(doctorId, start.minusMinutes(bufferMinutes));
+        synchronized (timeline) {
+            timeline.releaseExpiredReservations(System.currentTimeMillis());
+            BookedRange conflict = timeline.firstOverlap(timeline.appointments, timeline.maxAppointmentMinutes,
+                    start.minusMinutes(bufferMinutes), end.plusMinutes(bufferMinutes), excludeAppointmentId);
+            if (conflict == null) {
+                conflict = timeline.firstOverlap(timeline.blocks, timeline.maxBlockMinutes, start, end, null);
+            }
+            return Optional.ofNullable(conflict);
+        }
+    }
+
+    /**
+     * Check [start, end) like findConflict and, if it is free, reserve it until the current
+     * transaction completes, in one step under the doctor's timeline lock.
+     *
+     * @return the conflicting range, or empty if the range is now reserved for the caller
+     */
+    public Optional<BookedRange> reserve(Long doctorId, LocalDateTime start, LocalDateTime end,
+                                         int bufferMinutes, Long excludeAppointmentId) {
+        Timeline reserved = null;
+        BookedRange reservation = null;
+        while (reserved == null) {
+            Timeline timeline = cachedTimeline(doctorId);
+            synchronized (timeline) {
+                // Replaced since it was looked up; its reservations already moved to the new one
+                if (timeline.retired) {
+                    continue;
+                }
+                timeline.releaseExpiredReservations(System.currentTimeMillis());
+                BookedRange conflict = timeline.firstOverlap(timeline.appointments, timeline.maxAppointmentMinutes,
+                        start.minusMinutes(bufferMinutes), end.plusMinutes(bufferMinutes), excludeAppointmentId);
+                if (conflict == null) {
+                    conflict = timeline.firstOverlap(timeline.blocks, timeline.maxBlockMinutes, start, end, null);
+                }
+                if (conflict != null) {
+                    return Optional.of(conflict);
+                }
+                reservation = new BookedRange(RangeType.RESERVATION, -reservationSequence.incrementAndGet(),
+                        start, end, null);
+                timeline.addReservation(reservation,
+                        System.currentTimeMillis() + config.getSlotReservationTtlSeconds() * 1000L);
+                reserved = timeline;
+            }
+        }
+
+        // The committed appointment is added in afterCommit, which runs before afterCompletion
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Timeline reservedTimeline = reserved;
+            long reservationId = reservation.id();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (reservedTimeline) {
+                        reservedTimeline.removeAppointment(reservationId);
+                    }
+                    // The reservation may have been carried over to a reloaded timeline
+                    Timeline current = timelines.get(doctorId);
+                    if (current != null && current != reservedTimeline) {
+                        synchronized (current) {
+                            current.removeAppointment(reservationId);
+                        }
+                    }
+                }
+            });
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Free appointment start times per day from fromDate to toDate (inclusive), days without a
+     * free start left out. See freeSlotIterator.
+     */
+    public SortedMap<LocalDate, List<LocalDateTime>> findFreeSlots(Long doctorId, LocalDate fromDate, LocalDate toDate,
+                                                                   int durationMinutes, int slotIntervalMinutes,
+                                                                   int bufferMinutes, LocalDateTime notBefore) {
+        SortedMap<LocalDate, List<LocalDateTime>> freeSlots = new TreeMap<>();
+        Iterator<LocalDateTime> slots = freeSlotIterator(doctorId, fromDate, toDate, durationMinutes,
+                slotIntervalMinutes, bufferMinutes, notBefore);
+        while (slots.hasNext()) {
+            LocalDateTime slot = slots.next();
+            freeSlots.computeIfAbsent(slot.toLocalDate(), date -> new ArrayList<>()).add(slot);
+        }
+        return freeSlots;
+    }
+
+    /**
+     * Free appointment start times from fromDate to toDate (inclusive) in ascending order,
+     * produced a day at a time.
+     *
+     * Candidate starts are every slotIntervalMinutes from the start of each working window of the
+     * day (the doctor's non-blocked calendar availability for that date, else 9:00-17:00) while
+     * the appointment still ends within the window. A start is free when it is after notBefore
+     * and findConflict would find nothing. The iterator works on a copy of the timeline taken
+     * when it is created.
+     */
+    public Iterator<LocalDateTime> freeSlotIterator(Long doctorId, LocalDate fromDate, LocalDate toDate,
+                                                    int durationMinutes, int slotIntervalMinutes,
+                                                    int bufferMinutes, LocalDateTime notBefore) {
+        if (toDate.isBefore(fromDate)) {
+            return Collections.emptyIterator();
+        }
+
+        LocalDateTime rangeStart = fromDate.atStartOfDay();
+        LocalDateTime rangeEnd = toDate.plusDays(1).atStartOfDay();
+        Timeline timeline = timelineFor(doctorId, rangeStart.minusMinutes(bufferMinutes));
+
+        NavigableMap<LocalDateTime, LocalDateTime> busy;
+        Map<LocalDate, List<LocalTime[]>> windows;
+        synchronized (timeline) {
+            timeline.releaseExpiredReservations(System.currentTimeMillis());
+            busy = timeline.busyUnion(rangeStart, rangeEnd, bufferMinutes);
+            windows = timeline.workingWindows(fromDate, toDate);
+        }
+        return new FreeSlotIterator(busy, windows, fromDate, toDate, durationMinutes,
+                Math.max(1, slotIntervalMinutes), notBefore);
+    }
+
+    /**
+     * Appointments (and held reservations) per day from fromDate to toDate, by start date; days
+     * without any are left out
+     */
+    public Map<LocalDate, Integer> countAppointmentsPerDay(Long doctorId, LocalDate fromDate, LocalDate toDate) {
+        LocalDateTime rangeStart = fromDate.atStartOfDay();
+        Timeline timeline = timelineFor(doctorId, rangeStart);
+        Map<LocalDate, Integer> counts = new HashMap<>();
+        synchronized (timeline) {
+            timeline.releaseExpiredReservations(System.currentTimeMillis());
+            for (BookedRange range : Timeline.startingBetween(timeline.appointments, rangeStart,
+                    toDate.plusDays(1).atStartOfDay())) {
+                counts.merge(range.start().toLocalDate(), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Apply an appointment write to the doctor's timeline once the current transaction commits
+     */
+    public void onAppointmentSaved(Appointment appointment) {
+        if (appointment == null || appointment.getId() == null || appointment.getDoctor() == null) {
+            return;
+        }
+        Long doctorId = appointment.getDoctor().getId();
+        long appointmentId = appointment.getId();
+        boolean occupies = appointment.getStatus() != null && !FREE_STATUSES.contains(appointment.getStatus());
+        BookedRange range = occupies ? toRange(appointment) : null;
+        afterCommit(() -> {
+            generationOf(doctorId).incrementAndGet();
+            Timeline timeline = timelines.get(doctorId);
+            if (timeline != null) {
+                synchronized (timeline) {
+                    timeline.removeAppointment(appointmentId);
+                    if (range != null) {
+                        timeline.addAppointment(range);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Apply a calendar availability or block write to the doctor's timeline once the current
+     * transaction commits
+     */
+    public void onCalendarAvailabilitySaved(CalendarAvailability availability) {
+        if (availability == null || availability.getId() == null || availability.getDoctor() == null) {
+            return;
+        }
+        Long doctorId = availability.getDoctor().getId();
+        afterCommit(() -> {
+            generationOf(doctorId).incrementAndGet();
+            Timeline timeline = timelines.get(doctorId);
+            if (timeline != null) {
+                synchronized (timeline) {
+                    timeline.addCalendarAvailability(availability);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reload the doctor's timeline on next use; held reservations are carried over
+     */
+    public void invalidate(Long doctorId) {
+        generationOf(doctorId).incrementAndGet();
+        Timeline timeline = timelines.get(doctorId);
+        if (timeline != null) {
+            drop(doctorId, timeline, true);
+        }
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        timelines.forEach((doctorId, timeline) -> drop(doctorId, timeline, true));
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("loadedDoctors", timelines.size());
+        statistics.put("idleMinutes", config.getAvailabilityTimelineIdleMinutes());
+        statistics.put("maxAgeMinutes", config.getAvailabilityTimelineMaxAgeMinutes());
+        return statistics;
+    }
+
+    /**
+     * Drop timelines not used recently or past their maximum age; they are reloaded on next use
+     */
+    @Scheduled(fixedDelayString = "#{${doctor.workload.availability-timeline-idle-minutes:30} * 60000}")
+    public void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - config.getAvailabilityTimelineIdleMinutes() * 60000L;
+        int before = timelines.size();
+        timelines.forEach((doctorId, timeline) -> {
+            if (timeline.lastUsed < idleBefore || isStale(timeline)) {
+                drop(doctorId, timeline, false);
+            }
+        });
+        if (before != timelines.size()) {
+            log.debug("Evicted {} idle availability timelines", before - timelines.size());
+        }
+    }
+
+    /**
+     * Invalidated, or older than the maximum age
+     */
+    private boolean isStale(Timeline timeline) {
+        return timeline.invalidated || timeline.loadedAt
+                < System.currentTimeMillis() - config.getAvailabilityTimelineMaxAgeMinutes() * 60000L;
+    }
+
+    /**
+     * Remove a cached timeline. One still holding reservations stays cached; with markInvalid it
+     * is flagged so its next use reloads it and carries the reservations over.
+     */
+    private void drop(Long doctorId, Timeline timeline, boolean markInvalid) {
+        synchronized (timeline) {
+            timeline.releaseExpiredReservations(System.currentTimeMillis());
+            if (timeline.reservationExpiry.isEmpty()) {
+                timeline.retired = true;
+                timelines.remove(doctorId, timeline);
+            } else if (markInvalid) {
+                timeline.invalidated = true;
+            }
+        }
+    }
+
+    /**
+     * The doctor's cached timeline, or a one-off timeline when the query reaches before what the
+     * cached one covers
+     */
+    private Timeline timelineFor(Long doctorId, LocalDateTime queryFrom) {
+        if (queryFrom.isBefore(LocalDate.now().minusDays(1).atStartOfDay())) {
+            return load(doctorId, queryFrom.minusDays(1));
+        }
+        Timeline timeline = cachedTimeline(doctorId);
+        if (queryFrom.isBefore(timeline.loadedFrom.plusMinutes(timeline.maxAppointmentMinutes))) {
+            return load(doctorId, queryFrom.minusDays(1));
+        }
+        return timeline;
+    }
+
+    /**
+     * The doctor's cached timeline, loading (or reloading a stale one) until a load is not raced
+     * by a write; reservations must go to the one timeline every request sees, so a reload takes
+     * over the reservations of the timeline it replaces
+     */
+    private Timeline cachedTimeline(Long doctorId) {
+        AtomicLong generation = generationOf(doctorId);
+        while (true) {
+            Timeline timeline = timelines.get(doctorId);
+            if (timeline != null && !isStale(timeline)) {
+                timeline.lastUsed = System.currentTimeMillis();
+                return timeline;
+            }
+            long loadGeneration = generation.get();
+            Timeline loaded = load(doctorId, LocalDate.now().minusDays(1).atStartOfDay());
+            if (generation.get() != loadGeneration) {
+                continue;
+            }
+            if (timeline == null) {
+                Timeline existing = timelines.putIfAbsent(doctorId, loaded);
+                return existing != null ? existing : loaded;
+            }
+            synchronized (timeline) {
+                loaded.carryReservationsFrom(timeline, System.currentTimeMillis());
+                if (timelines.replace(doctorId, timeline, loaded)) {
+                    timeline.retired = true;
+                    return loaded;
+                }
+            }
+            // Replaced by a concurrent reload; use that one
+        }
+    }
+
+    private AtomicLong generationOf(Long doctorId) {
+        return generations.computeIfAbsent(doctorId, id -> new AtomicLong());
+    }
+
+    private Timeline load(Long doctorId, LocalDateTime from) {
+        Timeline timeline = new Timeline(from);
+        for (Appointment appointment : appointmentRepository
+                .findByDoctorIdAndScheduledTimeGreaterThanEqualAndStatusNotIn(doctorId, from, FREE_STATUSES)) {
+            timeline.addAppointment(toRange(appointment));
+        }
+        for (CalendarAvailability availability : calendarAvailabilityRepository
+                .findByDoctorIdAndAvailableDateGreaterThanEqual(doctorId, from.toLocalDate())) {
+            timeline.addCalendarAvailability(availability);
+        }
+        log.debug("Loaded availability timeline for doctor {} from {}: {} appointments, {} blocks",
+                doctorId, from, timeline.appointments.size(), timeline.blocks.size());
+        return timeline;
+    }
+
+    private BookedRange toRange(Appointment appointment) {
+        int duration = appointment.getDuration() != null ? appointment.getDuration() : DEFAULT_APPOINTMENT_MINUTES;
+        return new BookedRange(RangeType.APPOINTMENT, appointment.getId(), appointment.getScheduledTime(),
+                appointment.getScheduledTime().plusMinutes(duration), null);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Walks the candidate starts of one day at a time, keeping those clear of the busy union
+     */
+    private static final class FreeSlotIterator implements Iterator<LocalDateTime> {
+
+        private static final List<LocalTime[]> DEFAULT_WINDOWS =
+                List.<LocalTime[]>of(new LocalTime[]{DEFAULT_DAY_START, DEFAULT_DAY_END});
+
+        private final NavigableMap<LocalDateTime, LocalDateTime> busy;
+        private final Map<LocalDate, List<LocalTime[]>> windows;
+        private final LocalDate toDate;
+        private final int durationMinutes;
+        private final int slotIntervalMinutes;
+        private final LocalDateTime notBefore;
+
+        private LocalDate nextDate;
+        private Iterator<LocalDateTime> day = Collections.emptyIterator();
+
+        private FreeSlotIterator(NavigableMap<LocalDateTime, LocalDateTime> busy,
+                                 Map<LocalDate, List<LocalTime[]>> windows, LocalDate fromDate, LocalDate toDate,
+                                 int durationMinutes, int slotIntervalMinutes, LocalDateTime notBefore) {
+            this.busy = busy;
+            this.windows = windows;
+            this.toDate = toDate;
+            this.durationMinutes = durationMinutes;
+            this.slotIntervalMinutes = slotIntervalMinutes;
+            this.notBefore = notBefore;
+            this.nextDate = fromDate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!day.hasNext() && !nextDate.isAfter(toDate)) {
+                day = freeStarts(nextDate).iterator();
+                nextDate = nextDate.plusDays(1);
+            }
+            return day.hasNext();
+        }
+
+        @Override
+        public LocalDateTime next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return day.next();
+        }
+
+        private NavigableSet<LocalDateTime> freeStarts(LocalDate date) {
+            // Calendar windows of a day may overlap, the set keeps the starts unique and ordered
+            NavigableSet<LocalDateTime> free = new TreeSet<>();
+            for (LocalTime[] window : windows.getOrDefault(date, DEFAULT_WINDOWS)) {
+                LocalDateTime windowEnd = date.atTime(window[1]);
+                for (LocalDateTime slot = date.atTime(window[0]);
+                     !slot.plusMinutes(durationMinutes).isAfter(windowEnd);
+                     slot = slot.plusMinutes(slotIntervalMinutes)) {
+
+                    if (notBefore != null && !slot.isAfter(notBefore)) {
+                        continue;
+                    }
+                    // busy is disjoint and sorted, so the last range starting before the slot ends
+                    // is the only one that can still cover the slot
+                    Map.Entry<LocalDateTime, LocalDateTime> before = busy.lowerEntry(slot.plusMinutes(durationMinutes));
+                    if (before == null || !before.getValue().isAfter(slot)) {
+                        free.add(slot);
+                    }
+                }
+            }
+            return free;
+        }
+    }
+
+    /**
+     * One doctor's ranges; guarded by synchronizing on the instance
+     */
+    private static final class Timeline {
+
+        private static final Comparator<BookedRange> BY_START = Comparator
+                .comparing(BookedRange::start)
+                .thenComparingLong(BookedRange::id);
+
+        private final LocalDateTime loadedFrom;
+        private final NavigableSet<BookedRange> appointments = new TreeSet<>(BY_START);
+        private final Map<Long, BookedRange> appointmentsById = new HashMap<>();
+        private final Map<Long, Long> reservationExpiry = new HashMap<>();
+        private final NavigableSet<BookedRange> blocks = new TreeSet<>(BY_START);
+        private final Map<Long, BookedRange> blocksById = new HashMap<>();
+        private final NavigableMap<LocalDate, Map<Long, LocalTime[]>> windowsByDate = new TreeMap<>();
+
+        // Longest range ever added; bounds how far back a range overlapping a query can start
+        private long maxAppointmentMinutes;
+        private long maxBlockMinutes;
+
+        private final long loadedAt = System.currentTimeMillis();
+        private volatile long lastUsed = loadedAt;
+
+        // Set when the timeline must be reloaded on next use (it still holds reservations)
+        private volatile boolean invalidated;
+
+        // Set under the lock once the timeline left the cache; reserve must not add to it then
+        private boolean retired;
+
+        private Timeline(LocalDateTime loadedFrom) {
+            this.loadedFrom = loadedFrom;
+        }
+
+        private void addAppointment(BookedRange range) {
+            appointments.add(range);
+            appointmentsById.put(range.id(), range);
+            maxAppointmentMinutes = Math.max(maxAppointmentMinutes, range.durationMinutes());
+        }
+
+        private void removeAppointment(long appointmentId) {
+            BookedRange previous = appointmentsById.remove(appointmentId);
+            if (previous != null) {
+                appointments.remove(previous);
+            }
+            reservationExpiry.remove(appointmentId);
+        }
+
+        /**
+         * Reservations sit with the appointments, so every conflict check and slot search sees them
+         */
+        private void addReservation(BookedRange reservation, long expiresAt) {
+            addAppointment(reservation);
+            reservationExpiry.put(reservation.id(), expiresAt);
+        }
+
+        /**
+         * Take over the unexpired reservations of the timeline this one replaces
+         */
+        private void carryReservationsFrom(Timeline previous, long now) {
+            previous.reservationExpiry.forEach((id, expiresAt) -> {
+                BookedRange reservation = previous.appointmentsById.get(id);
+                if (reservation != null && expiresAt >= now) {
+                    addReservation(reservation, expiresAt);
+                }
+            });
+        }
+
+        private void releaseExpiredReservations(long now) {
+            if (reservationExpiry.isEmpty()) {
+                return;
+            }
+            List<Long> expired = new ArrayList<>();
+            reservationExpiry.forEach((id, expiresAt) -> {
+                if (expiresAt < now) {
+                    expired.add(id);
+                }
+            });
+            expired.forEach(this::removeAppointment);
+        }
+
+        private void addCalendarAvailability(CalendarAvailability availability) {
+            BookedRange previous = blocksById.remove(availability.getId());
+            if (previous != null) {
+                blocks.remove(previous);
+            }
+            windowsByDate.values().forEach(windows -> windows.remove(availability.getId()));
+
+            if (Boolean.TRUE.equals(availability.getIsBlocked())) {
+                BookedRange block = new BookedRange(RangeType.BLOCK, availability.getId(),
+                        availability.getAvailableDate().atTime(availability.getStartTime()),
+                        availability.getAvailableDate().atTime(availability.getEndTime()),
+                        availability.getBlockReason());
+                blocks.add(block);
+                blocksById.put(block.id(), block);
+                maxBlockMinutes = Math.max(maxBlockMinutes, block.durationMinutes());
+            } else {
+                windowsByDate.computeIfAbsent(availability.getAvailableDate(), date -> new TreeMap<>())
+                        .put(availability.getId(), new LocalTime[]{availability.getStartTime(), availability.getEndTime()});
+            }
+        }
+
+        /**
+         * First range of the set overlapping [from, to), by start time
+         */
+        private BookedRange firstOverlap(NavigableSet<BookedRange> ranges, long maxMinutes,
+                                         LocalDateTime from, LocalDateTime to, Long excludeId) {
+            for (BookedRange range : startingBetween(ranges, from.minusMinutes(maxMinutes), to)) {
+                if (range.end().isAfter(from) && (excludeId == null || range.id() != excludeId)) {
+                    return range;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Union of everything a slot inside [from, to) must not touch, as disjoint start -> end
+         * ranges: appointments widened by bufferMinutes on both sides, blocks as they are
+         */
+        private NavigableMap<LocalDateTime, LocalDateTime> busyUnion(LocalDateTime from, LocalDateTime to,
+                                                                     int bufferMinutes) {
+            List<LocalDateTime[]> busy = new ArrayList<>();
+            for (BookedRange range : startingBetween(appointments,
+                    from.minusMinutes(maxAppointmentMinutes + bufferMinutes), to.plusMinutes(bufferMinutes))) {
+                busy.add(new LocalDateTime[]{range.start().minusMinutes(bufferMinutes), range.end().plusMinutes(bufferMinutes)});
+            }
+            for (BookedRange range : startingBetween(blocks, from.minusMinutes(maxBlockMinutes), to)) {
+                busy.add(new LocalDateTime[]{range.start(), range.end()});
+            }
+            busy.sort(Comparator.comparing(range -> range[0]));
+
+            NavigableMap<LocalDateTime, LocalDateTime> union = new TreeMap<>();
+            LocalDateTime[] current = null;
+            for (LocalDateTime[] range : busy) {
+                if (current != null && !range[0].isAfter(current[1])) {
+                    if (range[1].isAfter(current[1])) {
+                        current[1] = range[1];
+                    }
+                    continue;
+                }
+                if (current != null) {
+                    union.put(current[0], current[1]);
+                }
+                current = new LocalDateTime[]{range[0], range[1]};
+            }
+            if (current != null) {
+                union.put(current[0], current[1]);
+            }
+            return union;
+        }
+
+        /**
+         * Non-blocked calendar windows per date, sorted by start, for dates that have any
+         */
+        private Map<LocalDate, List<LocalTime[]>> workingWindows(LocalDate fromDate, LocalDate toDate) {
+            Map<LocalDate, List<LocalTime[]>> windows = new HashMap<>();
+            windowsByDate.subMap(fromDate, true, toDate, true).forEach((date, byId) -> {
+                if (!byId.isEmpty()) {
+                    List<LocalTime[]> dayWindows = new ArrayList<>(byId.values());
+                    dayWindows.sort(Comparator.comparing(window -> window[0]));
+                    windows.put(date, dayWindows);
+                }
+            });
+            return windows;
+        }
+
+        private static NavigableSet<BookedRange> startingBetween(NavigableSet<BookedRange> ranges,
+                                                                 LocalDateTime from, LocalDateTime to) {
+            if (!from.isBefore(to)) {
+                return Collections.emptyNavigableSet();
+            }
+            return ranges.subSet(new BookedRange(null, Long.MIN_VALUE, from, from, null), true,
+                    new BookedRange(null, Long.MIN_VALUE, to, to, null), false);
+        }
+    }
+}
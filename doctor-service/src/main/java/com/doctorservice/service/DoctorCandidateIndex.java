@@ -0,0 +1,161 @@
+package com.doctorservice.service;
+
+import com.commonlibrary.entity.VerificationStatus;
+import com.doctorservice.entity.Doctor;
+import com.doctorservice.repository.DoctorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of the doctors that can take a new case, per primary specialization,
+ * ordered least-loaded first (workload percentage ascending, rating descending).
+ *
+ * A doctor is a candidate when VERIFIED, available and below both their active case and daily
+ * appointment limits - the same rule as DoctorRepository.findAvailableDoctorsBySpecialization.
+ * Committed capacity writes call update(doctor); a periodic rebuild from the database catches any
+ * change made outside those paths.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DoctorCandidateIndex {
+
+    private static final Comparator<Candidate> LEAST_LOADED_FIRST = Comparator
+            .comparingDouble(Candidate::workloadPercentage)
+            .thenComparing(Comparator.comparingDouble(Candidate::rating).reversed())
+            .thenComparingLong(Candidate::doctorId);
+
+    private final DoctorRepository doctorRepository;
+
+    private volatile Snapshot snapshot = new Snapshot();
+
+    /**
+     * Doctor IDs of the least-loaded candidates for a specialization (all specializations if null)
+     */
+    public List<Long> findLeastLoaded(String specialization, int limit) {
+        Snapshot current = snapshot;
+        NavigableSet<Candidate> candidates = specialization == null
+                ? current.all
+                : current.bySpecialization.get(specialization);
+        if (candidates == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Long> doctorIds = new ArrayList<>(Math.min(limit, 64));
+        for (Candidate candidate : candidates) {
+            if (doctorIds.size() >= limit) {
+                break;
+            }
+            doctorIds.add(candidate.doctorId());
+        }
+        return doctorIds;
+    }
+
+    /**
+     * Re-position a doctor after a workload, availability or verification change
+     */
+    public void update(Doctor doctor) {
+        if (doctor == null || doctor.getId() == null) {
+            return;
+        }
+        Snapshot current = snapshot;
+        current.byDoctor.compute(doctor.getId(), (doctorId, previous) -> {
+            if (previous != null) {
+                current.remove(previous);
+            }
+            if (!isCandidate(doctor)) {
+                return null;
+            }
+            Candidate candidate = toCandidate(doctor);
+            current.add(candidate);
+            return candidate;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the index from the database and swap it in
+     */
+    @Scheduled(initialDelayString = "#{${doctor.workload.candidate-index-rebuild-interval-minutes:10} * 60000}",
+            fixedDelayString = "#{${doctor.workload.candidate-index-rebuild-interval-minutes:10} * 60000}")
+    public void rebuild() {
+        try {
+            Snapshot rebuilt = new Snapshot();
+            int skipped = 0;
+            for (Doctor doctor : doctorRepository.findbyVerificationStatusAndIsAvailable(VerificationStatus.VERIFIED, true)) {
+                try {
+                    if (isCandidate(doctor)) {
+                        Candidate candidate = toCandidate(doctor);
+                        rebuilt.byDoctor.put(candidate.doctorId(), candidate);
+                        rebuilt.add(candidate);
+                    }
+                } catch (Exception e) {
+                    // One bad row must not leave the whole index empty
+                    skipped++;
+                    log.warn("Skipping doctor {} in candidate index rebuild: {}", doctor.getId(), e.getMessage());
+                }
+            }
+            snapshot = rebuilt;
+            log.info("Doctor candidate index rebuilt: {} candidates in {} specializations ({} skipped)",
+                    rebuilt.byDoctor.size(), rebuilt.bySpecialization.size(), skipped);
+        } catch (Exception e) {
+            log.error("Failed to rebuild doctor candidate index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A missing counter or limit excludes the doctor, as the comparison does in SQL
+     */
+    private boolean isCandidate(Doctor doctor) {
+        return doctor.getVerificationStatus() == VerificationStatus.VERIFIED &&
+                Boolean.TRUE.equals(doctor.getIsAvailable()) &&
+                doctor.getPrimarySpecialization() != null &&
+                isBelow(doctor.getActiveCases(), doctor.getMaxActiveCases()) &&
+                isBelow(doctor.getTodayAppointments(), doctor.getMaxDailyAppointments());
+    }
+
+    private static boolean isBelow(Integer count, Integer limit) {
+        return count != null && limit != null && count < limit;
+    }
+
+    private Candidate toCandidate(Doctor doctor) {
+        return new Candidate(doctor.getId(), doctor.getPrimarySpecialization(),
+                doctor.getWorkloadPercentage() != null ? doctor.getWorkloadPercentage() : 0.0,
+                doctor.getRating() != null ? doctor.getRating() : 0.0);
+    }
+
+    private record Candidate(long doctorId, String specialization, double workloadPercentage, double rating) {
+    }
+
+    private static class Snapshot {
+        private final Map<Long, Candidate> byDoctor = new ConcurrentHashMap<>();
+        private final Map<String, ConcurrentSkipListSet<Candidate>> bySpecialization = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<Candidate> all = new ConcurrentSkipListSet<>(LEAST_LOADED_FIRST);
+
+        private void add(Candidate candidate) {
+            bySpecialization.computeIfAbsent(candidate.specialization(),
+                    specialization -> new ConcurrentSkipListSet<>(LEAST_LOADED_FIRST)).add(candidate);
+            all.add(candidate);
+        }
+
+        private void remove(Candidate candidate) {
+            NavigableSet<Candidate> candidates = bySpecialization.get(candidate.specialization());
+            if (candidates != null) {
+                candidates.remove(candidate);
+            }
+            all.remove(candidate);
+        }
+    }
+}
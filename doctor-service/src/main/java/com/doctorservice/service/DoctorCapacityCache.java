@@ -0,0 +1,128 @@
+package com.doctorservice.service;
+
+import com.commonlibrary.dto.DoctorCapacityDto;
+import com.doctorservice.config.WorkloadManagementConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived per-doctor capacity snapshots for the capacity API used during case matching.
+ *
+ * Every committed capacity write (DoctorCapacityChangedEvent) replaces the doctor's snapshot
+ * through put(doctorId, capacity); changes made outside those paths are picked up when the
+ * snapshot expires after doctor.workload.capacity-cache-ttl-seconds.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DoctorCapacityCache {
+
+    private final WorkloadManagementConfig config;
+
+    private final Map<Long, Entry> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every write. Each doctor remembers the sequence of their last write and
+     * invalidateAll raises a floor for everyone, so a snapshot loaded from the database while
+     * that doctor changed is not cached over the newer one - writes to other doctors do not
+     * discard it.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Long> lastWrite = new ConcurrentHashMap<>();
+    private volatile long writeFloor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Cached capacity of the doctor, or null if missing or expired
+     */
+    public DoctorCapacityDto get(Long doctorId) {
+        Entry entry = snapshots.get(doctorId);
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.capacity;
+    }
+
+    /**
+     * Generation to pass to putLoaded for a snapshot about to be read from the database
+     */
+    public long generation() {
+        return sequence.get();
+    }
+
+    /**
+     * Cache a snapshot read from the database, unless the doctor changed since loadGeneration
+     * (checked again after inserting, in case a write landed in between)
+     */
+    public void putLoaded(Long doctorId, DoctorCapacityDto capacity, long loadGeneration) {
+        Entry entry = new Entry(capacity, expiresAt());
+        if (isUnchangedSince(doctorId, loadGeneration)
+                && snapshots.putIfAbsent(doctorId, entry) == null
+                && !isUnchangedSince(doctorId, loadGeneration)) {
+            snapshots.remove(doctorId, entry);
+        }
+    }
+
+    /**
+     * Replace the doctor's snapshot after a ledger write
+     */
+    public void put(Long doctorId, DoctorCapacityDto capacity) {
+        lastWrite.put(doctorId, sequence.incrementAndGet());
+        snapshots.put(doctorId, new Entry(capacity, expiresAt()));
+        if (snapshots.size() > config.getCapacityCacheMaxEntries()) {
+            evictExpired();
+        }
+    }
+
+    public void invalidate(Long doctorId) {
+        lastWrite.put(doctorId, sequence.incrementAndGet());
+        snapshots.remove(doctorId);
+    }
+
+    public void invalidateAll() {
+        writeFloor = sequence.incrementAndGet();
+        // Every earlier per-doctor write is covered by the floor now
+        lastWrite.values().removeIf(written -> written <= writeFloor);
+        snapshots.clear();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("cachedDoctors", snapshots.size());
+        statistics.put("hits", hits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("ttlSeconds", config.getCapacityCacheTtlSeconds());
+        statistics.put("maxEntries", config.getCapacityCacheMaxEntries());
+        return statistics;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        snapshots.entrySet().removeIf(entry -> entry.getValue().expiresAt < now);
+        if (snapshots.size() > config.getCapacityCacheMaxEntries()) {
+            log.debug("Capacity cache over {} entries after eviction, clearing", config.getCapacityCacheMaxEntries());
+            invalidateAll();
+        }
+    }
+
+    private boolean isUnchangedSince(Long doctorId, long loadGeneration) {
+        return writeFloor <= loadGeneration && lastWrite.getOrDefault(doctorId, 0L) <= loadGeneration;
+    }
+
+    private long expiresAt() {
+        return System.currentTimeMillis() + config.getCapacityCacheTtlSeconds() * 1000L;
+    }
+
+    private record Entry(DoctorCapacityDto capacity, long expiresAt) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.doctorservice.service;
+
+import com.doctorservice.entity.Doctor;
+import org.hibernate.Hibernate;
+
+/**
+ * Published whenever a doctor's capacity fields were written. DoctorWorkloadService propagates
+ * it to the candidate index, the capacity snapshot cache, the workload history and
+ * patient-service once the writing transaction has committed.
+ */
+public record DoctorCapacityChangedEvent(Doctor doctor) {
+
+    public DoctorCapacityChangedEvent {
+        // The listener runs after commit on a detached entity; load the lazy collection now
+        Hibernate.initialize(doctor.getSubSpecializations());
+    }
+}
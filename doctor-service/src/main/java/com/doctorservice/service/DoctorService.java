@@ -13,6 +13,10 @@ import com.doctorservice.feign.PatientServiceClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
 import org.springframework.stereotype.Service;
@@ -23,6 +27,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -31,6 +36,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DoctorService {
 
+    // Cell size of appointment_slot_claims, the buffer kept between appointments
+    private static final int SLOT_CLAIM_MINUTES = 15;
+
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
     private final PatientServiceClient patientServiceClient;
@@ -42,6 +50,11 @@ public class DoctorService {
     private final PdfGenerationService pdfGenerationService;
     private final AppointmentReminderService appointmentReminderService;
     private final DoctorSettingsRepository doctorSettingsRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DoctorAvailabilityTimeline availabilityTimeline;
+    private final AppointmentSlotClaimRepository appointmentSlotClaimRepository;
+
+    private static final int MAX_BATCH_PAGE_SIZE = 500;
 
     @Transactional
     public DoctorProfileDto createProfile(Long userId, DoctorProfileDto dto) {
@@ -214,8 +227,9 @@ public class DoctorService {
                 // doctor.setAcceptsUrgentCases(dto.getAcceptsUrgentCases());
             }
 
-            // Save updated doctor
+            // Save updated doctor; capacity and specialization may have changed
             updatedDoctor = doctorRepository.save(doctor);
+            eventPublisher.publishEvent(new DoctorCapacityChangedEvent(updatedDoctor));
         }catch(Exception ex){
             log.error("Failed to update doctor's profile", ex);
             ex.printStackTrace();
@@ -380,8 +394,8 @@ public class DoctorService {
             throw new BusinessException("Cannot schedule appointment in the past", HttpStatus.BAD_REQUEST);
         }
 
-        // Validate appointment conflicts
-        validateAppointmentConflict(doctor.getId(), dto.getScheduledTime(), dto.getDuration(), null);
+        // Validate appointment conflicts and hold the slot until this transaction completes
+        reserveAppointmentSlot(doctor.getId(), dto.getScheduledTime(), dto.getDuration(), null);
 
         Appointment appointment = Appointment.builder()
                 .caseId(dto.getCaseId())
@@ -399,6 +413,7 @@ public class DoctorService {
         generateMeetingLink(appointment);
 
         Appointment saved = appointmentRepository.save(appointment);
+        availabilityTimeline.onAppointmentSaved(saved);
 
         //TODO
         // Here must be changed to Kafka instead of Feign
@@ -410,6 +425,10 @@ public class DoctorService {
         doctorEventProducer.SendCaseScheduleUpdate(doctor.getId(), dto.getPatientId(), dto.getCaseId(),
                 dto.getScheduledTime(), doctor.getFullName());
 
+        // Keep the doctor's capacity ledger current
+        doctorEventProducer.sendAppointmentWorkloadEvent("appointment-scheduled", saved.getId(),
+                doctor.getId(), saved.getScheduledTime());
+
         return saved;
     }
 
@@ -457,6 +476,65 @@ public class DoctorService {
                 .toList();
     }
 
+    /**
+     * Appointments of many patients in one indexed query: one page ordered by scheduled time,
+     * or in aggregate-only mode just the counts by status
+     *
+     * @param query Patient IDs, optional statuses and time range, page and size
+     * @return The page, or the counts by status
+     */
+    public AppointmentBatchResultDto queryPatientsAppointments(AppointmentBatchQueryDto query) {
+        List<Long> patientIds = query.getPatientIds() != null ? query.getPatientIds() : List.of();
+        List<AppointmentStatus> statuses = query.getStatuses() != null && !query.getStatuses().isEmpty()
+                ? query.getStatuses() : Arrays.asList(AppointmentStatus.values());
+        int page = query.getPage() != null ? Math.max(0, query.getPage()) : 0;
+        int size = query.getSize() != null ? Math.min(Math.max(1, query.getSize()), MAX_BATCH_PAGE_SIZE) : 100;
+
+        if (Boolean.TRUE.equals(query.getAggregateOnly())) {
+            Map<AppointmentStatus, Long> countsByStatus = new EnumMap<>(AppointmentStatus.class);
+            Map<AppointmentStatus, Long> upcomingCountsByStatus = new EnumMap<>(AppointmentStatus.class);
+            long total = 0;
+            if (!patientIds.isEmpty()) {
+                for (Object[] row : appointmentRepository.countPatientsAppointmentsByStatus(patientIds, statuses,
+                        query.getFromTime(), query.getToTime(), LocalDateTime.now())) {
+                    AppointmentStatus status = (AppointmentStatus) row[0];
+                    long count = ((Number) row[1]).longValue();
+                    countsByStatus.put(status, count);
+                    upcomingCountsByStatus.put(status, row[2] != null ? ((Number) row[2]).longValue() : 0L);
+                    total += count;
+                }
+            }
+            return AppointmentBatchResultDto.builder()
+                    .appointments(List.of())
+                    .totalElements(total)
+                    .countsByStatus(countsByStatus)
+                    .upcomingCountsByStatus(upcomingCountsByStatus)
+                    .build();
+        }
+
+        if (patientIds.isEmpty()) {
+            return AppointmentBatchResultDto.builder()
+                    .appointments(List.of())
+                    .page(page)
+                    .size(size)
+                    .totalElements(0L)
+                    .totalPages(0)
+                    .build();
+        }
+
+        Page<Appointment> appointments = appointmentRepository.findPatientsAppointments(patientIds, statuses,
+                query.getFromTime(), query.getToTime(),
+                PageRequest.of(page, size, Sort.by("scheduledTime").ascending().and(Sort.by("id"))));
+
+        return AppointmentBatchResultDto.builder()
+                .appointments(appointments.getContent().stream().map(this::convertToAppointmentDto).toList())
+                .page(page)
+                .size(size)
+                .totalElements(appointments.getTotalElements())
+                .totalPages(appointments.getTotalPages())
+                .build();
+    }
+
     public List<AppointmentDto> getDoctorUpcomingAppointments(Long doctorId) {
         log.info("Fetching upcoming appointments for doctor: {}", doctorId);
 
@@ -543,6 +621,7 @@ public class DoctorService {
         // Update appointment status
         appointment.setStatus(AppointmentStatus.COMPLETED);
         appointmentRepository.save(appointment);
+        availabilityTimeline.onAppointmentSaved(appointment);
         System.out.println("Creating Medical Report ============> updating appointment to COMPLETED");
 
         // No need to Update case status to closed that the report still in DRAFT state
@@ -727,6 +806,7 @@ public class DoctorService {
 
             // 6. Save the updated doctor
             Doctor savedDoctor = doctorRepository.save(doctor);
+            eventPublisher.publishEvent(new DoctorCapacityChangedEvent(savedDoctor));
 
             // 7. Log the availability change
             logAvailabilityChange(savedDoctor, previousAvailability, previousEmergencyMode, dto);
@@ -902,9 +982,9 @@ public class DoctorService {
         // Get active cases count from patient service
         Integer activeCases = 0;
         try {
-            var response = patientServiceClient.getDoctorActiveCases(doctor.getId()).getBody().getData();
-            if (response != null) {
-                activeCases = response.size();
+            var response = patientServiceClient.getDoctorsActiveCaseCounts(List.of(doctor.getId())).getBody().getData();
+            if (response != null && response.get(doctor.getId()) != null) {
+                activeCases = response.get(doctor.getId()).values().stream().mapToInt(Long::intValue).sum();
             }
         } catch (Exception e) {
             log.warn("Failed to get active cases count for doctor {}: {}", doctor.getId(), e.getMessage());
@@ -1142,7 +1222,7 @@ public class DoctorService {
 
         // Validate the new time doesn't conflict with other appointments
         // Exclude the current appointment from conflict check
-        validateAppointmentConflict(doctor.getId(), dto.getScheduledTime(),
+        reserveAppointmentSlot(doctor.getId(), dto.getScheduledTime(),
                 appointment.getDuration(), appointmentId);
 
         // Update appointment
@@ -1152,6 +1232,7 @@ public class DoctorService {
         appointment.setStatus(AppointmentStatus.RESCHEDULED);
 
         Appointment updated = appointmentRepository.save(appointment);
+        availabilityTimeline.onAppointmentSaved(updated);
 
         appointmentReminderService.cancelRemindersForAppointment(appointmentId);
 
@@ -1231,7 +1312,7 @@ public class DoctorService {
         Integer duration = dto.getDuration() != null ? dto.getDuration() : appointment.getDuration();
         log.debug("Checking for time conflicts with duration: {} minutes", duration);
 
-        validateAppointmentConflict(
+        reserveAppointmentSlot(
                 doctor.getId(),
                 dto.getScheduledTime(),
                 duration,
@@ -1261,6 +1342,7 @@ public class DoctorService {
         }
 
         Appointment updated = appointmentRepository.save(appointment);
+        availabilityTimeline.onAppointmentSaved(updated);
         log.info("Appointment updated: [appointmentId={}]", appointmentId);
         log.info("New time: {} (Reschedule count: {})",
                 dto.getScheduledTime(), updated.getRescheduleCount());
@@ -1292,6 +1374,10 @@ public class DoctorService {
             // Don't throw - notification failure shouldn't block the reschedule
         }
 
+        // Appointment may have moved across days, keep the doctor's capacity ledger current
+        doctorEventProducer.sendAppointmentWorkloadEvent("appointment-scheduled", updated.getId(),
+                doctor.getId(), updated.getScheduledTime(), oldScheduledTime);
+
         // ====================================================================
         // STEP 11: LOG COMPLETION
         // ====================================================================
@@ -1576,6 +1662,9 @@ public class DoctorService {
         }
         appointment.setStatus(AppointmentStatus.COMPLETED);
         appointmentRepository.save(appointment);
+        availabilityTimeline.onAppointmentSaved(appointment);
+        doctorEventProducer.sendAppointmentWorkloadEvent("appointment-completed", appointment.getId(),
+                doctor.getId(), appointment.getScheduledTime());
 
         System.out.println("completeAppointment ====>  Doctor:Id: " + doctor.getId() +
                 ", Appointment Id: "+ appointment.getId() +
@@ -1617,6 +1706,7 @@ public class DoctorService {
         }
         appointment.setStatus(AppointmentStatus.CONFIRMED);
         appointmentRepository.save(appointment);
+        availabilityTimeline.onAppointmentSaved(appointment);
 
         // CREATE REMINDERS for both doctor and patient
         appointmentReminderService.createRemindersForAppointment(appointment.getId());
@@ -1651,6 +1741,9 @@ public class DoctorService {
         appointment.setStatus(AppointmentStatus.CANCELLED);
         appointment.setRescheduleReason(reason);
         appointmentRepository.save(appointment);
+        availabilityTimeline.onAppointmentSaved(appointment);
+        doctorEventProducer.sendAppointmentWorkloadEvent("appointment-cancelled", appointmentId,
+                doctor.getId(), appointment.getScheduledTime());
 
         appointmentReminderService.cancelRemindersForAppointment(appointmentId);
 
@@ -1927,7 +2020,9 @@ public class DoctorService {
                 .isBlocked(false)
                 .build();
 
-        return calendarAvailabilityRepository.save(availability);
+        CalendarAvailability saved = calendarAvailabilityRepository.save(availability);
+        availabilityTimeline.onCalendarAvailabilitySaved(saved);
+        return saved;
     }
 
     // 24. Block Time Slot Implementation
@@ -1945,7 +2040,8 @@ public class DoctorService {
                 .blockReason(dto.getBlockReason())
                 .build();
 
-        calendarAvailabilityRepository.save(block);
+        CalendarAvailability saved = calendarAvailabilityRepository.save(block);
+        availabilityTimeline.onCalendarAvailabilitySaved(saved);
     }
 
     // 14. Update Verification Status (for admin use)
@@ -1960,6 +2056,7 @@ public class DoctorService {
         }
 
         doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new DoctorCapacityChangedEvent(doctor));
     }
 
 //    @Transactional
@@ -2251,15 +2348,11 @@ public class DoctorService {
         LocalDateTime appointmentEndTime = scheduledTime.plusMinutes(duration != null ? duration : 30);
         int bufferMinutes = 15;
 
-        List<Appointment> conflicts = appointmentRepository.findOverlappingAppointments(
-                doctorId,
-                scheduledTime.minusMinutes(bufferMinutes),
-                appointmentEndTime.plusMinutes(bufferMinutes),
-                excludeAppointmentId
-        );
+        Optional<DoctorAvailabilityTimeline.BookedRange> conflict = availabilityTimeline.findConflict(
+                doctorId, scheduledTime, appointmentEndTime, bufferMinutes, excludeAppointmentId);
 
-        boolean isAvailable = conflicts.isEmpty();
-        LocalDateTime conflictTime = conflicts.isEmpty() ? null : conflicts.get(0).getScheduledTime();
+        boolean isAvailable = conflict.isEmpty();
+        LocalDateTime conflictTime = conflict.map(DoctorAvailabilityTimeline.BookedRange::start).orElse(null);
 
         return SlotAvailabilityDto.builder()
                 .scheduledTime(scheduledTime)
@@ -2267,13 +2360,15 @@ public class DoctorService {
                 .available(isAvailable)
                 .message(isAvailable ?
                         "Time slot is available" :
-                        "Time slot conflicts with existing appointment")
+                        conflict.get().type() == DoctorAvailabilityTimeline.RangeType.BLOCK ?
+                                "Time slot falls within a blocked period" :
+                                "Time slot conflicts with existing appointment")
                 .conflictingAppointmentTime(conflictTime)
                 .build();
     }
 
     /**
-     * Validates that the new appointment doesn't conflict with existing appointments
+     * Validates that the new appointment doesn't conflict with existing appointments or blocked time
      *
      * @param doctorId The doctor's ID
      * @param scheduledTime The proposed appointment time
@@ -2283,71 +2378,102 @@ public class DoctorService {
      */
     private void validateAppointmentConflict(Long doctorId, LocalDateTime scheduledTime,
                                              Integer duration, Long excludeAppointmentId) {
-        // Calculate end time of the new appointment
         int appointmentDuration = duration != null ? duration : 30;
-        LocalDateTime appointmentEndTime = scheduledTime.plusMinutes(appointmentDuration);
 
         // Define buffer time (e.g., 15 minutes between appointments)
         int bufferMinutes = 15;
 
-        // Expand search range to include buffer time
-        LocalDateTime searchStartTime = scheduledTime.minusMinutes(appointmentDuration + bufferMinutes);
-        LocalDateTime searchEndTime = appointmentEndTime.plusMinutes(appointmentDuration + bufferMinutes);
-
-        // Get all potentially conflicting appointments within the expanded time range
-        List<Appointment> potentialConflicts = appointmentRepository
-                .findByDoctorIdAndScheduledTimeBetweenAndStatusNot(
-                        doctorId,
-                        searchStartTime,
-                        searchEndTime,
-                        AppointmentStatus.CANCELLED
-                );
+        // Appointments keep bufferMinutes clear on both sides, blocked time does not
+        throwIfConflict(availabilityTimeline.findConflict(doctorId, scheduledTime,
+                scheduledTime.plusMinutes(appointmentDuration), bufferMinutes, excludeAppointmentId));
+    }
 
-        // Filter out NO_SHOW appointments and the appointment being rescheduled
-        List<Appointment> existingAppointments = potentialConflicts.stream()
-                .filter(apt -> apt.getStatus() != AppointmentStatus.NO_SHOW)
-                .filter(apt -> excludeAppointmentId == null || !apt.getId().equals(excludeAppointmentId))
-                .collect(Collectors.toList());
+    /**
+     * Validates the new appointment time like validateAppointmentConflict and reserves it for the
+     * current transaction, so a concurrent booking of an overlapping time fails instead of both
+     * passing the check. Across service instances the booking claims the schedule cells it covers
+     * (appointment_slot_claims): an overlapping booking on another instance waits on the claim until
+     * this transaction ends and then sees this appointment in the database check. Bookings at other
+     * times of the same doctor claim other cells and do not wait.
+     *
+     * @param doctorId The doctor's ID
+     * @param scheduledTime The proposed appointment time
+     * @param duration The appointment duration in minutes
+     * @param excludeAppointmentId Optional appointment ID to exclude (for rescheduling)
+     * @throws BusinessException if there's a scheduling conflict
+     */
+    private void reserveAppointmentSlot(Long doctorId, LocalDateTime scheduledTime,
+                                        Integer duration, Long excludeAppointmentId) {
+        int appointmentDuration = duration != null ? duration : 30;
+        int bufferMinutes = 15;
 
-        // Check for conflicts with precise overlap detection
-        for (Appointment existing : existingAppointments) {
-            int existingDuration = existing.getDuration() != null ? existing.getDuration() : 30;
-            LocalDateTime existingEndTime = existing.getScheduledTime().plusMinutes(existingDuration);
-
-            // Check if appointments overlap (with buffer)
-            boolean hasConflict = checkTimeOverlap(
-                    scheduledTime.minusMinutes(bufferMinutes),
-                    appointmentEndTime.plusMinutes(bufferMinutes),
-                    existing.getScheduledTime(),
-                    existingEndTime
-            );
+        LocalDateTime endTime = scheduledTime.plusMinutes(appointmentDuration);
+        throwIfConflict(availabilityTimeline.reserve(doctorId, scheduledTime, endTime, bufferMinutes,
+                excludeAppointmentId));
+        // Two conflicting bookings cover a common cell of [start, end + buffer), so the later one
+        // waits here for the earlier transaction to end
+        appointmentSlotClaimRepository.claimCells(doctorId, slotClaimCell(scheduledTime),
+                slotClaimCell(endTime.plusMinutes(bufferMinutes).minusNanos(1)), SLOT_CLAIM_MINUTES,
+                LocalDateTime.now());
+        // The timeline may miss appointments written by another instance since it was loaded
+        throwIfConflict(findStoredAppointmentConflict(doctorId, scheduledTime, endTime, bufferMinutes,
+                excludeAppointmentId));
+    }
 
-            if (hasConflict) {
-                String conflictMessage = String.format(
-                        "Appointment time conflicts with an existing appointment at %s (Duration: %d minutes). " +
-                                "Please choose a different time slot.",
-                        existing.getScheduledTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
-                        existingDuration
-                );
-                throw new BusinessException(conflictMessage, HttpStatus.CONFLICT);
-            }
-        }
+    private static LocalDateTime slotClaimCell(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        return minute.minusMinutes(minute.getMinute() % SLOT_CLAIM_MINUTES);
     }
 
     /**
-     * Checks if two time ranges overlap
-     *
-     * @param start1 Start time of first appointment
-     * @param end1 End time of first appointment
-     * @param start2 Start time of second appointment
-     * @param end2 End time of second appointment
-     * @return true if the time ranges overlap
+     * First stored appointment (not cancelled or no-show) within bufferMinutes of [start, end),
+     * straight from the database. Candidates starting up to a day before are loaded and their
+     * own duration decides the overlap.
      */
-    private boolean checkTimeOverlap(LocalDateTime start1, LocalDateTime end1,
-                                     LocalDateTime start2, LocalDateTime end2) {
-        // Two time ranges overlap if:
-        // start1 < end2 AND start2 < end1
-        return start1.isBefore(end2) && start2.isBefore(end1);
+    private Optional<DoctorAvailabilityTimeline.BookedRange> findStoredAppointmentConflict(
+            Long doctorId, LocalDateTime start, LocalDateTime end, int bufferMinutes, Long excludeAppointmentId) {
+        LocalDateTime from = start.minusMinutes(bufferMinutes);
+        LocalDateTime to = end.plusMinutes(bufferMinutes);
+        return appointmentRepository.findPotentialOverlappingAppointments(doctorId, from.minusDays(1), to,
+                        excludeAppointmentId).stream()
+                .map(appointment -> new DoctorAvailabilityTimeline.BookedRange(
+                        DoctorAvailabilityTimeline.RangeType.APPOINTMENT, appointment.getId(),
+                        appointment.getScheduledTime(), appointment.getScheduledTime().plusMinutes(
+                        appointment.getDuration() != null ? appointment.getDuration()
+                                : DoctorAvailabilityTimeline.DEFAULT_APPOINTMENT_MINUTES), null))
+                .filter(range -> range.start().isBefore(to) && range.end().isAfter(from))
+                .findFirst();
+    }
+
+    private void throwIfConflict(Optional<DoctorAvailabilityTimeline.BookedRange> conflict) {
+        if (conflict.isEmpty()) {
+            return;
+        }
+
+        DoctorAvailabilityTimeline.BookedRange existing = conflict.get();
+        String conflictMessage;
+        if (existing.type() == DoctorAvailabilityTimeline.RangeType.BLOCK) {
+            conflictMessage = String.format(
+                    "Appointment time falls within a blocked period from %s to %s. " +
+                            "Please choose a different time slot.",
+                    existing.start().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+                    existing.end().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
+            );
+        } else if (existing.type() == DoctorAvailabilityTimeline.RangeType.RESERVATION) {
+            conflictMessage = String.format(
+                    "The time slot at %s is being booked by another request. " +
+                            "Please choose a different time slot.",
+                    existing.start().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
+            );
+        } else {
+            conflictMessage = String.format(
+                    "Appointment time conflicts with an existing appointment at %s (Duration: %d minutes). " +
+                            "Please choose a different time slot.",
+                    existing.start().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+                    existing.durationMinutes()
+            );
+        }
+        throw new BusinessException(conflictMessage, HttpStatus.CONFLICT);
     }
 
     /**
@@ -2360,63 +2486,30 @@ public class DoctorService {
      * @return List of available time slots
      */
     public List<LocalDateTime> getAvailableTimeSlots(Long doctorId, LocalDate date, Integer duration) {
-        List<LocalDateTime> availableSlots = new ArrayList<>();
-
-        // Define working hours (e.g., 9 AM to 5 PM)
-        LocalDateTime startTime = date.atTime(9, 0);
-        LocalDateTime endTime = date.atTime(17, 0);
-
-        // Get all appointments for this doctor on this date
-        LocalDateTime dayStart = date.atStartOfDay();
-        LocalDateTime dayEnd = date.atTime(23, 59, 59);
-
-        List<Appointment> dayAppointments = appointmentRepository
-                .findByDoctorIdAndScheduledTimeBetweenAndStatusNot(
-                        doctorId,
-                        dayStart,
-                        dayEnd,
-                        AppointmentStatus.CANCELLED
-                );
+        return getAvailableTimeSlots(doctorId, date, date, duration).getOrDefault(date, new ArrayList<>());
+    }
 
-        // Generate time slots (e.g., every 30 minutes)
-        LocalDateTime currentSlot = startTime;
-        int slotInterval = 30; // minutes
+    /**
+     * Get available time slots for a doctor over a date range (inclusive), in one timeline query
+     *
+     * Slots start every 30 minutes within the doctor's calendar availability for the day
+     * (9 AM to 5 PM when none is set), in the future, clear of blocked time and of existing
+     * appointments plus their buffer.
+     *
+     * @param doctorId The doctor's ID
+     * @param fromDate First date to check
+     * @param toDate Last date to check
+     * @param duration The desired appointment duration
+     * @return Available time slots per date, dates without any left out
+     */
+    public SortedMap<LocalDate, List<LocalDateTime>> getAvailableTimeSlots(Long doctorId, LocalDate fromDate,
+                                                                           LocalDate toDate, Integer duration) {
         int appointmentDuration = duration != null ? duration : 30;
+        int slotInterval = 30; // minutes
         int bufferMinutes = 15;
 
-        while (currentSlot.plusMinutes(appointmentDuration).isBefore(endTime)
-                || currentSlot.plusMinutes(appointmentDuration).equals(endTime)) {
-
-            LocalDateTime slotEndTime = currentSlot.plusMinutes(appointmentDuration);
-            boolean isAvailable = true;
-
-            // Check if this slot conflicts with any existing appointment
-            for (Appointment appointment : dayAppointments) {
-                LocalDateTime aptEndTime = appointment.getScheduledTime()
-                        .plusMinutes(appointment.getDuration() != null ? appointment.getDuration() : 30);
-
-                // Check overlap with buffer
-                boolean hasConflict = checkTimeOverlap(
-                        currentSlot.minusMinutes(bufferMinutes),
-                        slotEndTime.plusMinutes(bufferMinutes),
-                        appointment.getScheduledTime(),
-                        aptEndTime
-                );
-
-                if (hasConflict) {
-                    isAvailable = false;
-                    break;
-                }
-            }
-
-            if (isAvailable && currentSlot.isAfter(LocalDateTime.now())) {
-                availableSlots.add(currentSlot);
-            }
-
-            currentSlot = currentSlot.plusMinutes(slotInterval);
-        }
-
-        return availableSlots;
+        return availabilityTimeline.findFreeSlots(doctorId, fromDate, toDate, appointmentDuration,
+                slotInterval, bufferMinutes, LocalDateTime.now());
     }
 
     /**
@@ -1,27 +1,41 @@
 // DoctorWorkloadService.java
 package com.doctorservice.service;
 
+import com.commonlibrary.dto.DoctorCapacityDto;
 import com.commonlibrary.entity.AppointmentStatus;
-import com.commonlibrary.entity.VerificationStatus;
 import com.commonlibrary.exception.BusinessException;
 import com.doctorservice.dto.DoctorWorkloadDto;
 import com.doctorservice.dto.WorkloadMetricsDto;
 import com.doctorservice.entity.Doctor;
 import com.doctorservice.entity.Appointment;
 import com.doctorservice.feign.PatientServiceClient;
+import com.doctorservice.kafka.DoctorEventProducer;
 import com.doctorservice.repository.DoctorRepository;
 import com.doctorservice.repository.AppointmentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,9 +43,20 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DoctorWorkloadService {
 
+    private static final List<AppointmentStatus> COUNTED_APPOINTMENT_STATUSES = List.of(
+            AppointmentStatus.SCHEDULED, AppointmentStatus.CONFIRMED,
+            AppointmentStatus.RESCHEDULED, AppointmentStatus.COMPLETED);
+
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
     private final PatientServiceClient patientServiceClient;
+    private final DoctorCandidateIndex doctorCandidateIndex;
+    private final DoctorEventProducer doctorEventProducer;
+    private final PlatformTransactionManager transactionManager;
+    private final DoctorCapacityCache capacityCache;
+    private final WorkloadHistoryService workloadHistoryService;
+    private final DoctorAvailabilityTimeline availabilityTimeline;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${doctor.workload.max-active-cases:10}")
     private Integer maxActiveCases;
@@ -42,31 +67,44 @@ public class DoctorWorkloadService {
     @Value("${doctor.workload.buffer-minutes:15}")
     private Integer bufferMinutes;
 
+    @Value("${doctor.workload.recalculation-chunk-size:200}")
+    private Integer recalculationChunkSize;
+
+    @Value("${doctor.workload.recalculation-parallelism:4}")
+    private Integer recalculationParallelism;
+
+    private final AtomicBoolean recalculationRunning = new AtomicBoolean();
+    private volatile RecalculationProgress currentRecalculation;
+    private volatile RecalculationProgress lastRecalculation;
+    private final Map<String, Map<String, Object>> maintenanceRuns = new ConcurrentHashMap<>();
+
     /**
      * Calculate and update doctor's current workload
-     * This method should be called whenever case assignments change
+     * Pulls the active case count from patient-service and recounts appointments, so this is the
+     * reconciliation path for the capacity ledger. Regular case/appointment changes are applied
+     * as counter updates through applyActiveCasesSnapshot and applyAppointmentChange instead.
      */
     @Transactional
     public void loadDoctorWorkload(Long doctorId) {
         log.info("Loading workload for doctor: {}", doctorId);
 
         try {
+            // One conditional statement: the active case count is only replaced by a
+            // patient-service count at least as new as the snapshot already in the ledger
+            ActiveCaseCounts counts = fetchActiveCases(doctorId);
+            int updated = counts != null
+                    ? reconcileWorkload(doctorId, counts.counts().getOrDefault(doctorId, 0), counts.asOf())
+                    : recountTodayAppointments(doctorId);
+            if (updated == 0) {
+                throw new BusinessException("Doctor not found", HttpStatus.NOT_FOUND);
+            }
+
             Doctor doctor = doctorRepository.findById(doctorId)
                     .orElseThrow(() -> new BusinessException("Doctor not found", HttpStatus.NOT_FOUND));
-
-            // Calculate current workload metrics
-            WorkloadMetricsDto metrics = calculateWorkloadMetrics(doctorId);
-
-            // Update doctor availability based on workload
-            updateDoctorAvailabilityStatus(doctor, metrics);
-
-            // Update workload in doctor entity
-            updateDoctorWorkloadFields(doctor, metrics);
-
-            doctorRepository.save(doctor);
+            onCapacityChanged(doctor);
 
             log.info("Workload updated for doctor {}: Active cases: {}, Today's appointments: {}, Available: {}",
-                    doctorId, metrics.getActiveCases(), metrics.getTodayAppointments(), doctor.getIsAvailable());
+                    doctorId, doctor.getActiveCases(), doctor.getTodayAppointments(), doctor.getIsAvailable());
 
         } catch (Exception e) {
             log.error("Error loading workload for doctor {}: {}", doctorId, e.getMessage(), e);
@@ -74,6 +112,163 @@ public class DoctorWorkloadService {
         }
     }
 
+    /**
+     * Apply an active-case count pushed by patient-service to the capacity ledger.
+     * A single conditional update: snapshots older than the one already applied are ignored,
+     * so redelivered or out-of-order events cannot roll the ledger back. asOf is patient-service
+     * time; a snapshot without one cannot be ordered and triggers a reconciliation instead.
+     */
+    @Transactional
+    public void applyActiveCasesSnapshot(Long doctorId, Integer activeCases, Long asOf) {
+        if (asOf == null) {
+            loadDoctorWorkload(doctorId);
+            return;
+        }
+        int cases = activeCases != null ? activeCases : 0;
+        int updated = doctorRepository.applyActiveCases(doctorId, cases, asOf,
+                (double) cases / maxActiveCases * 50, maxActiveCases, maxDailyAppointments, LocalDateTime.now());
+
+        if (updated == 0) {
+            if (!doctorRepository.existsById(doctorId)) {
+                throw new BusinessException("Doctor not found", HttpStatus.NOT_FOUND);
+            }
+            log.debug("Ignoring stale active cases snapshot for doctor {} (as of {})", doctorId, asOf);
+            return;
+        }
+        publishCapacity(doctorId);
+
+        log.info("Capacity ledger updated for doctor {}: Active cases: {}", doctorId, cases);
+    }
+
+    /**
+     * Apply an appointment change to today's appointment counter: +1 when the appointment now
+     * falls on today, -1 when it no longer does (cancelled, or moved to another day).
+     * A single counter update with no appointment queries; loadDoctorWorkload corrects any drift.
+     *
+     * @param previousTime the appointment's time before the change, null for a new appointment
+     * @param newTime the appointment's time after the change, null when it was cancelled
+     */
+    @Transactional
+    public void applyAppointmentChange(Long doctorId, LocalDateTime previousTime, LocalDateTime newTime) {
+        int delta = (isToday(newTime) ? 1 : 0) - (isToday(previousTime) ? 1 : 0);
+        if (delta == 0) {
+            log.debug("Appointment change does not affect today's load of doctor {}", doctorId);
+            return;
+        }
+
+        int updated = doctorRepository.adjustTodayAppointments(doctorId, delta,
+                maxActiveCases, maxDailyAppointments, LocalDateTime.now());
+        if (updated == 0) {
+            throw new BusinessException("Doctor not found", HttpStatus.NOT_FOUND);
+        }
+        publishCapacity(doctorId);
+
+        log.info("Appointment load of doctor {} adjusted by {}", doctorId, delta);
+    }
+
+    /**
+     * Recount the doctor's appointments, keeping the ledger's active cases (for appointment
+     * events that do not carry the appointment time)
+     */
+    @Transactional
+    public void refreshAppointmentLoad(Long doctorId) {
+        if (recountTodayAppointments(doctorId) == 0) {
+            throw new BusinessException("Doctor not found", HttpStatus.NOT_FOUND);
+        }
+        publishCapacity(doctorId);
+
+        log.info("Appointment load updated for doctor {}", doctorId);
+    }
+
+    /**
+     * Capacity of a single doctor, from the capacity snapshot cache or the local ledger
+     */
+    public DoctorCapacityDto getDoctorCapacity(Long doctorId) {
+        DoctorCapacityDto cached = capacityCache.get(doctorId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = capacityCache.generation();
+        Doctor doctor = doctorRepository.findById(doctorId)
+                .orElseThrow(() -> new BusinessException("Doctor not found", HttpStatus.NOT_FOUND));
+        DoctorCapacityDto capacity = toCapacityDto(doctor);
+        capacityCache.putLoaded(doctorId, capacity, generation);
+        return capacity;
+    }
+
+    /**
+     * Capacity of many doctors in a single pass: cached snapshots are served as is, the rest
+     * is loaded from the local ledger in one query and cached.
+     * Unknown doctor IDs are reported as unavailable.
+     */
+    public CapacityBatch getDoctorCapacities(List<Long> doctorIds) {
+        DoctorCapacityDto[] capacities = new DoctorCapacityDto[doctorIds.size()];
+        Set<Long> missing = new HashSet<>();
+        for (int i = 0; i < capacities.length; i++) {
+            capacities[i] = capacityCache.get(doctorIds.get(i));
+            if (capacities[i] == null) {
+                missing.add(doctorIds.get(i));
+            }
+        }
+        if (missing.isEmpty()) {
+            return new CapacityBatch(Arrays.asList(capacities), capacities.length, 0);
+        }
+
+        long generation = capacityCache.generation();
+        Map<Long, DoctorCapacityDto> loaded = new HashMap<>();
+        for (Doctor doctor : doctorRepository.findAllById(missing)) {
+            DoctorCapacityDto capacity = toCapacityDto(doctor);
+            loaded.put(doctor.getId(), capacity);
+            capacityCache.putLoaded(doctor.getId(), capacity, generation);
+        }
+
+        int recomputed = 0;
+        for (int i = 0; i < capacities.length; i++) {
+            if (capacities[i] != null) {
+                continue;
+            }
+            Long doctorId = doctorIds.get(i);
+            capacities[i] = loaded.get(doctorId);
+            if (capacities[i] == null) {
+                log.error("Error getting capacity for doctor {}: Doctor not found", doctorId);
+                capacities[i] = DoctorCapacityDto.builder()
+                        .doctorId(doctorId)
+                        .isAvailable(false)
+                        .workloadPercentage(100.0)
+                        .build();
+            }
+            recomputed++;
+        }
+        return new CapacityBatch(Arrays.asList(capacities), capacities.length - recomputed, recomputed);
+    }
+
+    /**
+     * Capacities of a batch lookup, with how many came from the snapshot cache
+     */
+    public record CapacityBatch(List<DoctorCapacityDto> capacities, int cached, int recomputed) {
+    }
+
+    private DoctorCapacityDto toCapacityDto(Doctor doctor) {
+        return DoctorCapacityDto.builder()
+                .doctorId(doctor.getId())
+                .fullName(doctor.getFullName())
+                .primarySpecialization(doctor.getPrimarySpecialization())
+                .subSpecializations(doctor.getSubSpecializations())
+                .activeCases(doctor.getActiveCases())
+                .maxActiveCases(doctor.getMaxActiveCases())
+                .todayAppointments(doctor.getTodayAppointments())
+                .maxDailyAppointments(doctor.getMaxDailyAppointments())
+                .workloadPercentage(doctor.getWorkloadPercentage())
+                .consultationCount(doctor.getConsultationCount())
+                .averageRating(doctor.getRating())
+                .completionRate(doctor.getCompletionRate())
+                .yearsOfExperience(doctor.getYearsOfExperience())
+                .isAvailable(doctor.getIsAvailable())
+                .emergencyMode(doctor.getEmergencyMode())
+                .emergencyModeReason(doctor.getEmergencyModeReason())
+                .build();
+    }
+
     /**
      * Check if doctor is available at a specific time
      */
@@ -91,7 +286,7 @@ public class DoctorWorkloadService {
             }
 
             // Check workload capacity
-            if (!hasCapacityForNewCase(doctorId)) {
+            if (!hasCapacityForNewCase(doctor)) {
                 log.debug("Doctor {} has reached maximum workload capacity", doctorId);
                 return false;
             }
@@ -124,7 +319,7 @@ public class DoctorWorkloadService {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new BusinessException("Doctor not found", HttpStatus.NOT_FOUND));
 
-        WorkloadMetricsDto metrics = calculateWorkloadMetrics(doctorId);
+        WorkloadMetricsDto metrics = calculateWorkloadMetrics(doctorId, doctor.getActiveCases());
 
         return DoctorWorkloadDto.builder()
                 .doctorId(doctorId)
@@ -144,80 +339,125 @@ public class DoctorWorkloadService {
     }
 
     /**
-     * Calculate comprehensive workload metrics
+     * Get active case assignments from patient service (ledger reconciliation only),
+     * null when patient-service cannot be reached so the ledger value is kept
      */
-    private WorkloadMetricsDto calculateWorkloadMetrics(Long doctorId) {
-        // Get active case assignments from patient service
-        Integer activeCases = 0;
+    private ActiveCaseCounts fetchActiveCases(Long doctorId) {
         try {
-            var response = patientServiceClient.getDoctorActiveCases(doctorId);
-            if (response != null && response.getBody() != null) {
-                activeCases = response.getBody().getData().size();
-            }
+            return fetchActiveCaseCounts(List.of(doctorId));
         } catch (Exception e) {
             log.warn("Failed to get active cases for doctor {}: {}", doctorId, e.getMessage());
+            return null;
         }
+    }
 
-        // Calculate appointment metrics
-        LocalDateTime todayStart = LocalDateTime.now().toLocalDate().atStartOfDay();
-        //TODO must remove +3 and correct server time
-        todayStart = todayStart.plusHours(3);
+    /**
+     * Active case count of each doctor from the bulk count endpoint of patient-service
+     * (sum of the per-status counts), with the patient-service time the counts were taken
+     */
+    public ActiveCaseCounts fetchActiveCaseCounts(List<Long> doctorIds) {
+        var response = patientServiceClient.getDoctorsActiveCaseCounts(doctorIds);
+        if (response == null || response.getBody() == null || response.getBody().getData() == null) {
+            throw new BusinessException("No active case counts returned", HttpStatus.BAD_GATEWAY);
+        }
+        String asOf = response.getHeaders().getFirst(PatientServiceClient.COUNTS_AS_OF_HEADER);
+        if (asOf == null) {
+            throw new BusinessException("Active case counts returned without a timestamp", HttpStatus.BAD_GATEWAY);
+        }
+        Map<Long, Integer> activeCases = new HashMap<>();
+        response.getBody().getData().forEach((doctorId, byStatus) -> activeCases.put(doctorId,
+                byStatus.values().stream().mapToInt(Long::intValue).sum()));
+        return new ActiveCaseCounts(activeCases, Long.parseLong(asOf));
+    }
+
+    /**
+     * Active case counts and when patient-service took them (epoch millis, patient-service clock,
+     * the same clock as the asOf of pushed snapshots)
+     */
+    public record ActiveCaseCounts(Map<Long, Integer> counts, long asOf) {
+    }
+
+    /**
+     * Calculate comprehensive workload metrics
+     */
+    private WorkloadMetricsDto calculateWorkloadMetrics(Long doctorId, Integer activeCases) {
+        if (activeCases == null) {
+            activeCases = 0;
+        }
+
+        // Calculate appointment metrics (cancelled and no-show appointments do not count)
+        LocalDateTime todayStart = startOfToday();
         LocalDateTime todayEnd = todayStart.plusDays(1);
         LocalDateTime weekStart = todayStart.minusDays(todayStart.getDayOfWeek().getValue() - 1);
         LocalDateTime weekEnd = weekStart.plusDays(7);
 
         System.out.print("Finding doctor: " +doctorId +
                 ", appointments between ["+todayStart+"] and [" + todayEnd+"]");
-        List<Appointment> todayAppointments = appointmentRepository
-                .findByDoctorIdAndScheduledTimeBetween(doctorId, todayStart, todayEnd);
+        long todayAppointments = appointmentRepository
+                .countAppointmentsByDoctorAndTimeRangeAndStatus(doctorId, todayStart, todayEnd, COUNTED_APPOINTMENT_STATUSES);
 
-        List<Appointment> weekAppointments = appointmentRepository
-                .findByDoctorIdAndScheduledTimeBetween(doctorId, weekStart, weekEnd);
+        long weekAppointments = appointmentRepository
+                .countAppointmentsByDoctorAndTimeRangeAndStatus(doctorId, weekStart, weekEnd, COUNTED_APPOINTMENT_STATUSES);
 
         return WorkloadMetricsDto.builder()
                 .activeCases(activeCases)
-                .todayAppointments(todayAppointments.size())
-                .thisWeekAppointments(weekAppointments.size())
+                .todayAppointments((int) todayAppointments)
+                .thisWeekAppointments((int) weekAppointments)
                 .build();
     }
 
     /**
-     * Update doctor's availability status based on workload
+     * Start of the current day for today's appointment counter
      */
-    private void updateDoctorAvailabilityStatus(Doctor doctor, WorkloadMetricsDto metrics) {
-        boolean shouldBeAvailable = doctor.getIsAvailable();
+    private LocalDateTime startOfToday() {
+        //TODO must remove +3 and correct server time
+        return LocalDateTime.now().toLocalDate().atStartOfDay().plusHours(3);
+    }
 
-        // Auto-disable if workload exceeds limits
-        if (metrics.getActiveCases() >= maxActiveCases) {
-            shouldBeAvailable = false;
-            log.info("Auto-disabling doctor {} due to maximum active cases reached", doctor.getId());
+    private boolean isToday(LocalDateTime time) {
+        if (time == null) {
+            return false;
         }
+        LocalDateTime todayStart = startOfToday();
+        return !time.isBefore(todayStart) && time.isBefore(todayStart.plusDays(1));
+    }
 
-        if (metrics.getTodayAppointments() >= maxDailyAppointments) {
-            shouldBeAvailable = false;
-            log.info("Auto-disabling doctor {} due to maximum daily appointments reached", doctor.getId());
-        }
+    /**
+     * Reload a doctor after a ledger update statement and propagate the new capacity
+     */
+    private void publishCapacity(Long doctorId) {
+        doctorRepository.findById(doctorId).ifPresent(this::onCapacityChanged);
+    }
 
-        doctor.setIsAvailable(shouldBeAvailable);
+    private void onCapacityChanged(Doctor doctor) {
+        eventPublisher.publishEvent(new DoctorCapacityChangedEvent(doctor));
     }
 
     /**
-     * Update workload-related fields in doctor entity
+     * Propagate a capacity change to the candidate index, the capacity snapshot cache, the
+     * workload history and patient-service - only once it is committed, so a rolled back write
+     * never becomes visible there
      */
-    private void updateDoctorWorkloadFields(Doctor doctor, WorkloadMetricsDto metrics) {
-        doctor.setActiveCases(metrics.getActiveCases());
-        doctor.setTodayAppointments(metrics.getTodayAppointments());
-        doctor.setWorkloadPercentage(calculateWorkloadPercentage(metrics));
-        doctor.setLastWorkloadUpdate(LocalDateTime.now());
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCapacityChanged(DoctorCapacityChangedEvent event) {
+        Doctor doctor = event.doctor();
+        try {
+            doctorCandidateIndex.update(doctor);
+            capacityCache.put(doctor.getId(), toCapacityDto(doctor));
+            workloadHistoryService.record(doctor);
+        } catch (Exception e) {
+            // The periodic index rebuild and cache expiry correct this
+            log.error("Failed to propagate capacity change of doctor {}: {}", doctor.getId(), e.getMessage(), e);
+        }
+        doctorEventProducer.sendDoctorCapacityUpdate(doctor);
     }
 
     /**
-     * Check if doctor has capacity for new cases
+     * Check if doctor has capacity for new cases (from the capacity ledger)
      */
-    private boolean hasCapacityForNewCase(Long doctorId) {
-        WorkloadMetricsDto metrics = calculateWorkloadMetrics(doctorId);
-        return metrics.getActiveCases() < maxActiveCases &&
-               metrics.getTodayAppointments() < maxDailyAppointments;
+    private boolean hasCapacityForNewCase(Doctor doctor) {
+        return doctor.getActiveCases() < maxActiveCases &&
+               doctor.getTodayAppointments() < maxDailyAppointments;
     }
 
     /**
@@ -240,22 +480,12 @@ public class DoctorWorkloadService {
     }
 
     /**
-     * Check for conflicting appointments
+     * Check for conflicting appointments or blocked time around an appointment starting at requestedTime
      */
     private boolean hasConflictingAppointment(Long doctorId, LocalDateTime requestedTime) {
-        LocalDateTime bufferStart = requestedTime.minusMinutes(bufferMinutes);
-        LocalDateTime bufferEnd = requestedTime.plusMinutes(bufferMinutes);
-
-        List<Appointment> conflictingAppointments = appointmentRepository
-                .findByDoctorIdAndScheduledTimeBetweenAndStatusIn(
-                        doctorId,
-                        bufferStart,
-                        bufferEnd,
-                        Arrays.asList(AppointmentStatus.SCHEDULED, AppointmentStatus.RESCHEDULED,
-                                AppointmentStatus.CONFIRMED)
-                );
-
-        return !conflictingAppointments.isEmpty();
+        return availabilityTimeline.findConflict(doctorId, requestedTime,
+                requestedTime.plusMinutes(DoctorAvailabilityTimeline.DEFAULT_APPOINTMENT_MINUTES),
+                bufferMinutes, null).isPresent();
     }
 
     /**
@@ -300,44 +530,256 @@ public class DoctorWorkloadService {
     }
 
     /**
-     * Recalculate availability for all doctors (batch operation)
+     * Recalculate the workload of all doctors (batch ledger reconciliation).
+     *
+     * Doctors are processed in chunks of doctor.workload.recalculation-chunk-size, with up to
+     * doctor.workload.recalculation-parallelism chunks at a time. Each chunk fetches its active
+     * case counts with one bulk call to patient-service and today's appointment counts with one
+     * grouped query, then commits in its own transaction. A chunk whose counts cannot be fetched
+     * keeps its current ledger values. Only one run at a time; progress is in getRecalculationStatus.
      */
-    @Transactional
     public void recalculateAllDoctorWorkloads() {
-        log.info("Starting batch workload recalculation for all doctors");
-
-        List<Doctor> allDoctors = doctorRepository.findAll();
-        int updated = 0;
+        if (!recalculationRunning.compareAndSet(false, true)) {
+            log.info("Batch workload recalculation already running, skipping");
+            return;
+        }
 
-        for (Doctor doctor : allDoctors) {
-            try {
-                loadDoctorWorkload(doctor.getId());
-                updated++;
-            } catch (Exception e) {
-                log.error("Failed to update workload for doctor {}: {}", doctor.getId(), e.getMessage());
+        ExecutorService executor = Executors.newFixedThreadPool(recalculationParallelism);
+        try {
+            List<Long> doctorIds = doctorRepository.findAllIds();
+            RecalculationProgress progress = new RecalculationProgress(doctorIds.size());
+            currentRecalculation = progress;
+            log.info("Starting batch workload recalculation for {} doctors in chunks of {}",
+                    doctorIds.size(), recalculationChunkSize);
+
+            TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+            chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+            List<Future<?>> chunks = new ArrayList<>();
+            for (int from = 0; from < doctorIds.size(); from += recalculationChunkSize) {
+                List<Long> chunk = doctorIds.subList(from, Math.min(from + recalculationChunkSize, doctorIds.size()));
+                chunks.add(executor.submit(() -> {
+                    try {
+                        progress.chunkCompleted(recalculateChunk(chunk, chunkTransaction), chunk.size());
+                    } catch (Exception e) {
+                        progress.chunkFailed(chunk.size());
+                        log.error("Failed to recalculate workload for doctors {}..{}: {}",
+                                chunk.get(0), chunk.get(chunk.size() - 1), e.getMessage());
+                    }
+                }));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
             }
+
+            progress.finish();
+            lastRecalculation = progress;
+            log.info("Batch workload recalculation completed in {} ms. Updated {} out of {} doctors ({} failed)",
+                    progress.durationMs(), progress.updatedDoctors.get(), progress.totalDoctors,
+                    progress.failedDoctors.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Batch workload recalculation interrupted");
+        } catch (ExecutionException e) {
+            log.error("Batch workload recalculation failed: {}", e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+            currentRecalculation = null;
+            recalculationRunning.set(false);
         }
+    }
+
+    /**
+     * Progress of the running batch recalculation and the result of the last completed one
+     */
+    public Map<String, Object> getRecalculationStatus() {
+        Map<String, Object> status = new HashMap<>();
+        RecalculationProgress current = currentRecalculation;
+        RecalculationProgress last = lastRecalculation;
+        status.put("running", current != null);
+        status.put("current", current != null ? current.snapshot() : null);
+        status.put("last", last != null ? last.snapshot() : null);
+        status.put("chunkSize", recalculationChunkSize);
+        status.put("parallelism", recalculationParallelism);
+        return status;
+    }
+
+    /**
+     * Daily reset: recount today's appointments of every doctor in one bulk statement.
+     * Active cases are left to the ledger events and the batch recalculation.
+     *
+     * @return number of doctors updated
+     */
+    public int resetDailyAppointmentCounters() {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime todayStart = startOfToday();
+        int updated = doctorRepository.resetTodayAppointments(todayStart, todayStart.plusDays(1),
+                COUNTED_APPOINTMENT_STATUSES, maxActiveCases, maxDailyAppointments, LocalDateTime.now());
+        afterBulkLedgerUpdate(updated);
+        recordMaintenanceRun("resetDailyCounters", updated, startedAt);
+        return updated;
+    }
+
+    /**
+     * Recount today's appointments of verified doctors whose workload was not updated for
+     * staleHours, in one bulk statement
+     *
+     * @return number of doctors updated
+     */
+    public int refreshStaleWorkloads(int staleHours) {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime todayStart = startOfToday();
+        int updated = doctorRepository.refreshStaleTodayAppointments(now.minusHours(staleHours), todayStart,
+                todayStart.plusDays(1), COUNTED_APPOINTMENT_STATUSES, maxActiveCases, maxDailyAppointments, now);
+        afterBulkLedgerUpdate(updated);
+        recordMaintenanceRun("cleanupStaleWorkloadData", updated, startedAt);
+        return updated;
+    }
+
+    /**
+     * Turn off emergency mode enabled more than maxHours ago, in one bulk statement.
+     * The affected doctors are published one by one so patient-service's on-call pool drops them.
+     *
+     * @return number of doctors updated
+     */
+    @Transactional
+    public int disableExpiredEmergencyModes(int maxHours) {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime cutoffTime = LocalDateTime.now().minusHours(maxHours);
+        List<Long> doctorIds = doctorRepository.findIdsWithEmergencyModeEnabledBefore(cutoffTime);
+        int updated = doctorIds.isEmpty() ? 0 : doctorRepository.disableEmergencyModes(doctorIds, cutoffTime,
+                maxActiveCases, maxDailyAppointments, LocalDateTime.now());
+        if (updated > 0) {
+            doctorIds.forEach(this::publishCapacity);
+        }
+        recordMaintenanceRun("autoDisableEmergencyMode", updated, startedAt);
+        return updated;
+    }
+
+    /**
+     * Affected rows and duration of the last run of each ledger maintenance job
+     */
+    public Map<String, Object> getMaintenanceStatus() {
+        return new HashMap<>(maintenanceRuns);
+    }
+
+    /**
+     * After a bulk ledger statement the per-doctor caches no longer match; rebuild them once and
+     * sample the new totals into the workload history
+     * (patient-service's on-call pool re-warms on its own schedule)
+     */
+    private void afterBulkLedgerUpdate(int updated) {
+        if (updated > 0) {
+            capacityCache.invalidateAll();
+            doctorCandidateIndex.rebuild();
+            workloadHistoryService.sample();
+        }
+    }
 
-        log.info("Batch workload recalculation completed. Updated {} out of {} doctors", updated, allDoctors.size());
+    private void recordMaintenanceRun(String job, int affectedRows, long startedAt) {
+        Map<String, Object> run = new HashMap<>();
+        run.put("affectedRows", affectedRows);
+        run.put("durationMs", System.currentTimeMillis() - startedAt);
+        run.put("finishedAt", LocalDateTime.now());
+        maintenanceRuns.put(job, run);
     }
 
     /**
-     * Get doctors with low workload for case assignment
+     * Hit and miss counts of the capacity snapshot cache
+     */
+    public Map<String, Object> getCapacityCacheStatistics() {
+        return capacityCache.getStatistics();
+    }
+
+    /**
+     * Recalculate one chunk of doctors in its own transaction
+     *
+     * @return number of doctors updated
+     */
+    private int recalculateChunk(List<Long> doctorIds, TransactionTemplate chunkTransaction) {
+        ActiveCaseCounts counts = fetchActiveCaseCounts(doctorIds);
+
+        Integer updated = chunkTransaction.execute(transaction -> {
+            // One conditional statement per doctor, so counter updates committed while the chunk
+            // runs are not overwritten and a newer pushed snapshot keeps its active cases
+            List<Long> reconciled = new ArrayList<>();
+            for (Long doctorId : doctorIds) {
+                if (reconcileWorkload(doctorId, counts.counts().getOrDefault(doctorId, 0), counts.asOf()) > 0) {
+                    reconciled.add(doctorId);
+                }
+            }
+            doctorRepository.findAllById(reconciled).forEach(this::onCapacityChanged);
+            return reconciled.size();
+        });
+        return updated != null ? updated : 0;
+    }
+
+    private int reconcileWorkload(Long doctorId, int activeCases, long asOf) {
+        LocalDateTime todayStart = startOfToday();
+        return doctorRepository.reconcileWorkload(doctorId, activeCases, asOf, todayStart, todayStart.plusDays(1),
+                COUNTED_APPOINTMENT_STATUSES, maxActiveCases, maxDailyAppointments, LocalDateTime.now());
+    }
+
+    private int recountTodayAppointments(Long doctorId) {
+        LocalDateTime todayStart = startOfToday();
+        return doctorRepository.recountTodayAppointments(doctorId, todayStart, todayStart.plusDays(1),
+                COUNTED_APPOINTMENT_STATUSES, maxActiveCases, maxDailyAppointments, LocalDateTime.now());
+    }
+
+    /**
+     * Get doctors with low workload for case assignment, least loaded first (from the candidate index)
      */
     public List<Long> getAvailableDoctorsForAssignment(String specialization, int limit) {
-        List<Doctor> availableDoctors = doctorRepository
-                .findbyVerificationStatusAndIsAvailable(VerificationStatus.VERIFIED, true);
-
-        return availableDoctors.stream()
-                .filter(doctor -> specialization == null || 
-                        specialization.equals(doctor.getPrimarySpecialization()))
-                .filter(doctor -> hasCapacityForNewCase(doctor.getId()))
-                .sorted(Comparator.comparing(Doctor::getWorkloadPercentage))
+        return doctorCandidateIndex.findLeastLoaded(specialization, limit);
+    }
+
+    /**
+     * Doctors who can take an emergency case now: available and either in emergency mode or
+     * below their limits. Emergency-mode doctors come first, then least loaded.
+     * Only the (few) emergency-mode doctors are read from the database; doctors below their
+     * limits come from the candidate index.
+     */
+    public List<DoctorCapacityDto> getEmergencyAvailableDoctors(String specialization, int limit) {
+        Map<Long, Doctor> doctors = new LinkedHashMap<>();
+        for (Doctor doctor : doctorRepository.findDoctorsInEmergencyMode()) {
+            if (specialization == null || specialization.equals(doctor.getPrimarySpecialization())) {
+                doctors.put(doctor.getId(), doctor);
+            }
+        }
+        List<Long> candidateIds = doctorCandidateIndex.findLeastLoaded(specialization, limit).stream()
+                .filter(doctorId -> !doctors.containsKey(doctorId))
+                .collect(Collectors.toList());
+        if (!candidateIds.isEmpty()) {
+            doctorRepository.findAllById(candidateIds).forEach(doctor -> doctors.put(doctor.getId(), doctor));
+        }
+
+        return doctors.values().stream()
+                .filter(this::canTakeEmergencyCase)
+                .sorted(Comparator.comparing((Doctor doctor) -> !Boolean.TRUE.equals(doctor.getEmergencyMode()))
+                        .thenComparingDouble(doctor -> doctor.getWorkloadPercentage() != null
+                                ? doctor.getWorkloadPercentage() : 0.0))
                 .limit(limit)
-                .map(Doctor::getId)
+                .map(this::toCapacityDto)
                 .collect(Collectors.toList());
     }
 
+    private boolean canTakeEmergencyCase(Doctor doctor) {
+        if (!Boolean.TRUE.equals(doctor.getIsAvailable())) {
+            return false;
+        }
+        return Boolean.TRUE.equals(doctor.getEmergencyMode()) ||
+                (isBelow(doctor.getActiveCases(), doctor.getMaxActiveCases()) &&
+                        isBelow(doctor.getTodayAppointments(), doctor.getMaxDailyAppointments()));
+    }
+
+    /**
+     * A missing counter or limit means no capacity, as the comparison does in SQL
+     */
+    private static boolean isBelow(Integer count, Integer limit) {
+        return count != null && limit != null && count < limit;
+    }
+
     /**
      * Emergency workload management - temporarily increase capacity
      */
@@ -352,6 +794,7 @@ public class DoctorWorkloadService {
         doctor.setEmergencyModeEnabledAt(LocalDateTime.now());
 
         doctorRepository.save(doctor);
+        onCapacityChanged(doctor);
 
         log.info("Emergency mode enabled for doctor {}: {}", doctorId, reason);
     }
@@ -367,12 +810,64 @@ public class DoctorWorkloadService {
         doctor.setEmergencyMode(false);
         doctor.setEmergencyModeReason(null);
         doctor.setEmergencyModeEnabledAt(null);
+        doctorRepository.saveAndFlush(doctor);
 
-        // Recalculate normal availability
+        // Recalculate normal availability (publishes the new capacity)
         loadDoctorWorkload(doctorId);
 
-        doctorRepository.save(doctor);
-
         log.info("Emergency mode disabled for doctor {}", doctorId);
     }
-}
\ No newline at end of file
+
+    private static class RecalculationProgress {
+        private final int totalDoctors;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startedAtMs = System.currentTimeMillis();
+        private final AtomicInteger processedDoctors = new AtomicInteger();
+        private final AtomicInteger updatedDoctors = new AtomicInteger();
+        private final AtomicInteger failedDoctors = new AtomicInteger();
+        private final AtomicInteger completedChunks = new AtomicInteger();
+        private final AtomicInteger failedChunks = new AtomicInteger();
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedAtMs;
+
+        private RecalculationProgress(int totalDoctors) {
+            this.totalDoctors = totalDoctors;
+        }
+
+        private void chunkCompleted(int updated, int chunkSize) {
+            updatedDoctors.addAndGet(updated);
+            processedDoctors.addAndGet(chunkSize);
+            completedChunks.incrementAndGet();
+        }
+
+        private void chunkFailed(int chunkSize) {
+            failedDoctors.addAndGet(chunkSize);
+            processedDoctors.addAndGet(chunkSize);
+            failedChunks.incrementAndGet();
+        }
+
+        private void finish() {
+            finishedAtMs = System.currentTimeMillis();
+            finishedAt = LocalDateTime.now();
+        }
+
+        private long durationMs() {
+            return (finishedAtMs > 0 ? finishedAtMs : System.currentTimeMillis()) - startedAtMs;
+        }
+
+        private Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new HashMap<>();
+            snapshot.put("startedAt", startedAt);
+            snapshot.put("finishedAt", finishedAt);
+            snapshot.put("durationMs", durationMs());
+            snapshot.put("totalDoctors", totalDoctors);
+            snapshot.put("processedDoctors", processedDoctors.get());
+            snapshot.put("updatedDoctors", updatedDoctors.get());
+            snapshot.put("failedDoctors", failedDoctors.get());
+            snapshot.put("completedChunks", completedChunks.get());
+            snapshot.put("failedChunks", failedChunks.get());
+            snapshot.put("progressPercent", totalDoctors > 0 ? processedDoctors.get() * 100.0 / totalDoctors : 100.0);
+            return snapshot;
+        }
+    }
+}
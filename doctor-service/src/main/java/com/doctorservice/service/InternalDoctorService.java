@@ -13,6 +13,7 @@ import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -34,6 +35,8 @@ public class InternalDoctorService {
     private final AppointmentRepository appointmentRepository;
     private final ConsultationReportRepository consultationReportRepository;
     private final DoctorEventProducer doctorEventProducer;
+    private final DoctorCandidateIndex doctorCandidateIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<PendingVerificationDto> getPendingVerifications() {
         List<PendingVerificationDto> pendingVerificationDtos = doctorRepository.findByVerificationStatus(VerificationStatus.PENDING).stream()
@@ -110,13 +113,21 @@ public class InternalDoctorService {
         return 5000.0; // Placeholder
     }
 
+    /**
+     * Least-loaded available doctors for a specialization, picked from the candidate index
+     */
     public List<DoctorDto> getDoctorsBySpecialization (String specialization, int limit) {
-        List<DoctorDto> doctors = new ArrayList<>();
-        List<Doctor> doctorList = doctorRepository.findAvailableDoctorsBySpecialization( specialization, limit );
-        if( doctorList != null && !doctorList.isEmpty() ) {
-            doctors = doctorList.stream().map(this :: convertToDoctorDto).toList();
+        List<Long> doctorIds = doctorCandidateIndex.findLeastLoaded(specialization, limit);
+        if (doctorIds.isEmpty()) {
+            return new ArrayList<>();
         }
-        return doctors;
+        Map<Long, Doctor> doctorsById = doctorRepository.findAllById(doctorIds).stream()
+                .collect(Collectors.toMap(Doctor::getId, doctor -> doctor));
+        return doctorIds.stream()
+                .map(doctorsById::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDoctorDto)
+                .toList();
     }
 
     public DoctorDto convertToDoctorDto(Doctor doctor){
@@ -276,6 +287,7 @@ public class InternalDoctorService {
         }
 
         doctor = doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new DoctorCapacityChangedEvent(doctor));
 
         // TODO: Send notification to doctor via Kafka
         //doctorEventProducer.publishDoctorVerificationEvent(doctor, approved);
@@ -346,6 +358,7 @@ public class InternalDoctorService {
         }
 
         doctorRepository.save(doctor);
+        eventPublisher.publishEvent(new DoctorCapacityChangedEvent(doctor));
 
         // TODO: Send notification to doctor
     }
@@ -0,0 +1,392 @@
+package com.doctorservice.service;
+
+import com.commonlibrary.entity.VerificationStatus;
+import com.commonlibrary.exception.BusinessException;
+import com.doctorservice.config.WorkloadManagementConfig;
+import com.doctorservice.dto.WorkloadForecastDto;
+import com.doctorservice.dto.WorkloadHeatMapCellDto;
+import com.doctorservice.entity.Doctor;
+import com.doctorservice.entity.WorkloadHistoryBucket;
+import com.doctorservice.feign.PatientServiceClient;
+import com.doctorservice.repository.DoctorRepository;
+import com.doctorservice.repository.WorkloadHistoryBucketRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Hourly workload history per specialization and the capacity forecast built on it.
+ *
+ * Every doctor.workload.history-sample-interval-minutes the per specialization totals are read
+ * as one aggregate of the doctors table, so every service instance samples the same state
+ * whichever capacity events it handled; the hour's average and peak utilization come from these
+ * samples. At the top of each hour the finished hour is written as one WorkloadHistoryBucket per
+ * specialization with its closing totals and the number of cases waiting for a doctor, so the
+ * heat map and the forecast read a few compact rows instead of scanning doctors. Every instance
+ * upserts the same closing bucket; only the change event counts, which each instance sees for
+ * its own commits, are added up.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WorkloadHistoryService {
+
+    private static final int MIN_FORECAST_HOURS = 24;
+    private static final int MAX_FORECAST_HOURS = 72;
+    private static final int MAX_HEAT_MAP_HOURS = 24 * 31;
+
+    /**
+     * Weight of a day of history relative to the day after it
+     */
+    private static final double DAILY_DECAY = 0.85;
+
+    /**
+     * Share of the current deviation from the hourly profile kept per projected hour
+     */
+    private static final double DEVIATION_DECAY = 0.9;
+
+    private final DoctorRepository doctorRepository;
+    private final WorkloadHistoryBucketRepository bucketRepository;
+    private final PatientServiceClient patientServiceClient;
+    private final WorkloadManagementConfig config;
+
+    private final Map<String, HourLoad> specializations = new TreeMap<>();
+    private final Map<String, Integer> changeEvents = new HashMap<>();
+    private LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        sample();
+    }
+
+    /**
+     * Add the current per specialization totals of the doctors table to the hour in progress
+     * (periodically, and after bulk ledger statements)
+     */
+    @Scheduled(fixedRateString = "#{${doctor.workload.history-sample-interval-minutes:5} * 60000}",
+            initialDelayString = "#{${doctor.workload.history-sample-interval-minutes:5} * 60000}")
+    public void sample() {
+        try {
+            List<Object[]> rows = doctorRepository.summarizeVerifiedWorkloadBySpecialization();
+            synchronized (this) {
+                rows.forEach(row -> specializations.computeIfAbsent((String) row[0], name -> new HourLoad()).add(row));
+            }
+        } catch (Exception e) {
+            log.error("Failed to sample workload history totals: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Count a committed capacity change of one doctor towards the hour in progress
+     */
+    public synchronized void record(Doctor doctor) {
+        if (doctor == null || doctor.getVerificationStatus() != VerificationStatus.VERIFIED
+                || doctor.getPrimarySpecialization() == null) {
+            return;
+        }
+        changeEvents.merge(doctor.getPrimarySpecialization(), 1, Integer::sum);
+    }
+
+    /**
+     * Write the finished hour of every specialization, built from its samples and the closing
+     * totals of the doctors table, and start the next one
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void closeHour() {
+        List<Object[]> closing;
+        try {
+            closing = doctorRepository.summarizeVerifiedWorkloadBySpecialization();
+        } catch (Exception e) {
+            log.error("Failed to read closing workload totals: {}", e.getMessage(), e);
+            closing = List.of();
+        }
+        Map<String, Long> waiting = fetchWaitingCases();
+
+        Map<String, HourLoad> closedLoads;
+        Map<String, Integer> closedEvents;
+        LocalDateTime closedHour;
+        synchronized (this) {
+            closedHour = currentHour;
+            currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+            if (!currentHour.isAfter(closedHour)) {
+                return;
+            }
+            for (Object[] row : closing) {
+                specializations.computeIfAbsent((String) row[0], name -> new HourLoad()).add(row);
+            }
+            closedLoads = new TreeMap<>(specializations);
+            closedEvents = new HashMap<>(changeEvents);
+            specializations.clear();
+            changeEvents.clear();
+            // The closing totals open the next hour
+            for (Object[] row : closing) {
+                specializations.computeIfAbsent((String) row[0], name -> new HourLoad()).add(row);
+            }
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (Map.Entry<String, HourLoad> entry : closedLoads.entrySet()) {
+                HourLoad load = entry.getValue();
+                Long queueDepth = waiting != null ? waiting.getOrDefault(entry.getKey(), 0L) : null;
+                bucketRepository.upsertBucket(entry.getKey(), closedHour, load.averageUtilization(),
+                        load.peakUtilization, load.doctorCount, load.availableDoctors, load.activeCases,
+                        load.caseCapacity, queueDepth != null ? queueDepth.intValue() : null,
+                        closedEvents.getOrDefault(entry.getKey(), 0), now);
+            }
+            int pruned = bucketRepository.deleteOlderThan(closedHour.minusDays(config.getHistoryRetentionDays()));
+            log.info("Workload history for {} written: {} specializations, {} old buckets pruned",
+                    closedHour, closedLoads.size(), pruned);
+        } catch (Exception e) {
+            log.error("Failed to write workload history for {}: {}", closedHour, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Hourly utilization and queue depth of the last hours, oldest first, including the hour
+     * in progress
+     */
+    public List<WorkloadHeatMapCellDto> getHeatMap(String specialization, int hours) {
+        if (hours < 1 || hours > MAX_HEAT_MAP_HOURS) {
+            throw new BusinessException("Hours must be between 1 and " + MAX_HEAT_MAP_HOURS, HttpStatus.BAD_REQUEST);
+        }
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(hours - 1);
+        List<WorkloadHistoryBucket> buckets = specialization != null
+                ? bucketRepository.findBySpecializationAndBucketStartGreaterThanEqualOrderByBucketStartAsc(specialization, from)
+                : bucketRepository.findByBucketStartGreaterThanEqualOrderByBucketStartAsc(from);
+
+        List<WorkloadHeatMapCellDto> cells = new ArrayList<>();
+        for (WorkloadHistoryBucket bucket : buckets) {
+            cells.add(WorkloadHeatMapCellDto.builder()
+                    .specialization(bucket.getSpecialization())
+                    .hour(bucket.getBucketStart())
+                    .averageUtilization(bucket.getAverageUtilization())
+                    .peakUtilization(bucket.getPeakUtilization())
+                    .doctorCount(bucket.getDoctorCount())
+                    .availableDoctors(bucket.getAvailableDoctors())
+                    .activeCases(bucket.getActiveCases())
+                    .caseCapacity(bucket.getCaseCapacity())
+                    .queueDepth(bucket.getQueueDepth())
+                    .inProgress(false)
+                    .build());
+        }
+
+        synchronized (this) {
+            for (Map.Entry<String, HourLoad> entry : specializations.entrySet()) {
+                if (specialization != null && !specialization.equals(entry.getKey())) {
+                    continue;
+                }
+                HourLoad load = entry.getValue();
+                cells.add(WorkloadHeatMapCellDto.builder()
+                        .specialization(entry.getKey())
+                        .hour(currentHour)
+                        .averageUtilization(load.averageUtilization())
+                        .peakUtilization(load.peakUtilization)
+                        .doctorCount(load.doctorCount)
+                        .availableDoctors(load.availableDoctors)
+                        .activeCases(load.activeCases)
+                        .caseCapacity(load.caseCapacity)
+                        .inProgress(true)
+                        .build());
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Projected utilization, queue depth and capacity shortfall per specialization for the next
+     * hours (24 to 72).
+     *
+     * Each hour is projected from the recency-weighted history of the same hour of day over
+     * doctor.workload.forecast-lookback-days, plus the current deviation from that profile,
+     * fading out over the following hours. Free slots are the case capacity left at the projected
+     * utilization; the shortfall is the projected queue depth beyond them. A specialization that
+     * saturates (projected utilization at doctor.workload.forecast-saturation-percentage, or any
+     * shortfall) within the horizon is flagged ENABLE_EMERGENCY_MODE.
+     */
+    public List<WorkloadForecastDto> forecast(String specialization, int hours) {
+        if (hours < MIN_FORECAST_HOURS || hours > MAX_FORECAST_HOURS) {
+            throw new BusinessException("Forecast hours must be between " + MIN_FORECAST_HOURS + " and " +
+                    MAX_FORECAST_HOURS, HttpStatus.BAD_REQUEST);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime hourNow = now.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime from = hourNow.minusDays(config.getForecastLookbackDays());
+
+        Map<String, List<WorkloadHistoryBucket>> history = new TreeMap<>();
+        List<WorkloadHistoryBucket> buckets = specialization != null
+                ? bucketRepository.findBySpecializationAndBucketStartGreaterThanEqualOrderByBucketStartAsc(specialization, from)
+                : bucketRepository.findByBucketStartGreaterThanEqualOrderByBucketStartAsc(from);
+        for (WorkloadHistoryBucket bucket : buckets) {
+            history.computeIfAbsent(bucket.getSpecialization(), s -> new ArrayList<>()).add(bucket);
+        }
+
+        Map<String, double[]> current = new TreeMap<>();
+        synchronized (this) {
+            for (Map.Entry<String, HourLoad> entry : specializations.entrySet()) {
+                if (specialization == null || specialization.equals(entry.getKey())) {
+                    HourLoad load = entry.getValue();
+                    current.put(entry.getKey(), new double[]{load.utilization(), load.caseCapacity});
+                }
+            }
+        }
+
+        List<WorkloadForecastDto> forecasts = new ArrayList<>();
+        for (Map.Entry<String, double[]> entry : current.entrySet()) {
+            forecasts.add(forecast(entry.getKey(), entry.getValue()[0], (int) entry.getValue()[1],
+                    history.getOrDefault(entry.getKey(), List.of()), hourNow, hours));
+        }
+        return forecasts;
+    }
+
+    private WorkloadForecastDto forecast(String specialization, double currentUtilization, int caseCapacity,
+                                         List<WorkloadHistoryBucket> history, LocalDateTime hourNow, int hours) {
+        WorkloadForecastDto.WorkloadForecastDtoBuilder forecast = WorkloadForecastDto.builder()
+                .specialization(specialization)
+                .currentUtilization(currentUtilization)
+                .caseCapacity(caseCapacity)
+                .historyHours(history.size())
+                .maxShortfall(0)
+                .hours(new ArrayList<>());
+        if (history.isEmpty()) {
+            return forecast.recommendation("INSUFFICIENT_HISTORY").build();
+        }
+
+        // Recency-weighted profile per hour of day
+        double[] utilizationSum = new double[24];
+        double[] queueSum = new double[24];
+        double[] utilizationWeight = new double[24];
+        double[] queueWeight = new double[24];
+        for (WorkloadHistoryBucket bucket : history) {
+            int hourOfDay = bucket.getBucketStart().getHour();
+            long ageDays = Duration.between(bucket.getBucketStart(), hourNow).toDays();
+            double weight = Math.pow(DAILY_DECAY, ageDays);
+            utilizationSum[hourOfDay] += bucket.getAverageUtilization() * weight;
+            utilizationWeight[hourOfDay] += weight;
+            if (bucket.getQueueDepth() != null) {
+                queueSum[hourOfDay] += bucket.getQueueDepth() * weight;
+                queueWeight[hourOfDay] += weight;
+            }
+        }
+        double overallUtilization = history.stream().mapToDouble(WorkloadHistoryBucket::getAverageUtilization)
+                .average().orElse(currentUtilization);
+        double[] profile = new double[24];
+        double[] queueProfile = new double[24];
+        for (int h = 0; h < 24; h++) {
+            profile[h] = utilizationWeight[h] > 0 ? utilizationSum[h] / utilizationWeight[h] : overallUtilization;
+            queueProfile[h] = queueWeight[h] > 0 ? queueSum[h] / queueWeight[h] : 0.0;
+        }
+
+        double deviation = currentUtilization - profile[hourNow.getHour()];
+        LocalDateTime firstSaturationAt = null;
+        int maxShortfall = 0;
+        List<WorkloadForecastDto.ProjectedHour> projected = new ArrayList<>(hours);
+        for (int step = 1; step <= hours; step++) {
+            LocalDateTime hour = hourNow.plusHours(step);
+            double utilization = Math.max(0.0, Math.min(100.0,
+                    profile[hour.getHour()] + deviation * Math.pow(DEVIATION_DECAY, step)));
+            int queueDepth = (int) Math.round(queueProfile[hour.getHour()]);
+            int freeSlots = (int) Math.floor(caseCapacity * (1.0 - utilization / 100.0));
+            int shortfall = Math.max(0, queueDepth - freeSlots);
+
+            projected.add(WorkloadForecastDto.ProjectedHour.builder()
+                    .hour(hour)
+                    .projectedUtilization(Math.round(utilization * 10.0) / 10.0)
+                    .projectedQueueDepth(queueDepth)
+                    .projectedFreeSlots(freeSlots)
+                    .shortfall(shortfall)
+                    .build());
+
+            maxShortfall = Math.max(maxShortfall, shortfall);
+            if (firstSaturationAt == null &&
+                    (utilization >= config.getForecastSaturationPercentage() || shortfall > 0)) {
+                firstSaturationAt = hour;
+            }
+        }
+
+        return forecast
+                .hours(projected)
+                .firstSaturationAt(firstSaturationAt)
+                .maxShortfall(maxShortfall)
+                .recommendation(firstSaturationAt != null ? "ENABLE_EMERGENCY_MODE" : "OK")
+                .build();
+    }
+
+    /**
+     * Per-specialization totals of the latest sample (no database access)
+     */
+    public synchronized Map<String, Map<String, Object>> getCurrentLoad() {
+        Map<String, Map<String, Object>> current = new TreeMap<>();
+        specializations.forEach((name, load) -> {
+            Map<String, Object> totals = new HashMap<>();
+            totals.put("doctorCount", load.doctorCount);
+            totals.put("availableDoctors", load.availableDoctors);
+            totals.put("activeCases", load.activeCases);
+            totals.put("caseCapacity", load.caseCapacity);
+            totals.put("averageUtilization", load.utilization());
+            current.put(name, totals);
+        });
+        return current;
+    }
+
+    private Map<String, Long> fetchWaitingCases() {
+        try {
+            var response = patientServiceClient.getWaitingCasesBySpecialization();
+            if (response != null && response.getBody() != null) {
+                return response.getBody().getData();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to get waiting cases by specialization: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Samples of one specialization over the hour in progress; the totals are those of the latest
+     */
+    private static class HourLoad {
+        private int doctorCount;
+        private int availableDoctors;
+        private int activeCases;
+        private int caseCapacity;
+        private double utilization;
+
+        private double utilizationSum;
+        private int samples;
+        private double peakUtilization;
+
+        /**
+         * Add a row of summarizeVerifiedWorkloadBySpecialization
+         */
+        private void add(Object[] row) {
+            doctorCount = ((Number) row[1]).intValue();
+            availableDoctors = ((Number) row[2]).intValue();
+            activeCases = ((Number) row[3]).intValue();
+            caseCapacity = ((Number) row[4]).intValue();
+            utilization = doctorCount > 0 ? ((Number) row[5]).doubleValue() / doctorCount : 0.0;
+            utilizationSum += utilization;
+            samples++;
+            peakUtilization = Math.max(peakUtilization, utilization);
+        }
+
+        private double utilization() {
+            return utilization;
+        }
+
+        /**
+         * Mean of the evenly spaced samples, an estimate of the time-weighted mean over the hour
+         */
+        private double averageUtilization() {
+            return samples > 0 ? utilizationSum / samples : utilization;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.patientservice.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.commonlibrary.dto.DoctorCapacityDto;
+import com.commonlibrary.entity.AssignmentPriority;
+import com.commonlibrary.entity.CaseStatus;
+import com.commonlibrary.entity.SubscriptionStatus;
+import com.commonlibrary.exception.BusinessException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.patientservice.config.CaseAssignmentSchedulerConfig;
+import com.patientservice.config.MatchingScoringConfig;
+import com.patientservice.entity.Case;
+import com.patientservice.entity.CaseAssignment;
+import com.patientservice.entity.Patient;
+import com.patientservice.kafka.PatientEventProducer;
+import com.patientservice.repository.CaseAssignmentRepository;
+import com.patientservice.repository.CaseRepository;
+import com.patientservice.service.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Offline replay of case assignment: runs SmartCaseAssignmentService over a stream of cases
+ * against an in-memory doctor pool (ReplayDoctorLedger) and a configuration snapshot, with
+ * no database, Kafka or doctor-service.
+ *
+ * Reports throughput, per-case latency percentiles, capacity violations, the distribution of
+ * assignment success probabilities and, for historical data, how often the replay picked the
+ * doctor who actually accepted the case. Run it before changing matching weights or in CI:
+ *
+ *     mvn -Pbenchmark -pl matching-benchmark -am process-classes -Djmh.skip=true -Dreplay.skip=false \
+ *         -Dreplay.args="--cases=5000 --doctors=300 --weights=/path/to/new-weights.properties"
+ *
+ * Options (all --name=value):
+ *   --dataset=file.json        historical export (see ReplayDataset); synthetic data otherwise
+ *   --doctors, --cases, --seed synthetic pool size, case count and seed (300, 5000, 42)
+ *   --config=file.properties   case.assignment.* snapshot, e.g. patient-service application.properties
+ *   --weights=file.properties  case.assignment.scoring.weights.* overrides
+ *   --workload-lag=N           assignments before a workload update reaches the matcher (0)
+ *   --warmup-runs=N            unmeasured runs first, for the JIT (1)
+ *   --report=file.json         also write the report to a file
+ *   --max-capacity-violations=N, --max-p99-ms=X   exit with status 1 when exceeded
+ *   --verbose                  keep the matcher's own logging
+ */
+public class AssignmentReplay {
+
+    private final ReplayDataset dataset;
+    private final StandardEnvironment environment;
+    private final int workloadLag;
+
+    private final Map<Long, Case> cases = new HashMap<>();
+    private final Map<Long, List<CaseAssignment>> assignmentsByCase = new HashMap<>();
+    private final Map<Long, Long> acceptedDoctorByCase = new HashMap<>();
+    private final Map<String, Integer> failures = new TreeMap<>();
+    private final Map<String, Integer> assignedByUrgency = new TreeMap<>();
+    private final int[] probabilityHistogram = new int[10];
+
+    private ReplayDoctorLedger ledger;
+    private SmartCaseAssignmentService assignmentService;
+    private Method successProbability;
+    private long nextAssignmentId = 1;
+    private int assignments;
+    private int emergencyFastPath;
+    private int agreeingCases;
+    private double probabilitySum;
+    private double scoreSum;
+    private int scored;
+
+    public AssignmentReplay(ReplayDataset dataset, StandardEnvironment environment, int workloadLag) {
+        this.dataset = dataset;
+        this.environment = environment;
+        this.workloadLag = workloadLag;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("verbose")) {
+            ((Logger) LoggerFactory.getLogger("com.patientservice")).setLevel(Level.OFF);
+        }
+
+        ReplayDataset dataset = options.containsKey("dataset")
+                ? ReplayDataset.load(Path.of(options.get("dataset")))
+                : ReplayDataset.synthetic(intOption(options, "doctors", 300), intOption(options, "cases", 5000),
+                        intOption(options, "seed", 42));
+        StandardEnvironment environment = loadConfiguration(options);
+        int workloadLag = intOption(options, "workload-lag", 0);
+
+        for (int run = intOption(options, "warmup-runs", 1); run > 0; run--) {
+            new AssignmentReplay(dataset, environment, workloadLag).run();
+        }
+        Map<String, Object> report = new AssignmentReplay(dataset, environment, workloadLag).run();
+        report.put("dataset", options.getOrDefault("dataset", "synthetic"));
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        String json = objectMapper.writeValueAsString(report);
+        System.out.println(json);
+        if (options.containsKey("report")) {
+            Files.writeString(Path.of(options.get("report")), json);
+        }
+
+        List<String> breaches = checkGates(options, report);
+        if (!breaches.isEmpty()) {
+            breaches.forEach(System.err::println);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Assign every case of the dataset once, in order, and build the report
+     */
+    public Map<String, Object> run() {
+        wire();
+
+        List<ReplayDataset.CaseRecord> records = dataset.cases();
+        long[] latencies = new long[records.size()];
+        Patient patient = new Patient();
+        patient.setUserId(0L);
+        patient.setSubscriptionStatus(SubscriptionStatus.ACTIVE);
+        patient.setAccountLocked(false);
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < records.size(); i++) {
+            Case medicalCase = toCase(records.get(i), i + 1L, patient);
+            cases.put(medicalCase.getId(), medicalCase);
+
+            long caseStartedAt = System.nanoTime();
+            try {
+                assignmentService.assignCaseToMultipleDoctors(medicalCase.getId());
+                assignedByUrgency.merge(medicalCase.getUrgencyLevel().name(), 1, Integer::sum);
+            } catch (BusinessException e) {
+                failures.merge(e.getMessage(), 1, Integer::sum);
+            }
+            latencies[i] = System.nanoTime() - caseStartedAt;
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        return buildReport(latencies, elapsedNanos);
+    }
+
+    private void wire() {
+        Binder binder = Binder.get(environment);
+        CaseAssignmentSchedulerConfig config = binder.bind("case.assignment",
+                Bindable.ofInstance(new CaseAssignmentSchedulerConfig())).orElseGet(CaseAssignmentSchedulerConfig::new);
+        MatchingScoringConfig scoringConfig = binder.bind("case.assignment.scoring",
+                Bindable.ofInstance(new MatchingScoringConfig())).orElseGet(MatchingScoringConfig::new);
+
+        ledger = new ReplayDoctorLedger(dataset.doctors(), workloadLag);
+
+        MedicalKnowledgeIndex knowledgeIndex = new MedicalKnowledgeIndex(null, null);
+        knowledgeIndex.install(dataset.diseases(), dataset.symptoms());
+        MatchingWeightsProvider weightsProvider = new MatchingWeightsProvider(scoringConfig);
+        weightsProvider.initialize();
+        EmergencyOnCallPool onCallPool = new EmergencyOnCallPool(ledger.asClient(), config);
+        onCallPool.warmUp();
+        ledger.setCapacityListener(capacity -> onCallPool.apply(capacity, true));
+
+        PatientEventProducer eventProducer = new PatientEventProducer(null, null, null, null) {
+            @Override
+            public void sendUpdateDoctorWorkLoadTrigger(Long doctorId) {
+                ledger.recordAssignment(doctorId);
+            }
+
+            @Override
+            public void sendAssignmentNotification(Long senderId, Long receiverId, Long caseId,
+                                                   String title, String message) {
+            }
+        };
+
+        assignmentService = new SmartCaseAssignmentService(ledger.asClient(), caseRepository(),
+                caseAssignmentRepository(), knowledgeIndex, config, eventProducer, new DefaultCaseMatchingScorer(),
+                weightsProvider, onCallPool, new AssignmentLatencyTracker(config),
+                new RankedCandidateCache(config, weightsProvider));
+        // @Value fields of the service
+        setField(assignmentService, "minimumScoreThreshold",
+                environment.getProperty("case.assignment.minimum-score-threshold", Double.class, 35.0));
+        setField(assignmentService, "emergencyOverrideEnabled",
+                environment.getProperty("case.assignment.emergency-override-enabled", Boolean.class, true));
+        setField(assignmentService, "debugScoring", false);
+
+        successProbability = ReflectionUtils.findMethod(SmartCaseAssignmentService.class,
+                "calculateAssignmentSuccessProbability", DoctorCapacityDto.class, Case.class);
+        if (successProbability == null) {
+            throw new IllegalStateException("SmartCaseAssignmentService.calculateAssignmentSuccessProbability not found");
+        }
+        ReflectionUtils.makeAccessible(successProbability);
+    }
+
+    private CaseRepository caseRepository() {
+        return ReplayStubs.stub(CaseRepository.class, Map.of(
+                "findById", args -> Optional.ofNullable(cases.get((Long) args[0])),
+                "getReferenceById", args -> cases.get((Long) args[0]),
+                "save", args -> args[0],
+                "saveAll", args -> args[0]));
+    }
+
+    private CaseAssignmentRepository caseAssignmentRepository() {
+        return ReplayStubs.stub(CaseAssignmentRepository.class, Map.of(
+                "save", args -> saveAssignment((CaseAssignment) args[0]),
+                "findByCaseEntityId", args -> new ArrayList<>(assignmentsByCase.getOrDefault((Long) args[0], List.of())),
+                "existsByCaseEntityIdAndDoctorId", args -> assignmentsByCase.getOrDefault((Long) args[0], List.of())
+                        .stream().anyMatch(assignment -> assignment.getDoctorId().equals(args[1]))));
+    }
+
+    private CaseAssignment saveAssignment(CaseAssignment assignment) {
+        if (assignment.getId() != null) {
+            return assignment;
+        }
+        assignment.setId(nextAssignmentId++);
+        Case medicalCase = assignment.getCaseEntity();
+        assignmentsByCase.computeIfAbsent(medicalCase.getId(), id -> new ArrayList<>()).add(assignment);
+        medicalCase.getAssignments().add(assignment);
+
+        // The capacity the matcher saw: the workload trigger for this assignment has not run yet
+        DoctorCapacityDto capacity = ledger.capacityOf(assignment.getDoctorId());
+        double probability = (Double) ReflectionUtils.invokeMethod(successProbability, assignmentService,
+                capacity, medicalCase);
+        probabilityHistogram[Math.min(9, (int) (probability * 10))]++;
+        probabilitySum += probability;
+        assignments++;
+
+        if (assignment.getPriority() == AssignmentPriority.EMERGENCY) {
+            emergencyFastPath++;
+        }
+        if (assignment.getMatchingScore() != null) {
+            scoreSum += assignment.getMatchingScore();
+            scored++;
+        }
+        if (assignment.getDoctorId().equals(acceptedDoctorByCase.get(medicalCase.getId()))) {
+            agreeingCases++;
+        }
+        return assignment;
+    }
+
+    private Case toCase(ReplayDataset.CaseRecord record, long position, Patient patient) {
+        Case medicalCase = new Case();
+        medicalCase.setId(record.id() != null ? record.id() : position);
+        medicalCase.setCaseTitle("Replay case " + medicalCase.getId());
+        medicalCase.setPatient(patient);
+        medicalCase.setStatus(CaseStatus.PENDING);
+        medicalCase.setRequiredSpecialization(record.requiredSpecialization());
+        medicalCase.setSecondarySpecializations(valueOr(record.secondarySpecializations()));
+        medicalCase.setPrimaryDiseaseCode(record.primaryDiseaseCode());
+        medicalCase.setSecondaryDiseaseCodes(valueOr(record.secondaryDiseaseCodes()));
+        medicalCase.setSymptomCodes(valueOr(record.symptomCodes()));
+        medicalCase.setUrgencyLevel(record.urgencyLevel());
+        if (record.minDoctorsRequired() != null) {
+            medicalCase.setMinDoctorsRequired(record.minDoctorsRequired());
+        }
+        if (record.maxDoctorsAllowed() != null) {
+            medicalCase.setMaxDoctorsAllowed(record.maxDoctorsAllowed());
+        }
+        medicalCase.setSubmittedAt(LocalDateTime.now());
+        if (record.acceptedDoctorId() != null) {
+            acceptedDoctorByCase.put(medicalCase.getId(), record.acceptedDoctorId());
+        }
+        return medicalCase;
+    }
+
+    private Map<String, Object> buildReport(long[] latencies, long elapsedNanos) {
+        int caseCount = latencies.length;
+        int assignedCases = assignedByUrgency.values().stream().mapToInt(Integer::intValue).sum();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("doctors", dataset.doctors().size());
+        report.put("cases", caseCount);
+        report.put("workloadLag", workloadLag);
+        report.put("elapsedMs", elapsedNanos / 1_000_000.0);
+        report.put("casesPerSecond", elapsedNanos > 0 ? caseCount * 1_000_000_000.0 / elapsedNanos : 0.0);
+
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("averageMs", caseCount > 0 ? Arrays.stream(sorted).average().orElse(0) / 1_000_000.0 : 0.0);
+        latency.put("p50Ms", percentile(sorted, 0.50) / 1_000_000.0);
+        latency.put("p95Ms", percentile(sorted, 0.95) / 1_000_000.0);
+        latency.put("p99Ms", percentile(sorted, 0.99) / 1_000_000.0);
+        latency.put("maxMs", caseCount > 0 ? sorted[caseCount - 1] / 1_000_000.0 : 0.0);
+        report.put("latency", latency);
+
+        Map<String, Object> outcomes = new LinkedHashMap<>();
+        outcomes.put("assignedCases", assignedCases);
+        outcomes.put("assignedPercent", caseCount > 0 ? assignedCases * 100.0 / caseCount : 0.0);
+        outcomes.put("assignedByUrgency", assignedByUrgency);
+        outcomes.put("assignments", assignments);
+        outcomes.put("emergencyFastPathAssignments", emergencyFastPath);
+        outcomes.put("averageMatchingScore", scored > 0 ? scoreSum / scored : 0.0);
+        outcomes.put("failures", failures);
+        report.put("outcomes", outcomes);
+
+        report.put("capacityViolations", ledger.getCapacityViolations());
+
+        Map<String, Object> probability = new LinkedHashMap<>();
+        probability.put("average", assignments > 0 ? probabilitySum / assignments : 0.0);
+        Map<String, Integer> histogram = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < probabilityHistogram.length; bucket++) {
+            histogram.put(String.format("%.1f-%.1f", bucket / 10.0, (bucket + 1) / 10.0), probabilityHistogram[bucket]);
+        }
+        probability.put("histogram", histogram);
+        report.put("assignmentSuccessProbability", probability);
+
+        if (!acceptedDoctorByCase.isEmpty()) {
+            Map<String, Object> agreement = new LinkedHashMap<>();
+            agreement.put("casesWithAcceptedDoctor", acceptedDoctorByCase.size());
+            agreement.put("assignedToAcceptedDoctor", agreeingCases);
+            agreement.put("agreementPercent", agreeingCases * 100.0 / acceptedDoctorByCase.size());
+            report.put("historicalAgreement", agreement);
+        }
+        return report;
+    }
+
+    private static List<String> checkGates(Map<String, String> options, Map<String, Object> report) {
+        List<String> breaches = new ArrayList<>();
+        if (options.containsKey("max-capacity-violations")) {
+            long violations = (Long) report.get("capacityViolations");
+            if (violations > Long.parseLong(options.get("max-capacity-violations"))) {
+                breaches.add("Capacity violations " + violations + " above the limit of " +
+                        options.get("max-capacity-violations"));
+            }
+        }
+        if (options.containsKey("max-p99-ms")) {
+            @SuppressWarnings("unchecked")
+            double p99 = (Double) ((Map<String, Object>) report.get("latency")).get("p99Ms");
+            if (p99 > Double.parseDouble(options.get("max-p99-ms"))) {
+                breaches.add("p99 latency " + p99 + " ms above the limit of " + options.get("max-p99-ms") + " ms");
+            }
+        }
+        return breaches;
+    }
+
+    private static StandardEnvironment loadConfiguration(Map<String, String> options) throws Exception {
+        Properties properties = new Properties();
+        if (options.containsKey("config")) {
+            try (InputStream in = Files.newInputStream(Path.of(options.get("config")))) {
+                properties.load(in);
+            }
+        }
+        if (options.containsKey("weights")) {
+            properties.setProperty("case.assignment.scoring.weights-file", options.get("weights"));
+        }
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new PropertiesPropertySource("replay", properties));
+        return environment;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + arg + ", options are --name=value");
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int fallback) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : fallback;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static Set<String> valueOr(Set<String> values) {
+        return values != null ? values : new HashSet<>();
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException(target.getClass().getSimpleName() + "." + name + " not found");
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
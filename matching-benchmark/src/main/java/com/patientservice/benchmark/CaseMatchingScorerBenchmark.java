@@ -0,0 +1,117 @@
+package com.patientservice.benchmark;
+
+import com.commonlibrary.dto.DiseaseDto;
+import com.commonlibrary.dto.DoctorCapacityDto;
+import com.commonlibrary.dto.SymptomDto;
+import com.commonlibrary.entity.UrgencyLevel;
+import com.patientservice.entity.Case;
+import com.patientservice.service.CandidateScores;
+import com.patientservice.service.CaseMatchingScorer;
+import com.patientservice.service.DefaultCaseMatchingScorer;
+import com.patientservice.service.MatchingWeights;
+import com.patientservice.service.MedicalKnowledgeIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cases scored per second by the case-assignment matcher for 10, 100 and 1,000 candidate doctors.
+ *
+ * scoreCase measures the scoring pass alone; scoreAndSelectPrimary adds the top-K selection
+ * SmartCaseAssignmentService runs afterwards. Candidate data is synthetic but deterministic.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CaseMatchingScorerBenchmark {
+
+    private static final String[] SPECIALIZATIONS = {"CARDIOLOGY", "NEUROLOGY", "ONCOLOGY", "ENDOCRINOLOGY",
+            "GASTROENTEROLOGY", "PULMONOLOGY", "NEPHROLOGY", "RHEUMATOLOGY", "DERMATOLOGY", "HEMATOLOGY"};
+
+    @Param({"10", "100", "1000"})
+    private int candidates;
+
+    private final CaseMatchingScorer scorer = new DefaultCaseMatchingScorer();
+    private final MatchingWeights weights = new MatchingWeights();
+
+    private Case medicalCase;
+    private MedicalKnowledgeIndex.DiseaseExpertiseProfile diseaseProfile;
+    private List<DoctorCapacityDto> doctors;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+
+        List<DiseaseDto> diseases = new ArrayList<>();
+        for (int d = 0; d < 200; d++) {
+            diseases.add(DiseaseDto.builder()
+                    .icdCode("D" + d)
+                    .requiredSpecializations(new HashSet<>(List.of(SPECIALIZATIONS[d % SPECIALIZATIONS.length],
+                            SPECIALIZATIONS[(d * 7 + 3) % SPECIALIZATIONS.length])))
+                    .isActive(true)
+                    .build());
+        }
+        List<SymptomDto> symptoms = new ArrayList<>();
+        for (int s = 0; s < 100; s++) {
+            symptoms.add(SymptomDto.builder()
+                    .code("S" + s)
+                    .relevantSpecializations(Set.of(SPECIALIZATIONS[s % SPECIALIZATIONS.length]))
+                    .isActive(true)
+                    .build());
+        }
+
+        MedicalKnowledgeIndex index = new MedicalKnowledgeIndex(null, null);
+        index.install(diseases, symptoms);
+
+        medicalCase = new Case();
+        medicalCase.setRequiredSpecialization("CARDIOLOGY");
+        medicalCase.setSecondarySpecializations(Set.of("NEPHROLOGY", "ENDOCRINOLOGY"));
+        medicalCase.setPrimaryDiseaseCode("D0");
+        medicalCase.setSecondaryDiseaseCodes(Set.of("D13", "D27"));
+        medicalCase.setSymptomCodes(Set.of("S0", "S6"));
+        medicalCase.setUrgencyLevel(UrgencyLevel.HIGH);
+        diseaseProfile = index.profileFor(medicalCase);
+
+        doctors = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            int maxActiveCases = 10 + random.nextInt(20);
+            int maxDailyAppointments = 8 + random.nextInt(8);
+            doctors.add(DoctorCapacityDto.builder()
+                    .doctorId((long) i)
+                    .primarySpecialization(SPECIALIZATIONS[random.nextInt(3)])
+                    .subSpecializations(new HashSet<>(List.of(SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)],
+                            SPECIALIZATIONS[3 + random.nextInt(SPECIALIZATIONS.length - 3)])))
+                    .activeCases(random.nextInt(maxActiveCases))
+                    .maxActiveCases(maxActiveCases)
+                    .todayAppointments(random.nextInt(maxDailyAppointments))
+                    .maxDailyAppointments(maxDailyAppointments)
+                    .workloadPercentage(random.nextDouble() * 100.0)
+                    .isAvailable(true)
+                    .emergencyMode(random.nextInt(10) == 0)
+                    .averageRating(random.nextInt(5) == 0 ? null : 3.0 + random.nextDouble() * 2.0)
+                    .consultationCount(random.nextInt(1500))
+                    .completionRate(70.0 + random.nextDouble() * 30.0)
+                    .yearsOfExperience(random.nextInt(30))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public CandidateScores scoreCase() {
+        CandidateScores scores = new CandidateScores(doctors);
+        scorer.score(medicalCase, diseaseProfile, weights, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public void scoreAndSelectPrimary(Blackhole blackhole) {
+        CandidateScores scores = new CandidateScores(doctors);
+        scorer.score(medicalCase, diseaseProfile, weights, scores);
+        blackhole.consume(scores.topK(1, 35.0));
+    }
+}
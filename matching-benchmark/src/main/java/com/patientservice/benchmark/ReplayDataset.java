@@ -0,0 +1,134 @@
+package com.patientservice.benchmark;
+
+import com.commonlibrary.dto.DiseaseDto;
+import com.commonlibrary.dto.SymptomDto;
+import com.commonlibrary.entity.UrgencyLevel;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Input of an assignment replay: the doctor pool, the medical knowledge the matcher scores
+ * against, and the cases to assign in submission order.
+ *
+ * Either loaded from a JSON export of historical data or generated synthetically (deterministic
+ * for a given seed). JSON layout, unknown fields are ignored:
+ * <pre>
+ * {
+ *   "doctors":  [{"doctorId": 1, "primarySpecialization": "CARDIOLOGY", "subSpecializations": ["NEPHROLOGY"],
+ *                 "activeCases": 3, "maxActiveCases": 10, "todayAppointments": 1, "maxDailyAppointments": 8,
+ *                 "isAvailable": true, "emergencyMode": false, "averageRating": 4.5,
+ *                 "consultationCount": 120, "completionRate": 95.0, "yearsOfExperience": 12}],
+ *   "diseases": [DiseaseDto, ...],
+ *   "symptoms": [SymptomDto, ...],
+ *   "cases":    [{"id": 1, "requiredSpecialization": "CARDIOLOGY", "secondarySpecializations": [],
+ *                 "primaryDiseaseCode": "I21", "secondaryDiseaseCodes": [], "symptomCodes": ["R07"],
+ *                 "urgencyLevel": "HIGH", "acceptedDoctorId": 1}]
+ * }
+ * </pre>
+ * acceptedDoctorId is the doctor who historically accepted the case (from case_assignments), if known.
+ */
+public record ReplayDataset(List<DoctorRecord> doctors, List<DiseaseDto> diseases,
+                            List<SymptomDto> symptoms, List<CaseRecord> cases) {
+
+    static final String[] SPECIALIZATIONS = {"CARDIOLOGY", "NEUROLOGY", "ONCOLOGY", "ENDOCRINOLOGY",
+            "GASTROENTEROLOGY", "PULMONOLOGY", "NEPHROLOGY", "RHEUMATOLOGY", "DERMATOLOGY", "HEMATOLOGY"};
+
+    public ReplayDataset {
+        doctors = doctors != null ? doctors : List.of();
+        diseases = diseases != null ? diseases : List.of();
+        symptoms = symptoms != null ? symptoms : List.of();
+        cases = cases != null ? cases : List.of();
+    }
+
+    public static ReplayDataset load(Path file) throws IOException {
+        return new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .readValue(file.toFile(), ReplayDataset.class);
+    }
+
+    /**
+     * Synthetic pool and case stream with a realistic urgency mix (5% CRITICAL, 20% HIGH,
+     * 50% MEDIUM, 25% LOW) and doctors that start partly loaded
+     */
+    public static ReplayDataset synthetic(int doctorCount, int caseCount, long seed) {
+        Random random = new Random(seed);
+
+        List<DiseaseDto> diseases = new ArrayList<>();
+        for (int d = 0; d < 200; d++) {
+            diseases.add(DiseaseDto.builder()
+                    .icdCode("D" + d)
+                    .requiredSpecializations(new HashSet<>(List.of(SPECIALIZATIONS[d % SPECIALIZATIONS.length],
+                            SPECIALIZATIONS[(d * 7 + 3) % SPECIALIZATIONS.length])))
+                    .isActive(true)
+                    .build());
+        }
+        List<SymptomDto> symptoms = new ArrayList<>();
+        for (int s = 0; s < 100; s++) {
+            symptoms.add(SymptomDto.builder()
+                    .code("S" + s)
+                    .relevantSpecializations(Set.of(SPECIALIZATIONS[s % SPECIALIZATIONS.length]))
+                    .isActive(true)
+                    .build());
+        }
+
+        List<DoctorRecord> doctors = new ArrayList<>(doctorCount);
+        for (int i = 1; i <= doctorCount; i++) {
+            int maxActiveCases = 10 + random.nextInt(20);
+            int maxDailyAppointments = 8 + random.nextInt(8);
+            doctors.add(new DoctorRecord((long) i, "Doctor " + i,
+                    SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)],
+                    new HashSet<>(List.of(SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)])),
+                    random.nextInt(maxActiveCases / 2 + 1), maxActiveCases,
+                    random.nextInt(maxDailyAppointments / 2 + 1), maxDailyAppointments,
+                    random.nextInt(20) != 0, random.nextInt(20) == 0,
+                    random.nextInt(5) == 0 ? null : 3.0 + random.nextDouble() * 2.0,
+                    random.nextInt(1500), 70.0 + random.nextDouble() * 30.0, random.nextInt(30)));
+        }
+
+        List<CaseRecord> cases = new ArrayList<>(caseCount);
+        for (int c = 1; c <= caseCount; c++) {
+            int disease = random.nextInt(diseases.size());
+            Set<String> secondaryDiseases = new HashSet<>();
+            for (int k = random.nextInt(3); k > 0; k--) {
+                secondaryDiseases.add("D" + random.nextInt(diseases.size()));
+            }
+            Set<String> symptomCodes = new HashSet<>();
+            for (int k = 1 + random.nextInt(3); k > 0; k--) {
+                symptomCodes.add("S" + random.nextInt(symptoms.size()));
+            }
+            int roll = random.nextInt(100);
+            UrgencyLevel urgency = roll < 5 ? UrgencyLevel.CRITICAL
+                    : roll < 25 ? UrgencyLevel.HIGH
+                    : roll < 75 ? UrgencyLevel.MEDIUM
+                    : UrgencyLevel.LOW;
+            cases.add(new CaseRecord((long) c, SPECIALIZATIONS[disease % SPECIALIZATIONS.length],
+                    Set.of(SPECIALIZATIONS[(disease * 7 + 3) % SPECIALIZATIONS.length]),
+                    "D" + disease, secondaryDiseases, symptomCodes, urgency, null, null, null));
+        }
+
+        return new ReplayDataset(doctors, diseases, symptoms, cases);
+    }
+
+    /**
+     * A doctor's capacity at the start of the replay (same fields as DoctorCapacityDto)
+     */
+    public record DoctorRecord(Long doctorId, String fullName, String primarySpecialization,
+                               Set<String> subSpecializations, Integer activeCases, Integer maxActiveCases,
+                               Integer todayAppointments, Integer maxDailyAppointments, Boolean isAvailable,
+                               Boolean emergencyMode, Double averageRating, Integer consultationCount,
+                               Double completionRate, Integer yearsOfExperience) {
+    }
+
+    /**
+     * The matching-relevant fields of a submitted case
+     */
+    public record CaseRecord(Long id, String requiredSpecialization, Set<String> secondarySpecializations,
+                             String primaryDiseaseCode, Set<String> secondaryDiseaseCodes, Set<String> symptomCodes,
+                             UrgencyLevel urgencyLevel, Integer minDoctorsRequired, Integer maxDoctorsAllowed,
+                             Long acceptedDoctorId) {
+    }
+}
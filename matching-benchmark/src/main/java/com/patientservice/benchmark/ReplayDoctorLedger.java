@@ -0,0 +1,174 @@
+package com.patientservice.benchmark;
+
+import com.commonlibrary.dto.ApiResponse;
+import com.commonlibrary.dto.DoctorCapacityDto;
+import com.patientservice.feign.DoctorServiceClient;
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.ResponseEntity;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Stand-in for doctor-service during a replay. Holds every doctor's capacity and answers the
+ * DoctorServiceClient calls the matcher makes, with the doctor-service candidate rules
+ * (verified doctors below both limits, least loaded first; emergency-mode doctors first for
+ * emergency-available).
+ *
+ * An assignment counts against the doctor at once in the true ledger, but only reaches the
+ * published capacity the matcher sees after workloadLag further assignments, to model the
+ * asynchronous workload update. An assignment to a doctor already at their active case limit
+ * in the true ledger (and not in emergency mode) is a capacity violation.
+ */
+class ReplayDoctorLedger {
+
+    private static final Comparator<DoctorCapacityDto> LEAST_LOADED_FIRST = Comparator
+            .comparingDouble(DoctorCapacityDto::getWorkloadPercentage)
+            .thenComparing(doctor -> doctor.getAverageRating() != null ? doctor.getAverageRating() : 0.0,
+                    Comparator.reverseOrder())
+            .thenComparingLong(DoctorCapacityDto::getDoctorId);
+
+    private static final Comparator<DoctorCapacityDto> EMERGENCY_FIRST = Comparator
+            .comparing((DoctorCapacityDto doctor) -> !doctor.getEmergencyMode())
+            .thenComparing(LEAST_LOADED_FIRST);
+
+    private final Map<Long, DoctorCapacityDto> published = new HashMap<>();
+    private final Map<String, List<DoctorCapacityDto>> bySpecialization = new HashMap<>();
+    private final Map<Long, Integer> actualActiveCases = new HashMap<>();
+    private final ArrayDeque<Long> pendingUpdates = new ArrayDeque<>();
+    private final int workloadLag;
+
+    private Consumer<DoctorCapacityDto> capacityListener = capacity -> { };
+    private long capacityViolations;
+
+    ReplayDoctorLedger(List<ReplayDataset.DoctorRecord> doctors, int workloadLag) {
+        this.workloadLag = workloadLag;
+        for (ReplayDataset.DoctorRecord record : doctors) {
+            DoctorCapacityDto doctor = DoctorCapacityDto.builder()
+                    .doctorId(record.doctorId())
+                    .fullName(record.fullName())
+                    .primarySpecialization(record.primarySpecialization())
+                    .subSpecializations(record.subSpecializations() != null ? record.subSpecializations() : Set.of())
+                    .activeCases(valueOr(record.activeCases(), 0))
+                    .maxActiveCases(valueOr(record.maxActiveCases(), 10))
+                    .todayAppointments(valueOr(record.todayAppointments(), 0))
+                    .maxDailyAppointments(valueOr(record.maxDailyAppointments(), 8))
+                    .isAvailable(!Boolean.FALSE.equals(record.isAvailable()))
+                    .emergencyMode(Boolean.TRUE.equals(record.emergencyMode()))
+                    .averageRating(record.averageRating())
+                    .consultationCount(valueOr(record.consultationCount(), 0))
+                    .completionRate(record.completionRate())
+                    .yearsOfExperience(valueOr(record.yearsOfExperience(), 0))
+                    .build();
+            doctor.setWorkloadPercentage(workloadPercentage(doctor));
+            published.put(doctor.getDoctorId(), doctor);
+            actualActiveCases.put(doctor.getDoctorId(), doctor.getActiveCases());
+            if (doctor.getPrimarySpecialization() != null) {
+                bySpecialization.computeIfAbsent(doctor.getPrimarySpecialization(), s -> new ArrayList<>()).add(doctor);
+            }
+        }
+    }
+
+    /**
+     * Receives every published capacity change, like the doctor-capacity-update-topic consumer
+     */
+    void setCapacityListener(Consumer<DoctorCapacityDto> capacityListener) {
+        this.capacityListener = capacityListener;
+    }
+
+    /**
+     * The workload update trigger patient-service sends after creating an assignment
+     */
+    void recordAssignment(Long doctorId) {
+        DoctorCapacityDto doctor = published.get(doctorId);
+        if (doctor == null) {
+            return;
+        }
+        int activeCases = actualActiveCases.merge(doctorId, 1, Integer::sum);
+        if (activeCases > doctor.getMaxActiveCases() && !doctor.getEmergencyMode()) {
+            capacityViolations++;
+        }
+
+        pendingUpdates.add(doctorId);
+        while (pendingUpdates.size() > workloadLag) {
+            publish(pendingUpdates.poll());
+        }
+    }
+
+    long getCapacityViolations() {
+        return capacityViolations;
+    }
+
+    /**
+     * Copy of the capacity the matcher currently sees for the doctor
+     */
+    DoctorCapacityDto capacityOf(Long doctorId) {
+        DoctorCapacityDto doctor = published.get(doctorId);
+        return doctor != null ? copyOf(doctor) : null;
+    }
+
+    DoctorServiceClient asClient() {
+        return ReplayStubs.stub(DoctorServiceClient.class, Map.of(
+                "getAvailableDoctorsBySpecializationWithCapacity",
+                args -> findAvailable((String) args[0], (Integer) args[1]),
+                "getEmergencyAvailableDoctors",
+                args -> ResponseEntity.ok(ApiResponse.success(findEmergencyAvailable((String) args[0], (Integer) args[1]))),
+                "getDoctorCapacity",
+                args -> ResponseEntity.ok(ApiResponse.success(capacityOf((Long) args[0]))),
+                "getSystemWorkloadStatistics",
+                args -> ResponseEntity.ok(ApiResponse.success(Map.<String, Object>of()))));
+    }
+
+    private List<DoctorCapacityDto> findAvailable(String specialization, int limit) {
+        return bySpecialization.getOrDefault(specialization, List.of()).stream()
+                .filter(doctor -> doctor.getIsAvailable() && isWithinLimits(doctor))
+                .sorted(LEAST_LOADED_FIRST)
+                .limit(limit)
+                .map(ReplayDoctorLedger::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    private List<DoctorCapacityDto> findEmergencyAvailable(String specialization, int limit) {
+        Collection<DoctorCapacityDto> doctors = specialization != null
+                ? bySpecialization.getOrDefault(specialization, List.of())
+                : published.values();
+        return doctors.stream()
+                .filter(doctor -> doctor.getIsAvailable() && (doctor.getEmergencyMode() || isWithinLimits(doctor)))
+                .sorted(EMERGENCY_FIRST)
+                .limit(limit)
+                .map(ReplayDoctorLedger::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    private void publish(Long doctorId) {
+        DoctorCapacityDto doctor = published.get(doctorId);
+        doctor.setActiveCases(actualActiveCases.get(doctorId));
+        doctor.setWorkloadPercentage(workloadPercentage(doctor));
+        capacityListener.accept(copyOf(doctor));
+    }
+
+    private static boolean isWithinLimits(DoctorCapacityDto doctor) {
+        return doctor.getActiveCases() < doctor.getMaxActiveCases() &&
+                doctor.getTodayAppointments() < doctor.getMaxDailyAppointments();
+    }
+
+    /**
+     * Same weighting as doctor-service: half active cases, half today's appointments
+     */
+    private static double workloadPercentage(DoctorCapacityDto doctor) {
+        double caseLoad = (double) doctor.getActiveCases() / doctor.getMaxActiveCases() * 50;
+        double appointmentLoad = (double) doctor.getTodayAppointments() / doctor.getMaxDailyAppointments() * 50;
+        return Math.min(100.0, caseLoad + appointmentLoad);
+    }
+
+    private static DoctorCapacityDto copyOf(DoctorCapacityDto doctor) {
+        DoctorCapacityDto copy = DoctorCapacityDto.builder().build();
+        BeanUtils.copyProperties(doctor, copy);
+        return copy;
+    }
+
+    private static int valueOr(Integer value, int fallback) {
+        return value != null ? value : fallback;
+    }
+}
@@ -0,0 +1,35 @@
+package com.patientservice.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory implementations of the Feign clients and repositories the matcher depends on.
+ * Only the named methods are implemented; any other call fails, so a replay never silently
+ * skips work the production path would do.
+ */
+final class ReplayStubs {
+
+    private ReplayStubs() {
+    }
+
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    default -> "Replay stub of " + type.getSimpleName();
+                };
+            }
+            Function<Object[], Object> implementation = methods.get(method.getName());
+            if (implementation == null) {
+                throw new UnsupportedOperationException(
+                        type.getSimpleName() + "." + method.getName() + " is not available in the replay");
+            }
+            return implementation.apply(args);
+        });
+        return type.cast(proxy);
+    }
+}
@@ -0,0 +1,40 @@
+package com.patientservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the admin case analytics
+ */
+@Configuration
+@ConfigurationProperties(prefix = "case.analytics")
+@Data
+public class CaseAnalyticsConfig {
+
+    /**
+     * Days (back from today) the nightly job recounts in case_daily_rollup and case_duration_sketch
+     * from the cases table, catching changes that bypassed the per-case updates
+     * Default: 7 days
+     */
+    private Integer rollupReconcileDays = 7;
+
+    /**
+     * Cron of the nightly rollup reconciliation
+     * Default: 02:30 every day
+     */
+    private String rollupReconcileCron = "0 30 2 * * *";
+
+    /**
+     * Minutes a cached analytics bucket that lies entirely in the past is reused before it is recomputed
+     * (status changes of old cases only show up after that, or after the nightly reconciliation)
+     * Default: 360 minutes
+     */
+    private Integer cacheClosedBucketTtlMinutes = 360;
+
+    /**
+     * Maximum number of cached analytics buckets, the oldest are evicted first
+     * Default: 500
+     */
+    private Integer cacheMaxBuckets = 500;
+}
@@ -5,7 +5,11 @@ import org.springframework.context.annotation.Configuration;
 import lombok.Data;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import com.commonlibrary.entity.UrgencyLevel;
+
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration properties for case assignment scheduling and reminder system
@@ -96,6 +100,91 @@ public class CaseAssignmentSchedulerConfig {
      */
     private Integer expirationGracePeriodMinutes = 5;
 
+    /**
+     * Number of cases needing reassignment in one scheduler run at which the batch
+     * assignment engine is used instead of one reassignment event per case
+     * Default: 10
+     */
+    private Integer batchReassignmentThreshold = 10;
+
+    /**
+     * Maximum number of cases sent in a single batch assignment event
+     * Default: 200
+     */
+    private Integer batchMaxCases = 200;
+
+    /**
+     * Attempts made for a new case's assignment request before it is marked FAILED
+     * Default: 5
+     */
+    private Integer assignmentRequestMaxAttempts = 5;
+
+    /**
+     * Delay before the first retry of a failed assignment request; doubles on each retry
+     * Default: 60
+     */
+    private Integer assignmentRequestRetryDelaySeconds = 60;
+
+    /**
+     * Minutes after which an IN_PROGRESS assignment request is considered lost and re-queued
+     * Default: 10
+     */
+    private Integer assignmentRequestStaleMinutes = 10;
+
+    /**
+     * Offer CRITICAL cases straight to doctors from the local emergency on-call pool,
+     * skipping the candidate fetch and full scoring
+     * Default: true
+     */
+    private Boolean emergencyFastPathEnabled = true;
+
+    /**
+     * Number of on-call doctors a CRITICAL case is offered to on the fast path
+     * Default: 1
+     */
+    private Integer emergencyFastPathOffers = 1;
+
+    /**
+     * How often the on-call pool is fully reloaded from doctor-service (in seconds);
+     * between reloads it follows doctor capacity events
+     * Default: 300
+     */
+    private Integer emergencyPoolRefreshIntervalSeconds = 300;
+
+    /**
+     * Maximum number of doctors loaded into the on-call pool on a reload
+     * Default: 500
+     */
+    private Integer emergencyPoolWarmupLimit = 500;
+
+    /**
+     * Number of ranked candidates kept per case from its matching pass, used to replace
+     * rejected or expired doctors without a full re-match
+     * Default: 10
+     */
+    private Integer rankingCacheDepth = 10;
+
+    /**
+     * Maximum number of cases whose ranking is kept (least recently used are evicted)
+     * Default: 5000
+     */
+    private Integer rankingCacheMaxCases = 5000;
+
+    /**
+     * Minutes after which a cached ranking is considered stale and a full re-match is done
+     * Default: 60
+     */
+    private Integer rankingCacheTtlMinutes = 60;
+
+    /**
+     * Target time from submission to first doctor offer, per urgency level (in seconds)
+     */
+    private Map<UrgencyLevel, Integer> firstOfferSloSeconds = new EnumMap<>(Map.of(
+            UrgencyLevel.CRITICAL, 60,
+            UrgencyLevel.HIGH, 900,
+            UrgencyLevel.MEDIUM, 3600,
+            UrgencyLevel.LOW, 14400));
+
     /**
      * Calculate the exact timeout duration in hours
      */
@@ -0,0 +1,32 @@
+package com.patientservice.config;
+
+import com.patientservice.service.MatchingWeights;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the case-assignment matching score
+ */
+@Configuration
+@ConfigurationProperties(prefix = "case.assignment.scoring")
+@Data
+public class MatchingScoringConfig {
+
+    /**
+     * Startup weights (case.assignment.scoring.weights.*)
+     */
+    private MatchingWeights weights = new MatchingWeights();
+
+    /**
+     * Optional external properties file with case.assignment.scoring.weights.* overrides.
+     * It is re-read whenever it changes, so weights can be tuned without a restart.
+     */
+    private String weightsFile;
+
+    /**
+     * How often to check the weights file for changes (in milliseconds)
+     * Default: 30000 (30 seconds)
+     */
+    private Long weightsReloadIntervalMs = 30000L;
+}
@@ -3,6 +3,10 @@ package com.patientservice.controller;
 import com.patientservice.config.CaseAssignmentSchedulerConfig;
 import com.patientservice.scheduler.CaseAssignmentScheduler;
 import com.patientservice.scheduler.CaseAssignmentScheduler.SchedulerStatistics;
+import com.patientservice.service.AssignmentLatencyTracker;
+import com.patientservice.service.EmergencyOnCallPool;
+import com.patientservice.service.MatchingWeightsProvider;
+import com.patientservice.service.RankedCandidateCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +30,10 @@ public class CaseAssignmentSchedulerController {
 
     private final CaseAssignmentScheduler scheduler;
     private final CaseAssignmentSchedulerConfig config;
+    private final MatchingWeightsProvider matchingWeightsProvider;
+    private final AssignmentLatencyTracker assignmentLatencyTracker;
+    private final EmergencyOnCallPool emergencyOnCallPool;
+    private final RankedCandidateCache rankedCandidateCache;
 
     /**
      * Get scheduler statistics and status
@@ -165,4 +173,86 @@ public class CaseAssignmentSchedulerController {
             return ResponseEntity.internalServerError().body(errorResponse);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Get the matching weights currently used by the case-assignment matcher
+     * Available to admins only
+     */
+    @GetMapping("/scoring-weights")
+    //@PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get matching scoring weights",
+               description = "Retrieve the active matching weights, their version and where they were loaded from")
+    public ResponseEntity<Map<String, Object>> getScoringWeights() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", matchingWeightsProvider.getStatus());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Reload matching weights from the configured weights file without waiting for the next poll
+     * Available to admins only
+     */
+    @PostMapping("/scoring-weights/reload")
+    //@PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reload matching scoring weights",
+               description = "Re-read the matching weights file; invalid weights are rejected and the previous ones kept")
+    public ResponseEntity<Map<String, Object>> reloadScoringWeights() {
+        boolean reloaded = matchingWeightsProvider.reload();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", reloaded);
+        response.put("data", matchingWeightsProvider.getStatus());
+        response.put("timestamp", System.currentTimeMillis());
+        return reloaded ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    /**
+     * Time from case submission to first doctor offer per urgency level, against the SLO
+     * Available to admins only
+     */
+    @GetMapping("/first-offer-latency")
+    //@PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get first-offer latency SLO",
+               description = "Submission-to-first-offer latency per urgency level (count, SLO attainment, percentiles)")
+    public ResponseEntity<Map<String, Object>> getFirstOfferLatency() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", assignmentLatencyTracker.getStatistics());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Emergency on-call pool size per specialization
+     * Available to admins only
+     */
+    @GetMapping("/on-call-pool")
+    //@PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get emergency on-call pool",
+               description = "Number of doctors available to the CRITICAL-case fast path, per specialization")
+    public ResponseEntity<Map<String, Object>> getOnCallPool() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", emergencyOnCallPool.getStatus());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Cached per-case candidate rankings used for reassignment
+     * Available to admins only
+     */
+    @GetMapping("/ranking-cache")
+    //@PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get ranked candidate cache statistics",
+               description = "Cases with a cached ranking and how often reassignment was served from it")
+    public ResponseEntity<Map<String, Object>> getRankingCache() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", rankedCandidateCache.getStatistics());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -87,6 +87,14 @@ public class PatientController {
         return ResponseEntity.ok(ApiResponse.success(caseDetails));
     }
 
+    @GetMapping("/cases/{caseId}/assignment-status")
+    public ResponseEntity<ApiResponse<CaseAssignmentStatusDto>> getCaseAssignmentStatus(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long caseId) {
+        CaseAssignmentStatusDto status = patientService.getCaseAssignmentStatus(userId, caseId);
+        return ResponseEntity.ok(ApiResponse.success(status));
+    }
+
     @PostMapping("/cases/{caseId}/reschedule-request")
     public ResponseEntity<ApiResponse<Void>> requestReschedule(
             @RequestHeader("X-User-Id") Long userId,
@@ -36,6 +36,8 @@ import java.util.stream.Collectors;
 @Tag(name = "Patient Admin Operations", description = "Admin endpoints for patient case management")
 public class PatientInternalController {
 
+    public static final String COUNTS_AS_OF_HEADER = "X-Counts-As-Of";
+
     private final PatientAdminService patientAdminService;
     private final CaseAnalyticsService caseAnalyticsService;
     private final PatientService patientService;
@@ -228,6 +230,23 @@ public class PatientInternalController {
         return ResponseEntity.ok(ApiResponse.success(patientInfo, "Patient info retrieved"));
     }
 
+    /**
+     * Active case counts by case status of many doctors in one call (doctor-service workload).
+     * The COUNTS_AS_OF_HEADER carries the time (epoch millis, this service's clock) taken before
+     * counting, the same clock that stamps the workload events, so doctor-service can order the
+     * counts against those events.
+     */
+    @PostMapping("/doctors/active-case-counts")
+    @Operation(summary = "Get active case counts by status for many doctors")
+    public ResponseEntity<ApiResponse<Map<Long, Map<CaseStatus, Long>>>> getDoctorsActiveCaseCounts(
+            @RequestBody List<Long> doctorIds) {
+        long asOf = System.currentTimeMillis();
+        Map<Long, Map<CaseStatus, Long>> counts = patientService.getDoctorsActiveCaseCounts(doctorIds);
+        return ResponseEntity.ok()
+                .header(COUNTS_AS_OF_HEADER, String.valueOf(asOf))
+                .body(ApiResponse.success(counts, "Active case counts retrieved"));
+    }
+
     /**
      * Get case statistics by status
      */
@@ -267,6 +286,15 @@ public class PatientInternalController {
         return ResponseEntity.ok(ApiResponse.success(statistics, "Statistics retrieved"));
     }
 
+    /**
+     * Cases waiting for a doctor per specialization (doctor-service workload history)
+     */
+    @GetMapping("/cases/statistics/waiting-by-specialization")
+    @Operation(summary = "Get waiting case counts by specialization")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getWaitingCasesBySpecialization() {
+        Map<String, Long> statistics = patientAdminService.getWaitingCasesBySpecialization();
+        return ResponseEntity.ok(ApiResponse.success(statistics, "Statistics retrieved"));
+    }
 
     /**
      * Get patient profile by ID (internal use)
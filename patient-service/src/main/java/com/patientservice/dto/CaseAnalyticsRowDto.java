@@ -0,0 +1,23 @@
+package com.patientservice.dto;
+
+import com.commonlibrary.entity.CaseStatus;
+import com.commonlibrary.entity.UrgencyLevel;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Slim read-only case projection for row-level analytics (no associations, no entity state)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CaseAnalyticsRowDto {
+    private Long id;
+    private CaseStatus status;
+    private UrgencyLevel urgencyLevel;
+    private String requiredSpecialization;
+    private LocalDateTime submittedAt;
+    private LocalDateTime firstAssignedAt;
+    private LocalDateTime closedAt;
+}
@@ -0,0 +1,29 @@
+package com.patientservice.dto;
+
+import com.commonlibrary.entity.CaseStatus;
+import com.patientservice.entity.AssignmentRequestStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a case's asynchronous doctor assignment, polled by the patient after submission
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CaseAssignmentStatusDto {
+    private Long caseId;
+    private CaseStatus caseStatus;
+    private String requestId;
+    private AssignmentRequestStatus requestStatus;
+    private Integer attempts;
+    private Integer maxAttempts;
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime lastUpdatedAt;
+    private String error;
+}
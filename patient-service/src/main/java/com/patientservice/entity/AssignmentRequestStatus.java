@@ -0,0 +1,12 @@
+package com.patientservice.entity;
+
+/**
+ * Progress of the asynchronous doctor-assignment request created when a case is submitted
+ */
+public enum AssignmentRequestStatus {
+    QUEUED,
+    IN_PROGRESS,
+    RETRY_SCHEDULED,
+    ASSIGNED,
+    FAILED
+}
@@ -2,6 +2,7 @@ package com.patientservice.entity;
 
 import com.commonlibrary.entity.*;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
@@ -14,6 +15,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "cases")
+@EntityListeners(CaseDailyRollupListener.class)
 @Getter
 @Setter
 @Builder
@@ -130,6 +132,26 @@ public class Case extends BaseEntity {
     @Column(name = "report_id")
     private Long reportId;
 
+    // Asynchronous assignment request
+    @Enumerated(EnumType.STRING)
+    @Column(name = "assignment_request_status")
+    private AssignmentRequestStatus assignmentRequestStatus;
+
+    @Column(name = "assignment_request_id")
+    private String assignmentRequestId;
+
+    @Column(name = "assignment_request_attempts")
+    private Integer assignmentRequestAttempts;
+
+    @Column(name = "assignment_request_updated_at")
+    private LocalDateTime assignmentRequestUpdatedAt;
+
+    @Column(name = "next_assignment_attempt_at")
+    private LocalDateTime nextAssignmentAttemptAt;
+
+    @Column(name = "assignment_request_error")
+    private String assignmentRequestError;
+
     /**
      * Helper method to get the name of the person this case is for
      */
@@ -155,4 +177,14 @@ public class Case extends BaseEntity {
     @Column(name = "supervisor_notes")
     private String supervisorNotes;
 
+    // Daily rollup bucket as last loaded or saved, maintained by CaseDailyRollupListener
+    @Transient
+    @JsonIgnore
+    private CaseRollupKey rollupKey;
+
+    // Duration sketch rows and durations as last loaded or saved, maintained by CaseDailyRollupListener
+    @Transient
+    @JsonIgnore
+    private CaseDurationKey durationKey;
+
 }
\ No newline at end of file
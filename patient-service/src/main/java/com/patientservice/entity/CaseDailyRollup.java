@@ -0,0 +1,43 @@
+package com.patientservice.entity;
+
+import com.commonlibrary.entity.BaseEntity;
+import com.commonlibrary.entity.CaseStatus;
+import com.commonlibrary.entity.UrgencyLevel;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated case count per (submission day, specialization, urgency, status).
+ * Maintained incrementally on every case change and rebuilt nightly by CaseDailyRollupService.
+ */
+@Entity
+@Table(name = "case_daily_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_case_daily_rollup_bucket",
+                columnNames = {"rollup_date", "specialization", "urgency_level", "status"}),
+        indexes = @Index(name = "idx_case_daily_rollup_date", columnList = "rollup_date"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CaseDailyRollup extends BaseEntity {
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(nullable = false)
+    private String specialization;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "urgency_level", nullable = false)
+    private UrgencyLevel urgencyLevel;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CaseStatus status;
+
+    @Column(nullable = false)
+    private Long caseCount;
+}
@@ -0,0 +1,61 @@
+package com.patientservice.entity;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Objects;
+
+/**
+ * Entity listener turning every case change that moves it between rollup buckets (status, urgency,
+ * specialization, submission day or deletion) into a delta for the daily rollup, and every change
+ * of its assignment or resolution time into a move in the duration sketches.
+ * Created by Hibernate through Spring; the recorder (CaseDailyRollupService) is resolved lazily to
+ * avoid a cycle with the EntityManagerFactory.
+ */
+public class CaseDailyRollupListener {
+
+    private final ObjectProvider<CaseRollupRecorder> rollupRecorder;
+
+    public CaseDailyRollupListener(ObjectProvider<CaseRollupRecorder> rollupRecorder) {
+        this.rollupRecorder = rollupRecorder;
+    }
+
+    @PostLoad
+    public void onLoad(Case medicalCase) {
+        medicalCase.setRollupKey(CaseRollupKey.of(medicalCase));
+        medicalCase.setDurationKey(CaseDurationKey.of(medicalCase));
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Case medicalCase) {
+        CaseRollupKey previous = medicalCase.getRollupKey();
+        CaseRollupKey current = CaseRollupKey.of(medicalCase);
+        if (!Objects.equals(previous, current)) {
+            rollupRecorder.getObject().recordChange(previous, current);
+        }
+        medicalCase.setRollupKey(current);
+
+        CaseDurationKey previousDurations = medicalCase.getDurationKey();
+        CaseDurationKey currentDurations = CaseDurationKey.of(medicalCase);
+        if (!Objects.equals(previousDurations, currentDurations)) {
+            rollupRecorder.getObject().recordDurationChange(previousDurations, currentDurations);
+        }
+        medicalCase.setDurationKey(currentDurations);
+    }
+
+    @PostRemove
+    public void onRemove(Case medicalCase) {
+        if (medicalCase.getRollupKey() != null) {
+            rollupRecorder.getObject().recordChange(medicalCase.getRollupKey(), null);
+        }
+        medicalCase.setRollupKey(null);
+        if (medicalCase.getDurationKey() != null) {
+            rollupRecorder.getObject().recordDurationChange(medicalCase.getDurationKey(), null);
+        }
+        medicalCase.setDurationKey(null);
+    }
+}
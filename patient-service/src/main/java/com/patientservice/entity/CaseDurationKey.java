@@ -0,0 +1,41 @@
+package com.patientservice.entity;
+
+import com.commonlibrary.entity.CaseStatus;
+import com.commonlibrary.entity.UrgencyLevel;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The case_duration_sketch rows a case counts towards (submission day, specialization, urgency) and
+ * the durations it adds to them, in minutes (null while the case has not got that far)
+ */
+public record CaseDurationKey(LocalDate day, String specialization, UrgencyLevel urgencyLevel,
+                              Long assignmentMinutes, Long resolutionMinutes) {
+
+    /**
+     * Durations of the case in its current state, null when it adds none (deleted, not submitted,
+     * no urgency or neither assigned nor closed yet)
+     */
+    public static CaseDurationKey of(Case medicalCase) {
+        LocalDateTime submittedAt = medicalCase.getSubmittedAt();
+        if (Boolean.TRUE.equals(medicalCase.getIsDeleted()) || submittedAt == null
+                || medicalCase.getUrgencyLevel() == null) {
+            return null;
+        }
+        Long assignmentMinutes = medicalCase.getFirstAssignedAt() != null ?
+                ChronoUnit.MINUTES.between(submittedAt, medicalCase.getFirstAssignedAt()) : null;
+        Long resolutionMinutes = medicalCase.getStatus() == CaseStatus.CLOSED && medicalCase.getClosedAt() != null ?
+                ChronoUnit.MINUTES.between(submittedAt, medicalCase.getClosedAt()) : null;
+        if (assignmentMinutes == null && resolutionMinutes == null) {
+            return null;
+        }
+        return new CaseDurationKey(
+                submittedAt.toLocalDate(),
+                medicalCase.getRequiredSpecialization() != null ? medicalCase.getRequiredSpecialization() : "GENERAL",
+                medicalCase.getUrgencyLevel(),
+                assignmentMinutes,
+                resolutionMinutes);
+    }
+}
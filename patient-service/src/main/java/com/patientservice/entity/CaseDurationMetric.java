@@ -0,0 +1,9 @@
+package com.patientservice.entity;
+
+/**
+ * Case durations kept as quantile sketches: submission to first assignment, submission to closure
+ */
+public enum CaseDurationMetric {
+    ASSIGNMENT,
+    RESOLUTION
+}
@@ -0,0 +1,46 @@
+package com.patientservice.entity;
+
+import com.commonlibrary.entity.BaseEntity;
+import com.commonlibrary.entity.UrgencyLevel;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Serialized DurationSketch of one case duration metric per (submission day, specialization, urgency).
+ * Updated as cases are assigned or closed and rebuilt from the cases table together with the daily
+ * rollup, both by CaseDurationSketchService.
+ */
+@Entity
+@Table(name = "case_duration_sketch",
+        uniqueConstraints = @UniqueConstraint(name = "uk_case_duration_sketch_bucket",
+                columnNames = {"sketch_date", "specialization", "urgency_level", "metric"}),
+        indexes = @Index(name = "idx_case_duration_sketch_date", columnList = "sketch_date"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CaseDurationSketch extends BaseEntity {
+
+    @Column(name = "sketch_date", nullable = false)
+    private LocalDate sketchDate;
+
+    @Column(nullable = false)
+    private String specialization;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "urgency_level", nullable = false)
+    private UrgencyLevel urgencyLevel;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CaseDurationMetric metric;
+
+    @Column(nullable = false)
+    private Long sampleCount;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] sketch;
+}
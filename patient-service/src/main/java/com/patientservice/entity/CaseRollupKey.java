@@ -0,0 +1,27 @@
+package com.patientservice.entity;
+
+import com.commonlibrary.entity.CaseStatus;
+import com.commonlibrary.entity.UrgencyLevel;
+
+import java.time.LocalDate;
+
+/**
+ * The case_daily_rollup bucket a case counts towards: submission day, specialization, urgency and status
+ */
+public record CaseRollupKey(LocalDate day, String specialization, UrgencyLevel urgencyLevel, CaseStatus status) {
+
+    /**
+     * Bucket of the case in its current state, null when the case does not count (deleted or not submitted)
+     */
+    public static CaseRollupKey of(Case medicalCase) {
+        if (Boolean.TRUE.equals(medicalCase.getIsDeleted()) || medicalCase.getSubmittedAt() == null
+                || medicalCase.getStatus() == null || medicalCase.getUrgencyLevel() == null) {
+            return null;
+        }
+        return new CaseRollupKey(
+                medicalCase.getSubmittedAt().toLocalDate(),
+                medicalCase.getRequiredSpecialization() != null ? medicalCase.getRequiredSpecialization() : "GENERAL",
+                medicalCase.getUrgencyLevel(),
+                medicalCase.getStatus());
+    }
+}
@@ -0,0 +1,18 @@
+package com.patientservice.entity;
+
+/**
+ * Receives the rollup bucket and duration moves detected by CaseDailyRollupListener (implemented by
+ * CaseDailyRollupService), so the entity layer does not depend on the service layer
+ */
+public interface CaseRollupRecorder {
+
+    /**
+     * Record a case moving from one bucket to another (either may be null for created / deleted cases)
+     */
+    void recordChange(CaseRollupKey from, CaseRollupKey to);
+
+    /**
+     * Record the durations a case adds to the duration sketches changing (either may be null)
+     */
+    void recordDurationChange(CaseDurationKey from, CaseDurationKey to);
+}
@@ -3,6 +3,7 @@ package com.patientservice.feign;
 import com.commonlibrary.dto.CaseAnalysisRequest;
 import com.commonlibrary.dto.DiseaseDto;
 import com.commonlibrary.dto.DiseaseSearchCriteria;
+import com.commonlibrary.dto.SymptomDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -21,6 +22,18 @@ public interface MedicalConfigurationMainService {
     @GetMapping("/api/configuration/diseases/custom/{icdCode}")
     DiseaseDto findDiseaseByIcdCodeCustom(@PathVariable String icdCode);
 
+    /**
+     * Get all diseases (used to build the local medical knowledge index)
+     */
+    @GetMapping("/api/configuration/diseases")
+    List<DiseaseDto> getAllDiseases();
+
+    /**
+     * Get all symptoms (used to build the local medical knowledge index)
+     */
+    @GetMapping("/api/configuration/symptoms")
+    List<SymptomDto> getAllSymptoms();
+
     // ===== NEW METHODS FOR CASE ASSIGNMENT =====
 
     /**
@@ -1,10 +1,13 @@
 package com.patientservice.kafka;
 
 import com.commonlibrary.dto.CaseFeeUpdateEvent;
+import com.commonlibrary.dto.DoctorCapacityDto;
 import com.commonlibrary.dto.NotificationDto;
 import com.commonlibrary.entity.NotificationType;
 import com.patientservice.entity.Patient;
 import com.patientservice.repository.PatientRepository;
+import com.patientservice.service.CaseAssignmentQueueService;
+import com.patientservice.service.EmergencyOnCallPool;
 import com.patientservice.service.PatientService;
 import com.patientservice.service.SmartCaseAssignmentService;
 import com.patientservice.util.CustomLocalDateTimeParser;
@@ -25,6 +28,8 @@ public class PatientEventConsumer {
 
     private final PatientService patientService;
     private final SmartCaseAssignmentService assignmentService;
+    private final CaseAssignmentQueueService caseAssignmentQueueService;
+    private final EmergencyOnCallPool emergencyOnCallPool;
     private final PatientRepository patientRepository;
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
@@ -76,6 +81,12 @@ public class PatientEventConsumer {
             Long caseId = getLongFromMap(event, "caseId");
             Boolean isReassignment = (Boolean) event.getOrDefault("reassignment", false);
 
+            // Assignment requests of new cases are published after commit and claimed idempotently
+            if (event.get("requestId") != null) {
+                caseAssignmentQueueService.process(caseId, event.get("requestId").toString());
+                return;
+            }
+
             //TODO  this sleep must be replaced with validation to insure that case was inserted ok.
             Thread.sleep(3000); // Small delay to ensure transaction is committed
             System.out.println("Kafka - A new Case has been added, Case#: " + caseId + "\n");
@@ -117,6 +128,36 @@ public class PatientEventConsumer {
         }
     }
 
+    @KafkaListener(topics = "batch-case-assignment-topic", groupId = "patient-group")
+    public void handleBatchCaseAssignmentEvent(Map<String, Object> event) {
+        try {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> cases = (List<Map<String, Object>>) event.get("cases");
+            if (cases == null || cases.isEmpty()) {
+                return;
+            }
+
+            Map<Long, Set<Long>> excludedDoctorsByCase = new LinkedHashMap<>();
+            for (Map<String, Object> entry : cases) {
+                Set<Long> excludedDoctorIds = new HashSet<>();
+                Object excludedIds = entry.get("excludedDoctorIds");
+                if (excludedIds instanceof Collection<?> ids) {
+                    for (Object id : ids) {
+                        excludedDoctorIds.add(Long.valueOf(id.toString()));
+                    }
+                }
+                excludedDoctorsByCase.put(getLongFromMap(entry, "caseId"), excludedDoctorIds);
+            }
+
+            log.info("Received batch case assignment event for {} cases", excludedDoctorsByCase.size());
+            Map<String, Object> summary = assignmentService.assignCasesInBatch(excludedDoctorsByCase);
+            log.info("Batch case assignment finished: {}", summary);
+
+        } catch (Exception e) {
+            log.error("Error processing batch case assignment event: {}", e.getMessage(), e);
+        }
+    }
+
     @KafkaListener(topics = "user-registration-topic", groupId = "patient-group")
     public void handleUserRegistration(Map<String, Object> registrationEvent) {
         try {
@@ -238,6 +279,51 @@ public class PatientEventConsumer {
         }
     }
 
+    /**
+     * Keep the emergency on-call pool current with doctor workload and emergency-mode changes.
+     * Every instance keeps its own pool, so each one consumes with its own group id.
+     */
+    @KafkaListener(topics = "doctor-capacity-update-topic",
+            groupId = "patient-on-call-#{T(java.util.UUID).randomUUID().toString()}")
+    public void handleDoctorCapacityUpdate(Map<String, Object> capacityEvent) {
+        try {
+            @SuppressWarnings("unchecked")
+            Collection<String> subSpecializations = (Collection<String>) capacityEvent.get("subSpecializations");
+
+            DoctorCapacityDto capacity = DoctorCapacityDto.builder()
+                    .doctorId(getLongFromMap(capacityEvent, "doctorId"))
+                    .fullName((String) capacityEvent.get("fullName"))
+                    .primarySpecialization((String) capacityEvent.get("primarySpecialization"))
+                    .subSpecializations(subSpecializations != null ? new HashSet<>(subSpecializations) : null)
+                    .isAvailable(Boolean.TRUE.equals(capacityEvent.get("isAvailable")))
+                    .emergencyMode(Boolean.TRUE.equals(capacityEvent.get("emergencyMode")))
+                    .activeCases(getIntegerFromMap(capacityEvent, "activeCases"))
+                    .maxActiveCases(getIntegerFromMap(capacityEvent, "maxActiveCases"))
+                    .todayAppointments(getIntegerFromMap(capacityEvent, "todayAppointments"))
+                    .maxDailyAppointments(getIntegerFromMap(capacityEvent, "maxDailyAppointments"))
+                    .workloadPercentage(getDoubleFromMap(capacityEvent, "workloadPercentage"))
+                    .averageRating(getDoubleFromMap(capacityEvent, "averageRating"))
+                    .consultationCount(getIntegerFromMap(capacityEvent, "consultationCount"))
+                    .completionRate(getDoubleFromMap(capacityEvent, "completionRate"))
+                    .yearsOfExperience(getIntegerFromMap(capacityEvent, "yearsOfExperience"))
+                    .build();
+
+            emergencyOnCallPool.apply(capacity, Boolean.TRUE.equals(capacityEvent.get("verified")));
+        } catch (Exception e) {
+            log.error("Error processing doctor capacity update: {}", e.getMessage(), e);
+        }
+    }
+
+    private Integer getIntegerFromMap(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number number ? number.intValue() : null;
+    }
+
+    private Double getDoubleFromMap(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number number ? number.doubleValue() : null;
+    }
+
     /**
      * Helper method to safely extract Long values from Map
      */
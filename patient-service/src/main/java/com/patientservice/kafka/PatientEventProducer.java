@@ -7,6 +7,7 @@ import com.commonlibrary.entity.NotificationType;
 import com.commonlibrary.exception.BusinessException;
 import com.patientservice.entity.Patient;
 import com.patientservice.feign.DoctorServiceClient;
+import com.patientservice.repository.CaseAssignmentRepository;
 import com.patientservice.repository.PatientRepository;
 import com.patientservice.service.SmartCaseAssignmentService;
 import lombok.RequiredArgsConstructor;
@@ -16,7 +17,9 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 import com.commonlibrary.entity.UserType;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -27,6 +30,7 @@ public class PatientEventProducer {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final PatientRepository patientRepository;
+    private final CaseAssignmentRepository caseAssignmentRepository;
     private final DoctorServiceClient doctorService;
 
     public void sendCaseStatusUpdateEvent(Long caseId, String oldStatus, String newStatus, 
@@ -56,6 +60,10 @@ public class PatientEventProducer {
         caseEvent.put("newStatus", newStatus);
         caseEvent.put("patientId", patientId);
         caseEvent.put("doctorId", doctorId);
+        if (doctorId != null) {
+            // Push the doctor's active case count so doctor-service can update its capacity ledger locally
+            caseEvent.put("doctorActiveCases", caseAssignmentRepository.countDoctorActiveCases(doctorId));
+        }
         caseEvent.put("timestamp", System.currentTimeMillis());
 
         kafkaTemplate.send("case-status-updated-topic", caseEvent);
@@ -93,9 +101,13 @@ public class PatientEventProducer {
 //
 //    }
 
+    /**
+     * Push the doctor's current active case count to doctor-service's capacity ledger
+     */
     public void sendUpdateDoctorWorkLoadTrigger(Long doctorId){
         Map<String, Object> doctorEvent = new HashMap<>();
         doctorEvent.put("doctorId", doctorId);
+        doctorEvent.put("activeCases", caseAssignmentRepository.countDoctorActiveCases(doctorId));
         doctorEvent.put("timestamp", System.currentTimeMillis());
         kafkaTemplate.send("case-update-doctor-workload-topic", doctorEvent);
         log.info("Kafka - Trigger update doctor workload for doctor: {}", doctorId);
@@ -209,6 +221,47 @@ public class PatientEventProducer {
         }
     }
 
+    /**
+     * Send the assignment request of a newly submitted case. The request ID lets the
+     * consumer process each request once, however often the event is delivered.
+     */
+    public void sendCaseAssignmentRequest(Long caseId, String requestId) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("caseId", caseId);
+        event.put("requestId", requestId);
+        event.put("reassignment", false);
+        event.put("timestamp", System.currentTimeMillis());
+
+        kafkaTemplate.send("smart-case-assignment-topic", event);
+        log.info("Sent assignment request {} for case {}", requestId, caseId);
+    }
+
+    /**
+     * Send one event asking the batch assignment engine to re-match several cases together
+     */
+    public void sendBatchCaseAssignment(Map<Long, Set<Long>> excludedDoctorsByCase) {
+        try {
+            List<Map<String, Object>> cases = new ArrayList<>();
+            excludedDoctorsByCase.forEach((caseId, excludedDoctorIds) -> {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("caseId", caseId);
+                entry.put("excludedDoctorIds", excludedDoctorIds);
+                cases.add(entry);
+            });
+
+            Map<String, Object> event = new HashMap<>();
+            event.put("cases", cases);
+            event.put("timestamp", System.currentTimeMillis());
+
+            kafkaTemplate.send("batch-case-assignment-topic", event);
+            log.info("Sent batch reassignment event for {} cases", cases.size());
+
+        } catch (Exception e) {
+            log.error("Failed to send batch reassignment event for {} cases: {}",
+                    excludedDoctorsByCase.size(), e.getMessage());
+        }
+    }
+
     /**
      * Overloaded method for backward compatibility
      */
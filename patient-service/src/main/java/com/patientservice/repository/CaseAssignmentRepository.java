@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.commonlibrary.entity.*;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +30,34 @@ public interface CaseAssignmentRepository extends JpaRepository<CaseAssignment,
     long countActiveCasesByDoctor(@Param("doctorId") Long doctorId,
                                   @Param("statuses") List<AssignmentStatus> statuses);
 
+    /**
+     * Case statuses that count towards a doctor's active cases (same rule as PatientService.getDoctorActiveCases)
+     */
+    List<CaseStatus> DOCTOR_ACTIVE_CASE_STATUSES = List.of(CaseStatus.ACCEPTED, CaseStatus.SCHEDULED,
+            CaseStatus.PAYMENT_PENDING, CaseStatus.IN_PROGRESS, CaseStatus.CONSULTATION_COMPLETE);
+
+    @Query("SELECT COUNT(ca) FROM CaseAssignment ca WHERE ca.doctorId = :doctorId " +
+            "AND ca.status = 'ACCEPTED' " +
+            "AND ca.caseEntity.status IN :caseStatuses")
+    long countDoctorActiveCases(@Param("doctorId") Long doctorId,
+                                @Param("caseStatuses") List<CaseStatus> caseStatuses);
+
+    default long countDoctorActiveCases(Long doctorId) {
+        return countDoctorActiveCases(doctorId, DOCTOR_ACTIVE_CASE_STATUSES);
+    }
+
+    /**
+     * Active cases of many doctors by case status in one grouped query: rows of
+     * [doctorId, caseStatus, count], statuses without cases have no row
+     */
+    @Query("SELECT ca.doctorId, c.status, COUNT(ca) FROM CaseAssignment ca JOIN ca.caseEntity c " +
+            "WHERE ca.doctorId IN :doctorIds " +
+            "AND ca.status = 'ACCEPTED' " +
+            "AND c.status IN :caseStatuses " +
+            "GROUP BY ca.doctorId, c.status")
+    List<Object[]> countDoctorsActiveCasesByStatus(@Param("doctorIds") Collection<Long> doctorIds,
+                                                   @Param("caseStatuses") List<CaseStatus> caseStatuses);
+
 //    @Query("SELECT CA FROM CaseAssignment CA WHERE " +
 //            "CA.doctorId = :doctorId AND CA.status = :status")
 //    List<CaseAssignment> findByDoctorIdAndStatus(Long doctorId, String status);
@@ -96,4 +125,47 @@ public interface CaseAssignmentRepository extends JpaRepository<CaseAssignment,
             "WHERE ca.caseEntity.id = :caseId AND ca.status = 'EXPIRED'")
     List<Long> findExpiredDoctorIdsByCaseId(@Param("caseId") Long caseId);
 
+    // ========== ANALYTICS AGGREGATES ==========
+
+    String RESPONSE_HOURS =
+            "FLOOR((EXTRACT(EPOCH FROM ca.respondedAt) - EXTRACT(EPOCH FROM ca.assignedAt)) / 3600)";
+
+    /**
+     * Assignments of the cases submitted in the range per doctor: rows of [doctorId, assignmentCount,
+     * acceptedCount, rejectedCount, assignedAtCount, respondedCount, responseHoursSum, longResponseCount]
+     */
+    @Query("SELECT ca.doctorId, COUNT(ca), " +
+            "SUM(CASE WHEN ca.status = 'ACCEPTED' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN ca.status = 'REJECTED' THEN 1 ELSE 0 END), " +
+            "COUNT(ca.assignedAt), COUNT(" + RESPONSE_HOURS + "), SUM(" + RESPONSE_HOURS + "), " +
+            "SUM(CASE WHEN " + RESPONSE_HOURS + " > 24 THEN 1 ELSE 0 END) " +
+            "FROM CaseAssignment ca JOIN ca.caseEntity c " +
+            "WHERE c.isDeleted = false AND c.submittedAt BETWEEN :startDate AND :endDate " +
+            "GROUP BY ca.doctorId")
+    List<Object[]> summarizeAssignmentsByDoctor(@Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Cases submitted in the range per doctor and case status: rows of [doctorId, caseStatus, caseCount,
+     * resolvedCount, resolutionDaysSum]
+     */
+    @Query("SELECT ca.doctorId, c.status, COUNT(DISTINCT c.id), COUNT(c.closedAt), " +
+            "SUM(FLOOR((EXTRACT(EPOCH FROM c.closedAt) - EXTRACT(EPOCH FROM c.submittedAt)) / 86400)) " +
+            "FROM CaseAssignment ca JOIN ca.caseEntity c " +
+            "WHERE c.isDeleted = false AND c.submittedAt BETWEEN :startDate AND :endDate " +
+            "GROUP BY ca.doctorId, c.status")
+    List<Object[]> summarizeDoctorCasesByStatus(@Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * First-time assignments (no assignedAt) of the cases submitted in the range: a single row of
+     * [caseCount, acceptedCaseCount]
+     */
+    @Query("SELECT COUNT(DISTINCT c.id), COUNT(DISTINCT CASE WHEN ca.status = 'ACCEPTED' THEN c.id END) " +
+            "FROM CaseAssignment ca JOIN ca.caseEntity c " +
+            "WHERE c.isDeleted = false AND c.submittedAt BETWEEN :startDate AND :endDate " +
+            "AND ca.assignedAt IS NULL")
+    List<Object[]> countFirstTimeAssignments(@Param("startDate") LocalDateTime startDate,
+                                             @Param("endDate") LocalDateTime endDate);
+
 }
\ No newline at end of file
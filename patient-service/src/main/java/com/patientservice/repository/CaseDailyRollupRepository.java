@@ -0,0 +1,91 @@
+package com.patientservice.repository;
+
+import com.patientservice.entity.CaseDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CaseDailyRollupRepository extends JpaRepository<CaseDailyRollup, Long> {
+
+    /**
+     * Transaction-scoped shared lock taken by every transaction writing bucket deltas; deltas do
+     * not block each other, only a running recount (lockForRecount)
+     */
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock_shared(:key)) l", nativeQuery = true)
+    long lockForDeltas(@Param("key") long key);
+
+    /**
+     * Transaction-scoped exclusive lock held by a recount, waiting for the transactions writing
+     * deltas to commit and keeping new ones out until the recount commits
+     */
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(:key)) l", nativeQuery = true)
+    long lockForRecount(@Param("key") long key);
+
+    /**
+     * Add a (possibly negative) delta to one rollup bucket, creating the bucket if needed
+     */
+    @Modifying
+    @Query(value = "INSERT INTO case_daily_rollup (rollup_date, specialization, urgency_level, status, " +
+            "case_count, created_at, updated_at, version) " +
+            "VALUES (:day, :specialization, :urgencyLevel, :status, :delta, :now, :now, 0) " +
+            "ON CONFLICT (rollup_date, specialization, urgency_level, status) DO UPDATE SET " +
+            "case_count = case_daily_rollup.case_count + EXCLUDED.case_count, updated_at = EXCLUDED.updated_at",
+            nativeQuery = true)
+    int addToBucket(@Param("day") LocalDate day,
+                    @Param("specialization") String specialization,
+                    @Param("urgencyLevel") String urgencyLevel,
+                    @Param("status") String status,
+                    @Param("delta") long delta,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM case_daily_rollup WHERE rollup_date >= :fromDay AND rollup_date < :toDay",
+            nativeQuery = true)
+    int deleteDays(@Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay);
+
+    /**
+     * Recount the buckets of the days in [fromDay, toDay) from the cases table (after deleteDays)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO case_daily_rollup (rollup_date, specialization, urgency_level, status, " +
+            "case_count, created_at, updated_at, version) " +
+            "SELECT CAST(c.submitted_at AS DATE), COALESCE(c.required_specialization, 'GENERAL'), " +
+            "c.urgency_level, c.status, COUNT(*), :now, :now, 0 " +
+            "FROM cases c WHERE c.is_deleted = false " +
+            "AND c.submitted_at >= CAST(:fromDay AS TIMESTAMP) AND c.submitted_at < CAST(:toDay AS TIMESTAMP) " +
+            "GROUP BY CAST(c.submitted_at AS DATE), COALESCE(c.required_specialization, 'GENERAL'), " +
+            "c.urgency_level, c.status",
+            nativeQuery = true)
+    int recountDays(@Param("fromDay") LocalDate fromDay,
+                    @Param("toDay") LocalDate toDay,
+                    @Param("now") LocalDateTime now);
+
+    /**
+     * Cases per day and status: rows of [day, status, count]
+     */
+    @Query("SELECT r.rollupDate, r.status, SUM(r.caseCount) FROM CaseDailyRollup r " +
+            "WHERE r.rollupDate BETWEEN :fromDay AND :toDay " +
+            "GROUP BY r.rollupDate, r.status HAVING SUM(r.caseCount) > 0")
+    List<Object[]> sumByDayAndStatus(@Param("fromDay") LocalDate fromDay,
+                                     @Param("toDay") LocalDate toDay);
+
+    /**
+     * Cases per specialization submitted on days in [fromDay, toDay] and in (afterDay, untilDay]:
+     * rows of [specialization, count]
+     */
+    @Query("SELECT r.specialization, SUM(r.caseCount) FROM CaseDailyRollup r " +
+            "WHERE r.rollupDate BETWEEN :fromDay AND :toDay " +
+            "AND r.rollupDate > :afterDay AND r.rollupDate <= :untilDay " +
+            "GROUP BY r.specialization")
+    List<Object[]> sumBySpecialization(@Param("fromDay") LocalDate fromDay,
+                                       @Param("toDay") LocalDate toDay,
+                                       @Param("afterDay") LocalDate afterDay,
+                                       @Param("untilDay") LocalDate untilDay);
+}
@@ -0,0 +1,52 @@
+package com.patientservice.repository;
+
+import com.commonlibrary.entity.UrgencyLevel;
+import com.patientservice.entity.CaseDurationMetric;
+import com.patientservice.entity.CaseDurationSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CaseDurationSketchRepository extends JpaRepository<CaseDurationSketch, Long> {
+
+    @Modifying
+    @Query("DELETE FROM CaseDurationSketch s WHERE s.sketchDate >= :fromDay AND s.sketchDate < :toDay")
+    int deleteDays(@Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay);
+
+    /**
+     * Sketches of the days in [fromDay, toDay]: rows of [urgency, metric, sketch bytes]
+     */
+    @Query("SELECT s.urgencyLevel, s.metric, s.sketch FROM CaseDurationSketch s " +
+            "WHERE s.sketchDate BETWEEN :fromDay AND :toDay")
+    List<Object[]> findSketches(@Param("fromDay") LocalDate fromDay, @Param("toDay") LocalDate toDay);
+
+    /**
+     * Create the empty sketch row of a bucket unless it already exists
+     */
+    @Modifying
+    @Query(value = "INSERT INTO case_duration_sketch (sketch_date, specialization, urgency_level, metric, " +
+            "sample_count, sketch, created_at, updated_at, version) " +
+            "VALUES (:day, :specialization, :urgencyLevel, :metric, 0, :sketch, :now, :now, 0) " +
+            "ON CONFLICT (sketch_date, specialization, urgency_level, metric) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("day") LocalDate day,
+                       @Param("specialization") String specialization,
+                       @Param("urgencyLevel") String urgencyLevel,
+                       @Param("metric") String metric,
+                       @Param("sketch") byte[] sketch,
+                       @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<CaseDurationSketch> findBySketchDateAndSpecializationAndUrgencyLevelAndMetric(
+            LocalDate sketchDate, String specialization, UrgencyLevel urgencyLevel, CaseDurationMetric metric);
+}
@@ -1,17 +1,26 @@
 package com.patientservice.repository;
 
 import com.commonlibrary.entity.CaseStatus;
+import com.patientservice.dto.CaseAnalyticsRowDto;
+import com.patientservice.entity.AssignmentRequestStatus;
 import com.patientservice.entity.Case;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CaseRepository extends JpaRepository<Case, Long> {
@@ -94,4 +103,159 @@ public interface CaseRepository extends JpaRepository<Case, Long> {
             "HAVING COUNT(ca.id) >= :minExpirations " +
             "ORDER BY COUNT(ca.id) DESC")
     List<Case> findCasesWithMultipleExpirations(@Param("minExpirations") Integer minExpirations);
-}
\ No newline at end of file
+
+    /**
+     * Claim an assignment request for processing. Only one consumer can move a given request
+     * out of a claimable status, so redelivered events are ignored (returns 0).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Case c SET c.assignmentRequestStatus = :inProgress, " +
+            "c.assignmentRequestAttempts = COALESCE(c.assignmentRequestAttempts, 0) + 1, " +
+            "c.assignmentRequestUpdatedAt = :now " +
+            "WHERE c.id = :caseId AND c.assignmentRequestId = :requestId " +
+            "AND c.assignmentRequestStatus IN :claimable")
+    int claimAssignmentRequest(@Param("caseId") Long caseId,
+                               @Param("requestId") String requestId,
+                               @Param("inProgress") AssignmentRequestStatus inProgress,
+                               @Param("claimable") Collection<AssignmentRequestStatus> claimable,
+                               @Param("now") LocalDateTime now);
+
+    /**
+     * Record the outcome of an assignment request without touching the rest of the case
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Case c SET c.assignmentRequestStatus = :status, " +
+            "c.assignmentRequestError = :error, " +
+            "c.nextAssignmentAttemptAt = :nextAttemptAt, " +
+            "c.assignmentRequestUpdatedAt = :now " +
+            "WHERE c.id = :caseId AND c.assignmentRequestId = :requestId")
+    int updateAssignmentRequest(@Param("caseId") Long caseId,
+                                @Param("requestId") String requestId,
+                                @Param("status") AssignmentRequestStatus status,
+                                @Param("error") String error,
+                                @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                                @Param("now") LocalDateTime now);
+
+    List<Case> findByAssignmentRequestStatusAndNextAssignmentAttemptAtBefore(AssignmentRequestStatus status,
+                                                                              LocalDateTime cutoff);
+
+    List<Case> findByAssignmentRequestStatusAndAssignmentRequestUpdatedAtBefore(AssignmentRequestStatus status,
+                                                                                LocalDateTime cutoff);
+
+    /**
+     * Cases in the given statuses per required specialization: rows of [specialization, count]
+     */
+    @Query("SELECT c.requiredSpecialization, COUNT(c) FROM Case c WHERE c.isDeleted = false " +
+            "AND c.status IN :statuses GROUP BY c.requiredSpecialization")
+    List<Object[]> countBySpecializationAndStatusIn(@Param("statuses") List<CaseStatus> statuses);
+
+    // ========== ANALYTICS AGGREGATES ==========
+    // Durations are whole hours / days per case, truncated like ChronoUnit.between
+
+    String ASSIGNMENT_HOURS =
+            "FLOOR((EXTRACT(EPOCH FROM c.firstAssignedAt) - EXTRACT(EPOCH FROM c.submittedAt)) / 3600)";
+    String RESOLUTION_DAYS =
+            "FLOOR((EXTRACT(EPOCH FROM c.closedAt) - EXTRACT(EPOCH FROM c.submittedAt)) / 86400)";
+    String SLA_TARGET_HOURS =
+            "(CASE WHEN c.urgencyLevel = 'CRITICAL' THEN 1 WHEN c.urgencyLevel = 'HIGH' THEN 4 " +
+            "WHEN c.urgencyLevel = 'MEDIUM' THEN 24 ELSE 48 END)";
+
+    /**
+     * Case analytics cube of the submission range, one row per (status, urgency, specialization):
+     * [status, urgencyLevel, requiredSpecialization, caseCount, feeSum, assignedCount, assignmentHoursSum,
+     * slaMetCount, resolvedCount, resolutionDaysSum, stuckCount, atRiskCount]
+     */
+    @Query("SELECT c.status, c.urgencyLevel, c.requiredSpecialization, COUNT(c), SUM(c.consultationFee), " +
+            "COUNT(c.firstAssignedAt), SUM(" + ASSIGNMENT_HOURS + "), " +
+            "SUM(CASE WHEN " + ASSIGNMENT_HOURS + " <= " + SLA_TARGET_HOURS + " THEN 1 ELSE 0 END), " +
+            "COUNT(c.closedAt), SUM(" + RESOLUTION_DAYS + "), " +
+            "SUM(CASE WHEN c.submittedAt < :stuckBefore THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.firstAssignedAt IS NULL AND " +
+            "FLOOR((EXTRACT(EPOCH FROM :now) - EXTRACT(EPOCH FROM c.submittedAt)) / 3600) > " + SLA_TARGET_HOURS +
+            " THEN 1 ELSE 0 END) " +
+            "FROM Case c WHERE c.isDeleted = false AND c.submittedAt BETWEEN :startDate AND :endDate " +
+            "GROUP BY c.status, c.urgencyLevel, c.requiredSpecialization")
+    List<Object[]> summarizeCasesForAnalytics(@Param("startDate") LocalDateTime startDate,
+                                              @Param("endDate") LocalDateTime endDate,
+                                              @Param("now") LocalDateTime now,
+                                              @Param("stuckBefore") LocalDateTime stuckBefore);
+
+    /**
+     * Cases of the range submitted in (after, until] per specialization: rows of [requiredSpecialization,
+     * caseCount, assignedCount, assignmentHoursSum, closedCount, closedResolutionDaysSum]
+     */
+    @Query("SELECT c.requiredSpecialization, COUNT(c), COUNT(c.firstAssignedAt), SUM(" + ASSIGNMENT_HOURS + "), " +
+            "SUM(CASE WHEN c.status = 'CLOSED' AND c.closedAt IS NOT NULL THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.status = 'CLOSED' THEN " + RESOLUTION_DAYS + " END) " +
+            "FROM Case c WHERE c.isDeleted = false AND c.submittedAt BETWEEN :startDate AND :endDate " +
+            "AND c.submittedAt > :after AND c.submittedAt <= :until " +
+            "GROUP BY c.requiredSpecialization")
+    List<Object[]> summarizeCaseWindowBySpecialization(@Param("startDate") LocalDateTime startDate,
+                                                       @Param("endDate") LocalDateTime endDate,
+                                                       @Param("after") LocalDateTime after,
+                                                       @Param("until") LocalDateTime until);
+
+    /**
+     * Submissions of the range per hour of day: rows of [hour, count]
+     */
+    @Query("SELECT EXTRACT(HOUR FROM c.submittedAt), COUNT(c) " +
+            "FROM Case c WHERE c.isDeleted = false AND c.submittedAt BETWEEN :startDate AND :endDate " +
+            "GROUP BY EXTRACT(HOUR FROM c.submittedAt)")
+    List<Object[]> countSubmissionsByHour(@Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Cases of the range with symptoms and a medical report
+     */
+    @Query("SELECT COUNT(c) FROM Case c WHERE c.isDeleted = false " +
+            "AND c.submittedAt BETWEEN :startDate AND :endDate " +
+            "AND c.symptomCodes IS NOT EMPTY " +
+            "AND c.medicalReportFileLink IS NOT NULL AND c.medicalReportFileLink <> ''")
+    long countCasesWithCompleteInfo(@Param("startDate") LocalDateTime startDate,
+                                    @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Cases of the range assigned (assignedAt set) two or more times
+     */
+    @Query("SELECT COUNT(c) FROM Case c WHERE c.isDeleted = false " +
+            "AND c.submittedAt BETWEEN :startDate AND :endDate " +
+            "AND (SELECT COUNT(ca) FROM CaseAssignment ca " +
+            "WHERE ca.caseEntity = c AND ca.assignedAt IS NOT NULL) >= 2")
+    long countCasesWithMultipleReassignments(@Param("startDate") LocalDateTime startDate,
+                                             @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT MIN(c.submittedAt) FROM Case c WHERE c.isDeleted = false")
+    LocalDateTime findEarliestSubmittedAt();
+
+    /**
+     * Forward-only stream of slim case rows of the range for row-level analytics. Must be consumed
+     * inside a (read-only) transaction and closed; rows are fetched in batches through a cursor.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.patientservice.dto.CaseAnalyticsRowDto(c.id, c.status, c.urgencyLevel, " +
+            "c.requiredSpecialization, c.submittedAt, c.firstAssignedAt, c.closedAt) " +
+            "FROM Case c WHERE c.isDeleted = false AND c.submittedAt BETWEEN :startDate AND :endDate")
+    Stream<CaseAnalyticsRowDto> streamAnalyticsRows(@Param("startDate") LocalDateTime startDate,
+                                                    @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Slim case rows submitted in [from, until) in submission order, same cursor contract as streamAnalyticsRows
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.patientservice.dto.CaseAnalyticsRowDto(c.id, c.status, c.urgencyLevel, " +
+            "c.requiredSpecialization, c.submittedAt, c.firstAssignedAt, c.closedAt) " +
+            "FROM Case c WHERE c.isDeleted = false AND c.submittedAt >= :from AND c.submittedAt < :until " +
+            "ORDER BY c.submittedAt")
+    Stream<CaseAnalyticsRowDto> streamAnalyticsRowsBySubmission(@Param("from") LocalDateTime from,
+                                                                @Param("until") LocalDateTime until);
+}
@@ -10,16 +10,22 @@ import com.patientservice.kafka.PatientEventProducer;
 import com.patientservice.repository.CaseAssignmentReminderRepository;
 import com.patientservice.repository.CaseAssignmentRepository;
 import com.patientservice.repository.CaseRepository;
+import com.patientservice.service.CaseAssignmentQueueService;
 import com.patientservice.service.SmartCaseAssignmentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -43,6 +49,7 @@ public class CaseAssignmentScheduler {
     //private final SmartCaseAssignmentService smartCaseAssignmentService;
     private final PatientEventProducer patientEventProducer;
     private final CaseAssignmentSchedulerConfig config;
+    private final CaseAssignmentQueueService caseAssignmentQueueService;
 
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
 
@@ -54,7 +61,8 @@ public class CaseAssignmentScheduler {
      * 2. Mark assignments as EXPIRED
      * 3. Update case status to PENDING if needed
      * 4. Send notifications to admin
-     * 5. Trigger SmartCaseAssignmentService for reassignment (respecting doctor exclusion rules)
+     * 5. Trigger SmartCaseAssignmentService for reassignment (respecting doctor exclusion rules);
+     *    large backlogs (e.g. after an outage) go to the batch assignment engine in one event
      */
     @Scheduled(fixedDelayString = "${case.assignment.check-interval-seconds:300}000")
     @Transactional
@@ -83,10 +91,17 @@ public class CaseAssignmentScheduler {
 
             log.info("Found {} expired case assignments to process", expiredAssignments.size());
 
+            Map<Long, Set<Long>> casesToReassign = new LinkedHashMap<>();
             for (CaseAssignment assignment : expiredAssignments) {
-                processExpiredAssignment(assignment);
+                Set<Long> excludedDoctorIds = processExpiredAssignment(assignment);
+                if (excludedDoctorIds != null) {
+                    casesToReassign.computeIfAbsent(assignment.getCaseEntity().getId(), id -> new HashSet<>())
+                            .addAll(excludedDoctorIds);
+                }
             }
 
+            triggerReassignments(casesToReassign);
+
             log.info("Successfully processed {} expired assignments", expiredAssignments.size());
 
         } catch (Exception e) {
@@ -96,8 +111,10 @@ public class CaseAssignmentScheduler {
 
     /**
      * Process a single expired assignment
+     *
+     * @return doctors to exclude when reassigning the case, or null if it must not be reassigned
      */
-    private void processExpiredAssignment(CaseAssignment assignment) {
+    private Set<Long> processExpiredAssignment(CaseAssignment assignment) {
         try {
             Case medicalCase = assignment.getCaseEntity();
             Long doctorId = assignment.getDoctorId();
@@ -149,21 +166,63 @@ public class CaseAssignmentScheduler {
                 log.info("Send Admin Escalation Notification");
                 sendAdminEscalationNotification(medicalCase, expirationCount);
 
-                return;
+                return null;
             }
 
             // Determine doctors to exclude from reassignment
             log.info("Determine doctors to exclude from reassignment");
-            Set<Long> excludedDoctorIds = determineExcludedDoctors(medicalCase, doctorId);
-
-            // Trigger SmartCaseAssignmentService for reassignment
-            log.info("Trigger SmartCaseAssignmentService for reassignment");
-            triggerCaseReassignment(medicalCase, excludedDoctorIds);
+            return determineExcludedDoctors(medicalCase, doctorId);
 
         } catch (Exception e) {
             log.error("Error processing expired assignment {}: {}", 
                     assignment.getId(), e.getMessage(), e);
             e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Trigger reassignment for all cases collected in this run.
+     * Small runs keep the one-event-per-case path; once the threshold is reached the cases are
+     * sent to the batch assignment engine in chunks, so they are matched against each other's
+     * doctor capacity instead of all landing on the same top-ranked doctors.
+     */
+    private void triggerReassignments(Map<Long, Set<Long>> casesToReassign) {
+        if (casesToReassign.size() < config.getBatchReassignmentThreshold()) {
+            casesToReassign.forEach((caseId, excludedDoctorIds) ->
+                    caseRepository.findById(caseId).ifPresent(medicalCase ->
+                            triggerCaseReassignment(medicalCase, excludedDoctorIds)));
+            return;
+        }
+
+        log.info("Triggering batch reassignment for {} cases", casesToReassign.size());
+        Map<Long, Set<Long>> chunk = new LinkedHashMap<>();
+        for (Map.Entry<Long, Set<Long>> entry : casesToReassign.entrySet()) {
+            chunk.put(entry.getKey(), entry.getValue());
+            if (chunk.size() >= config.getBatchMaxCases()) {
+                publishBatchAfterCommit(chunk);
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            publishBatchAfterCommit(chunk);
+        }
+    }
+
+    /**
+     * The batch engine reads the cases this run just released, so the event is only sent once
+     * that transaction has committed
+     */
+    private void publishBatchAfterCommit(Map<Long, Set<Long>> chunk) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    patientEventProducer.sendBatchCaseAssignment(chunk);
+                }
+            });
+        } else {
+            patientEventProducer.sendBatchCaseAssignment(chunk);
         }
     }
 
@@ -447,6 +506,21 @@ public class CaseAssignmentScheduler {
         }
     }
 
+    /**
+     * Re-publish assignment requests of new cases that are due for retry or were lost in flight
+     */
+    @Scheduled(fixedDelayString = "${case.assignment.assignment-request-retry-delay-seconds:60}000")
+    public void requeueAssignmentRequests() {
+        if (!config.getSchedulerEnabled()) {
+            return;
+        }
+        try {
+            caseAssignmentQueueService.requeueDueRequests();
+        } catch (Exception e) {
+            log.error("Error re-queuing case assignment requests: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * Cleanup old reminder records - runs daily
      * Removes reminder records older than 30 days
@@ -0,0 +1,112 @@
+package com.patientservice.service;
+
+import com.commonlibrary.entity.UrgencyLevel;
+import com.patientservice.config.CaseAssignmentSchedulerConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Time from case submission to the first doctor offer, per urgency level, against the
+ * configured SLO (case.assignment.first-offer-slo-seconds.*).
+ *
+ * Keeps totals since startup plus the most recent samples per urgency level for percentiles.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AssignmentLatencyTracker {
+
+    private static final int RECENT_SAMPLES = 1024;
+
+    private final CaseAssignmentSchedulerConfig config;
+
+    private final Map<UrgencyLevel, LatencyStats> statsByUrgency = new EnumMap<>(UrgencyLevel.class);
+
+    /**
+     * Record the first offer of a case
+     */
+    public void recordFirstOffer(UrgencyLevel urgency, LocalDateTime submittedAt, LocalDateTime offeredAt) {
+        if (urgency == null || submittedAt == null || offeredAt == null) {
+            return;
+        }
+        long latencyMs = Math.max(0L, Duration.between(submittedAt, offeredAt).toMillis());
+        long sloMs = getSloSeconds(urgency) * 1000L;
+
+        LatencyStats stats;
+        synchronized (statsByUrgency) {
+            stats = statsByUrgency.computeIfAbsent(urgency, level -> new LatencyStats());
+        }
+        stats.record(latencyMs, sloMs);
+
+        if (latencyMs > sloMs) {
+            log.warn("First offer for {} case took {} ms, above the {} ms SLO", urgency, latencyMs, sloMs);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (UrgencyLevel urgency : UrgencyLevel.values()) {
+            LatencyStats stats;
+            synchronized (statsByUrgency) {
+                stats = statsByUrgency.get(urgency);
+            }
+            Map<String, Object> entry = stats != null ? stats.snapshot() : new LinkedHashMap<>(Map.of("count", 0L));
+            entry.put("sloSeconds", getSloSeconds(urgency));
+            statistics.put(urgency.name(), entry);
+        }
+        return statistics;
+    }
+
+    private long getSloSeconds(UrgencyLevel urgency) {
+        Map<UrgencyLevel, Integer> slo = config.getFirstOfferSloSeconds();
+        Integer seconds = slo != null ? slo.get(urgency) : null;
+        return seconds != null ? seconds : 3600L;
+    }
+
+    private static class LatencyStats {
+        private final long[] recent = new long[RECENT_SAMPLES];
+        private long count;
+        private long withinSlo;
+        private long totalMs;
+        private long maxMs;
+
+        private synchronized void record(long latencyMs, long sloMs) {
+            recent[(int) (count % RECENT_SAMPLES)] = latencyMs;
+            count++;
+            totalMs += latencyMs;
+            maxMs = Math.max(maxMs, latencyMs);
+            if (latencyMs <= sloMs) {
+                withinSlo++;
+            }
+        }
+
+        private synchronized Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("count", count);
+            snapshot.put("withinSlo", withinSlo);
+            snapshot.put("sloAttainmentPercent", count > 0 ? withinSlo * 100.0 / count : 100.0);
+            snapshot.put("averageMs", count > 0 ? totalMs / count : 0L);
+            snapshot.put("maxMs", maxMs);
+
+            long[] samples = Arrays.copyOf(recent, (int) Math.min(count, RECENT_SAMPLES));
+            Arrays.sort(samples);
+            snapshot.put("p50Ms", percentile(samples, 0.50));
+            snapshot.put("p95Ms", percentile(samples, 0.95));
+            snapshot.put("p99Ms", percentile(samples, 0.99));
+            return snapshot;
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0L;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
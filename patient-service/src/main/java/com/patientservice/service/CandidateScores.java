@@ -0,0 +1,162 @@
+package com.patientservice.service;
+
+import com.commonlibrary.dto.DoctorCapacityDto;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Component and total matching scores of one case's candidate doctors, stored in flat primitive arrays.
+ *
+ * Row i belongs to doctor(i); components are laid out as i * COMPONENT_COUNT + component.
+ * A {@link CaseMatchingScorer} fills the rows, SmartCaseAssignmentService ranks them with
+ * {@link #topK} and only builds full matching results for the rows it selects.
+ */
+public final class CandidateScores {
+
+    public static final int SPECIALIZATION = 0;
+    public static final int WORKLOAD_AVAILABILITY = 1;
+    public static final int DISEASE_EXPERTISE = 2;
+    public static final int SYMPTOM_EXPERTISE = 3;
+    public static final int EXPERIENCE = 4;
+    public static final int PERFORMANCE = 5;
+    public static final int CASE_PREFERENCE = 6;
+    public static final int COMPONENT_COUNT = 7;
+
+    private static final String[] COMPONENT_NAMES = {"specialization", "workload_availability",
+            "disease_expertise", "symptom_expertise", "experience", "performance", "case_preference"};
+
+    private final List<DoctorCapacityDto> doctors;
+    private final double[] components;
+    private final double[] totals;
+    private final double[] workloads;
+
+    public CandidateScores(List<DoctorCapacityDto> doctors) {
+        this.doctors = doctors;
+        this.components = new double[doctors.size() * COMPONENT_COUNT];
+        this.totals = new double[doctors.size()];
+        this.workloads = new double[doctors.size()];
+    }
+
+    public int size() {
+        return totals.length;
+    }
+
+    public DoctorCapacityDto doctor(int i) {
+        return doctors.get(i);
+    }
+
+    public double component(int i, int component) {
+        return components[i * COMPONENT_COUNT + component];
+    }
+
+    public void setComponent(int i, int component, double score) {
+        components[i * COMPONENT_COUNT + component] = score;
+    }
+
+    public double total(int i) {
+        return totals[i];
+    }
+
+    public void setTotal(int i, double total) {
+        totals[i] = total;
+    }
+
+    public double workload(int i) {
+        return workloads[i];
+    }
+
+    public void setWorkload(int i, double workload) {
+        workloads[i] = workload;
+    }
+
+    /**
+     * Component scores of one row keyed by the names used in DoctorMatchingResultDto.scoreBreakdown
+     */
+    public Map<String, Double> breakdown(int i) {
+        Map<String, Double> breakdown = new HashMap<>();
+        for (int c = 0; c < COMPONENT_COUNT; c++) {
+            breakdown.put(COMPONENT_NAMES[c], components[i * COMPONENT_COUNT + c]);
+        }
+        return breakdown;
+    }
+
+    /**
+     * Higher total score first, lower workload on ties
+     */
+    public boolean ranksAhead(int i, int j) {
+        if (totals[i] != totals[j]) {
+            return totals[i] > totals[j];
+        }
+        return workloads[i] < workloads[j];
+    }
+
+    /**
+     * Indices of the best k candidates scoring at least minScore, best first.
+     * Keeps a bounded heap of k indices with the weakest at the root, so selection is
+     * O(n log k) with no sort of the full candidate list.
+     */
+    public int[] topK(int k, double minScore) {
+        int[] heap = new int[Math.min(k, size())];
+        int heapSize = 0;
+        for (int i = 0; i < size(); i++) {
+            if (totals[i] < minScore) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++);
+            } else if (heap.length > 0 && ranksAhead(i, heap[0])) {
+                heap[0] = i;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        // Drain weakest first, filling the result from the back
+        int[] ranked = new int[heapSize];
+        while (heapSize > 0) {
+            ranked[heapSize - 1] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+        }
+        return ranked;
+    }
+
+    private void siftUp(int[] heap, int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!ranksAhead(heap[parent], heap[position])) {
+                return;
+            }
+            swap(heap, parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        int position = 0;
+        while (true) {
+            int weakest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < heapSize && ranksAhead(heap[weakest], heap[left])) {
+                weakest = left;
+            }
+            if (right < heapSize && ranksAhead(heap[weakest], heap[right])) {
+                weakest = right;
+            }
+            if (weakest == position) {
+                return;
+            }
+            swap(heap, position, weakest);
+            position = weakest;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+}
@@ -0,0 +1,149 @@
+package com.patientservice.service;
+
+import com.commonlibrary.entity.CaseStatus;
+import com.patientservice.dto.CaseAnalyticsRowDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass accumulator for the case analytics that need row-level data.
+ *
+ * Every row updates all metrics at once - time in the current status and the stage funnel - and
+ * is then dropped, so rows can come straight from a forward-only cursor. Memory
+ * is bounded by the number of statuses and sketch buckets, never by the number of cases.
+ * Time in a status that has not ended yet is kept as a sum of start times and only turned into
+ * hours against now when read, so an accumulator cached for a past range stays valid as time passes.
+ */
+final class CaseAnalyticsAccumulator implements Consumer<CaseAnalyticsRowDto> {
+
+    // Closed cases have no status history, their last status is estimated at three days
+    static final long ESTIMATED_CLOSED_STATUS_HOURS = 72;
+
+    // Funnel stages in workflow order
+    static final List<CaseStatus> FUNNEL_STAGES = List.of(
+            CaseStatus.SUBMITTED,
+            CaseStatus.PENDING,
+            CaseStatus.ASSIGNED,
+            CaseStatus.ACCEPTED,
+            CaseStatus.SCHEDULED,
+            CaseStatus.IN_PROGRESS,
+            CaseStatus.CONSULTATION_COMPLETE,
+            CaseStatus.CLOSED
+    );
+
+    private final LocalDateTime now;
+    private final long[] casesByStatus = new long[CaseStatus.values().length];
+    // Hours of the ended statuses (closed cases), and start epoch seconds of the ongoing ones
+    private final long[] statusHours = new long[CaseStatus.values().length];
+    private final long[] ongoingStatusStartSeconds = new long[CaseStatus.values().length];
+    private final long[] ongoingStatusCount = new long[CaseStatus.values().length];
+    private final long[] statusHoursCount = new long[CaseStatus.values().length];
+    private final long[] reachedStage = new long[FUNNEL_STAGES.size()];
+    private long rows;
+
+    CaseAnalyticsAccumulator(LocalDateTime now) {
+        this.now = now;
+    }
+
+    @Override
+    public void accept(CaseAnalyticsRowDto row) {
+        rows++;
+        CaseStatus status = row.getStatus();
+        casesByStatus[status.ordinal()]++;
+
+        // Time in current status
+        LocalDateTime statusStart = statusStartTime(row);
+        if (statusStart != null) {
+            if (status == CaseStatus.CLOSED && row.getClosedAt() != null) {
+                statusHours[status.ordinal()] += ChronoUnit.HOURS.between(statusStart, row.getClosedAt());
+            } else {
+                ongoingStatusStartSeconds[status.ordinal()] += statusStart.toEpochSecond(ZoneOffset.UTC);
+                ongoingStatusCount[status.ordinal()]++;
+            }
+            statusHoursCount[status.ordinal()]++;
+        }
+
+        // Stage funnel (simplified - a case has reached every stage up to its current status)
+        for (int i = 0; i < FUNNEL_STAGES.size(); i++) {
+            if (status.ordinal() >= FUNNEL_STAGES.get(i).ordinal()) {
+                reachedStage[i]++;
+            }
+        }
+    }
+
+    /**
+     * Add the metrics of another accumulator (e.g. of an adjacent date range) to this one
+     */
+    CaseAnalyticsAccumulator merge(CaseAnalyticsAccumulator other) {
+        for (int i = 0; i < casesByStatus.length; i++) {
+            casesByStatus[i] += other.casesByStatus[i];
+            statusHours[i] += other.statusHours[i];
+            ongoingStatusStartSeconds[i] += other.ongoingStatusStartSeconds[i];
+            ongoingStatusCount[i] += other.ongoingStatusCount[i];
+            statusHoursCount[i] += other.statusHoursCount[i];
+        }
+        for (int i = 0; i < reachedStage.length; i++) {
+            reachedStage[i] += other.reachedStage[i];
+        }
+        rows += other.rows;
+        return this;
+    }
+
+    /**
+     * Start time of the case's current status (approximation)
+     */
+    private LocalDateTime statusStartTime(CaseAnalyticsRowDto row) {
+        switch (row.getStatus()) {
+            case SUBMITTED:
+            case PENDING:
+                return row.getSubmittedAt();
+            case ASSIGNED:
+            case ACCEPTED:
+            case SCHEDULED:
+            case IN_PROGRESS:
+                return row.getFirstAssignedAt();
+            case CLOSED:
+                return row.getClosedAt() != null ?
+                        row.getClosedAt().minusHours(ESTIMATED_CLOSED_STATUS_HOURS) : null;
+            default:
+                return row.getSubmittedAt();
+        }
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    long casesWithStatus(CaseStatus status) {
+        return casesByStatus[status.ordinal()];
+    }
+
+    /**
+     * Cases whose current status is at or past the given funnel stage
+     */
+    long casesReachedStage(int stageIndex) {
+        return reachedStage[stageIndex];
+    }
+
+    /**
+     * Average hours spent so far (up to this accumulator's now) in each current status, statuses
+     * without cases are omitted
+     */
+    Map<CaseStatus, Double> avgHoursByStatus() {
+        long nowSeconds = now.toEpochSecond(ZoneOffset.UTC);
+        Map<CaseStatus, Double> avgHours = new EnumMap<>(CaseStatus.class);
+        for (CaseStatus status : CaseStatus.values()) {
+            int i = status.ordinal();
+            long count = statusHoursCount[i];
+            if (count > 0) {
+                double ongoingHours = (ongoingStatusCount[i] * nowSeconds - ongoingStatusStartSeconds[i]) / 3600.0;
+                avgHours.put(status, (statusHours[i] + ongoingHours) / count);
+            }
+        }
+        return avgHours;
+    }
+}
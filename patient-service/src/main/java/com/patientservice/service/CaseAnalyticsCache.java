@@ -0,0 +1,133 @@
+package com.patientservice.service;
+
+import com.patientservice.config.CaseAnalyticsConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-instance cache of analytics results keyed by metric and time bucket.
+ *
+ * Closed buckets (settled past ranges, whose values no longer change with time alone) are computed
+ * once and reused until they expire, a case submitted within them changes or the nightly rollup
+ * reconciliation invalidates them; open buckets are recomputed on every request. Either way
+ * concurrent requests for the same bucket share a single computation: the first caller computes on
+ * its own thread (inside its own transaction) and the others wait for its result.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CaseAnalyticsCache {
+
+    private final CaseAnalyticsConfig config;
+
+    private final Map<BucketKey, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The value of the metric for the bucket [from, until], computing it if it is not cached
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String metric, LocalDateTime from, LocalDateTime until, boolean closed, Supplier<T> compute) {
+        BucketKey key = new BucketKey(metric, from, until);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isExpired(config.getCacheClosedBucketTtlMinutes())) {
+            entries.remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            Entry created = new Entry(closed);
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                return (T) compute(key, created, compute);
+            }
+        }
+        try {
+            return (T) entry.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    private Object compute(BucketKey key, Entry entry, Supplier<?> compute) {
+        Object value;
+        try {
+            value = compute.get();
+        } catch (Throwable e) {
+            // Errors too, or the pending entry would block every later caller of the bucket
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        entry.computedAt = LocalDateTime.now();
+        entry.result.complete(value);
+        if (entry.closed) {
+            evictIfFull();
+        } else {
+            entries.remove(key, entry);
+        }
+        return value;
+    }
+
+    /**
+     * Drop every bucket covering the day, e.g. after a case submitted on it changed. A computation
+     * in flight is dropped too: it may have read the case before the change.
+     */
+    public void invalidateDay(LocalDate day) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        LocalDateTime nextDay = day.plusDays(1).atStartOfDay();
+        entries.keySet().removeIf(key -> key.from().isBefore(nextDay) && !key.until().isBefore(dayStart));
+    }
+
+    /**
+     * Drop every closed bucket, e.g. after the rollup reconciliation rewrote past days
+     */
+    public void invalidateClosed() {
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.closed && entry.result.isDone());
+        log.debug("Analytics cache invalidated: {} buckets dropped", before - entries.size());
+    }
+
+    private void evictIfFull() {
+        int ttl = config.getCacheClosedBucketTtlMinutes();
+        entries.values().removeIf(entry -> entry.isExpired(ttl));
+        int excess = entries.size() - config.getCacheMaxBuckets();
+        if (excess > 0) {
+            entries.entrySet().stream()
+                    .filter(e -> e.getValue().computedAt != null)
+                    .sorted(Comparator.comparing(e -> e.getValue().computedAt))
+                    .limit(excess)
+                    .toList()
+                    .forEach(e -> entries.remove(e.getKey(), e.getValue()));
+        }
+    }
+
+    private record BucketKey(String metric, LocalDateTime from, LocalDateTime until) {
+    }
+
+    /**
+     * A bucket value, pending while its computation is in flight
+     */
+    private static final class Entry {
+        private final boolean closed;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private volatile LocalDateTime computedAt;
+
+        private Entry(boolean closed) {
+            this.closed = closed;
+        }
+
+        private boolean isExpired(int ttlMinutes) {
+            LocalDateTime computed = computedAt;
+            return computed != null && computed.isBefore(LocalDateTime.now().minusMinutes(ttlMinutes));
+        }
+    }
+}
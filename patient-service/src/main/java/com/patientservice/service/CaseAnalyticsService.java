@@ -1,15 +1,18 @@
 package com.patientservice.service;
 
 import com.commonlibrary.dto.*;
-import com.patientservice.entity.Case;
-import com.patientservice.entity.CaseAssignment;
 import com.commonlibrary.entity.CaseStatus;
 import com.commonlibrary.entity.UrgencyLevel;
+import com.patientservice.dto.CaseAnalyticsRowDto;
+import com.patientservice.entity.CaseDurationMetric;
 import com.patientservice.repository.CaseAssignmentRepository;
+import com.patientservice.repository.CaseDailyRollupRepository;
 import com.patientservice.repository.CaseRepository;
+import com.patientservice.util.DurationSketch;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -17,7 +20,9 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Analytics methods for PatientAdminService
@@ -28,40 +33,57 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CaseAnalyticsService {
 
+    private static final double[] PERCENTILES = {0.50, 0.90, 0.99};
+    private static final double MINUTES_PER_HOUR = 60.0;
+    private static final double MINUTES_PER_DAY = 24 * 60.0;
+    private static final String SLICE_METRIC = "case-analytics-slice";
+
+    // Open cases submitted longer ago count as stuck; also beyond every assignment SLA (at most 48 h)
+    private static final int STUCK_AFTER_DAYS = 3;
+
     private final CaseRepository caseRepository;
     private final CaseAssignmentRepository caseAssignmentRepository;
+    private final CaseDailyRollupRepository caseDailyRollupRepository;
+    private final CaseDurationSketchService caseDurationSketchService;
+    private final CaseAnalyticsCache analyticsCache;
 
     /**
      * Main entry point for case analytics
      */
+    @Transactional(readOnly = true)
     public CaseAnalyticsDto getCaseAnalytics(String startDateStr, String endDateStr) {
         log.info("Calculating case analytics from {} to {}", startDateStr, endDateStr);
         
         try {
-            // Parse dates or use defaults (last 360 days)
-            LocalDateTime startDate = parseDate(startDateStr, LocalDateTime.now().minusYears(1));
-            LocalDateTime endDate = parseDate(endDateStr, LocalDateTime.now());
-            
-            // Fetch data
-            List<Case> cases = caseRepository.findBySubmittedAtBetweenAndIsDeletedFalse(startDate, endDate);
-            //List<Long> caseIds = cases.stream().map(Case::getId).collect(Collectors.toList());
-            List<CaseAssignment> assignments = cases.isEmpty() ?
-                    new ArrayList<>() : 
-                    caseAssignmentRepository.findByCaseEntityIn(cases);
-            
-            log.info("Found {} cases and {} assignments for analysis", cases.size(), assignments.size());
+            LocalDateTime now = LocalDateTime.now();
+            // Parse dates or use defaults (last 360 days, from the start of that day so repeated
+            // default requests share their cached month buckets)
+            LocalDateTime startDate = parseDate(startDateStr, now.toLocalDate().minusYears(1).atStartOfDay());
+            LocalDateTime endDate = parseDate(endDateStr, now);
+
+            // Grouped aggregates only - memory grows with the number of groups, not of cases
+            CaseAnalyticsSlice slice = loadSlice(startDate, endDate, now);
+            List<CaseGroup> groups = slice.groups();
+            List<DoctorSummary> doctors = slice.doctors();
+            CaseAnalyticsAccumulator rowMetrics = slice.rowMetrics();
+            PeriodWindows windows = loadPeriodWindows(startDate, endDate, now);
+            CaseDurationSketches durations = loadDurationSketches(startDate, endDate);
+            long totalCases = groups.stream().mapToLong(CaseGroup::count).sum();
+
+            log.info("Aggregated {} cases into {} groups across {} doctors for analysis",
+                    totalCases, groups.size(), doctors.size());
             
             // Calculate all metrics
             CaseAnalyticsDto analytics = CaseAnalyticsDto.builder()
-                    .overview(calculateOverviewMetrics(cases, assignments))
-                    .performance(calculatePerformanceMetrics(cases, assignments))
-                    .doctorMetrics(calculateDoctorMetrics(assignments, cases))
-                    .specializationMetrics(calculateSpecializationMetrics(cases))
-                    .trends(calculateTrends(cases))
-                    .qualityMetrics(calculateQualityMetrics(cases, assignments))
+                    .overview(calculateOverviewMetrics(groups, doctors, windows, durations))
+                    .performance(calculatePerformanceMetrics(groups, rowMetrics, durations))
+                    .doctorMetrics(calculateDoctorMetrics(doctors))
+                    .specializationMetrics(calculateSpecializationMetrics(groups, windows))
+                    .trends(calculateTrends(startDate, endDate, totalCases, windows))
+                    .qualityMetrics(calculateQualityMetrics(slice))
                     .startDate(startDate.toString())
                     .endDate(endDate.toString())
-                    .totalCasesAnalyzed((long) cases.size())
+                    .totalCasesAnalyzed(totalCases)
                     .generatedAt(LocalDateTime.now().toString())
                     .build();
             
@@ -76,159 +98,253 @@ public class CaseAnalyticsService {
     }
 
     /**
-     * Calculate overview metrics
+     * Assemble the analytics slice of the range from calendar-month buckets. Buckets that ended more
+     * than STUCK_AFTER_DAYS before today come from the analytics cache; later buckets are recomputed.
+     * Only then are the stuck and at-risk counts of their cases fixed (at-risk SLAs are shorter),
+     * so a cached bucket changes only with its cases, which evict it; time in a status still
+     * ongoing is turned into hours against now when the slices are merged.
      */
-    private CaseOverviewMetrics calculateOverviewMetrics(List<Case> cases, List<CaseAssignment> assignments) {
-        log.debug("Calculating overview metrics for {} cases", cases.size());
-        
-        long totalCases = cases.size();
-        long activeCases = cases.stream()
-                .filter(c -> !c.getStatus().equals(CaseStatus.CLOSED) && 
-                            !c.getStatus().equals(CaseStatus.REJECTED))
-                .count();
-        long closedCases = cases.stream()
-                .filter(c -> c.getStatus().equals(CaseStatus.CLOSED))
-                .count();
-        
-        // Cases at risk (overdue based on urgency)
-        long casesAtRisk = calculateCasesAtRisk(cases);
-        
-        // Assignment success rate
-        double assignmentSuccessRate = calculateAssignmentSuccessRate(assignments);
-        
-        // Active doctors
-        int activeDoctors = (int) assignments.stream()
-                .map(CaseAssignment::getDoctorId)
-                .distinct()
-                .count();
-        
-        // Average times
-        double avgAssignmentTime = calculateAverageAssignmentTime(cases);
-        double avgResolutionTime = calculateAverageResolutionTime(cases);
-        double avgResponseTime = calculateAverageResponseTime(assignments);
-        
-        // Distributions
-        Map<String, Long> statusDistribution = cases.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getStatus().name(),
-                        Collectors.counting()
-                ));
-        
-        Map<String, Long> urgencyDistribution = cases.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getUrgencyLevel().name(),
-                        Collectors.counting()
-                ));
-        
-        return CaseOverviewMetrics.builder()
-                .totalCases(totalCases)
-                .activeCases(activeCases)
-                .closedCases(closedCases)
-                .casesAtRisk(casesAtRisk)
-                .assignmentSuccessRate(round(assignmentSuccessRate, 2))
-                .activeDoctorsCount(activeDoctors)
-                .avgAssignmentTime(round(avgAssignmentTime, 2))
-                .avgResolutionTime(round(avgResolutionTime, 2))
-                .avgResponseTime(round(avgResponseTime, 2))
-                .statusDistribution(statusDistribution)
-                .urgencyDistribution(urgencyDistribution)
-                .caseTrend(calculateCaseTrend(cases))
-                .assignmentTimeTrend(calculateAssignmentTimeTrend(cases))
-                .resolutionTimeTrend(calculateResolutionTimeTrend(cases))
-                .build();
+    private CaseAnalyticsSlice loadSlice(LocalDateTime startDate, LocalDateTime endDate, LocalDateTime now) {
+        LocalDateTime settledBefore = now.toLocalDate().minusDays(STUCK_AFTER_DAYS).atStartOfDay();
+        List<CaseAnalyticsSlice> slices = new ArrayList<>();
+        LocalDateTime from = startDate;
+        while (!from.isAfter(endDate)) {
+            LocalDateTime nextMonth = from.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+            // The range queries are BETWEEN (inclusive), so a bucket stops a microsecond before the next one
+            LocalDateTime until = nextMonth.isAfter(endDate) ? endDate : nextMonth.minus(1, ChronoUnit.MICROS);
+            LocalDateTime bucketFrom = from;
+            boolean closed = until.isBefore(settledBefore);
+            // Requests for the open bucket within the same minute share one computation
+            LocalDateTime keyUntil = closed ? until : until.truncatedTo(ChronoUnit.MINUTES);
+            slices.add(analyticsCache.get(SLICE_METRIC, bucketFrom, keyUntil, closed,
+                    () -> computeSlice(bucketFrom, until, now)));
+            from = nextMonth;
+        }
+        return mergeSlices(slices, now);
     }
 
     /**
-     * Calculate cases at risk (overdue based on urgency SLA)
+     * Run the range queries and the row pass for one bucket
      */
-    private long calculateCasesAtRisk(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
-        
-        return cases.stream()
-                .filter(c -> !c.getStatus().equals(CaseStatus.CLOSED) && 
-                            !c.getStatus().equals(CaseStatus.REJECTED))
-                .filter(c -> {
-                    long hoursSinceSubmission = ChronoUnit.HOURS.between(c.getSubmittedAt(), now);
-                    
-                    // Check against SLA targets
-                    switch (c.getUrgencyLevel()) {
-                        case CRITICAL:
-                            return hoursSinceSubmission > 1 && c.getFirstAssignedAt() == null;
-                        case HIGH:
-                            return hoursSinceSubmission > 4 && c.getFirstAssignedAt() == null;
-                        case MEDIUM:
-                            return hoursSinceSubmission > 24 && c.getFirstAssignedAt() == null;
-                        case LOW:
-                            return hoursSinceSubmission > 48 && c.getFirstAssignedAt() == null;
-                        default:
-                            return false;
-                    }
-                })
-                .count();
+    private CaseAnalyticsSlice computeSlice(LocalDateTime from, LocalDateTime until, LocalDateTime now) {
+        long firstAssignments = 0;
+        long acceptedFirstTime = 0;
+        for (Object[] row : caseAssignmentRepository.countFirstTimeAssignments(from, until)) {
+            firstAssignments = asLong(row[0]);
+            acceptedFirstTime = asLong(row[1]);
+        }
+        return new CaseAnalyticsSlice(
+                loadCaseGroups(from, until, now),
+                loadDoctorSummaries(from, until),
+                accumulateRows(from, until, now),
+                caseRepository.countCasesWithCompleteInfo(from, until),
+                firstAssignments,
+                acceptedFirstTime,
+                caseRepository.countCasesWithMultipleReassignments(from, until));
     }
 
     /**
-     * Calculate assignment success rate
+     * Combine bucket slices into the slice of their union (cached slices are left untouched)
      */
-    private double calculateAssignmentSuccessRate(List<CaseAssignment> assignments) {
-        if (assignments.isEmpty()) return 0.0;
-        
-        long successfulAssignments = assignments.stream()
-                .filter(a -> "ACCEPTED".equals(a.getStatus()))
-                .count();
-        
-        return ((double) successfulAssignments / assignments.size()) * 100;
+    private CaseAnalyticsSlice mergeSlices(List<CaseAnalyticsSlice> slices, LocalDateTime now) {
+        List<CaseGroup> groups = new ArrayList<>();
+        Map<Long, DoctorSummary> doctors = new LinkedHashMap<>();
+        CaseAnalyticsAccumulator rowMetrics = new CaseAnalyticsAccumulator(now);
+        long casesWithCompleteInfo = 0;
+        long firstAssignments = 0;
+        long acceptedFirstTime = 0;
+        long multipleReassignments = 0;
+
+        for (CaseAnalyticsSlice slice : slices) {
+            groups.addAll(slice.groups());
+            slice.doctors().forEach(doctor -> doctors.merge(doctor.doctorId(), doctor, DoctorSummary::plus));
+            rowMetrics.merge(slice.rowMetrics());
+            casesWithCompleteInfo += slice.casesWithCompleteInfo();
+            firstAssignments += slice.firstAssignments();
+            acceptedFirstTime += slice.acceptedFirstTime();
+            multipleReassignments += slice.casesWithMultipleReassignments();
+        }
+        return new CaseAnalyticsSlice(groups, new ArrayList<>(doctors.values()), rowMetrics,
+                casesWithCompleteInfo, firstAssignments, acceptedFirstTime, multipleReassignments);
     }
 
     /**
-     * Calculate average assignment time (hours from submission to first assignment)
+     * Load the (status, urgency, specialization) cube of the range
      */
-    private double calculateAverageAssignmentTime(List<Case> cases) {
-        List<Long> assignmentTimes = cases.stream()
-                .filter(c -> c.getFirstAssignedAt() != null)
-                .map(c -> ChronoUnit.HOURS.between(c.getSubmittedAt(), c.getFirstAssignedAt()))
-                .collect(Collectors.toList());
-        
-        if (assignmentTimes.isEmpty()) return 0.0;
-        
-        return assignmentTimes.stream()
-                .mapToLong(Long::longValue)
-                .average()
-                .orElse(0.0);
+    private List<CaseGroup> loadCaseGroups(LocalDateTime startDate, LocalDateTime endDate, LocalDateTime now) {
+        List<Object[]> rows = caseRepository.summarizeCasesForAnalytics(startDate, endDate, now,
+                now.minusDays(STUCK_AFTER_DAYS));
+        List<CaseGroup> groups = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            groups.add(new CaseGroup(
+                    (CaseStatus) row[0],
+                    (UrgencyLevel) row[1],
+                    row[2] != null ? (String) row[2] : "GENERAL",
+                    asLong(row[3]),
+                    row[4] != null ? (BigDecimal) row[4] : BigDecimal.ZERO,
+                    asLong(row[5]),
+                    asLong(row[6]),
+                    asLong(row[7]),
+                    asLong(row[8]),
+                    asLong(row[9]),
+                    asLong(row[10]),
+                    asLong(row[11])));
+        }
+        return groups;
     }
 
     /**
-     * Calculate average resolution time (days from submission to closure)
+     * Feed every slim case row of the range through one accumulator, straight off the cursor
      */
-    private double calculateAverageResolutionTime(List<Case> cases) {
-        List<Long> resolutionTimes = cases.stream()
-                .filter(c -> c.getStatus().equals(CaseStatus.CLOSED) && c.getClosedAt() != null)
-                .map(c -> ChronoUnit.DAYS.between(c.getSubmittedAt(), c.getClosedAt()))
-                .collect(Collectors.toList());
-        
-        if (resolutionTimes.isEmpty()) return 0.0;
-        
-        return resolutionTimes.stream()
-                .mapToLong(Long::longValue)
-                .average()
-                .orElse(0.0);
+    private CaseAnalyticsAccumulator accumulateRows(LocalDateTime startDate, LocalDateTime endDate,
+                                                    LocalDateTime now) {
+        CaseAnalyticsAccumulator accumulator = new CaseAnalyticsAccumulator(now);
+        try (Stream<CaseAnalyticsRowDto> rows = caseRepository.streamAnalyticsRows(startDate, endDate)) {
+            rows.forEach(accumulator);
+        }
+        return accumulator;
     }
 
     /**
-     * Calculate average response time (hours for doctor to respond)
+     * Duration sketches of the range, merged from the stored daily sketches (kept current as cases
+     * are assigned or closed)
      */
-    private double calculateAverageResponseTime(List<CaseAssignment> assignments) {
-        List<Long> responseTimes = assignments.stream()
-                .filter(a -> a.getRespondedAt() != null)
-                .map(a -> ChronoUnit.HOURS.between(a.getAssignedAt(), a.getRespondedAt()))
-                .collect(Collectors.toList());
-        
-        if (responseTimes.isEmpty()) return 0.0;
+    private CaseDurationSketches loadDurationSketches(LocalDateTime startDate, LocalDateTime endDate) {
+        return caseDurationSketchService.load(startDate.toLocalDate(), endDate.toLocalDate());
+    }
+
+    /**
+     * Load per-doctor assignment counts joined with the statuses of their cases
+     */
+    private List<DoctorSummary> loadDoctorSummaries(LocalDateTime startDate, LocalDateTime endDate) {
+        Map<Long, long[]> outcomes = new HashMap<>();
+        for (Object[] row : caseAssignmentRepository.summarizeDoctorCasesByStatus(startDate, endDate)) {
+            long[] outcome = outcomes.computeIfAbsent((Long) row[0], id -> new long[4]);
+            long caseCount = asLong(row[2]);
+            if (row[1] == CaseStatus.CLOSED) {
+                outcome[0] += caseCount;
+                outcome[2] += asLong(row[3]);
+                outcome[3] += asLong(row[4]);
+            } else {
+                outcome[1] += caseCount;
+            }
+        }
+
+        List<DoctorSummary> doctors = new ArrayList<>();
+        for (Object[] row : caseAssignmentRepository.summarizeAssignmentsByDoctor(startDate, endDate)) {
+            Long doctorId = (Long) row[0];
+            long[] outcome = outcomes.getOrDefault(doctorId, new long[4]);
+            doctors.add(new DoctorSummary(doctorId,
+                    asLong(row[1]), asLong(row[2]), asLong(row[3]), asLong(row[4]),
+                    asLong(row[5]), asLong(row[6]), asLong(row[7]),
+                    outcome[0], outcome[1], outcome[2], outcome[3]));
+        }
+        return doctors;
+    }
+
+    /**
+     * Load the rolling week / month / year windows (and the ones before them) used by the trend indicators.
+     * Volumes come from the daily rollup (whole days up to today), the month-over-month time trends
+     * from the cases themselves.
+     */
+    private PeriodWindows loadPeriodWindows(LocalDateTime startDate, LocalDateTime endDate, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        return new PeriodWindows(
+                countWindow(startDate, endDate, today.minusWeeks(1), today),
+                countWindow(startDate, endDate, today.minusWeeks(2), today.minusWeeks(1)),
+                countWindow(startDate, endDate, today.minusMonths(1), today),
+                countWindow(startDate, endDate, today.minusMonths(2), today.minusMonths(1)),
+                countWindow(startDate, endDate, today.minusYears(1), today),
+                countWindow(startDate, endDate, today.minusYears(2), today.minusYears(1)),
+                loadTimeWindow(startDate, endDate, now.minusMonths(1), now),
+                loadTimeWindow(startDate, endDate, now.minusMonths(2), now.minusMonths(1)));
+    }
+
+    /**
+     * Rollup case counts per specialization of the days in (afterDay, untilDay] within the range
+     */
+    private Map<String, Long> countWindow(LocalDateTime startDate, LocalDateTime endDate,
+                                          LocalDate afterDay, LocalDate untilDay) {
+        Map<String, Long> bySpecialization = new HashMap<>();
+        for (Object[] row : caseDailyRollupRepository.sumBySpecialization(
+                startDate.toLocalDate(), endDate.toLocalDate(), afterDay, untilDay)) {
+            bySpecialization.merge((String) row[0], asLong(row[1]), Long::sum);
+        }
+        return bySpecialization;
+    }
+
+    private Tally loadTimeWindow(LocalDateTime startDate, LocalDateTime endDate,
+                                 LocalDateTime after, LocalDateTime until) {
+        Tally window = new Tally();
+        for (Object[] row : caseRepository.summarizeCaseWindowBySpecialization(startDate, endDate, after, until)) {
+            window.add(asLong(row[1]), asLong(row[2]), asLong(row[3]), 0, asLong(row[4]), asLong(row[5]));
+        }
+        return window;
+    }
+
+    /**
+     * Calculate overview metrics
+     */
+    private CaseOverviewMetrics calculateOverviewMetrics(List<CaseGroup> groups, List<DoctorSummary> doctors,
+                                                         PeriodWindows windows,
+                                                         CaseDurationSketches durations) {
+        log.debug("Calculating overview metrics for {} case groups", groups.size());
+
+        Tally all = new Tally();
+        long activeCases = 0;
+        long closedCases = 0;
+        long casesAtRisk = 0;
+        Map<String, Long> statusDistribution = new HashMap<>();
+        Map<String, Long> urgencyDistribution = new HashMap<>();
+
+        for (CaseGroup group : groups) {
+            all.add(group);
+            if (isOpen(group.status())) {
+                activeCases += group.count();
+                // Cases at risk (overdue based on urgency SLA)
+                casesAtRisk += group.atRiskCount();
+            }
+            if (group.status() == CaseStatus.CLOSED) {
+                closedCases += group.count();
+            }
+            statusDistribution.merge(group.status().name(), group.count(), Long::sum);
+            urgencyDistribution.merge(group.urgency().name(), group.count(), Long::sum);
+        }
+
+        // Assignment success rate
+        long totalAssignments = doctors.stream().mapToLong(DoctorSummary::assignments).sum();
+        long acceptedAssignments = doctors.stream().mapToLong(DoctorSummary::accepted).sum();
+        double assignmentSuccessRate = totalAssignments > 0 ?
+                ((double) acceptedAssignments / totalAssignments) * 100 : 0.0;
+
+        // Average response time (hours for doctor to respond)
+        long responded = doctors.stream().mapToLong(DoctorSummary::responded).sum();
+        long responseHours = doctors.stream().mapToLong(DoctorSummary::responseHours).sum();
+        double avgResponseTime = responded > 0 ? (double) responseHours / responded : 0.0;
+
+        Tally currentMonth = windows.currentMonthTimes();
+        Tally previousMonth = windows.previousMonthTimes();
         
-        return responseTimes.stream()
-                .mapToLong(Long::longValue)
-                .average()
-                .orElse(0.0);
+        return CaseOverviewMetrics.builder()
+                .totalCases(all.cases)
+                .activeCases(activeCases)
+                .closedCases(closedCases)
+                .casesAtRisk(casesAtRisk)
+                .assignmentSuccessRate(round(assignmentSuccessRate, 2))
+                .activeDoctorsCount(doctors.size())
+                .avgAssignmentTime(round(all.avgAssignmentHours(), 2))
+                .avgResolutionTime(round(all.avgResolutionDays(), 2))
+                .avgResponseTime(round(avgResponseTime, 2))
+                .assignmentTimePercentiles(percentiles(durations.of(CaseDurationMetric.ASSIGNMENT), MINUTES_PER_HOUR))
+                .resolutionTimePercentiles(percentiles(durations.of(CaseDurationMetric.RESOLUTION), MINUTES_PER_DAY))
+                .statusDistribution(statusDistribution)
+                .urgencyDistribution(urgencyDistribution)
+                .caseTrend(calculateCaseTrend(sum(windows.currentMonth()), sum(windows.previousMonth())))
+                .assignmentTimeTrend(calculateTimeTrend(
+                        currentMonth.avgAssignmentHours(), previousMonth.avgAssignmentHours()))
+                .resolutionTimeTrend(calculateTimeTrend(
+                        currentMonth.avgResolutionDays(), previousMonth.avgResolutionDays()))
+                .build();
     }
 
     /**
@@ -275,23 +391,20 @@ public class CaseAnalyticsService {
     }
 
     /**
-     * Calculate case volume trend (comparing current period to previous period)
+     * p50 / p90 / p99 of a duration sketch, converted from minutes to the given unit
      */
-    private CaseOverviewMetrics.TrendIndicator calculateCaseTrend(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneMonthAgo = now.minusMonths(1);
-        LocalDateTime twoMonthsAgo = now.minusMonths(2);
-
-        // Count cases in current month vs previous month
-        long currentMonthCases = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(oneMonthAgo))
-                .count();
-
-        long previousMonthCases = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(twoMonthsAgo) &&
-                        c.getSubmittedAt().isBefore(oneMonthAgo))
-                .count();
+    private Map<String, Double> percentiles(DurationSketch sketch, double minutesPerUnit) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (double p : PERCENTILES) {
+            values.put("p" + Math.round(p * 100), round(sketch.quantile(p) / minutesPerUnit, 2));
+        }
+        return values;
+    }
 
+    /**
+     * Calculate case volume trend (comparing current period to previous period)
+     */
+    private CaseOverviewMetrics.TrendIndicator calculateCaseTrend(long currentMonthCases, long previousMonthCases) {
         // Calculate percentage change
         double changePercentage = 0.0;
         boolean isPositive = true;
@@ -312,77 +425,15 @@ public class CaseAnalyticsService {
     }
 
     /**
-     * Calculate assignment time trend (comparing current to previous period)
-     */
-    private CaseOverviewMetrics.TrendIndicator calculateAssignmentTimeTrend(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneMonthAgo = now.minusMonths(1);
-        LocalDateTime twoMonthsAgo = now.minusMonths(2);
-
-        // Calculate average assignment time for current month
-        double currentMonthAvgTime = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(oneMonthAgo))
-                .filter(c -> c.getFirstAssignedAt() != null)
-                .mapToLong(c -> ChronoUnit.HOURS.between(c.getSubmittedAt(), c.getFirstAssignedAt()))
-                .average()
-                .orElse(0.0);
-
-        // Calculate average assignment time for previous month
-        double previousMonthAvgTime = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(twoMonthsAgo) &&
-                        c.getSubmittedAt().isBefore(oneMonthAgo))
-                .filter(c -> c.getFirstAssignedAt() != null)
-                .mapToLong(c -> ChronoUnit.HOURS.between(c.getSubmittedAt(), c.getFirstAssignedAt()))
-                .average()
-                .orElse(0.0);
-
-        // Calculate percentage change (negative is good for time metrics)
-        double changePercentage = 0.0;
-        boolean isPositive = true; // For time, decrease is positive
-
-        if (previousMonthAvgTime > 0) {
-            changePercentage = ((currentMonthAvgTime - previousMonthAvgTime) / previousMonthAvgTime) * 100;
-            isPositive = changePercentage <= 0; // Decrease in time is positive
-        }
-
-        return CaseOverviewMetrics.TrendIndicator.builder()
-                .value(Math.abs(round(changePercentage, 1)))
-                .isPositive(isPositive)
-                .period("vs last month")
-                .build();
-    }
-
-    /**
-     * Calculate resolution time trend (comparing current to previous period)
+     * Calculate assignment / resolution time trend (comparing current to previous period)
      */
-    private CaseOverviewMetrics.TrendIndicator calculateResolutionTimeTrend(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneMonthAgo = now.minusMonths(1);
-        LocalDateTime twoMonthsAgo = now.minusMonths(2);
-
-        // Calculate average resolution time for current month
-        double currentMonthAvgDays = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(oneMonthAgo))
-                .filter(c -> c.getStatus().equals(CaseStatus.CLOSED) && c.getClosedAt() != null)
-                .mapToLong(c -> ChronoUnit.DAYS.between(c.getSubmittedAt(), c.getClosedAt()))
-                .average()
-                .orElse(0.0);
-
-        // Calculate average resolution time for previous month
-        double previousMonthAvgDays = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(twoMonthsAgo) &&
-                        c.getSubmittedAt().isBefore(oneMonthAgo))
-                .filter(c -> c.getStatus().equals(CaseStatus.CLOSED) && c.getClosedAt() != null)
-                .mapToLong(c -> ChronoUnit.DAYS.between(c.getSubmittedAt(), c.getClosedAt()))
-                .average()
-                .orElse(0.0);
-
+    private CaseOverviewMetrics.TrendIndicator calculateTimeTrend(double currentMonthAvg, double previousMonthAvg) {
         // Calculate percentage change (negative is good for time metrics)
         double changePercentage = 0.0;
         boolean isPositive = true; // For time, decrease is positive
 
-        if (previousMonthAvgDays > 0) {
-            changePercentage = ((currentMonthAvgDays - previousMonthAvgDays) / previousMonthAvgDays) * 100;
+        if (previousMonthAvg > 0) {
+            changePercentage = ((currentMonthAvg - previousMonthAvg) / previousMonthAvg) * 100;
             isPositive = changePercentage <= 0; // Decrease in time is positive
         }
 
@@ -396,10 +447,10 @@ public class CaseAnalyticsService {
     /**
      * Calculate doctor analytics metrics
      */
-    private DoctorAnalyticsMetrics calculateDoctorMetrics(List<CaseAssignment> assignments, List<Case> cases) {
-        log.debug("Calculating doctor metrics for {} assignments", assignments.size());
+    private DoctorAnalyticsMetrics calculateDoctorMetrics(List<DoctorSummary> doctors) {
+        log.debug("Calculating doctor metrics for {} doctors", doctors.size());
 
-        if (assignments.isEmpty()) {
+        if (doctors.isEmpty()) {
             return DoctorAnalyticsMetrics.builder()
                     .topPerformers(new ArrayList<>())
                     .bottomPerformers(new ArrayList<>())
@@ -418,19 +469,11 @@ public class CaseAnalyticsService {
                     .build();
         }
 
-        // Group assignments by doctor
-        Map<Long, List<CaseAssignment>> assignmentsByDoctor = assignments.stream()
-                .collect(Collectors.groupingBy(CaseAssignment::getDoctorId));
-
         // Calculate performance for each doctor
         List<DoctorPerformanceDto> allPerformances = new ArrayList<>();
 
-        for (Map.Entry<Long, List<CaseAssignment>> entry : assignmentsByDoctor.entrySet()) {
-            Long doctorId = entry.getKey();
-            List<CaseAssignment> doctorAssignments = entry.getValue();
-
-            DoctorPerformanceDto performance = calculateDoctorPerformance(doctorId, doctorAssignments, cases);
-            allPerformances.add(performance);
+        for (DoctorSummary doctor : doctors) {
+            allPerformances.add(calculateDoctorPerformance(doctor));
         }
 
         // Sort by acceptance rate descending for top performers
@@ -490,7 +533,7 @@ public class CaseAnalyticsService {
                 .avgAcceptanceRate(round(avgAcceptanceRate, 2))
                 .avgRejectionRate(round(avgRejectionRate, 2))
                 .totalActiveDoctors(allPerformances.size())
-                .totalAssignments((long) assignments.size())
+                .totalAssignments(doctors.stream().mapToLong(DoctorSummary::assignments).sum())
                 .casesByDoctor(casesByDoctorName)
                 .avgCasesPerDoctor(round(avgCasesPerDoctor, 2))
                 .utilization(DoctorAnalyticsMetrics.DoctorUtilization.builder()
@@ -504,33 +547,15 @@ public class CaseAnalyticsService {
     /**
      * Calculate performance metrics for individual doctor
      */
-    private DoctorPerformanceDto calculateDoctorPerformance(Long doctorId,
-                                                            List<CaseAssignment> assignments,
-                                                            List<Case> allCases) {
+    private DoctorPerformanceDto calculateDoctorPerformance(DoctorSummary doctor) {
+        Long doctorId = doctor.doctorId();
+        int totalAssignments = (int) doctor.assignments();
+        int acceptedCases = (int) doctor.accepted();
+        int rejectedCases = (int) doctor.rejected();
 
-        int totalAssignments = assignments.size();
-        int acceptedCases = (int) assignments.stream()
-                .filter(a -> "ACCEPTED".equals(a.getStatus()))
-                .count();
-        int rejectedCases = (int) assignments.stream()
-                .filter(a -> "REJECTED".equals(a.getStatus()))
-                .count();
-
-        // Get completed cases for this doctor
-        Set<Case> assignedCaseIds = assignments.stream()
-                .map(CaseAssignment::getCaseEntity)
-                .collect(Collectors.toSet());
-
-        int completedCases = (int) allCases.stream()
-                .filter(c -> assignedCaseIds.contains(c.getId()))
-                .filter(c -> c.getStatus().equals(CaseStatus.CLOSED))
-                .count();
-
-        // Current load (cases not closed)
-        int currentLoad = (int) allCases.stream()
-                .filter(c -> assignedCaseIds.contains(c.getId()))
-                .filter(c -> !c.getStatus().equals(CaseStatus.CLOSED))
-                .count();
+        // Completed cases and current load (cases not closed) of this doctor
+        int completedCases = (int) doctor.completedCases();
+        int currentLoad = (int) doctor.openCases();
 
         // Calculate rates
         double acceptanceRate = totalAssignments > 0 ?
@@ -539,24 +564,15 @@ public class CaseAnalyticsService {
                 ((double) rejectedCases / totalAssignments) * 100 : 0.0;
 
         // Average resolution time
-        double avgResolutionTime = allCases.stream()
-                .filter(c -> assignedCaseIds.contains(c.getId()))
-                .filter(c -> c.getStatus().equals(CaseStatus.CLOSED) && c.getClosedAt() != null)
-                .mapToLong(c -> ChronoUnit.DAYS.between(c.getSubmittedAt(), c.getClosedAt()))
-                .average()
-                .orElse(0.0);
+        double avgResolutionTime = doctor.resolvedCases() > 0 ?
+                (double) doctor.resolutionDays() / doctor.resolvedCases() : 0.0;
 
         // Average response time
-        double avgResponseTime = assignments.stream()
-                .filter(a -> a.getRespondedAt() != null)
-                .mapToLong(a -> ChronoUnit.HOURS.between(a.getAssignedAt(), a.getRespondedAt()))
-                .average()
-                .orElse(0.0);
+        double avgResponseTime = doctor.responded() > 0 ?
+                (double) doctor.responseHours() / doctor.responded() : 0.0;
 
         // Reassignment count
-        int reassignmentCount = (int) assignments.stream()
-                .filter(a -> a.getAssignedAt() != null)
-                .count();
+        int reassignmentCount = (int) doctor.assignedAtCount();
 
         // Determine performance level
         String performanceLevel = determinePerformanceLevel(acceptanceRate, avgResolutionTime);
@@ -602,10 +618,11 @@ public class CaseAnalyticsService {
     /**
      * Calculate specialization analytics
      */
-    private SpecializationAnalyticsMetrics calculateSpecializationMetrics(List<Case> cases) {
-        log.debug("Calculating specialization metrics for {} cases", cases.size());
+    private SpecializationAnalyticsMetrics calculateSpecializationMetrics(List<CaseGroup> groups,
+                                                                          PeriodWindows windows) {
+        log.debug("Calculating specialization metrics for {} case groups", groups.size());
 
-        if (cases.isEmpty()) {
+        if (groups.isEmpty()) {
             return SpecializationAnalyticsMetrics.builder()
                     .casesBySpecialization(new HashMap<>())
                     .avgResolutionBySpecialization(new HashMap<>())
@@ -616,44 +633,31 @@ public class CaseAnalyticsService {
                     .build();
         }
 
-        // Count cases by specialization
-        Map<String, Long> casesBySpec = cases.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getRequiredSpecialization() != null ? c.getRequiredSpecialization() : "GENERAL",
-                        Collectors.counting()
-                ));
-
-        // Average resolution time by specialization
-        Map<String, Double> avgResolutionBySpec = new HashMap<>();
-        for (String spec : casesBySpec.keySet()) {
-            double avgResolution = cases.stream()
-                    .filter(c -> spec.equals(c.getRequiredSpecialization()))
-                    .filter(c -> c.getStatus().equals(CaseStatus.CLOSED) && c.getClosedAt() != null)
-                    .mapToLong(c -> ChronoUnit.DAYS.between(c.getSubmittedAt(), c.getClosedAt()))
-                    .average()
-                    .orElse(0.0);
-
-            avgResolutionBySpec.put(spec, round(avgResolution, 2));
+        // Count cases, resolution days and fees by specialization
+        Map<String, Tally> tallyBySpec = new HashMap<>();
+        Map<String, BigDecimal> feeSumBySpec = new HashMap<>();
+        for (CaseGroup group : groups) {
+            tallyBySpec.computeIfAbsent(group.specialization(), k -> new Tally()).add(group);
+            feeSumBySpec.merge(group.specialization(), group.feeSum(), BigDecimal::add);
         }
 
-        // Average fee by specialization
+        Map<String, Long> casesBySpec = new HashMap<>();
+        Map<String, Double> avgResolutionBySpec = new HashMap<>();
         Map<String, BigDecimal> avgFeeBySpec = new HashMap<>();
-        for (String spec : casesBySpec.keySet()) {
-            BigDecimal avgFee = cases.stream()
-                    .filter(c -> spec.equals(c.getRequiredSpecialization()))
-                    .filter(c -> c.getConsultationFee() != null)
-                    .map(Case::getConsultationFee)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add)
-                    .divide(BigDecimal.valueOf(casesBySpec.get(spec)), 2, RoundingMode.HALF_UP);
-
-            avgFeeBySpec.put(spec, avgFee);
+        for (Map.Entry<String, Tally> entry : tallyBySpec.entrySet()) {
+            String spec = entry.getKey();
+            long specCases = entry.getValue().cases;
+            casesBySpec.put(spec, specCases);
+            avgResolutionBySpec.put(spec, round(entry.getValue().avgResolutionDays(), 2));
+            avgFeeBySpec.put(spec, feeSumBySpec.get(spec)
+                    .divide(BigDecimal.valueOf(specCases), 2, RoundingMode.HALF_UP));
         }
 
         // Calculate trends
-        List<SpecializationTrendDto> trends = calculateSpecializationTrends(cases, casesBySpec);
+        List<SpecializationTrendDto> trends = calculateSpecializationTrends(casesBySpec, windows);
 
         // Distribution percentage
-        long totalCases = cases.size();
+        long totalCases = casesBySpec.values().stream().mapToLong(Long::longValue).sum();
         Map<String, Double> distributionPercentage = casesBySpec.entrySet().stream()
                 .collect(Collectors.toMap(
                         Map.Entry::getKey,
@@ -700,42 +704,15 @@ public class CaseAnalyticsService {
     /**
      * Calculate specialization trends
      */
-    private List<SpecializationTrendDto> calculateSpecializationTrends(List<Case> cases,
-                                                                       Map<String, Long> casesBySpec) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneMonthAgo = now.minusMonths(1);
-        LocalDateTime twoMonthsAgo = now.minusMonths(2);
-        LocalDateTime oneWeekAgo = now.minusWeeks(1);
-        LocalDateTime twoWeeksAgo = now.minusWeeks(2);
-
+    private List<SpecializationTrendDto> calculateSpecializationTrends(Map<String, Long> casesBySpec,
+                                                                       PeriodWindows windows) {
         List<SpecializationTrendDto> trends = new ArrayList<>();
 
         for (String spec : casesBySpec.keySet()) {
-            // Current month
-            long currentMonth = cases.stream()
-                    .filter(c -> spec.equals(c.getRequiredSpecialization()))
-                    .filter(c -> c.getSubmittedAt().isAfter(oneMonthAgo))
-                    .count();
-
-            // Previous month
-            long previousMonth = cases.stream()
-                    .filter(c -> spec.equals(c.getRequiredSpecialization()))
-                    .filter(c -> c.getSubmittedAt().isAfter(twoMonthsAgo) &&
-                            c.getSubmittedAt().isBefore(oneMonthAgo))
-                    .count();
-
-            // Current week
-            long currentWeek = cases.stream()
-                    .filter(c -> spec.equals(c.getRequiredSpecialization()))
-                    .filter(c -> c.getSubmittedAt().isAfter(oneWeekAgo))
-                    .count();
-
-            // Previous week
-            long previousWeek = cases.stream()
-                    .filter(c -> spec.equals(c.getRequiredSpecialization()))
-                    .filter(c -> c.getSubmittedAt().isAfter(twoWeeksAgo) &&
-                            c.getSubmittedAt().isBefore(oneWeekAgo))
-                    .count();
+            long currentMonth = windows.currentMonth().getOrDefault(spec, 0L);
+            long previousMonth = windows.previousMonth().getOrDefault(spec, 0L);
+            long currentWeek = windows.currentWeek().getOrDefault(spec, 0L);
+            long previousWeek = windows.previousWeek().getOrDefault(spec, 0L);
 
             // Calculate growth rates
             double monthlyGrowth = previousMonth > 0 ?
@@ -768,10 +745,11 @@ public class CaseAnalyticsService {
     /**
      * Calculate trend analytics
      */
-    private TrendAnalyticsMetrics calculateTrends(List<Case> cases) {
-        log.debug("Calculating trend metrics for {} cases", cases.size());
+    private TrendAnalyticsMetrics calculateTrends(LocalDateTime startDate, LocalDateTime endDate,
+                                                  long totalCases, PeriodWindows windows) {
+        log.debug("Calculating trend metrics for {} cases", totalCases);
 
-        if (cases.isEmpty()) {
+        if (totalCases == 0) {
             return TrendAnalyticsMetrics.builder()
                     .dailyTrend(new ArrayList<>())
                     .weeklyTrend(new ArrayList<>())
@@ -782,44 +760,56 @@ public class CaseAnalyticsService {
                     .build();
         }
 
+        // Submissions per calendar day and status, from the daily rollup
+        TreeMap<LocalDate, Map<String, Long>> statusByDay = new TreeMap<>();
+        for (Object[] row : caseDailyRollupRepository.sumByDayAndStatus(
+                startDate.toLocalDate(), endDate.toLocalDate())) {
+            statusByDay.computeIfAbsent((LocalDate) row[0], d -> new HashMap<>())
+                    .merge(((CaseStatus) row[1]).name(), asLong(row[2]), Long::sum);
+        }
+        TreeMap<LocalDate, Long> casesByDay = new TreeMap<>();
+        statusByDay.forEach((day, counts) ->
+                casesByDay.put(day, counts.values().stream().mapToLong(Long::longValue).sum()));
+
+        // Submissions per hour of day
+        Map<Integer, Long> casesByHour = new HashMap<>();
+        for (Object[] row : caseRepository.countSubmissionsByHour(startDate, endDate)) {
+            casesByHour.put((int) asLong(row[0]), asLong(row[1]));
+        }
+
         return TrendAnalyticsMetrics.builder()
-                .dailyTrend(getDailyTrend(cases))
-                .weeklyTrend(getWeeklyTrend(cases))
-                .monthlyTrend(getMonthlyTrend(cases))
-                .hourlyDistribution(getHourlyDistribution(cases))
-                .dayOfWeekDistribution(getDayOfWeekDistribution(cases))
-                .statusTrend(getStatusTrend(cases))
-                .peakHour(findPeakHour(cases))
-                .peakDay(findPeakDay(cases))
-                .peakMonth(findPeakMonth(cases))
-                .weekOverWeekGrowth(calculateWeekOverWeekGrowth(cases))
-                .monthOverMonthGrowth(calculateMonthOverMonthGrowth(cases))
-                .yearOverYearGrowth(calculateYearOverYearGrowth(cases))
+                .dailyTrend(getDailyTrend(casesByDay))
+                .weeklyTrend(getWeeklyTrend(casesByDay))
+                .monthlyTrend(getMonthlyTrend(casesByDay))
+                .hourlyDistribution(getHourlyDistribution(casesByHour))
+                .dayOfWeekDistribution(getDayOfWeekDistribution(casesByDay))
+                .statusTrend(getStatusTrend(statusByDay))
+                .peakHour(findPeak(casesByHour, 12))
+                .peakDay(findPeak(countBy(casesByDay, LocalDate::getDayOfWeek), DayOfWeek.MONDAY).toString())
+                .peakMonth(findPeak(countBy(casesByDay, LocalDate::getMonth), Month.JANUARY).toString())
+                .weekOverWeekGrowth(calculateGrowth(windows.currentWeek(), windows.previousWeek()))
+                .monthOverMonthGrowth(calculateGrowth(windows.currentMonth(), windows.previousMonth()))
+                .yearOverYearGrowth(calculateGrowth(windows.currentYear(), windows.previousYear()))
                 .build();
     }
 
     /**
      * Get daily trend (last 30 days)
      */
-    private List<ChartDataPointDto> getDailyTrend(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime thirtyDaysAgo = now.minusDays(30);
-
-        Map<LocalDate, List<Case>> casesByDay = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(thirtyDaysAgo))
-                .collect(Collectors.groupingBy(c -> c.getSubmittedAt().toLocalDate()));
+    private List<ChartDataPointDto> getDailyTrend(NavigableMap<LocalDate, Long> casesByDay) {
+        LocalDate today = LocalDate.now();
 
         List<ChartDataPointDto> dailyData = new ArrayList<>();
 
         for (int i = 30; i >= 0; i--) {
-            LocalDate date = now.minusDays(i).toLocalDate();
-            List<Case> dayCases = casesByDay.getOrDefault(date, new ArrayList<>());
+            LocalDate date = today.minusDays(i);
+            long dayCases = casesByDay.getOrDefault(date, 0L);
 
             dailyData.add(ChartDataPointDto.builder()
                     .date(date.toString())
                     .label(date.format(DateTimeFormatter.ofPattern("MMM dd")))
-                    .earnings(BigDecimal.valueOf(dayCases.size()))
-                    .count(dayCases.size())
+                    .earnings(BigDecimal.valueOf(dayCases))
+                    .count((int) dayCases)
                     .build());
         }
 
@@ -829,22 +819,17 @@ public class CaseAnalyticsService {
     /**
      * Get weekly trend (last 12 weeks)
      */
-    private List<ChartDataPointDto> getWeeklyTrend(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
+    private List<ChartDataPointDto> getWeeklyTrend(NavigableMap<LocalDate, Long> casesByDay) {
+        LocalDate today = LocalDate.now();
 
         List<ChartDataPointDto> weeklyData = new ArrayList<>();
 
         for (int i = 12; i >= 0; i--) {
-            LocalDateTime weekStart = now.minusWeeks(i).with(DayOfWeek.MONDAY);
-            LocalDateTime weekEnd = weekStart.plusWeeks(1);
-
-            long weekCases = cases.stream()
-                    .filter(c -> c.getSubmittedAt().isAfter(weekStart) &&
-                            c.getSubmittedAt().isBefore(weekEnd))
-                    .count();
+            LocalDate weekStart = today.minusWeeks(i).with(DayOfWeek.MONDAY);
+            long weekCases = sumDays(casesByDay, weekStart, weekStart.plusWeeks(1));
 
             weeklyData.add(ChartDataPointDto.builder()
-                    .date(weekStart.toLocalDate().toString())
+                    .date(weekStart.toString())
                     .label("Week " + (13 - i))
                     .earnings(BigDecimal.valueOf(weekCases))
                     .count((int) weekCases)
@@ -857,22 +842,17 @@ public class CaseAnalyticsService {
     /**
      * Get monthly trend (last 12 months)
      */
-    private List<ChartDataPointDto> getMonthlyTrend(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
+    private List<ChartDataPointDto> getMonthlyTrend(NavigableMap<LocalDate, Long> casesByDay) {
+        LocalDate today = LocalDate.now();
 
         List<ChartDataPointDto> monthlyData = new ArrayList<>();
 
         for (int i = 12; i >= 0; i--) {
-            LocalDateTime monthStart = now.minusMonths(i).withDayOfMonth(1);
-            LocalDateTime monthEnd = monthStart.plusMonths(1);
-
-            long monthCases = cases.stream()
-                    .filter(c -> c.getSubmittedAt().isAfter(monthStart) &&
-                            c.getSubmittedAt().isBefore(monthEnd))
-                    .count();
+            LocalDate monthStart = today.minusMonths(i).withDayOfMonth(1);
+            long monthCases = sumDays(casesByDay, monthStart, monthStart.plusMonths(1));
 
             monthlyData.add(ChartDataPointDto.builder()
-                    .date(monthStart.toLocalDate().toString())
+                    .date(monthStart.toString())
                     .label(monthStart.format(DateTimeFormatter.ofPattern("MMM yyyy")))
                     .earnings(BigDecimal.valueOf(monthCases))
                     .count((int) monthCases)
@@ -882,30 +862,33 @@ public class CaseAnalyticsService {
         return monthlyData;
     }
 
+    /**
+     * Cases submitted on days in [from, to)
+     */
+    private long sumDays(NavigableMap<LocalDate, Long> casesByDay, LocalDate from, LocalDate to) {
+        return casesByDay.subMap(from, true, to, false).values().stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
     /**
      * Get hourly distribution (0-23)
      */
-    private Map<Integer, Integer> getHourlyDistribution(List<Case> cases) {
+    private Map<Integer, Integer> getHourlyDistribution(Map<Integer, Long> casesByHour) {
         Map<Integer, Integer> hourlyDist = new HashMap<>();
 
         // Initialize all hours
         for (int i = 0; i < 24; i++) {
-            hourlyDist.put(i, 0);
+            hourlyDist.put(i, casesByHour.getOrDefault(i, 0L).intValue());
         }
 
-        // Count cases by hour
-        cases.forEach(c -> {
-            int hour = c.getSubmittedAt().getHour();
-            hourlyDist.put(hour, hourlyDist.get(hour) + 1);
-        });
-
         return hourlyDist;
     }
 
     /**
      * Get day of week distribution
      */
-    private Map<String, Integer> getDayOfWeekDistribution(List<Case> cases) {
+    private Map<String, Integer> getDayOfWeekDistribution(Map<LocalDate, Long> casesByDay) {
         Map<String, Integer> dayDist = new LinkedHashMap<>();
 
         // Initialize all days
@@ -915,10 +898,10 @@ public class CaseAnalyticsService {
         }
 
         // Count cases by day
-        cases.forEach(c -> {
-            String day = c.getSubmittedAt().getDayOfWeek().toString();
+        countBy(casesByDay, LocalDate::getDayOfWeek).forEach((dayOfWeek, count) -> {
+            String day = dayOfWeek.toString();
             day = day.substring(0, 1).toUpperCase() + day.substring(1).toLowerCase();
-            dayDist.put(day, dayDist.getOrDefault(day, 0) + 1);
+            dayDist.merge(day, count.intValue(), Integer::sum);
         });
 
         return dayDist;
@@ -927,17 +910,7 @@ public class CaseAnalyticsService {
     /**
      * Get status trend over time
      */
-    private List<TrendAnalyticsMetrics.StatusTrendPoint> getStatusTrend(List<Case> cases) {
-        // Group by date and status
-        Map<LocalDate, Map<String, Long>> trendData = cases.stream()
-                .collect(Collectors.groupingBy(
-                        c -> c.getSubmittedAt().toLocalDate(),
-                        Collectors.groupingBy(
-                                c -> c.getStatus().name(),
-                                Collectors.counting()
-                        )
-                ));
-
+    private List<TrendAnalyticsMetrics.StatusTrendPoint> getStatusTrend(Map<LocalDate, Map<String, Long>> trendData) {
         List<TrendAnalyticsMetrics.StatusTrendPoint> trendPoints = new ArrayList<>();
 
         for (Map.Entry<LocalDate, Map<String, Long>> entry : trendData.entrySet()) {
@@ -954,114 +927,50 @@ public class CaseAnalyticsService {
     }
 
     /**
-     * Find peak hour (most submissions)
-     */
-    private Integer findPeakHour(List<Case> cases) {
-        return cases.stream()
-                .collect(Collectors.groupingBy(c -> c.getSubmittedAt().getHour(), Collectors.counting()))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(12);
-    }
-
-    /**
-     * Find peak day
+     * Re-key daily counts (e.g. by day of week or month)
      */
-    private String findPeakDay(List<Case> cases) {
-        return cases.stream()
-                .collect(Collectors.groupingBy(c -> c.getSubmittedAt().getDayOfWeek(), Collectors.counting()))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(e -> e.getKey().toString())
-                .orElse("MONDAY");
+    private <K> Map<K, Long> countBy(Map<LocalDate, Long> casesByDay, Function<LocalDate, K> key) {
+        Map<K, Long> counts = new HashMap<>();
+        casesByDay.forEach((day, count) -> counts.merge(key.apply(day), count, Long::sum));
+        return counts;
     }
 
     /**
-     * Find peak month
+     * Find the key with most submissions
      */
-    private String findPeakMonth(List<Case> cases) {
-        return cases.stream()
-                .collect(Collectors.groupingBy(c -> c.getSubmittedAt().getMonth(), Collectors.counting()))
-                .entrySet().stream()
+    private <K> K findPeak(Map<K, Long> counts, K defaultKey) {
+        return counts.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
                 .max(Map.Entry.comparingByValue())
-                .map(e -> e.getKey().toString())
-                .orElse("JANUARY");
-    }
-
-    /**
-     * Calculate week-over-week growth
-     */
-    private Double calculateWeekOverWeekGrowth(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneWeekAgo = now.minusWeeks(1);
-        LocalDateTime twoWeeksAgo = now.minusWeeks(2);
-
-        long thisWeek = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(oneWeekAgo))
-                .count();
-
-        long lastWeek = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(twoWeeksAgo) &&
-                        c.getSubmittedAt().isBefore(oneWeekAgo))
-                .count();
-
-        if (lastWeek == 0) return 0.0;
-
-        return round(((double) (thisWeek - lastWeek) / lastWeek) * 100, 2);
-    }
-
-    /**
-     * Calculate month-over-month growth
-     */
-    private Double calculateMonthOverMonthGrowth(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneMonthAgo = now.minusMonths(1);
-        LocalDateTime twoMonthsAgo = now.minusMonths(2);
-
-        long thisMonth = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(oneMonthAgo))
-                .count();
-
-        long lastMonth = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(twoMonthsAgo) &&
-                        c.getSubmittedAt().isBefore(oneMonthAgo))
-                .count();
-
-        if (lastMonth == 0) return 0.0;
-
-        return round(((double) (thisMonth - lastMonth) / lastMonth) * 100, 2);
+                .map(Map.Entry::getKey)
+                .orElse(defaultKey);
     }
 
     /**
-     * Calculate year-over-year growth
+     * Calculate period-over-period growth (week, month or year)
      */
-    private Double calculateYearOverYearGrowth(List<Case> cases) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneYearAgo = now.minusYears(1);
-        LocalDateTime twoYearsAgo = now.minusYears(2);
+    private Double calculateGrowth(Map<String, Long> current, Map<String, Long> previous) {
+        long thisPeriod = sum(current);
+        long lastPeriod = sum(previous);
 
-        long thisYear = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(oneYearAgo))
-                .count();
-
-        long lastYear = cases.stream()
-                .filter(c -> c.getSubmittedAt().isAfter(twoYearsAgo) &&
-                        c.getSubmittedAt().isBefore(oneYearAgo))
-                .count();
+        if (lastPeriod == 0) return 0.0;
 
-        if (lastYear == 0) return 0.0;
-
-        return round(((double) (thisYear - lastYear) / lastYear) * 100, 2);
+        return round(((double) (thisPeriod - lastPeriod) / lastPeriod) * 100, 2);
     }
 
     /**
      * Calculate quality metrics
      */
-    private QualityMetricsDto calculateQualityMetrics(List<Case> cases, List<CaseAssignment> assignments) {
+    private QualityMetricsDto calculateQualityMetrics(CaseAnalyticsSlice slice) {
         log.debug("Calculating quality metrics");
 
-        if (cases.isEmpty() || assignments.isEmpty()) {
+        List<CaseGroup> groups = slice.groups();
+        List<DoctorSummary> doctors = slice.doctors();
+
+        long totalCases = groups.stream().mapToLong(CaseGroup::count).sum();
+        long totalAssignments = doctors.stream().mapToLong(DoctorSummary::assignments).sum();
+
+        if (totalCases == 0 || totalAssignments == 0) {
             return QualityMetricsDto.builder()
                     .reassignmentRate(0.0)
                     .totalReassignments(0L)
@@ -1082,74 +991,41 @@ public class CaseAnalyticsService {
                     .build();
         }
 
-        long totalAssignments = assignments.size();
-
         // Reassignment metrics
-        long totalReassignments = assignments.stream()
-                .filter(a -> a.getAssignedAt() != null)
-                .count();
+        long totalReassignments = doctors.stream().mapToLong(DoctorSummary::assignedAtCount).sum();
         double reassignmentRate = ((double) totalReassignments / totalAssignments) * 100;
 
         // Rejection metrics
-        long totalRejections = assignments.stream()
-                .filter(a -> "REJECTED".equals(a.getStatus()))
-                .count();
+        long totalRejections = doctors.stream().mapToLong(DoctorSummary::rejected).sum();
         double rejectionRate = ((double) totalRejections / totalAssignments) * 100;
 
         // Completion metrics
-        long completedCases = cases.stream()
-                .filter(c -> c.getStatus().equals(CaseStatus.CLOSED))
-                .count();
-        long abandonedCases = cases.stream()
-                .filter(c -> c.getStatus().equals(CaseStatus.REJECTED))
-                .count();
-        double completionRate = ((double) completedCases / cases.size()) * 100;
+        long completedCases = countWithStatus(groups, CaseStatus.CLOSED);
+        long abandonedCases = countWithStatus(groups, CaseStatus.REJECTED);
+        double completionRate = ((double) completedCases / totalCases) * 100;
 
         // Documentation quality
-        long casesWithCompleteInfo = cases.stream()
-                .filter(c -> c.getSymptomCodes() != null && !c.getSymptomCodes().isEmpty() &&
-                        c.getMedicalReportFileLink() != null && !c.getMedicalReportFileLink().isEmpty())
-                .count();
-        long casesWithIncompleteInfo = cases.size() - casesWithCompleteInfo;
-        double avgDocScore = ((double) casesWithCompleteInfo / cases.size()) * 100;
+        long casesWithCompleteInfo = slice.casesWithCompleteInfo();
+        long casesWithIncompleteInfo = totalCases - casesWithCompleteInfo;
+        double avgDocScore = ((double) casesWithCompleteInfo / totalCases) * 100;
 
         // First-time success rate
-        Set<Long> firstAssignmentCaseIds = new HashSet<>();
-        Set<Long> acceptedFirstTimeCaseIds = new HashSet<>();
-
-        for (CaseAssignment assignment : assignments) {
-            if (assignment.getAssignedAt() == null) {
-                firstAssignmentCaseIds.add(assignment.getCaseEntity().getId());
-                if ("ACCEPTED".equals(assignment.getStatus())) {
-                    acceptedFirstTimeCaseIds.add(assignment.getCaseEntity().getId());
-                }
-            }
-        }
+        long firstAssignmentCases = slice.firstAssignments();
+        long acceptedFirstTimeCases = slice.acceptedFirstTime();
 
-        double firstTimeSuccess = firstAssignmentCaseIds.isEmpty() ? 0.0 :
-                ((double) acceptedFirstTimeCaseIds.size() / firstAssignmentCaseIds.size()) * 100;
+        double firstTimeSuccess = firstAssignmentCases == 0 ? 0.0 :
+                ((double) acceptedFirstTimeCases / firstAssignmentCases) * 100;
 
         // Average time to first response
-        double avgTimeToFirstResponse = assignments.stream()
-                .filter(a -> a.getRespondedAt() != null)
-                .mapToLong(a -> ChronoUnit.HOURS.between(a.getAssignedAt(), a.getRespondedAt()))
-                .average()
-                .orElse(0.0);
+        long responded = doctors.stream().mapToLong(DoctorSummary::responded).sum();
+        double avgTimeToFirstResponse = responded > 0 ?
+                (double) doctors.stream().mapToLong(DoctorSummary::responseHours).sum() / responded : 0.0;
 
         // Cases with multiple reassignments
-        Map<Case, Long> reassignmentCounts = assignments.stream()
-                .filter(a -> a.getAssignedAt() != null)
-                .collect(Collectors.groupingBy(CaseAssignment::getCaseEntity, Collectors.counting()));
-
-        long multipleReassignments = reassignmentCounts.values().stream()
-                .filter(count -> count >= 2)
-                .count();
+        long multipleReassignments = slice.casesWithMultipleReassignments();
 
         // Cases with long response time (>24 hours)
-        long longResponseTime = assignments.stream()
-                .filter(a -> a.getRespondedAt() != null)
-                .filter(a -> ChronoUnit.HOURS.between(a.getAssignedAt(), a.getRespondedAt()) > 24)
-                .count();
+        long longResponseTime = doctors.stream().mapToLong(DoctorSummary::longResponses).sum();
 
         return QualityMetricsDto.builder()
                 .reassignmentRate(round(reassignmentRate, 2))
@@ -1181,24 +1057,32 @@ public class CaseAnalyticsService {
     /**
      * Calculate performance metrics
      */
-    private CasePerformanceMetrics calculatePerformanceMetrics(List<Case> cases, List<CaseAssignment> assignments) {
+    private CasePerformanceMetrics calculatePerformanceMetrics(List<CaseGroup> groups,
+                                                               CaseAnalyticsAccumulator rowMetrics,
+                                                               CaseDurationSketches durations) {
         log.debug("Calculating performance metrics");
 
         // Average time by status
-        Map<String, Double> avgTimeByStatus = calculateAvgTimeByStatus(cases);
+        Map<String, Double> avgTimeByStatus = new HashMap<>();
+        rowMetrics.avgHoursByStatus().forEach((status, hours) ->
+                avgTimeByStatus.put(status.name(), round(hours, 2)));
 
         // Bottleneck analysis
-        Map<String, Long> bottlenecks = calculateBottlenecks(cases);
+        Map<String, Long> bottlenecks = calculateBottlenecks(groups);
 
         // SLA compliance
-        SlaComplianceDto slaCompliance = calculateSlaCompliance(cases, assignments);
+        Map<UrgencyLevel, Tally> tallyByUrgency = new EnumMap<>(UrgencyLevel.class);
+        for (CaseGroup group : groups) {
+            tallyByUrgency.computeIfAbsent(group.urgency(), k -> new Tally()).add(group);
+        }
+        SlaComplianceDto slaCompliance = calculateSlaCompliance(tallyByUrgency);
 
         // Stage funnel
-        List<CaseStageMetrics> stageFunnel = calculateStageFunnel(cases);
+        List<CaseStageMetrics> stageFunnel = calculateStageFunnel(rowMetrics);
 
         // Performance by urgency
         Map<String, CasePerformanceMetrics.UrgencyPerformance> performanceByUrgency =
-                calculatePerformanceByUrgency(cases, assignments);
+                calculatePerformanceByUrgency(tallyByUrgency, durations);
 
         return CasePerformanceMetrics.builder()
                 .avgTimeByStatus(avgTimeByStatus)
@@ -1210,91 +1094,33 @@ public class CaseAnalyticsService {
     }
 
     /**
-     * Calculate average time spent in each status
+     * Calculate bottlenecks - cases stuck in each status
      */
-    private Map<String, Double> calculateAvgTimeByStatus(List<Case> cases) {
-        Map<String, List<Long>> timesByStatus = new HashMap<>();
-
-        for (Case c : cases) {
-            CaseStatus status = c.getStatus();
-
-            // Calculate time in current status
-            LocalDateTime statusStartTime = getStatusStartTime(c, status);
-            if (statusStartTime != null) {
-                LocalDateTime endTime = status.equals(CaseStatus.CLOSED) && c.getClosedAt() != null ?
-                        c.getClosedAt() : LocalDateTime.now();
-
-                long hours = ChronoUnit.HOURS.between(statusStartTime, endTime);
-
-                timesByStatus.computeIfAbsent(status.name(), k -> new ArrayList<>()).add(hours);
+    private Map<String, Long> calculateBottlenecks(List<CaseGroup> groups) {
+        Map<String, Long> bottlenecks = new HashMap<>();
+        for (CaseGroup group : groups) {
+            if (group.status() != CaseStatus.CLOSED && group.stuckCount() > 0) {
+                bottlenecks.merge(group.status().name(), group.stuckCount(), Long::sum);
             }
         }
-
-        // Calculate averages
-        Map<String, Double> avgTimes = new HashMap<>();
-        for (Map.Entry<String, List<Long>> entry : timesByStatus.entrySet()) {
-            double avg = entry.getValue().stream()
-                    .mapToLong(Long::longValue)
-                    .average()
-                    .orElse(0.0);
-            avgTimes.put(entry.getKey(), round(avg, 2));
-        }
-
-        return avgTimes;
-    }
-
-    /**
-     * Get start time for a given status (approximation)
-     */
-    private LocalDateTime getStatusStartTime(Case c, CaseStatus status) {
-        switch (status) {
-            case SUBMITTED:
-            case PENDING:
-                return c.getSubmittedAt();
-            case ASSIGNED:
-            case ACCEPTED:
-            case SCHEDULED:
-            case IN_PROGRESS:
-                return c.getFirstAssignedAt();
-            case CLOSED:
-                return c.getClosedAt() != null ? c.getClosedAt().minusDays(3) : null; // Estimate
-            default:
-                return c.getSubmittedAt();
-        }
-    }
-
-    /**
-     * Calculate bottlenecks - cases stuck in each status
-     */
-    private Map<String, Long> calculateBottlenecks(List<Case> cases) {
-        LocalDateTime threeDaysAgo = LocalDateTime.now().minusDays(3);
-
-        return cases.stream()
-                .filter(c -> c.getSubmittedAt().isBefore(threeDaysAgo))
-                .filter(c -> !c.getStatus().equals(CaseStatus.CLOSED))
-                .collect(Collectors.groupingBy(
-                        c -> c.getStatus().name(),
-                        Collectors.counting()
-                ));
+        return bottlenecks;
     }
 
     /**
      * Calculate SLA compliance
      */
-    private SlaComplianceDto calculateSlaCompliance(List<Case> cases, List<CaseAssignment> assignments) {
-        Map<UrgencyLevel, List<Case>> casesByUrgency = cases.stream()
-                .collect(Collectors.groupingBy(Case::getUrgencyLevel));
-
-        double criticalCompliance = calculateUrgencySlaCompliance(
-                casesByUrgency.getOrDefault(UrgencyLevel.CRITICAL, new ArrayList<>()), 1);
-        double highCompliance = calculateUrgencySlaCompliance(
-                casesByUrgency.getOrDefault(UrgencyLevel.HIGH, new ArrayList<>()), 4);
-        double mediumCompliance = calculateUrgencySlaCompliance(
-                casesByUrgency.getOrDefault(UrgencyLevel.MEDIUM, new ArrayList<>()), 24);
-        double lowCompliance = calculateUrgencySlaCompliance(
-                casesByUrgency.getOrDefault(UrgencyLevel.LOW, new ArrayList<>()), 48);
-
-        long totalCases = cases.size();
+    private SlaComplianceDto calculateSlaCompliance(Map<UrgencyLevel, Tally> tallyByUrgency) {
+        Tally critical = tallyByUrgency.getOrDefault(UrgencyLevel.CRITICAL, new Tally());
+        Tally high = tallyByUrgency.getOrDefault(UrgencyLevel.HIGH, new Tally());
+        Tally medium = tallyByUrgency.getOrDefault(UrgencyLevel.MEDIUM, new Tally());
+        Tally low = tallyByUrgency.getOrDefault(UrgencyLevel.LOW, new Tally());
+
+        double criticalCompliance = critical.slaCompliance();
+        double highCompliance = high.slaCompliance();
+        double mediumCompliance = medium.slaCompliance();
+        double lowCompliance = low.slaCompliance();
+
+        long totalCases = tallyByUrgency.values().stream().mapToLong(t -> t.cases).sum();
         long casesMetSla = (long) ((criticalCompliance + highCompliance + mediumCompliance + lowCompliance) / 4 * totalCases / 100);
 
         return SlaComplianceDto.builder()
@@ -1310,100 +1136,51 @@ public class CaseAnalyticsService {
                 .totalCases(totalCases)
                 .casesMetSla(casesMetSla)
                 .casesMissedSla(totalCases - casesMetSla)
-                .criticalAvgTime(round(calculateAvgAssignmentTimeByUrgency(casesByUrgency.getOrDefault(UrgencyLevel.CRITICAL, new ArrayList<>())), 2))
-                .highAvgTime(round(calculateAvgAssignmentTimeByUrgency(casesByUrgency.getOrDefault(UrgencyLevel.HIGH, new ArrayList<>())), 2))
-                .mediumAvgTime(round(calculateAvgAssignmentTimeByUrgency(casesByUrgency.getOrDefault(UrgencyLevel.MEDIUM, new ArrayList<>())), 2))
-                .lowAvgTime(round(calculateAvgAssignmentTimeByUrgency(casesByUrgency.getOrDefault(UrgencyLevel.LOW, new ArrayList<>())), 2))
+                .criticalAvgTime(round(critical.avgAssignmentHours(), 2))
+                .highAvgTime(round(high.avgAssignmentHours(), 2))
+                .mediumAvgTime(round(medium.avgAssignmentHours(), 2))
+                .lowAvgTime(round(low.avgAssignmentHours(), 2))
                 .build();
     }
 
-    /**
-     * Calculate SLA compliance for specific urgency level
-     */
-    private double calculateUrgencySlaCompliance(List<Case> cases, int targetHours) {
-        if (cases.isEmpty()) return 100.0;
-
-        long metSla = cases.stream()
-                .filter(c -> c.getFirstAssignedAt() != null)
-                .filter(c -> {
-                    long hours = ChronoUnit.HOURS.between(c.getSubmittedAt(), c.getFirstAssignedAt());
-                    return hours <= targetHours;
-                })
-                .count();
-
-        return ((double) metSla / cases.size()) * 100;
-    }
-
-    /**
-     * Calculate average assignment time for specific urgency
-     */
-    private double calculateAvgAssignmentTimeByUrgency(List<Case> cases) {
-        return cases.stream()
-                .filter(c -> c.getFirstAssignedAt() != null)
-                .mapToLong(c -> ChronoUnit.HOURS.between(c.getSubmittedAt(), c.getFirstAssignedAt()))
-                .average()
-                .orElse(0.0);
-    }
-
     /**
      * Calculate stage funnel metrics
      */
-    private List<CaseStageMetrics> calculateStageFunnel(List<Case> cases) {
+    private List<CaseStageMetrics> calculateStageFunnel(CaseAnalyticsAccumulator rowMetrics) {
         List<CaseStageMetrics> funnel = new ArrayList<>();
+        List<CaseStatus> stages = CaseAnalyticsAccumulator.FUNNEL_STAGES;
+        Map<CaseStatus, Double> avgHoursByStatus = rowMetrics.avgHoursByStatus();
 
-        // Define stages in order
-        Map<String, Integer> stageOrder = Map.of(
-                "SUBMITTED", 1,
-                "PENDING", 2,
-                "ASSIGNED", 3,
-                "ACCEPTED", 4,
-                "SCHEDULED", 5,
-                "IN_PROGRESS", 6,
-                "CONSULTATION_COMPLETE", 7,
-                "CLOSED", 8
-        );
-
-        long totalCases = cases.size();
+        long totalCases = rowMetrics.rows();
 
-        for (Map.Entry<String, Integer> stage : stageOrder.entrySet()) {
-            String stageName = stage.getKey();
+        for (int i = 0; i < stages.size(); i++) {
+            CaseStatus stage = stages.get(i);
 
-            long casesInStage = cases.stream()
-                    .filter(c -> c.getStatus().name().equals(stageName))
-                    .count();
+            long casesInStage = rowMetrics.casesWithStatus(stage);
+            long casesReachedStage = rowMetrics.casesReachedStage(i);
 
-            long casesReachedStage = cases.stream()
-                    .filter(c -> hasReachedStage(c, stageName))
-                    .count();
+            // Reached this stage but not the next one
+            long dropoffCount = i + 1 < stages.size() ?
+                    casesReachedStage - rowMetrics.casesReachedStage(i + 1) : 0L;
 
             double reachRate = totalCases > 0 ? ((double) casesReachedStage / totalCases) * 100 : 0.0;
+            double dropoffRate = casesReachedStage > 0 ? ((double) dropoffCount / casesReachedStage) * 100 : 0.0;
 
             funnel.add(CaseStageMetrics.builder()
-                    .stageName(stageName)
-                    .stageLabel(formatStageLabel(stageName))
+                    .stageName(stage.name())
+                    .stageLabel(formatStageLabel(stage.name()))
                     .caseCount(casesInStage)
-                    .dropoffCount(0L) // TODO: Calculate actual dropoff
-                    .dropoffRate(0.0) // TODO: Calculate actual dropoff rate
-                    .avgDuration(0.0) // TODO: Calculate from status history
+                    .dropoffCount(dropoffCount)
+                    .dropoffRate(round(dropoffRate, 2))
+                    .avgDuration(round(avgHoursByStatus.getOrDefault(stage, 0.0), 2))
                     .reachRate(round(reachRate, 2))
-                    .stageOrder(stage.getValue())
+                    .stageOrder(i + 1)
                     .build());
         }
 
         return funnel;
     }
 
-    /**
-     * Check if case has reached a stage
-     */
-    private boolean hasReachedStage(Case c, String stageName) {
-        // Simplified - in production, check status history
-        CaseStatus currentStatus = c.getStatus();
-        CaseStatus targetStatus = CaseStatus.valueOf(stageName);
-
-        return currentStatus.ordinal() >= targetStatus.ordinal();
-    }
-
     /**
      * Format stage label for display
      */
@@ -1417,55 +1194,140 @@ public class CaseAnalyticsService {
      * Calculate performance by urgency level
      */
     private Map<String, CasePerformanceMetrics.UrgencyPerformance> calculatePerformanceByUrgency(
-            List<Case> cases, List<CaseAssignment> assignments) {
+            Map<UrgencyLevel, Tally> tallyByUrgency, CaseDurationSketches durations) {
 
         Map<String, CasePerformanceMetrics.UrgencyPerformance> performance = new HashMap<>();
 
-        for (UrgencyLevel urgency : UrgencyLevel.values()) {
-            List<Case> urgencyCases = cases.stream()
-                    .filter(c -> c.getUrgencyLevel().equals(urgency))
-                    .collect(Collectors.toList());
-
-            if (urgencyCases.isEmpty()) continue;
-
-            double avgAssignment = calculateAvgAssignmentTimeByUrgency(urgencyCases);
-            double avgResolution = urgencyCases.stream()
-                    .filter(c -> c.getStatus().equals(CaseStatus.CLOSED) && c.getClosedAt() != null)
-                    .mapToLong(c -> ChronoUnit.DAYS.between(c.getSubmittedAt(), c.getClosedAt()))
-                    .average()
-                    .orElse(0.0);
-
-            int targetHours = getTargetHours(urgency);
-            double slaCompliance = calculateUrgencySlaCompliance(urgencyCases, targetHours);
-
-            performance.put(urgency.name(), CasePerformanceMetrics.UrgencyPerformance.builder()
-                    .urgencyLevel(urgency.name())
-                    .totalCases((long) urgencyCases.size())
-                    .avgAssignmentTime(round(avgAssignment, 2))
-                    .avgResolutionTime(round(avgResolution, 2))
-                    .slaCompliance(round(slaCompliance, 2))
+        for (Map.Entry<UrgencyLevel, Tally> entry : tallyByUrgency.entrySet()) {
+            Tally urgencyCases = entry.getValue();
+            if (urgencyCases.cases == 0) continue;
+
+            performance.put(entry.getKey().name(), CasePerformanceMetrics.UrgencyPerformance.builder()
+                    .urgencyLevel(entry.getKey().name())
+                    .totalCases(urgencyCases.cases)
+                    .avgAssignmentTime(round(urgencyCases.avgAssignmentHours(), 2))
+                    .avgResolutionTime(round(urgencyCases.avgResolutionDays(), 2))
+                    .slaCompliance(round(urgencyCases.slaCompliance(), 2))
+                    .assignmentTimePercentiles(percentiles(
+                            durations.of(CaseDurationMetric.ASSIGNMENT, entry.getKey()), MINUTES_PER_HOUR))
+                    .resolutionTimePercentiles(percentiles(
+                            durations.of(CaseDurationMetric.RESOLUTION, entry.getKey()), MINUTES_PER_DAY))
                     .build());
         }
 
         return performance;
     }
 
+    private static boolean isOpen(CaseStatus status) {
+        return status != CaseStatus.CLOSED && status != CaseStatus.REJECTED;
+    }
+
+    private static long countWithStatus(List<CaseGroup> groups, CaseStatus status) {
+        return groups.stream()
+                .filter(g -> g.status() == status)
+                .mapToLong(CaseGroup::count)
+                .sum();
+    }
+
+    private static long sum(Map<String, Long> counts) {
+        return counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static long asLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * One row of the (status, urgency, specialization) analytics cube
+     */
+    private record CaseGroup(CaseStatus status, UrgencyLevel urgency, String specialization, long count,
+                             BigDecimal feeSum, long assignedCount, long assignmentHours, long slaMetCount,
+                             long resolvedCount, long resolutionDays, long stuckCount, long atRiskCount) {
+    }
+
+    /**
+     * Assignment counts of one doctor plus the outcome of the cases assigned to them
+     */
+    private record DoctorSummary(Long doctorId, long assignments, long accepted, long rejected,
+                                 long assignedAtCount, long responded, long responseHours, long longResponses,
+                                 long completedCases, long openCases, long resolvedCases, long resolutionDays) {
+
+        private DoctorSummary plus(DoctorSummary other) {
+            return new DoctorSummary(doctorId, assignments + other.assignments, accepted + other.accepted,
+                    rejected + other.rejected, assignedAtCount + other.assignedAtCount,
+                    responded + other.responded, responseHours + other.responseHours,
+                    longResponses + other.longResponses, completedCases + other.completedCases,
+                    openCases + other.openCases, resolvedCases + other.resolvedCases,
+                    resolutionDays + other.resolutionDays);
+        }
+    }
+
+    /**
+     * Everything the analytics derive from the cases submitted in one time range. Ranges are split
+     * by submission date, so slices of adjacent ranges add up to the slice of their union.
+     */
+    private record CaseAnalyticsSlice(List<CaseGroup> groups, List<DoctorSummary> doctors,
+                                      CaseAnalyticsAccumulator rowMetrics, long casesWithCompleteInfo,
+                                      long firstAssignments, long acceptedFirstTime,
+                                      long casesWithMultipleReassignments) {
+    }
+
+    /**
+     * Rolling windows relative to now: case counts per specialization, plus the time sums of the months
+     */
+    private record PeriodWindows(Map<String, Long> currentWeek, Map<String, Long> previousWeek,
+                                 Map<String, Long> currentMonth, Map<String, Long> previousMonth,
+                                 Map<String, Long> currentYear, Map<String, Long> previousYear,
+                                 Tally currentMonthTimes, Tally previousMonthTimes) {
+    }
+
     /**
-     * Get SLA target hours for urgency level
+     * Running case counts and duration sums behind the averages and SLA rates
      */
-    private int getTargetHours(UrgencyLevel urgency) {
-        switch (urgency) {
-            case CRITICAL:
-                return 1;
-            case HIGH:
-                return 4;
-            case MEDIUM:
-                return 24;
-            case LOW:
-                return 48;
-            default:
-                return 24;
+    private static final class Tally {
+        private long cases;
+        private long assigned;
+        private long assignmentHours;
+        private long slaMet;
+        private long resolved;
+        private long resolutionDays;
+
+        private void add(CaseGroup group) {
+            boolean closed = group.status() == CaseStatus.CLOSED;
+            add(group.count(), group.assignedCount(), group.assignmentHours(), group.slaMetCount(),
+                    closed ? group.resolvedCount() : 0, closed ? group.resolutionDays() : 0);
+        }
+
+        private void add(long cases, long assigned, long assignmentHours, long slaMet,
+                         long resolved, long resolutionDays) {
+            this.cases += cases;
+            this.assigned += assigned;
+            this.assignmentHours += assignmentHours;
+            this.slaMet += slaMet;
+            this.resolved += resolved;
+            this.resolutionDays += resolutionDays;
+        }
+
+        /**
+         * Average hours from submission to first assignment
+         */
+        private double avgAssignmentHours() {
+            return assigned > 0 ? (double) assignmentHours / assigned : 0.0;
+        }
+
+        /**
+         * Average days from submission to closure of closed cases
+         */
+        private double avgResolutionDays() {
+            return resolved > 0 ? (double) resolutionDays / resolved : 0.0;
+        }
+
+        /**
+         * Percentage of cases assigned within their urgency target (100 without cases)
+         */
+        private double slaCompliance() {
+            return cases > 0 ? ((double) slaMet / cases) * 100 : 100.0;
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,203 @@
+package com.patientservice.service;
+
+import com.commonlibrary.exception.BusinessException;
+import com.patientservice.config.CaseAssignmentSchedulerConfig;
+import com.patientservice.dto.CaseAssignmentStatusDto;
+import com.patientservice.entity.AssignmentRequestStatus;
+import com.patientservice.entity.Case;
+import com.patientservice.kafka.PatientEventProducer;
+import com.patientservice.repository.CaseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Asynchronous assignment of newly submitted cases.
+ *
+ * Case submission only records an assignment request on the case and publishes it to
+ * smart-case-assignment-topic after the case is committed. The consumer claims the request
+ * atomically (duplicate deliveries are ignored), runs the matcher, and either marks the
+ * request ASSIGNED or schedules a retry with exponential backoff. Requests whose event was
+ * lost or whose consumer died are re-queued by the case assignment scheduler.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CaseAssignmentQueueService {
+
+    private static final Set<AssignmentRequestStatus> CLAIMABLE =
+            EnumSet.of(AssignmentRequestStatus.QUEUED, AssignmentRequestStatus.RETRY_SCHEDULED);
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final CaseRepository caseRepository;
+    private final SmartCaseAssignmentService assignmentService;
+    private final PatientEventProducer patientEventProducer;
+    private final CaseAssignmentSchedulerConfig config;
+
+    /**
+     * Attach a new assignment request to the case (the caller saves it) and publish the
+     * request once the surrounding transaction commits
+     */
+    public void enqueue(Case medicalCase) {
+        String requestId = UUID.randomUUID().toString();
+        medicalCase.setAssignmentRequestId(requestId);
+        medicalCase.setAssignmentRequestStatus(AssignmentRequestStatus.QUEUED);
+        medicalCase.setAssignmentRequestAttempts(0);
+        medicalCase.setAssignmentRequestUpdatedAt(LocalDateTime.now());
+        medicalCase.setNextAssignmentAttemptAt(null);
+        medicalCase.setAssignmentRequestError(null);
+
+        publishAfterCommit(medicalCase.getId(), requestId);
+    }
+
+    /**
+     * Process an assignment request event. Safe to call more than once for the same request.
+     */
+    public void process(Long caseId, String requestId) {
+        int claimed = caseRepository.claimAssignmentRequest(caseId, requestId,
+                AssignmentRequestStatus.IN_PROGRESS, CLAIMABLE, LocalDateTime.now());
+        if (claimed == 0) {
+            log.info("Assignment request {} for case {} is already handled or superseded, skipping",
+                    requestId, caseId);
+            return;
+        }
+
+        try {
+            assignmentService.assignCaseToMultipleDoctors(caseId);
+            caseRepository.updateAssignmentRequest(caseId, requestId, AssignmentRequestStatus.ASSIGNED,
+                    null, null, LocalDateTime.now());
+            log.info("Assignment request {} for case {} completed", requestId, caseId);
+        } catch (Exception e) {
+            handleFailure(caseId, requestId, e);
+        }
+    }
+
+    /**
+     * Re-publish requests that are due for retry, and requests stuck in QUEUED or IN_PROGRESS
+     * (lost event or consumer crash)
+     *
+     * @return number of requests re-queued
+     */
+    @Transactional
+    public int requeueDueRequests() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleCutoff = now.minusMinutes(config.getAssignmentRequestStaleMinutes());
+
+        List<Case> due = new ArrayList<>(caseRepository.findByAssignmentRequestStatusAndNextAssignmentAttemptAtBefore(
+                AssignmentRequestStatus.RETRY_SCHEDULED, now));
+        due.addAll(caseRepository.findByAssignmentRequestStatusAndAssignmentRequestUpdatedAtBefore(
+                AssignmentRequestStatus.QUEUED, staleCutoff));
+        due.addAll(caseRepository.findByAssignmentRequestStatusAndAssignmentRequestUpdatedAtBefore(
+                AssignmentRequestStatus.IN_PROGRESS, staleCutoff));
+
+        int requeued = 0;
+        for (Case medicalCase : due) {
+            if (attemptsOf(medicalCase) >= config.getAssignmentRequestMaxAttempts()) {
+                medicalCase.setAssignmentRequestStatus(AssignmentRequestStatus.FAILED);
+                medicalCase.setAssignmentRequestUpdatedAt(now);
+                caseRepository.save(medicalCase);
+                log.warn("Assignment request {} for case {} gave up after {} attempts",
+                        medicalCase.getAssignmentRequestId(), medicalCase.getId(), attemptsOf(medicalCase));
+                continue;
+            }
+            medicalCase.setAssignmentRequestStatus(AssignmentRequestStatus.QUEUED);
+            medicalCase.setAssignmentRequestUpdatedAt(now);
+            medicalCase.setNextAssignmentAttemptAt(null);
+            caseRepository.save(medicalCase);
+            publishAfterCommit(medicalCase.getId(), medicalCase.getAssignmentRequestId());
+            requeued++;
+        }
+
+        if (requeued > 0) {
+            log.info("Re-queued {} case assignment requests", requeued);
+        }
+        return requeued;
+    }
+
+    public CaseAssignmentStatusDto getStatus(Case medicalCase) {
+        return CaseAssignmentStatusDto.builder()
+                .caseId(medicalCase.getId())
+                .caseStatus(medicalCase.getStatus())
+                .requestId(medicalCase.getAssignmentRequestId())
+                .requestStatus(medicalCase.getAssignmentRequestStatus())
+                .attempts(attemptsOf(medicalCase))
+                .maxAttempts(config.getAssignmentRequestMaxAttempts())
+                .nextAttemptAt(medicalCase.getNextAssignmentAttemptAt())
+                .lastUpdatedAt(medicalCase.getAssignmentRequestUpdatedAt())
+                .error(medicalCase.getAssignmentRequestError())
+                .build();
+    }
+
+    private void handleFailure(Long caseId, String requestId, Exception e) {
+        LocalDateTime now = LocalDateTime.now();
+        String error = truncate(e.getMessage());
+        int attempts = caseRepository.findById(caseId).map(this::attemptsOf).orElse(0);
+
+        if (!isRetryable(e) || attempts >= config.getAssignmentRequestMaxAttempts()) {
+            caseRepository.updateAssignmentRequest(caseId, requestId, AssignmentRequestStatus.FAILED,
+                    error, null, now);
+            log.error("Assignment request {} for case {} failed after {} attempts: {}",
+                    requestId, caseId, attempts, error);
+            return;
+        }
+
+        long delaySeconds = (long) config.getAssignmentRequestRetryDelaySeconds() << Math.min(attempts - 1, 16);
+        LocalDateTime nextAttemptAt = now.plusSeconds(delaySeconds);
+        caseRepository.updateAssignmentRequest(caseId, requestId, AssignmentRequestStatus.RETRY_SCHEDULED,
+                error, nextAttemptAt, now);
+        log.warn("Assignment request {} for case {} failed (attempt {}), retrying at {}: {}",
+                requestId, caseId, attempts, nextAttemptAt, error);
+    }
+
+    /**
+     * A case that is no longer assignable, or whose patient has no valid subscription, will not
+     * succeed on retry; everything else (no doctors available yet, remote errors) may
+     */
+    private boolean isRetryable(Exception e) {
+        if (e instanceof BusinessException businessException) {
+            HttpStatus status = businessException.getStatus();
+            return status != HttpStatus.BAD_REQUEST && status != HttpStatus.PAYMENT_REQUIRED;
+        }
+        return true;
+    }
+
+    private void publishAfterCommit(Long caseId, String requestId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(caseId, requestId);
+                }
+            });
+        } else {
+            publish(caseId, requestId);
+        }
+    }
+
+    private void publish(Long caseId, String requestId) {
+        try {
+            patientEventProducer.sendCaseAssignmentRequest(caseId, requestId);
+        } catch (Exception e) {
+            // The request stays QUEUED and is re-published by the scheduler
+            log.error("Failed to publish assignment request {} for case {}: {}", requestId, caseId, e.getMessage());
+        }
+    }
+
+    private int attemptsOf(Case medicalCase) {
+        return medicalCase.getAssignmentRequestAttempts() != null ? medicalCase.getAssignmentRequestAttempts() : 0;
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
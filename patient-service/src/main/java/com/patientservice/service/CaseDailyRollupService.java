@@ -0,0 +1,266 @@
+package com.patientservice.service;
+
+import com.patientservice.config.CaseAnalyticsConfig;
+import com.patientservice.entity.CaseDurationKey;
+import com.patientservice.entity.CaseRollupKey;
+import com.patientservice.entity.CaseRollupRecorder;
+import com.patientservice.repository.CaseDailyRollupRepository;
+import com.patientservice.repository.CaseRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Maintains case_daily_rollup: case counts per (submission day, specialization, urgency, status),
+ * and the duration sketches of case_duration_sketch through CaseDurationSketchService.
+ *
+ * Case changes arrive from CaseDailyRollupListener as bucket moves; the moves of one transaction are
+ * coalesced into per-bucket deltas and upserted just before it commits, in the same transaction and
+ * in a fixed bucket order so two writers never deadlock. Writers hold a shared advisory lock and the
+ * recount an exclusive one, so a recount never runs between a case change and its delta and nothing
+ * is counted twice. Moves recorded after that write still go out after commit; deltas that get lost
+ * (failed late upsert, bulk updates bypassing the entity) are corrected by the nightly recount of
+ * recent days from the cases table. Assignment and resolution times move between the sketch rows
+ * of their submission day the same way, in the same write. Once a change has committed, the
+ * analytics buckets of its days are evicted so closed buckets never outlive it.
+ * The same recount rebuilds the duration sketches of those days, under the same lock.
+ */
+@Service
+@Slf4j
+public class CaseDailyRollupService implements CaseRollupRecorder {
+
+    // Advisory lock key shared by the delta writers and the recount
+    private static final long ROLLUP_LOCK_KEY = 0x63617365726f6c6cL;
+
+    private static final Comparator<CaseRollupKey> BUCKET_ORDER = Comparator
+            .comparing(CaseRollupKey::day)
+            .thenComparing(CaseRollupKey::specialization)
+            .thenComparing(CaseRollupKey::urgencyLevel)
+            .thenComparing(CaseRollupKey::status);
+
+    private final CaseDailyRollupRepository rollupRepository;
+    private final CaseRepository caseRepository;
+    private final CaseDurationSketchService sketchService;
+    private final CaseAnalyticsCache analyticsCache;
+    private final CaseAnalyticsConfig config;
+    private final EntityManager entityManager;
+    private final TransactionTemplate newTransaction;
+
+    public CaseDailyRollupService(CaseDailyRollupRepository rollupRepository,
+                                  CaseRepository caseRepository,
+                                  CaseDurationSketchService sketchService,
+                                  CaseAnalyticsCache analyticsCache,
+                                  CaseAnalyticsConfig config,
+                                  EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.caseRepository = caseRepository;
+        this.sketchService = sketchService;
+        this.analyticsCache = analyticsCache;
+        this.config = config;
+        this.entityManager = entityManager;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void recordChange(CaseRollupKey from, CaseRollupKey to) {
+        PendingChanges changes = pendingChanges();
+        if (from != null) {
+            changes.deltas.merge(from, -1L, Long::sum);
+        }
+        if (to != null) {
+            changes.deltas.merge(to, 1L, Long::sum);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(changes);
+            invalidateAnalytics(changes.days());
+        }
+    }
+
+    @Override
+    public void recordDurationChange(CaseDurationKey from, CaseDurationKey to) {
+        PendingChanges changes = pendingChanges();
+        if (from != null) {
+            changes.removedDurations.add(from);
+        }
+        if (to != null) {
+            changes.addedDurations.add(to);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(changes);
+            invalidateAnalytics(changes.days());
+        }
+    }
+
+    /**
+     * The changes of the current transaction, written once just before it commits
+     */
+    private PendingChanges pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new PendingChanges();
+        }
+        PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            PendingChanges transactionChanges = new PendingChanges();
+            Set<LocalDate> changedDays = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, transactionChanges);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (readOnly || !TransactionSynchronizationManager.isActualTransactionActive()) {
+                        return;
+                    }
+                    // Flush first so the moves of the last pending entity changes are recorded too;
+                    // a failed write rolls the case change back with it
+                    entityManager.flush();
+                    write(transactionChanges);
+                    changedDays.addAll(transactionChanges.days());
+                    transactionChanges.clear();
+                }
+
+                @Override
+                public void afterCommit() {
+                    // Moves recorded after the pre-commit write, or of a transaction without a connection
+                    apply(transactionChanges);
+                    changedDays.addAll(transactionChanges.days());
+                    invalidateAnalytics(changedDays);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CaseDailyRollupService.this);
+                }
+            });
+            changes = transactionChanges;
+        }
+        return changes;
+    }
+
+    private void apply(PendingChanges changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            newTransaction.executeWithoutResult(status -> write(changes));
+        } catch (Exception e) {
+            // The nightly reconciliation recounts these days
+            log.error("Failed to update case daily rollup ({} buckets, {} duration moves): {}",
+                    changes.deltas.size(), changes.removedDurations.size() + changes.addedDurations.size(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Evict the cached analytics buckets covering the changed days
+     */
+    private void invalidateAnalytics(Collection<LocalDate> days) {
+        days.forEach(analyticsCache::invalidateDay);
+    }
+
+    /**
+     * Upsert the deltas and duration moves in the current transaction, under the shared rollup lock
+     */
+    private void write(PendingChanges changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        rollupRepository.lockForDeltas(ROLLUP_LOCK_KEY);
+        LocalDateTime now = LocalDateTime.now();
+        changes.deltas.forEach((bucket, delta) -> {
+            if (delta != 0) {
+                rollupRepository.addToBucket(bucket.day(), bucket.specialization(),
+                        bucket.urgencyLevel().name(), bucket.status().name(), delta, now);
+            }
+        });
+        sketchService.applyMoves(changes.removedDurations, changes.addedDurations);
+    }
+
+    /**
+     * Nightly recount of the recent days from the cases table
+     */
+    @Scheduled(cron = "${case.analytics.rollup-reconcile-cron:0 30 2 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        reconcile(today.minusDays(config.getRollupReconcileDays()), today.plusDays(1));
+    }
+
+    /**
+     * Build the rollup and sketches from the whole case history when they are still empty (first start)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (rollupRepository.count() > 0 && sketchService.hasSketches()) {
+                return;
+            }
+            LocalDateTime earliest = caseRepository.findEarliestSubmittedAt();
+            if (earliest != null) {
+                reconcile(earliest.toLocalDate(), LocalDate.now().plusDays(1));
+            }
+        } catch (Exception e) {
+            log.error("Failed to backfill case daily rollup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the buckets and duration sketches of the days in [fromDay, toDay) with a fresh count
+     * of the cases table. The exclusive rollup lock waits for the transactions writing deltas and
+     * holds new ones back, so the count sees every committed change and none of the later deltas.
+     */
+    public int reconcile(LocalDate fromDay, LocalDate toDay) {
+        long start = System.currentTimeMillis();
+        int[] counts = newTransaction.execute(status -> {
+            rollupRepository.lockForRecount(ROLLUP_LOCK_KEY);
+            rollupRepository.deleteDays(fromDay, toDay);
+            int buckets = rollupRepository.recountDays(fromDay, toDay, LocalDateTime.now());
+            return new int[]{buckets, sketchService.rebuild(fromDay, toDay)};
+        });
+        analyticsCache.invalidateClosed();
+        int buckets = counts != null ? counts[0] : 0;
+        log.info("Case daily rollup reconciled for {} to {}: {} buckets, {} sketches in {} ms",
+                fromDay, toDay.minusDays(1), buckets, counts != null ? counts[1] : 0,
+                System.currentTimeMillis() - start);
+        return buckets;
+    }
+
+    /**
+     * The rollup deltas and duration moves of one transaction
+     */
+    private static final class PendingChanges {
+        private final Map<CaseRollupKey, Long> deltas = new TreeMap<>(BUCKET_ORDER);
+        private final List<CaseDurationKey> removedDurations = new ArrayList<>();
+        private final List<CaseDurationKey> addedDurations = new ArrayList<>();
+
+        private boolean isEmpty() {
+            return deltas.values().stream().allMatch(delta -> delta == 0)
+                    && removedDurations.isEmpty() && addedDurations.isEmpty();
+        }
+
+        private Set<LocalDate> days() {
+            Set<LocalDate> days = new HashSet<>();
+            deltas.keySet().forEach(bucket -> days.add(bucket.day()));
+            removedDurations.forEach(durations -> days.add(durations.day()));
+            addedDurations.forEach(durations -> days.add(durations.day()));
+            return days;
+        }
+
+        private void clear() {
+            deltas.clear();
+            removedDurations.clear();
+            addedDurations.clear();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.patientservice.service;
+
+import com.commonlibrary.entity.UrgencyLevel;
+import com.patientservice.dto.CaseAnalyticsRowDto;
+import com.patientservice.entity.CaseDurationKey;
+import com.patientservice.entity.CaseDurationMetric;
+import com.patientservice.entity.CaseDurationSketch;
+import com.patientservice.repository.CaseDurationSketchRepository;
+import com.patientservice.repository.CaseRepository;
+import com.patientservice.util.DurationSketch;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Maintains case_duration_sketch: assignment and resolution time sketches per (submission day,
+ * specialization, urgency).
+ *
+ * Each case change moves its assignment and resolution times between sketch rows as it commits
+ * (applyMoves, called by CaseDailyRollupService with the rollup deltas), so a case submitted on an
+ * earlier day shows up in that day's sketches as soon as it is assigned or closed. The nightly rollup
+ * reconciliation rebuilds recent days from the cases table, one day at a time off a cursor, so the
+ * rebuild holds the sketches of a single day. Percentiles of any day range
+ * come from merging the stored sketches of its days, regardless of the number of cases.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CaseDurationSketchService {
+
+    private static final Comparator<SketchRow> ROW_ORDER = Comparator
+            .comparing(SketchRow::day)
+            .thenComparing(SketchRow::specialization)
+            .thenComparing(SketchRow::urgencyLevel)
+            .thenComparing(SketchRow::metric);
+
+    private final CaseDurationSketchRepository sketchRepository;
+    private final CaseRepository caseRepository;
+    private final EntityManager entityManager;
+
+    /**
+     * Replace the sketches of the days in [fromDay, toDay) with sketches rebuilt from the cases table
+     */
+    @Transactional
+    public int rebuild(LocalDate fromDay, LocalDate toDay) {
+        sketchRepository.deleteDays(fromDay, toDay);
+
+        DaySketches day = null;
+        int saved = 0;
+        try (Stream<CaseAnalyticsRowDto> rows = caseRepository.streamAnalyticsRowsBySubmission(
+                fromDay.atStartOfDay(), toDay.atStartOfDay())) {
+            for (Iterator<CaseAnalyticsRowDto> it = rows.iterator(); it.hasNext(); ) {
+                CaseAnalyticsRowDto row = it.next();
+                LocalDate submittedOn = row.getSubmittedAt().toLocalDate();
+                if (day == null || !day.date.equals(submittedOn)) {
+                    saved += save(day);
+                    day = new DaySketches(submittedOn);
+                }
+                day.add(row);
+            }
+        }
+        saved += save(day);
+        return saved;
+    }
+
+    /**
+     * Take the removed durations out of their sketch rows and add the added ones, in the caller's
+     * transaction. Rows are locked in a fixed order so concurrent writers never deadlock.
+     */
+    void applyMoves(List<CaseDurationKey> removed, List<CaseDurationKey> added) {
+        Map<SketchRow, DurationSketch[]> moves = new TreeMap<>(ROW_ORDER);
+        collect(moves, removed, 0);
+        collect(moves, added, 1);
+        if (moves.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        byte[] empty = new DurationSketch().toBytes();
+        moves.forEach((row, change) -> {
+            sketchRepository.insertIfAbsent(row.day(), row.specialization(), row.urgencyLevel().name(),
+                    row.metric().name(), empty, now);
+            CaseDurationSketch stored = sketchRepository
+                    .findBySketchDateAndSpecializationAndUrgencyLevelAndMetric(
+                            row.day(), row.specialization(), row.urgencyLevel(), row.metric())
+                    .orElseThrow();
+            DurationSketch sketch = DurationSketch.fromBytes(stored.getSketch());
+            if (change[1] != null) {
+                sketch.merge(change[1]);
+            }
+            if (change[0] != null) {
+                sketch.subtract(change[0]);
+            }
+            stored.setSketch(sketch.toBytes());
+            stored.setSampleCount(sketch.count());
+        });
+        sketchRepository.flush();
+    }
+
+    private static void collect(Map<SketchRow, DurationSketch[]> moves, List<CaseDurationKey> durations, int side) {
+        for (CaseDurationKey duration : durations) {
+            for (CaseDurationMetric metric : CaseDurationMetric.values()) {
+                Long minutes = metric == CaseDurationMetric.ASSIGNMENT ?
+                        duration.assignmentMinutes() : duration.resolutionMinutes();
+                if (minutes != null) {
+                    SketchRow row = new SketchRow(duration.day(), duration.specialization(),
+                            duration.urgencyLevel(), metric);
+                    DurationSketch[] change = moves.computeIfAbsent(row, k -> new DurationSketch[2]);
+                    if (change[side] == null) {
+                        change[side] = new DurationSketch();
+                    }
+                    change[side].add(minutes);
+                }
+            }
+        }
+    }
+
+    public boolean hasSketches() {
+        return sketchRepository.count() > 0;
+    }
+
+    /**
+     * Merged sketches of the cases submitted on the days in [fromDay, toDay]
+     */
+    CaseDurationSketches load(LocalDate fromDay, LocalDate toDay) {
+        CaseDurationSketches sketches = new CaseDurationSketches();
+        if (toDay.isBefore(fromDay)) {
+            return sketches;
+        }
+        for (Object[] row : sketchRepository.findSketches(fromDay, toDay)) {
+            sketches.merge((CaseDurationMetric) row[1], (UrgencyLevel) row[0], DurationSketch.fromBytes((byte[]) row[2]));
+        }
+        return sketches;
+    }
+
+    private int save(DaySketches day) {
+        if (day == null || day.sketches.isEmpty()) {
+            return 0;
+        }
+        List<CaseDurationSketch> entities = new ArrayList<>(day.sketches.size());
+        day.sketches.forEach((key, sketch) -> entities.add(CaseDurationSketch.builder()
+                .sketchDate(day.date)
+                .specialization(key.specialization())
+                .urgencyLevel(key.urgencyLevel())
+                .metric(key.metric())
+                .sampleCount(sketch.count())
+                .sketch(sketch.toBytes())
+                .build()));
+        sketchRepository.saveAll(entities);
+        // Write the day out and drop it from the persistence context before the next one
+        sketchRepository.flush();
+        entityManager.clear();
+        return entities.size();
+    }
+
+    private record SketchRow(LocalDate day, String specialization, UrgencyLevel urgencyLevel,
+                             CaseDurationMetric metric) {
+    }
+
+    private record SketchKey(String specialization, UrgencyLevel urgencyLevel, CaseDurationMetric metric) {
+    }
+
+    /**
+     * The sketches of one submission day while it is being rebuilt
+     */
+    private static final class DaySketches {
+        private final LocalDate date;
+        private final Map<SketchKey, DurationSketch> sketches = new HashMap<>();
+
+        private DaySketches(LocalDate date) {
+            this.date = date;
+        }
+
+        private void add(CaseAnalyticsRowDto row) {
+            if (row.getUrgencyLevel() == null) {
+                return;
+            }
+            String specialization = row.getRequiredSpecialization() != null ?
+                    row.getRequiredSpecialization() : "GENERAL";
+            for (CaseDurationMetric metric : CaseDurationMetric.values()) {
+                Long minutes = CaseDurationSketches.minutesOf(metric, row);
+                if (minutes != null) {
+                    sketches.computeIfAbsent(new SketchKey(specialization, row.getUrgencyLevel(), metric),
+                            k -> new DurationSketch()).add(minutes);
+                }
+            }
+        }
+    }
+}
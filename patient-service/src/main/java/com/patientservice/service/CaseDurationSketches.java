@@ -0,0 +1,79 @@
+package com.patientservice.service;
+
+import com.commonlibrary.entity.CaseStatus;
+import com.commonlibrary.entity.UrgencyLevel;
+import com.patientservice.dto.CaseAnalyticsRowDto;
+import com.patientservice.entity.CaseDurationMetric;
+import com.patientservice.util.DurationSketch;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One DurationSketch per (duration metric, urgency), merged on demand into coarser views
+ */
+final class CaseDurationSketches {
+
+    private final Map<CaseDurationMetric, Map<UrgencyLevel, DurationSketch>> sketches =
+            new EnumMap<>(CaseDurationMetric.class);
+
+    /**
+     * Minutes of the metric for the case row, null when the case has not got that far
+     */
+    static Long minutesOf(CaseDurationMetric metric, CaseAnalyticsRowDto row) {
+        LocalDateTime end = switch (metric) {
+            case ASSIGNMENT -> row.getFirstAssignedAt();
+            case RESOLUTION -> row.getStatus() == CaseStatus.CLOSED ? row.getClosedAt() : null;
+        };
+        return end != null && row.getSubmittedAt() != null ?
+                ChronoUnit.MINUTES.between(row.getSubmittedAt(), end) : null;
+    }
+
+    /**
+     * Add every duration the case row has
+     */
+    void add(CaseAnalyticsRowDto row) {
+        if (row.getUrgencyLevel() == null) {
+            return;
+        }
+        for (CaseDurationMetric metric : CaseDurationMetric.values()) {
+            Long minutes = minutesOf(metric, row);
+            if (minutes != null) {
+                sketch(metric, row.getUrgencyLevel()).add(minutes);
+            }
+        }
+    }
+
+    void merge(CaseDurationMetric metric, UrgencyLevel urgency, DurationSketch sketch) {
+        sketch(metric, urgency).merge(sketch);
+    }
+
+    void merge(CaseDurationSketches other) {
+        other.sketches.forEach((metric, byUrgency) ->
+                byUrgency.forEach((urgency, sketch) -> merge(metric, urgency, sketch)));
+    }
+
+    /**
+     * Sketch of the metric for one urgency (empty when there were no values)
+     */
+    DurationSketch of(CaseDurationMetric metric, UrgencyLevel urgency) {
+        DurationSketch sketch = sketches.getOrDefault(metric, Map.of()).get(urgency);
+        return sketch != null ? sketch : new DurationSketch();
+    }
+
+    /**
+     * Sketch of the metric across all urgencies
+     */
+    DurationSketch of(CaseDurationMetric metric) {
+        DurationSketch merged = new DurationSketch();
+        sketches.getOrDefault(metric, Map.of()).values().forEach(merged::merge);
+        return merged;
+    }
+
+    private DurationSketch sketch(CaseDurationMetric metric, UrgencyLevel urgency) {
+        return sketches.computeIfAbsent(metric, m -> new EnumMap<>(UrgencyLevel.class))
+                .computeIfAbsent(urgency, u -> new DurationSketch());
+    }
+}
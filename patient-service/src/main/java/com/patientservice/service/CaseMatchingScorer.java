@@ -0,0 +1,23 @@
+package com.patientservice.service;
+
+import com.patientservice.entity.Case;
+
+/**
+ * Scoring function of the case-assignment matcher.
+ *
+ * Implementations must be stateless and free of I/O: everything they need about the case's
+ * diseases comes from the pre-resolved disease profile, and the weights are passed in so a
+ * reload never changes them halfway through a case. Declare another bean as @Primary to
+ * replace the default implementation.
+ */
+public interface CaseMatchingScorer {
+
+    /**
+     * Fill every row of {@code scores} (component scores, bounded total and workload)
+     * for the given case
+     */
+    void score(Case medicalCase,
+               MedicalKnowledgeIndex.DiseaseExpertiseProfile diseaseProfile,
+               MatchingWeights weights,
+               CandidateScores scores);
+}
@@ -0,0 +1,269 @@
+package com.patientservice.service;
+
+import com.commonlibrary.dto.DoctorCapacityDto;
+import com.commonlibrary.entity.UrgencyLevel;
+import com.patientservice.entity.Case;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Default workload-aware matching score.
+ *
+ * Everything that depends only on the case (urgency, required specializations, symptoms) is
+ * resolved once per case; the per-doctor loop reads each doctor field once, does no allocation,
+ * and applies the workload penalty and urgency boost as min/max arithmetic on the weights.
+ * Every doctor field may be missing: a component that cannot be assessed falls back to a neutral
+ * or lower score instead of failing the match of the whole case.
+ */
+@Component
+public class DefaultCaseMatchingScorer implements CaseMatchingScorer {
+
+    @Override
+    public void score(Case medicalCase,
+                      MedicalKnowledgeIndex.DiseaseExpertiseProfile diseaseProfile,
+                      MatchingWeights weights,
+                      CandidateScores scores) {
+
+        boolean emergencyCase = medicalCase.getUrgencyLevel() == UrgencyLevel.CRITICAL ||
+                medicalCase.getUrgencyLevel() == UrgencyLevel.HIGH;
+        String requiredSpecialization = medicalCase.getRequiredSpecialization();
+        Set<String> secondarySpecializations = medicalCase.getSecondarySpecializations();
+        boolean hasSymptoms = medicalCase.getSymptomCodes() != null && !medicalCase.getSymptomCodes().isEmpty();
+
+        for (int i = 0; i < scores.size(); i++) {
+            DoctorCapacityDto doctor = scores.doctor(i);
+            String primarySpecialization = doctor.getPrimarySpecialization();
+            Set<String> subSpecializations = doctor.getSubSpecializations();
+            boolean emergencyMode = Boolean.TRUE.equals(doctor.getEmergencyMode());
+            Double reportedWorkload = doctor.getWorkloadPercentage();
+            double workload = reportedWorkload != null ? reportedWorkload : 0.0;
+
+            double specialization = specializationScore(requiredSpecialization, secondarySpecializations,
+                    primarySpecialization, subSpecializations);
+            double availability = workloadAvailabilityScore(doctor, reportedWorkload, emergencyMode && emergencyCase);
+            double disease = diseaseExpertiseScore(diseaseProfile, primarySpecialization, subSpecializations);
+            double symptom = symptomExpertiseScore(hasSymptoms, requiredSpecialization, secondarySpecializations,
+                    primarySpecialization, subSpecializations);
+            double experience = experienceScore(doctor);
+            double performance = performanceScore(doctor);
+            double preference = casePreferenceScore(doctor, emergencyMode && emergencyCase);
+
+            scores.setComponent(i, CandidateScores.SPECIALIZATION, specialization);
+            scores.setComponent(i, CandidateScores.WORKLOAD_AVAILABILITY, availability);
+            scores.setComponent(i, CandidateScores.DISEASE_EXPERTISE, disease);
+            scores.setComponent(i, CandidateScores.SYMPTOM_EXPERTISE, symptom);
+            scores.setComponent(i, CandidateScores.EXPERIENCE, experience);
+            scores.setComponent(i, CandidateScores.PERFORMANCE, performance);
+            scores.setComponent(i, CandidateScores.CASE_PREFERENCE, preference);
+
+            double total = specialization * weights.getPrimarySpecialization()
+                    + availability * weights.getWorkloadAvailability()
+                    + disease * weights.getDiseaseExpertise()
+                    + symptom * weights.getSymptomExpertise()
+                    + experience * weights.getExperience()
+                    + performance * weights.getPerformance()
+                    + preference * weights.getCasePreference();
+
+            // Workload penalty: 1.0 up to the threshold, then falls off, never below the minimum factor
+            double overload = Math.max(0.0, workload - weights.getWorkloadPenaltyThreshold());
+            total *= Math.max(weights.getMinimumWorkloadPenaltyFactor(), 1.0 - overload / 100.0);
+
+            // Urgency boost for emergency cases
+            if (emergencyCase) {
+                if (emergencyMode) {
+                    total *= weights.getEmergencyModeBoost();
+                } else if (workload < weights.getLowWorkloadBoostThreshold()) {
+                    total *= weights.getLowWorkloadBoost();
+                }
+            }
+
+            scores.setTotal(i, Math.max(0.0, Math.min(100.0, total)));
+            scores.setWorkload(i, workload);
+        }
+    }
+
+    /**
+     * Primary specialization exact match plus up to 20 points for matching secondary specializations
+     */
+    private double specializationScore(String requiredSpecialization, Set<String> secondarySpecializations,
+                                       String primarySpecialization, Set<String> subSpecializations) {
+        double score = requiredSpecialization != null && requiredSpecialization.equals(primarySpecialization)
+                ? 80.0 : 0.0;
+
+        if (secondarySpecializations != null && subSpecializations != null) {
+            int matchingSecondarySpecs = 0;
+            for (String spec : secondarySpecializations) {
+                if (subSpecializations.contains(spec)) {
+                    matchingSecondarySpecs++;
+                }
+            }
+            score += Math.min(20.0, matchingSecondarySpecs * 10.0);
+        }
+
+        return Math.min(100.0, score);
+    }
+
+    /**
+     * Workload and availability (major factor)
+     */
+    private double workloadAvailabilityScore(DoctorCapacityDto doctor, Double workload, boolean emergencyBonus) {
+        if (Boolean.FALSE.equals(doctor.getIsAvailable())) {
+            return 0.0; // Not available = zero score
+        }
+        if (workload == null) {
+            return 50.0; // Neutral if the workload is unknown
+        }
+        double score = 20.0; // Base score for being available
+
+        // Workload-based scoring (inverse relationship)
+        if (workload <= 30.0) {
+            score += 50.0;
+        } else if (workload <= 50.0) {
+            score += 40.0;
+        } else if (workload <= 70.0) {
+            score += 25.0;
+        } else if (workload <= 90.0) {
+            score += 10.0;
+        }
+
+        // Active cases capacity
+        double caseCapacityRatio = ratio(doctor.getActiveCases(), doctor.getMaxActiveCases());
+        if (caseCapacityRatio <= 0.5) {
+            score += 20.0;
+        } else if (caseCapacityRatio <= 0.7) {
+            score += 15.0;
+        } else if (caseCapacityRatio <= 0.9) {
+            score += 5.0;
+        }
+
+        // Daily appointment capacity
+        double appointmentCapacityRatio = ratio(doctor.getTodayAppointments(), doctor.getMaxDailyAppointments());
+        if (appointmentCapacityRatio <= 0.5) {
+            score += 10.0;
+        } else if (appointmentCapacityRatio <= 0.8) {
+            score += 5.0;
+        }
+
+        // Emergency mode bonus (can handle overload)
+        if (emergencyBonus) {
+            score += 15.0;
+        }
+
+        return Math.min(100.0, score);
+    }
+
+    /**
+     * used / limit, NaN (no capacity points) when either is missing or the limit is not positive
+     */
+    private static double ratio(Integer used, Integer limit) {
+        if (used == null || limit == null || limit <= 0) {
+            return Double.NaN;
+        }
+        return (double) used / limit;
+    }
+
+    /**
+     * Disease expertise against the case's disease profile from the local knowledge index
+     */
+    private double diseaseExpertiseScore(MedicalKnowledgeIndex.DiseaseExpertiseProfile diseaseProfile,
+                                         String primarySpecialization, Set<String> subSpecializations) {
+        if (diseaseProfile.primaryDiseaseMatches(primarySpecialization)) {
+            return 85.0; // Strong disease expertise match
+        }
+        if (diseaseProfile.primaryDiseaseMatchesAny(subSpecializations)) {
+            return 70.0; // Good subspecialization match
+        }
+        if (diseaseProfile.secondaryDiseaseMatches(primarySpecialization)) {
+            return 60.0; // Moderate disease expertise for secondary diseases
+        }
+        return 40.0; // Basic expertise assumed if specialization matches case requirement
+    }
+
+    /**
+     * Symptom expertise: a specialization match is taken as symptom expertise
+     */
+    private double symptomExpertiseScore(boolean hasSymptoms, String requiredSpecialization,
+                                         Set<String> secondarySpecializations,
+                                         String primarySpecialization, Set<String> subSpecializations) {
+        if (!hasSymptoms) {
+            return 50.0; // Neutral if no symptoms specified
+        }
+        if (primarySpecialization != null && primarySpecialization.equals(requiredSpecialization)) {
+            return 75.0; // Good symptom-specialization match
+        }
+        if (subSpecializations != null && secondarySpecializations != null) {
+            for (String subSpec : subSpecializations) {
+                if (secondarySpecializations.contains(subSpec)) {
+                    return 65.0; // Moderate symptom expertise
+                }
+            }
+        }
+        return 45.0; // Limited symptom expertise
+    }
+
+    /**
+     * Consultation volume plus rating bonus
+     */
+    private double experienceScore(DoctorCapacityDto doctor) {
+        int consultations = doctor.getConsultationCount() != null ? doctor.getConsultationCount() : 0;
+        double score;
+        if (consultations >= 1000) {
+            score = 40.0;
+        } else if (consultations >= 500) {
+            score = 30.0;
+        } else if (consultations >= 100) {
+            score = 20.0;
+        } else if (consultations >= 50) {
+            score = 15.0;
+        } else {
+            score = 10.0;
+        }
+
+        Double rating = doctor.getAverageRating();
+        if (rating == null) {
+            score += 15.0; // No rating yet (neutral)
+        } else if (rating >= 4.5) {
+            score += 30.0;
+        } else if (rating >= 4.0) {
+            score += 20.0;
+        } else if (rating >= 3.5) {
+            score += 10.0;
+        }
+
+        return Math.min(100.0, score);
+    }
+
+    /**
+     * Rating, volume and completion rate
+     */
+    private double performanceScore(DoctorCapacityDto doctor) {
+        Double rating = doctor.getAverageRating();
+        double score = rating != null ? rating * 20.0 : 50.0; // Scale 0-5 rating to 0-100
+
+        if (doctor.getConsultationCount() != null && doctor.getConsultationCount() > 100) {
+            score += 10.0; // Volume bonus
+        }
+
+        Double completionRate = doctor.getCompletionRate();
+        if (completionRate != null) {
+            score += (completionRate - 80.0) * 0.5;
+        }
+
+        return Math.min(100.0, Math.max(0.0, score));
+    }
+
+    /**
+     * Preference for emergency cases and experienced doctors
+     */
+    private double casePreferenceScore(DoctorCapacityDto doctor, boolean emergencyPreference) {
+        double score = 50.0; // Neutral base
+        if (emergencyPreference) {
+            score += 25.0;
+        }
+        if (doctor.getYearsOfExperience() != null && doctor.getYearsOfExperience() > 5) {
+            score += 15.0;
+        }
+        return Math.min(100.0, score);
+    }
+}
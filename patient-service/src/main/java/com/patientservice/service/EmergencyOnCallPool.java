@@ -0,0 +1,189 @@
+package com.patientservice.service;
+
+import com.commonlibrary.dto.DoctorCapacityDto;
+import com.patientservice.config.CaseAssignmentSchedulerConfig;
+import com.patientservice.feign.DoctorServiceClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Local pool of doctors who can take a CRITICAL case right now, per primary specialization.
+ *
+ * Kept current from doctor-service capacity events (workload and emergency-mode changes) and
+ * re-warmed from /api/doctors/emergency-available periodically, so the emergency fast path in
+ * SmartCaseAssignmentService picks doctors with one in-memory lookup. Emergency-mode doctors
+ * come first, then the least loaded.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmergencyOnCallPool {
+
+    private static final Comparator<OnCallDoctor> ON_CALL_ORDER = Comparator
+            .comparing((OnCallDoctor onCall) -> !onCall.emergencyMode())
+            .thenComparingDouble(OnCallDoctor::workloadPercentage)
+            .thenComparingLong(OnCallDoctor::doctorId);
+
+    private final DoctorServiceClient doctorServiceClient;
+    private final CaseAssignmentSchedulerConfig config;
+
+    private final Map<Long, OnCallDoctor> byDoctor = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListSet<OnCallDoctor>> bySpecialization = new ConcurrentHashMap<>();
+
+    /**
+     * Up to limit on-call doctors for the specialization, best first, skipping excluded doctors
+     */
+    public List<DoctorCapacityDto> findOnCallDoctors(String specialization, int limit, Set<Long> excludedDoctorIds) {
+        NavigableSet<OnCallDoctor> candidates = specialization != null ? bySpecialization.get(specialization) : null;
+        if (candidates == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<DoctorCapacityDto> doctors = new ArrayList<>(limit);
+        for (OnCallDoctor onCall : candidates) {
+            if (doctors.size() >= limit) {
+                break;
+            }
+            if (excludedDoctorIds == null || !excludedDoctorIds.contains(onCall.doctorId())) {
+                doctors.add(onCall.capacity());
+            }
+        }
+        return doctors;
+    }
+
+    /**
+     * Apply a doctor's latest capacity (from a doctor-service capacity event or a warm-up)
+     */
+    public void apply(DoctorCapacityDto capacity, boolean verified) {
+        if (capacity == null || capacity.getDoctorId() == null) {
+            return;
+        }
+        byDoctor.compute(capacity.getDoctorId(), (doctorId, previous) -> {
+            if (previous != null) {
+                removeFromSpecialization(previous);
+            }
+            if (!verified || !canTakeEmergencyCase(capacity)) {
+                return null;
+            }
+            OnCallDoctor onCall = new OnCallDoctor(capacity);
+            bySpecialization.computeIfAbsent(onCall.specialization(),
+                    specialization -> new ConcurrentSkipListSet<>(ON_CALL_ORDER)).add(onCall);
+            return onCall;
+        });
+    }
+
+    /**
+     * Count a case just offered to the doctor until doctor-service publishes the new ledger,
+     * so back-to-back critical cases do not all land on the same doctor
+     */
+    public void recordOffer(Long doctorId) {
+        OnCallDoctor onCall = byDoctor.get(doctorId);
+        if (onCall == null) {
+            return;
+        }
+        DoctorCapacityDto updated = DoctorCapacityDto.builder().build();
+        BeanUtils.copyProperties(onCall.capacity(), updated);
+        int activeCases = updated.getActiveCases() != null ? updated.getActiveCases() + 1 : 1;
+        updated.setActiveCases(activeCases);
+        if (updated.getMaxActiveCases() != null && updated.getMaxActiveCases() > 0 &&
+                updated.getWorkloadPercentage() != null) {
+            // Case load is half of the workload percentage in doctor-service
+            updated.setWorkloadPercentage(Math.min(100.0,
+                    updated.getWorkloadPercentage() + 50.0 / updated.getMaxActiveCases()));
+        }
+        apply(updated, true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        warmUp();
+    }
+
+    /**
+     * Reload the whole pool from doctor-service, correcting anything missed between events
+     */
+    @Scheduled(initialDelayString = "${case.assignment.emergency-pool-refresh-interval-seconds:300}000",
+            fixedDelayString = "${case.assignment.emergency-pool-refresh-interval-seconds:300}000")
+    public void warmUp() {
+        if (!config.getEmergencyFastPathEnabled()) {
+            return;
+        }
+        try {
+            var response = doctorServiceClient.getEmergencyAvailableDoctors(null, config.getEmergencyPoolWarmupLimit());
+            if (response == null || response.getBody() == null || response.getBody().getData() == null) {
+                return;
+            }
+            List<DoctorCapacityDto> doctors = response.getBody().getData();
+            Set<Long> present = new HashSet<>();
+            for (DoctorCapacityDto doctor : doctors) {
+                apply(doctor, true);
+                present.add(doctor.getDoctorId());
+            }
+            // Doctors no longer returned have left the on-call set
+            for (Long doctorId : new ArrayList<>(byDoctor.keySet())) {
+                if (!present.contains(doctorId)) {
+                    byDoctor.computeIfPresent(doctorId, (id, previous) -> {
+                        removeFromSpecialization(previous);
+                        return null;
+                    });
+                }
+            }
+            log.info("Emergency on-call pool warmed up with {} doctors in {} specializations",
+                    byDoctor.size(), bySpecialization.size());
+        } catch (Exception e) {
+            log.error("Failed to warm up emergency on-call pool: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", config.getEmergencyFastPathEnabled());
+        status.put("onCallDoctors", byDoctor.size());
+        Map<String, Integer> perSpecialization = new TreeMap<>();
+        bySpecialization.forEach((specialization, doctors) -> perSpecialization.put(specialization, doctors.size()));
+        status.put("onCallDoctorsBySpecialization", perSpecialization);
+        return status;
+    }
+
+    private boolean canTakeEmergencyCase(DoctorCapacityDto capacity) {
+        if (!Boolean.TRUE.equals(capacity.getIsAvailable()) || capacity.getPrimarySpecialization() == null) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(capacity.getEmergencyMode())) {
+            return true;
+        }
+        return capacity.getActiveCases() != null && capacity.getMaxActiveCases() != null &&
+                capacity.getActiveCases() < capacity.getMaxActiveCases() &&
+                capacity.getTodayAppointments() != null && capacity.getMaxDailyAppointments() != null &&
+                capacity.getTodayAppointments() < capacity.getMaxDailyAppointments();
+    }
+
+    private void removeFromSpecialization(OnCallDoctor onCall) {
+        NavigableSet<OnCallDoctor> doctors = bySpecialization.get(onCall.specialization());
+        if (doctors != null) {
+            doctors.remove(onCall);
+        }
+    }
+
+    /**
+     * Pool entry; sort keys are copied out of the DTO so later changes to it cannot reorder the set
+     */
+    private record OnCallDoctor(long doctorId, String specialization, boolean emergencyMode,
+                                double workloadPercentage, DoctorCapacityDto capacity) {
+        private OnCallDoctor(DoctorCapacityDto capacity) {
+            this(capacity.getDoctorId(), capacity.getPrimarySpecialization(),
+                    Boolean.TRUE.equals(capacity.getEmergencyMode()),
+                    capacity.getWorkloadPercentage() != null ? capacity.getWorkloadPercentage() : 0.0,
+                    capacity);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.patientservice.service;
+
+import lombok.Data;
+
+/**
+ * Weights and penalty/boost parameters of the matching score.
+ * Bound from case.assignment.scoring.weights.* (and from the optional external weights file).
+ * An instance is never modified once it has been installed in {@link MatchingWeightsProvider}.
+ */
+@Data
+public class MatchingWeights {
+
+    // Component weights (should add up to 1.0)
+    private double primarySpecialization = 0.30;
+    private double workloadAvailability = 0.25;
+    private double diseaseExpertise = 0.20;
+    private double symptomExpertise = 0.10;
+    private double experience = 0.08;
+    private double performance = 0.05;
+    private double casePreference = 0.02;
+
+    // Penalty for heavily loaded doctors
+    private double workloadPenaltyThreshold = 80.0;
+    private double minimumWorkloadPenaltyFactor = 0.3;
+
+    // Boosts for emergency (HIGH / CRITICAL) cases
+    private double emergencyModeBoost = 1.2;
+    private double lowWorkloadBoost = 1.1;
+    private double lowWorkloadBoostThreshold = 60.0;
+
+    public double componentWeightSum() {
+        return primarySpecialization + workloadAvailability + diseaseExpertise + symptomExpertise
+                + experience + performance + casePreference;
+    }
+}
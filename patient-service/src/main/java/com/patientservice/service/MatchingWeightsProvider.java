@@ -0,0 +1,175 @@
+package com.patientservice.service;
+
+import com.patientservice.config.MatchingScoringConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Holds the matching weights currently used by the case-assignment matcher.
+ *
+ * Starts from case.assignment.scoring.weights.* and, if case.assignment.scoring.weights-file
+ * is set, overlays that file and re-reads it whenever it changes. A file with invalid values
+ * is rejected and the previous weights stay active.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MatchingWeightsProvider {
+
+    private static final String WEIGHTS_PREFIX = "case.assignment.scoring.weights";
+
+    private final MatchingScoringConfig scoringConfig;
+
+    private volatile MatchingWeights weights = new MatchingWeights();
+    private volatile long version;
+    private volatile LocalDateTime loadedAt;
+    private volatile String source;
+    private long weightsFileLastModified = -1;
+
+    @PostConstruct
+    public void initialize() {
+        install(copyOf(scoringConfig.getWeights()), "application properties");
+        reloadIfChanged();
+    }
+
+    public MatchingWeights current() {
+        return weights;
+    }
+
+    /**
+     * Increases every time new weights are installed
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Re-read the weights file if it was modified since the last load
+     *
+     * @return true if new weights were installed
+     */
+    @Scheduled(initialDelayString = "${case.assignment.scoring.weights-reload-interval-ms:30000}",
+            fixedDelayString = "${case.assignment.scoring.weights-reload-interval-ms:30000}")
+    public synchronized boolean reloadIfChanged() {
+        Path file = getWeightsFile();
+        if (file == null) {
+            return false;
+        }
+        try {
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            if (lastModified == weightsFileLastModified) {
+                return false;
+            }
+            weightsFileLastModified = lastModified;
+            return loadWeightsFile(file);
+        } catch (Exception e) {
+            log.error("Failed to check matching weights file {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Force a reload of the weights file (or of the startup weights if no file is configured)
+     */
+    public synchronized boolean reload() {
+        Path file = getWeightsFile();
+        if (file == null) {
+            return install(copyOf(scoringConfig.getWeights()), "application properties");
+        }
+        return loadWeightsFile(file);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("weights", weights);
+        status.put("componentWeightSum", weights.componentWeightSum());
+        status.put("version", version);
+        status.put("loadedAt", loadedAt);
+        status.put("source", source);
+        return status;
+    }
+
+    private boolean loadWeightsFile(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            Properties properties = new Properties();
+            properties.load(in);
+
+            // Keys missing from the file keep their application-properties value
+            MatchingWeights loaded = new Binder(new MapConfigurationPropertySource(properties))
+                    .bind(WEIGHTS_PREFIX, Bindable.ofInstance(copyOf(scoringConfig.getWeights())))
+                    .orElseGet(() -> copyOf(scoringConfig.getWeights()));
+            return install(loaded, file.toString());
+        } catch (Exception e) {
+            log.error("Failed to load matching weights from {}, keeping version {}: {}",
+                    file, version, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean install(MatchingWeights candidate, String from) {
+        String problem = validate(candidate);
+        if (problem != null) {
+            log.error("Rejected matching weights from {}: {}. Keeping version {}", from, problem, version);
+            return false;
+        }
+        if (Math.abs(candidate.componentWeightSum() - 1.0) > 0.001) {
+            log.warn("Matching component weights from {} add up to {} instead of 1.0",
+                    from, candidate.componentWeightSum());
+        }
+
+        weights = candidate;
+        version++;
+        loadedAt = LocalDateTime.now();
+        source = from;
+        log.info("Installed matching weights version {} from {}: {}", version, from, candidate);
+        return true;
+    }
+
+    private String validate(MatchingWeights candidate) {
+        double[] componentWeights = {candidate.getPrimarySpecialization(), candidate.getWorkloadAvailability(),
+                candidate.getDiseaseExpertise(), candidate.getSymptomExpertise(), candidate.getExperience(),
+                candidate.getPerformance(), candidate.getCasePreference()};
+        for (double weight : componentWeights) {
+            if (weight < 0.0 || Double.isNaN(weight)) {
+                return "component weights must not be negative";
+            }
+        }
+        if (candidate.getMinimumWorkloadPenaltyFactor() < 0.0 || candidate.getMinimumWorkloadPenaltyFactor() > 1.0) {
+            return "minimum-workload-penalty-factor must be between 0 and 1";
+        }
+        if (candidate.getEmergencyModeBoost() <= 0.0 || candidate.getLowWorkloadBoost() <= 0.0) {
+            return "boosts must be positive";
+        }
+        return null;
+    }
+
+    private Path getWeightsFile() {
+        String weightsFile = scoringConfig.getWeightsFile();
+        if (weightsFile == null || weightsFile.isBlank()) {
+            return null;
+        }
+        Path file = Path.of(weightsFile);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private static MatchingWeights copyOf(MatchingWeights source) {
+        MatchingWeights copy = new MatchingWeights();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+}
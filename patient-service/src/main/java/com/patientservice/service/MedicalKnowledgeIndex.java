@@ -0,0 +1,279 @@
+package com.patientservice.service;
+
+import com.commonlibrary.dto.DiseaseDto;
+import com.commonlibrary.dto.SymptomDto;
+import com.patientservice.entity.Case;
+import com.patientservice.feign.MedicalConfigurationMainService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * In-process, versioned snapshot of the config-service Disease / Symptom / Specialization graph.
+ *
+ * Specialization names are interned to dense integer IDs and every disease (and symptom) keeps
+ * its specializations as a BitSet, so the case-assignment scorer can test a doctor against a case
+ * with a couple of bit lookups instead of one Feign call per doctor per disease code.
+ *
+ * The snapshot is immutable and swapped atomically on refresh, which happens on a fixed delay
+ * (config-service publishes no change events, so edits show up within one refresh interval).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MedicalKnowledgeIndex {
+
+    private final MedicalConfigurationMainService medicalConfigurationMainService;
+    private final MedicalConfigurationService configService;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Periodic refresh, the only way config-service changes reach the index
+     */
+    @Scheduled(initialDelayString = "${case.assignment.knowledge-index.initial-delay-ms:30000}",
+            fixedDelayString = "${case.assignment.knowledge-index.refresh-interval-ms:1800000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Rebuild the snapshot from config-service. On failure the previous snapshot is kept.
+     *
+     * @return true if a new snapshot was installed
+     */
+    public synchronized boolean refresh() {
+        try {
+            install(medicalConfigurationMainService.getAllDiseases(), medicalConfigurationMainService.getAllSymptoms());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to refresh medical knowledge index, keeping version {}: {}",
+                    snapshot.version, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Build and install a snapshot from the given diseases and symptoms (inactive entries are skipped).
+     * Used by refresh() and by offline tooling that has no config-service to call.
+     */
+    public synchronized void install(Collection<DiseaseDto> diseases, Collection<SymptomDto> symptoms) {
+        Snapshot.Builder builder = new Snapshot.Builder(snapshot.version + 1);
+        if (diseases != null) {
+            for (DiseaseDto disease : diseases) {
+                if (disease.getIcdCode() == null || Boolean.FALSE.equals(disease.getIsActive())) {
+                    continue;
+                }
+                builder.addDisease(disease.getIcdCode(), disease.getRequiredSpecializations());
+            }
+        }
+        if (symptoms != null) {
+            for (SymptomDto symptom : symptoms) {
+                if (symptom.getCode() == null || Boolean.FALSE.equals(symptom.getIsActive())) {
+                    continue;
+                }
+                builder.addSymptom(symptom.getCode(), symptom.getRelevantSpecializations());
+            }
+        }
+
+        Snapshot fresh = builder.build();
+        snapshot = fresh;
+        log.info("Medical knowledge index refreshed: version {}, {} diseases, {} symptoms, {} specializations",
+                fresh.version, fresh.diseaseSpecializations.size(),
+                fresh.symptomSpecializations.size(), fresh.specializationIds.size());
+    }
+
+    public boolean isLoaded() {
+        return snapshot.version > 0;
+    }
+
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return snapshot.loadedAt;
+    }
+
+    /**
+     * Build the disease-expertise profile of a case once, so every candidate doctor can be
+     * scored against it without any network I/O.
+     * If the index has not been loaded yet, the profile is built from config-service for this
+     * case only (one call per disease code, not one per doctor).
+     */
+    public DiseaseExpertiseProfile profileFor(Case medicalCase) {
+        Snapshot current = snapshot;
+        if (current.version == 0) {
+            current = loadCaseOnly(medicalCase);
+        }
+        return current.profileFor(medicalCase.getPrimaryDiseaseCode(), medicalCase.getSecondaryDiseaseCodes());
+    }
+
+    /**
+     * Specializations relevant to any of the given symptoms
+     */
+    public Set<String> specializationsForSymptoms(Collection<String> symptomCodes) {
+        Snapshot current = snapshot;
+        BitSet union = new BitSet();
+        if (symptomCodes != null) {
+            for (String code : symptomCodes) {
+                BitSet specs = current.symptomSpecializations.get(code);
+                if (specs != null) {
+                    union.or(specs);
+                }
+            }
+        }
+        Set<String> result = new HashSet<>();
+        union.stream().forEach(id -> result.add(current.specializationNames.get(id)));
+        return result;
+    }
+
+    private Snapshot loadCaseOnly(Case medicalCase) {
+        Snapshot.Builder builder = new Snapshot.Builder(0);
+        addRemoteDisease(builder, medicalCase.getPrimaryDiseaseCode());
+        if (medicalCase.getSecondaryDiseaseCodes() != null) {
+            for (String diseaseCode : medicalCase.getSecondaryDiseaseCodes()) {
+                addRemoteDisease(builder, diseaseCode);
+            }
+        }
+        return builder.build();
+    }
+
+    private void addRemoteDisease(Snapshot.Builder builder, String diseaseCode) {
+        if (diseaseCode == null) {
+            return;
+        }
+        try {
+            builder.addDisease(diseaseCode, configService.getSpecializationsForDisease(diseaseCode));
+        } catch (Exception e) {
+            log.debug("Could not get specializations for disease: {}", diseaseCode);
+        }
+    }
+
+    /**
+     * Per-case view over the snapshot used by the matcher
+     */
+    public static final class DiseaseExpertiseProfile {
+        private final Map<String, Integer> specializationIds;
+        private final BitSet primaryDiseaseSpecializations;
+        private final BitSet secondaryDiseaseSpecializations;
+
+        private DiseaseExpertiseProfile(Map<String, Integer> specializationIds,
+                                        BitSet primaryDiseaseSpecializations,
+                                        BitSet secondaryDiseaseSpecializations) {
+            this.specializationIds = specializationIds;
+            this.primaryDiseaseSpecializations = primaryDiseaseSpecializations;
+            this.secondaryDiseaseSpecializations = secondaryDiseaseSpecializations;
+        }
+
+        public boolean primaryDiseaseMatches(String specialization) {
+            return matches(primaryDiseaseSpecializations, specialization);
+        }
+
+        public boolean primaryDiseaseMatchesAny(Collection<String> specializations) {
+            if (specializations == null) {
+                return false;
+            }
+            for (String specialization : specializations) {
+                if (matches(primaryDiseaseSpecializations, specialization)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean secondaryDiseaseMatches(String specialization) {
+            return matches(secondaryDiseaseSpecializations, specialization);
+        }
+
+        private boolean matches(BitSet specs, String specialization) {
+            if (specialization == null) {
+                return false;
+            }
+            Integer id = specializationIds.get(specialization);
+            return id != null && specs.get(id);
+        }
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Builder(0).build();
+
+        final long version;
+        final LocalDateTime loadedAt;
+        final Map<String, Integer> specializationIds;
+        final List<String> specializationNames;
+        final Map<String, BitSet> diseaseSpecializations;
+        final Map<String, BitSet> symptomSpecializations;
+
+        private Snapshot(Builder builder) {
+            this.version = builder.version;
+            this.loadedAt = LocalDateTime.now();
+            this.specializationIds = Collections.unmodifiableMap(builder.specializationIds);
+            this.specializationNames = Collections.unmodifiableList(builder.specializationNames);
+            this.diseaseSpecializations = Collections.unmodifiableMap(builder.diseaseSpecializations);
+            this.symptomSpecializations = Collections.unmodifiableMap(builder.symptomSpecializations);
+        }
+
+        DiseaseExpertiseProfile profileFor(String primaryDiseaseCode, Collection<String> secondaryDiseaseCodes) {
+            BitSet primary = primaryDiseaseCode != null ? diseaseSpecializations.get(primaryDiseaseCode) : null;
+            BitSet secondary = new BitSet();
+            if (secondaryDiseaseCodes != null) {
+                for (String diseaseCode : secondaryDiseaseCodes) {
+                    BitSet specs = diseaseSpecializations.get(diseaseCode);
+                    if (specs != null) {
+                        secondary.or(specs);
+                    }
+                }
+            }
+            return new DiseaseExpertiseProfile(specializationIds,
+                    primary != null ? primary : new BitSet(), secondary);
+        }
+
+        private static final class Builder {
+            private final long version;
+            private final Map<String, Integer> specializationIds = new HashMap<>();
+            private final List<String> specializationNames = new ArrayList<>();
+            private final Map<String, BitSet> diseaseSpecializations = new HashMap<>();
+            private final Map<String, BitSet> symptomSpecializations = new HashMap<>();
+
+            Builder(long version) {
+                this.version = version;
+            }
+
+            void addDisease(String diseaseCode, Collection<String> specializations) {
+                diseaseSpecializations.put(diseaseCode, toBitSet(specializations));
+            }
+
+            void addSymptom(String symptomCode, Collection<String> specializations) {
+                symptomSpecializations.put(symptomCode, toBitSet(specializations));
+            }
+
+            private BitSet toBitSet(Collection<String> specializations) {
+                BitSet bits = new BitSet();
+                if (specializations != null) {
+                    for (String specialization : specializations) {
+                        if (specialization != null) {
+                            bits.set(intern(specialization));
+                        }
+                    }
+                }
+                return bits;
+            }
+
+            private int intern(String specialization) {
+                return specializationIds.computeIfAbsent(specialization, name -> {
+                    specializationNames.add(name);
+                    return specializationNames.size() - 1;
+                });
+            }
+
+            Snapshot build() {
+                return new Snapshot(this);
+            }
+        }
+    }
+}
@@ -446,6 +446,21 @@ public class PatientAdminService {
         }
     }
 
+    /**
+     * Cases waiting for a doctor (submitted, pending or assigned but not yet accepted) per
+     * required specialization, from one grouped query
+     */
+    public Map<String, Long> getWaitingCasesBySpecialization() {
+        Map<String, Long> waiting = new HashMap<>();
+        for (Object[] row : caseRepository.countBySpecializationAndStatusIn(
+                List.of(CaseStatus.SUBMITTED, CaseStatus.PENDING, CaseStatus.ASSIGNED))) {
+            if (row[0] != null) {
+                waiting.put((String) row[0], (Long) row[1]);
+            }
+        }
+        return waiting;
+    }
+
     /**
      * Get case statistics by status
      */
@@ -23,6 +23,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -47,6 +48,8 @@ public class PatientService {
     private final DocumentService documentService;
     private final DependentRepository dependentRepository;
     private final AuthServiceClient authServiceClient;
+    private final CaseAssignmentQueueService caseAssignmentQueueService;
+    private final CaseAnalyticsCache caseAnalyticsCache;
 
 
     @Value("${app.case.default.consultation-fee:200.00}")
@@ -219,22 +222,13 @@ public class PatientService {
             }
         }
 
-        // Update case status to PENDING and trigger smart assignment
+        // Update case status to PENDING and queue smart assignment (published after commit)
         saved.setStatus(CaseStatus.PENDING);
+        caseAssignmentQueueService.enqueue(saved);
         caseRepository.save(saved);
 
         String caseOwnerName = saved.getCaseOwnerName();
 
-        // Trigger smart case assignment asynchronously
-        try {
-            // 🔥 NEW: Send Kafka event after saving new case to trigger SmartCaseAssignmentService
-            patientEventProducer.sendStartSmartCaseAssignmentService(saved.getId());
-        } catch (Exception e) {
-            System.out.println("Failed to assign case automatically: " +  saved.getId());
-            System.out.println(e.getMessage());
-            e.printStackTrace();
-        }
-
         log.info("Case created successfully: {} for {}", medicalCase.getId(), caseOwnerName);
 
         return saved;
@@ -342,6 +336,29 @@ public class PatientService {
 //        return caseRepository.save(saved);
 //    }
 
+    /**
+     * Active case counts of each requested doctor by case status (every active status is
+     * present, 0 when the doctor has no such case), from one grouped query instead of
+     * loading and mapping every case
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<CaseStatus, Long>> getDoctorsActiveCaseCounts(List<Long> doctorIds) {
+        Map<Long, Map<CaseStatus, Long>> counts = new HashMap<>();
+        if (doctorIds == null || doctorIds.isEmpty()) {
+            return counts;
+        }
+        for (Long doctorId : doctorIds) {
+            Map<CaseStatus, Long> byStatus = new EnumMap<>(CaseStatus.class);
+            CaseAssignmentRepository.DOCTOR_ACTIVE_CASE_STATUSES.forEach(status -> byStatus.put(status, 0L));
+            counts.put(doctorId, byStatus);
+        }
+        for (Object[] row : caseAssignmentRepository.countDoctorsActiveCasesByStatus(new HashSet<>(doctorIds),
+                CaseAssignmentRepository.DOCTOR_ACTIVE_CASE_STATUSES)) {
+            counts.get((Long) row[0]).put((CaseStatus) row[1], (Long) row[2]);
+        }
+        return counts;
+    }
+
     public List<CaseDto> getDoctorActiveCases (Long doctorId ){
         List<CaseDto> cases = new ArrayList<>();
         List<Case> tempCases;
@@ -1035,6 +1052,23 @@ public class PatientService {
     }
 
     // 3. Get Case Details Implementation
+    /**
+     * Progress of the case's asynchronous doctor assignment
+     */
+    public CaseAssignmentStatusDto getCaseAssignmentStatus(Long userId, Long caseId) {
+        Patient patient = patientRepository.findByUserId(userId)
+                .orElseThrow(() -> new BusinessException("Patient not found", HttpStatus.NOT_FOUND));
+
+        Case medicalCase = caseRepository.findById(caseId)
+                .orElseThrow(() -> new BusinessException("Case not found", HttpStatus.NOT_FOUND));
+
+        if (!medicalCase.getPatient().getId().equals(patient.getId())) {
+            throw new BusinessException("Unauthorized access to case", HttpStatus.FORBIDDEN);
+        }
+
+        return caseAssignmentQueueService.getStatus(medicalCase);
+    }
+
     public CaseDetailsDto getCaseDetails(Long userId, Long caseId) {
         Patient patient = patientRepository.findByUserId(userId)
                 .orElseThrow(() -> new BusinessException("Patient not found", HttpStatus.NOT_FOUND));
@@ -1595,7 +1629,16 @@ public class PatientService {
         return dto;
     }
 
+    /**
+     * Case totals for the admin dashboard; requests arriving while a count is running share its result
+     */
     public Map<String,Long> getAllCassesMetrics(){
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        return new HashMap<>(caseAnalyticsCache.get("case-totals", now.toLocalDate().atStartOfDay(), now,
+                false, this::countAllCasesMetrics));
+    }
+
+    private Map<String,Long> countAllCasesMetrics(){
         Map<String,Long> metrics = new HashMap<>();
         List<CaseStatus> activeStatusList = new ArrayList<>();
         activeStatusList.add(CaseStatus.PENDING);
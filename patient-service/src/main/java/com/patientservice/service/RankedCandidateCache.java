@@ -0,0 +1,115 @@
+package com.patientservice.service;
+
+import com.patientservice.config.CaseAssignmentSchedulerConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Ranked candidate list of each case's last full matching pass, so a rejection or expiration
+ * can move on to the next doctor without fetching and rescoring every candidate again.
+ *
+ * Bounded (least recently used cases are evicted at case.assignment.ranking-cache-max-cases)
+ * and time-limited (case.assignment.ranking-cache-ttl-minutes). A ranking is also dropped when
+ * the matching weights change, since it no longer reflects the current scoring.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RankedCandidateCache {
+
+    private final CaseAssignmentSchedulerConfig config;
+    private final MatchingWeightsProvider matchingWeightsProvider;
+
+    private final LinkedHashMap<Long, Ranking> rankings = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Ranking> eldest) {
+            return size() > config.getRankingCacheMaxCases();
+        }
+    };
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Keep the best candidates of a matching pass, in rank order
+     */
+    public void store(Long caseId, CandidateScores scores, double minimumScore) {
+        int[] ranked = scores.topK(config.getRankingCacheDepth(), minimumScore);
+        Ranking ranking = new Ranking(scores, ranked, System.currentTimeMillis(),
+                matchingWeightsProvider.version());
+        synchronized (rankings) {
+            rankings.put(caseId, ranking);
+        }
+    }
+
+    /**
+     * Next ranked candidate of the case that is not excluded, or empty if there is no usable
+     * ranking (never stored, expired, scored with older weights, or exhausted).
+     * Excluded candidates are skipped for good, so repeated calls stay constant time.
+     */
+    public Optional<Candidate> pollNext(Long caseId, Set<Long> excludedDoctorIds) {
+        synchronized (rankings) {
+            Ranking ranking = rankings.get(caseId);
+            if (ranking == null || isStale(ranking)) {
+                rankings.remove(caseId);
+                misses++;
+                return Optional.empty();
+            }
+
+            while (ranking.cursor < ranking.ranked.length) {
+                int index = ranking.ranked[ranking.cursor++];
+                Long doctorId = ranking.scores.doctor(index).getDoctorId();
+                if (excludedDoctorIds == null || !excludedDoctorIds.contains(doctorId)) {
+                    hits++;
+                    return Optional.of(new Candidate(ranking.scores, index));
+                }
+            }
+
+            rankings.remove(caseId);
+            misses++;
+            return Optional.empty();
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        synchronized (rankings) {
+            Map<String, Object> statistics = new HashMap<>();
+            statistics.put("cachedCases", rankings.size());
+            statistics.put("hits", hits);
+            statistics.put("misses", misses);
+            statistics.put("maxCases", config.getRankingCacheMaxCases());
+            statistics.put("ttlMinutes", config.getRankingCacheTtlMinutes());
+            return statistics;
+        }
+    }
+
+    private boolean isStale(Ranking ranking) {
+        long ageMs = System.currentTimeMillis() - ranking.rankedAt;
+        return ageMs > config.getRankingCacheTtlMinutes() * 60_000L ||
+                ranking.weightsVersion != matchingWeightsProvider.version();
+    }
+
+    /**
+     * A cached candidate: row index into the scores of the pass that ranked it
+     */
+    public record Candidate(CandidateScores scores, int index) {
+    }
+
+    private static class Ranking {
+        private final CandidateScores scores;
+        private final int[] ranked;
+        private final long rankedAt;
+        private final long weightsVersion;
+        private int cursor;
+
+        private Ranking(CandidateScores scores, int[] ranked, long rankedAt, long weightsVersion) {
+            this.scores = scores;
+            this.ranked = ranked;
+            this.rankedAt = rankedAt;
+            this.weightsVersion = weightsVersion;
+        }
+    }
+}
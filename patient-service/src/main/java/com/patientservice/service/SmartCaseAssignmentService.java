@@ -4,8 +4,6 @@ package com.patientservice.service;
 import com.commonlibrary.dto.*;
 import com.commonlibrary.entity.*;
 import com.commonlibrary.exception.BusinessException;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.patientservice.config.CaseAssignmentSchedulerConfig;
 import com.patientservice.dto.*;
 import com.patientservice.entity.*;
@@ -35,28 +33,27 @@ public class SmartCaseAssignmentService {
     private final DoctorServiceClient doctorServiceClient;
     private final CaseRepository caseRepository;
     private final CaseAssignmentRepository caseAssignmentRepository;
-    private final MedicalConfigurationService configService;
+    private final MedicalKnowledgeIndex medicalKnowledgeIndex;
     private final CaseAssignmentSchedulerConfig config;
     private final PatientEventProducer patientEventProducer;
-
-    // Scoring weights for matching algorithm
-    private static final double PRIMARY_SPECIALIZATION_WEIGHT = 0.30;
-    private static final double WORKLOAD_AVAILABILITY_WEIGHT = 0.25;
-    private static final double DISEASE_EXPERTISE_WEIGHT = 0.20;
-    private static final double SYMPTOM_EXPERTISE_WEIGHT = 0.10;
-    private static final double EXPERIENCE_WEIGHT = 0.08;
-    private static final double PERFORMANCE_WEIGHT = 0.05;
-    private static final double CASE_PREFERENCE_WEIGHT = 0.02;
+    private final CaseMatchingScorer caseMatchingScorer;
+    private final MatchingWeightsProvider matchingWeightsProvider;
+    private final EmergencyOnCallPool emergencyOnCallPool;
+    private final AssignmentLatencyTracker assignmentLatencyTracker;
+    private final RankedCandidateCache rankedCandidateCache;
 
     @Value("${case.assignment.minimum-score-threshold:35.0}")
     private Double minimumScoreThreshold;
 
-    @Value("${case.assignment.workload-penalty-threshold:80.0}")
-    private Double workloadPenaltyThreshold;
-
     @Value("${case.assignment.emergency-override-enabled:true}")
     private Boolean emergencyOverrideEnabled;
 
+    /**
+     * Log the per-candidate score breakdown of every scored case (explain mode, off by default)
+     */
+    @Value("${case.assignment.debug-scoring:false}")
+    private boolean debugScoring;
+
     /**
      * Main method to assign a case to multiple doctors using workload-aware algorithm
      */
@@ -97,21 +94,12 @@ public class SmartCaseAssignmentService {
         }
 
         // Calculate workload-aware matching scores
-        List<DoctorMatchingResultDto> matchingResults = calculateWorkloadAwareMatchingScores(medicalCase,
+        CandidateScores matchingScores = calculateWorkloadAwareMatchingScores(medicalCase,
                 eligibleDoctorsWithCapacity);
-        System.out.println("=====================>  Calculate workload-aware matching scores, matchingResults : " + matchingResults.size());
-
-        for (DoctorMatchingResultDto matchingResult : matchingResults) {
-            try {
-                System.out.println("Matching Results 1 : " + new ObjectMapper().writeValueAsString(matchingResult));
-            } catch (JsonProcessingException e) {
-                e.printStackTrace();
-            }
-        }
 
-        // Sort by score and select top doctors
+        // Select top doctors
         List<DoctorMatchingResultDto> selectedDoctors = selectBestDoctorsWithWorkloadBalance(medicalCase,
-                matchingResults);
+                matchingScores);
         System.out.println("=====================>  Sort by score and select top doctors, selectedDoctors : " + selectedDoctors.size());
 
         // Create assignments with workload updates
@@ -151,6 +139,16 @@ public class SmartCaseAssignmentService {
 
             validateCaseForAssignment(medicalCase);
 
+            // CRITICAL cases: offer straight from the local on-call pool when it has doctors
+            if (tryEmergencyFastPath(medicalCase, excludedDoctorIds)) {
+                return;
+            }
+
+            // Reassignment: take the next doctor of the case's cached ranking when there is one
+            if (!medicalCase.getAssignments().isEmpty() && tryNextRankedCandidate(medicalCase, excludedDoctorIds)) {
+                return;
+            }
+
             // Get eligible doctors
             List<DoctorCapacityDto> eligibleDoctors = findEligibleDoctorsWithWorkload(medicalCase);
 
@@ -177,17 +175,10 @@ public class SmartCaseAssignmentService {
             }
 
             // Perform matching and assignment
-            List<DoctorMatchingResultDto> matchingResults = calculateWorkloadAwareMatchingScores(medicalCase, eligibleDoctors);
+            CandidateScores matchingScores = calculateWorkloadAwareMatchingScores(medicalCase, eligibleDoctors);
+            rankedCandidateCache.store(caseId, matchingScores, minimumScoreThreshold);
 
-            for (DoctorMatchingResultDto matchingResult : matchingResults) {
-                try {
-                    System.out.println("Matching Results 1 : " + new ObjectMapper().writeValueAsString(matchingResult));
-                } catch (JsonProcessingException e) {
-                    e.printStackTrace();
-                }
-            }
-
-            List<DoctorMatchingResultDto> selectedDoctors = selectBestDoctorsWithWorkloadBalance(medicalCase, matchingResults);
+            List<DoctorMatchingResultDto> selectedDoctors = selectBestDoctorsWithWorkloadBalance(medicalCase, matchingScores);
 
             if (selectedDoctors.isEmpty()) {
                 log.error("No suitable doctors found after matching for case {}", caseId);
@@ -220,29 +211,232 @@ public class SmartCaseAssignmentService {
         }
     }
 
+    /**
+     * Batch assignment for bulk re-matching (e.g. hundreds of expirations after an outage).
+     *
+     * Candidates are fetched once for the union of the cases' specializations and the whole
+     * case x doctor score matrix is computed in memory. Cases are then placed greedily, most
+     * urgent first and best score first, against each doctor's remaining case capacity, so the
+     * batch cannot pile every case onto the same top-ranked doctor. All assignment rows and
+     * case updates are written in this one transaction.
+     *
+     * @param excludedDoctorsByCase case ID -> doctors that must not receive that case
+     * @return summary of the run
+     */
+    @Transactional
+    public Map<String, Object> assignCasesInBatch(Map<Long, Set<Long>> excludedDoctorsByCase) {
+        long startedAt = System.currentTimeMillis();
+        log.info("Starting batch case assignment for {} cases", excludedDoctorsByCase.size());
+
+        // 1. Load and validate all cases
+        List<Case> cases = new ArrayList<>();
+        List<Long> skippedCaseIds = new ArrayList<>(excludedDoctorsByCase.keySet());
+        for (Case medicalCase : caseRepository.findAllById(excludedDoctorsByCase.keySet())) {
+            try {
+                validateCaseForAssignment(medicalCase);
+                cases.add(medicalCase);
+                skippedCaseIds.remove(medicalCase.getId());
+            } catch (BusinessException e) {
+                log.warn("Skipping case {} in batch assignment: {}", medicalCase.getId(), e.getMessage());
+            }
+        }
+
+        // 2. One capacity lookup per distinct specialization across the batch
+        Map<String, Integer> candidateLimits = new HashMap<>();
+        for (Case medicalCase : cases) {
+            for (String specialization : getRequiredSpecializations(medicalCase)) {
+                candidateLimits.merge(specialization, medicalCase.getMaxDoctorsAllowed() * 2, Integer::sum);
+            }
+        }
+
+        Map<String, List<DoctorCapacityDto>> candidatesBySpecialization = new HashMap<>();
+        Map<Long, Integer> remainingCapacity = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : candidateLimits.entrySet()) {
+            try {
+                List<DoctorCapacityDto> doctors = doctorServiceClient.getAvailableDoctorsBySpecializationWithCapacity(
+                        entry.getKey(), entry.getValue());
+                if (doctors != null) {
+                    candidatesBySpecialization.put(entry.getKey(), doctors);
+                    doctors.forEach(doctor -> remainingCapacity.putIfAbsent(doctor.getDoctorId(),
+                            getRemainingCaseCapacity(doctor)));
+                }
+            } catch (Exception e) {
+                log.error("Error fetching candidates for specialization {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+
+        // 3. Doctors already assigned to each case (any status) are never offered it again
+        Map<Long, Set<Long>> assignedDoctorsByCase = new HashMap<>();
+        if (!cases.isEmpty()) {
+            List<Long> caseIds = cases.stream().map(Case::getId).collect(Collectors.toList());
+            for (CaseAssignment assignment : caseAssignmentRepository.findByCaseEntityIdIn(caseIds)) {
+                assignedDoctorsByCase.computeIfAbsent(assignment.getCaseEntity().getId(), id -> new HashSet<>())
+                        .add(assignment.getDoctorId());
+            }
+        }
+
+        // 4. Score the case x doctor matrix
+        List<BatchCandidate> matrix = new ArrayList<>();
+        for (Case medicalCase : cases) {
+            Set<Long> excluded = new HashSet<>(assignedDoctorsByCase.getOrDefault(medicalCase.getId(), Set.of()));
+            Set<Long> excludedByCaller = excludedDoctorsByCase.get(medicalCase.getId());
+            if (excludedByCaller != null) {
+                excluded.addAll(excludedByCaller);
+            }
+
+            Map<Long, DoctorCapacityDto> caseCandidates = new LinkedHashMap<>();
+            for (String specialization : getRequiredSpecializations(medicalCase)) {
+                for (DoctorCapacityDto doctor : candidatesBySpecialization.getOrDefault(specialization, List.of())) {
+                    if (!excluded.contains(doctor.getDoctorId()) && isDoctorWithinCapacity(doctor)) {
+                        caseCandidates.putIfAbsent(doctor.getDoctorId(), doctor);
+                    }
+                }
+            }
+
+            if (!caseCandidates.isEmpty()) {
+                CandidateScores scores = calculateWorkloadAwareMatchingScores(
+                        medicalCase, new ArrayList<>(caseCandidates.values()));
+                rankedCandidateCache.store(medicalCase.getId(), scores, minimumScoreThreshold);
+                for (int i = 0; i < scores.size(); i++) {
+                    if (scores.total(i) >= minimumScoreThreshold) {
+                        matrix.add(new BatchCandidate(medicalCase, scores, i));
+                    }
+                }
+            }
+        }
+
+        // 5. Greedy capacity-constrained placement: urgency, then score, then lowest workload
+        matrix.sort(Comparator
+                .comparing((BatchCandidate candidate) -> candidate.medicalCase.getUrgencyLevel()).reversed()
+                .thenComparingDouble(candidate -> -candidate.scores.total(candidate.index))
+                .thenComparingDouble(candidate -> candidate.scores.workload(candidate.index)));
+
+        Map<Long, DoctorMatchingResultDto> placements = new LinkedHashMap<>();
+        for (BatchCandidate candidate : matrix) {
+            Long caseId = candidate.medicalCase.getId();
+            Long doctorId = candidate.scores.doctor(candidate.index).getDoctorId();
+            if (placements.containsKey(caseId) || remainingCapacity.getOrDefault(doctorId, 0) <= 0) {
+                continue;
+            }
+            DoctorMatchingResultDto result = materializeMatch(candidate.medicalCase, candidate.scores, candidate.index);
+            result.setPriority(AssignmentPriority.PRIMARY);
+            placements.put(caseId, result);
+            remainingCapacity.merge(doctorId, -1, Integer::sum);
+        }
+
+        // 6. Persist every assignment and case update together
+        LocalDateTime now = LocalDateTime.now();
+        List<CaseAssignment> assignments = new ArrayList<>();
+        List<Case> assignedCases = new ArrayList<>();
+        List<Long> unassignedCaseIds = new ArrayList<>();
+        for (Case medicalCase : cases) {
+            DoctorMatchingResultDto result = placements.get(medicalCase.getId());
+            if (result == null) {
+                unassignedCaseIds.add(medicalCase.getId());
+                continue;
+            }
+            assignments.add(CaseAssignment.builder()
+                    .caseEntity(medicalCase)
+                    .doctorId(result.getDoctorCapacity().getDoctorId())
+                    .status(AssignmentStatus.PENDING)
+                    .priority(result.getPriority())
+                    .assignedAt(now)
+                    .expiresAt(calculateExpirationTime(medicalCase.getUrgencyLevel()))
+                    .assignmentReason(result.getMatchingReason())
+                    .matchingScore(result.getTotalScore())
+                    .build());
+            markCaseAssigned(medicalCase);
+            assignedCases.add(medicalCase);
+        }
+
+        assignments = caseAssignmentRepository.saveAll(assignments);
+        caseRepository.saveAll(assignedCases);
+
+        // 7. One workload trigger per doctor, then the usual per-assignment notifications
+        Set<Long> assignedDoctorIds = assignments.stream()
+                .map(CaseAssignment::getDoctorId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (Long doctorId : assignedDoctorIds) {
+            try {
+                patientEventProducer.sendUpdateDoctorWorkLoadTrigger(doctorId);
+            } catch (Exception e) {
+                log.error("Failed to update doctor workload for doctor {}: {}", doctorId, e.getMessage());
+            }
+        }
+        for (CaseAssignment assignment : assignments) {
+            sendAssignmentNotifications(assignment.getCaseEntity(), List.of(assignment));
+        }
+
+        if (!unassignedCaseIds.isEmpty()) {
+            log.warn("Batch assignment could not place {} cases: {}", unassignedCaseIds.size(), unassignedCaseIds);
+        }
+        log.info("Batch assignment placed {} of {} cases on {} doctors ({} candidates, {} ms)",
+                assignments.size(), excludedDoctorsByCase.size(), assignedDoctorIds.size(),
+                remainingCapacity.size(), System.currentTimeMillis() - startedAt);
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("requestedCases", excludedDoctorsByCase.size());
+        summary.put("assignedCases", assignments.size());
+        summary.put("unassignedCaseIds", unassignedCaseIds);
+        summary.put("skippedCaseIds", skippedCaseIds);
+        summary.put("candidateDoctors", remainingCapacity.size());
+        summary.put("doctorsUsed", assignedDoctorIds.size());
+        summary.put("durationMs", System.currentTimeMillis() - startedAt);
+        return summary;
+    }
+
+    private List<String> getRequiredSpecializations(Case medicalCase) {
+        List<String> requiredSpecializations = new ArrayList<>();
+        requiredSpecializations.add(medicalCase.getRequiredSpecialization());
+        if (medicalCase.getSecondarySpecializations() != null) {
+            requiredSpecializations.addAll(medicalCase.getSecondarySpecializations());
+        }
+        return requiredSpecializations;
+    }
+
+    /**
+     * How many more cases a doctor can take in one batch run.
+     * Emergency-mode doctors may exceed their limit, but only by one case per run.
+     */
+    private int getRemainingCaseCapacity(DoctorCapacityDto doctor) {
+        int maxActiveCases = doctor.getMaxActiveCases() != null ? doctor.getMaxActiveCases() : 0;
+        int activeCases = doctor.getActiveCases() != null ? doctor.getActiveCases() : 0;
+        int remaining = maxActiveCases - activeCases;
+        return Boolean.TRUE.equals(doctor.getEmergencyMode()) ? Math.max(1, remaining) : Math.max(0, remaining);
+    }
+
+    /**
+     * One cell of the batch case x doctor score matrix
+     */
+    private static final class BatchCandidate {
+        private final Case medicalCase;
+        private final CandidateScores scores;
+        private final int index;
+
+        private BatchCandidate(Case medicalCase, CandidateScores scores, int index) {
+            this.medicalCase = medicalCase;
+            this.scores = scores;
+            this.index = index;
+        }
+    }
+
     /**
      * Find eligible doctors with their current workload information
      */
     private List<DoctorCapacityDto> findEligibleDoctorsWithWorkload(Case medicalCase) {
         try {
             // Get doctors by specialization with workload info
-            List<String> requiredSpecializations = new ArrayList<>();
-            requiredSpecializations.add(medicalCase.getRequiredSpecialization());
-            if (medicalCase.getSecondarySpecializations() != null) {
-                requiredSpecializations.addAll(medicalCase.getSecondarySpecializations());
-            }
+            List<String> requiredSpecializations = getRequiredSpecializations(medicalCase);
 
             List<DoctorCapacityDto> eligibleDoctors = new ArrayList<>();
             List<DoctorCapacityDto> filteredDoctors = new ArrayList<>();
 
-            System.out.println( "Calling: findEligibleDoctorsWithWorkload" );
-
             for (String specialization : requiredSpecializations) {
-                System.out.println( "Trying to fitch eligible Doctors with  specialization" + specialization);
                 var response = doctorServiceClient.getAvailableDoctorsBySpecializationWithCapacity(
                         specialization, medicalCase.getMaxDoctorsAllowed() * 2
                 );
-                System.out.println( "Count of Doctors: " + response.size());
+                log.debug("Fetched {} candidate doctors for specialization {}",
+                        response != null ? response.size() : 0, specialization);
                 if (response != null) {
                     eligibleDoctors.addAll(response);
                 }
@@ -268,14 +462,14 @@ public class SmartCaseAssignmentService {
             // Remove duplicates and filter by workload capacity
             Map<Long, DoctorCapacityDto> uniqueDoctors = new HashMap<>();
             for (DoctorCapacityDto doctor : filteredDoctors) {
-                System.out.println( "Removing  duplicated doctors");
                 if (!uniqueDoctors.containsKey(doctor.getDoctorId())) {
                     uniqueDoctors.put(doctor.getDoctorId(), doctor);
                 }
 
             }
 
-            System.out.println( "final count of eligible doctors: " + uniqueDoctors.size());
+            log.debug("Final count of unique candidate doctors for case {}: {}",
+                    medicalCase.getId(), uniqueDoctors.size());
             return uniqueDoctors.values().stream()
                     .filter(doctor -> isDoctorEligibleForCase(medicalCase, doctor))
                     .collect(Collectors.toList());
@@ -287,403 +481,195 @@ public class SmartCaseAssignmentService {
     }
 
     /**
-     * Find doctors for emergency cases (can override normal workload limits)
+     * Assign the case to the next eligible doctor of its cached ranking (no candidate fetch or
+     * rescoring). Doctors already assigned to the case are skipped.
+     *
+     * @return false if there is no usable cached ranking; the caller does a full re-match
      */
-    private List<DoctorCapacityDto> findEmergencyEligibleDoctors(Case medicalCase) {
-        try {
-            log.info("Searching for emergency eligible doctors for critical case {}", medicalCase.getId());
-
-            var response = doctorServiceClient.getEmergencyAvailableDoctors(
-                    medicalCase.getRequiredSpecialization(),
-                    medicalCase.getMaxDoctorsAllowed() * 2
-            );
-
-            if (response != null && response.getBody() != null && response.getBody().getData() != null) {
-                return response.getBody().getData().stream()
-                        .filter(doctor -> doctor.getIsAvailable())
-                        .collect(Collectors.toList());
-            }
-
-            return new ArrayList<>();
-        } catch (Exception e) {
-            log.error("Error finding emergency eligible doctors: {}", e.getMessage(), e);
-            return new ArrayList<>();
+    private boolean tryNextRankedCandidate(Case medicalCase, Set<Long> excludedDoctorIds) {
+        Set<Long> excluded = new HashSet<>();
+        if (excludedDoctorIds != null) {
+            excluded.addAll(excludedDoctorIds);
         }
-    }
-
-    /**
-     * Calculate workload-aware matching scores
-     */
-    private List<DoctorMatchingResultDto> calculateWorkloadAwareMatchingScores(
-            Case medicalCase, List<DoctorCapacityDto> eligibleDoctors) {
+        medicalCase.getAssignments().forEach(assignment -> excluded.add(assignment.getDoctorId()));
 
-        return eligibleDoctors.parallelStream()
-                .map(doctor -> calculateWorkloadAwareMatchingScore(medicalCase, doctor))
-                .filter(result -> result.getTotalScore() >= minimumScoreThreshold)
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Calculate comprehensive workload-aware matching score
-     */
-    private DoctorMatchingResultDto calculateWorkloadAwareMatchingScore(Case medicalCase, DoctorCapacityDto doctor) {
-        Map<String, Double> scoreBreakdown = new HashMap<>();
-        double totalScore = 0.0;
-
-        System.out.println("                                  ========> Calculate workload-aware matching scores");
-
-        // 1. Primary Specialization Score (30%)
-        double specializationScore = calculateSpecializationScore(medicalCase, doctor);
-        scoreBreakdown.put("specialization", specializationScore);
-        totalScore += specializationScore * PRIMARY_SPECIALIZATION_WEIGHT;
-        System.out.println("                                            ========> " +
-                "calculateSpecializationScore Done");
-
-        // 2. Workload & Availability Score (25%)
-        double workloadScore = calculateWorkloadAvailabilityScore(medicalCase, doctor);
-        scoreBreakdown.put("workload_availability", workloadScore);
-        totalScore += workloadScore * WORKLOAD_AVAILABILITY_WEIGHT;
-        System.out.println("                                            ========> " +
-                "calculateWorkloadAvailabilityScore Done");
-
-        // 3. Disease Expertise Score (20%) - FIXED: Using existing config service methods
-        double diseaseScore = calculateDiseaseExpertiseScoreFixed(medicalCase, doctor);
-        scoreBreakdown.put("disease_expertise", diseaseScore);
-        totalScore += diseaseScore * DISEASE_EXPERTISE_WEIGHT;
-        System.out.println("                                            ========> " +
-                "calculateDiseaseExpertiseScoreFixed Done");
-
-        // 4. Symptom Expertise Score (10%) - FIXED: Simplified approach
-        double symptomScore = calculateSymptomExpertiseScoreFixed(medicalCase, doctor);
-        scoreBreakdown.put("symptom_expertise", symptomScore);
-        totalScore += symptomScore * SYMPTOM_EXPERTISE_WEIGHT;
-        System.out.println("                                            ========> " +
-                "calculateSymptomExpertiseScoreFixed Done");
-
-        // 5. Experience Score (8%)
-        double experienceScore = calculateExperienceScore(doctor);
-        scoreBreakdown.put("experience", experienceScore);
-        totalScore += experienceScore * EXPERIENCE_WEIGHT;
-        System.out.println("                                            ========> " +
-                "calculateExperienceScore Done");
-
-        // 6. Performance Score (5%)
-        double performanceScore = calculatePerformanceScore(doctor);
-        scoreBreakdown.put("performance", performanceScore);
-        totalScore += performanceScore * PERFORMANCE_WEIGHT;
-        System.out.println("                                            ========> " +
-                "calculatePerformanceScore Done");
-
-        // 7. Case Preference Score (2%)
-        double preferenceScore = calculateCasePreferenceScore(medicalCase, doctor);
-        scoreBreakdown.put("case_preference", preferenceScore);
-        totalScore += preferenceScore * CASE_PREFERENCE_WEIGHT;
-        System.out.println("                                            ========> " +
-                "calculateCasePreferenceScore Done");
-
-        // Apply workload penalty for heavily loaded doctors
-        totalScore = applyWorkloadPenalty(totalScore, doctor);
-        System.out.println("                                            ========> " +
-                "applyWorkloadPenalty Done");
-
-        // Apply urgency boost for emergency cases
-        totalScore = applyUrgencyBoost(totalScore, medicalCase, doctor);
-        System.out.println("                                            ========> " +
-                "applyUrgencyBoost Done");
-
-        // Ensure score is within bounds
-        totalScore = Math.max(0.0, Math.min(100.0, totalScore));
-        System.out.println("                                            ========> " +
-                "Ensuring that score is within bounds");
-        System.out.println("                                            ========> " +
-                "calculateWorkloadAwareMatchingScore  - and the Final Score: " + totalScore);
+        Optional<DoctorMatchingResultDto> next = pollNextWithCapacity(medicalCase, excluded);
+        if (next.isEmpty()) {
+            return false;
+        }
 
-        return DoctorMatchingResultDto.builder()
-                .doctor(convertToLegacyDoctorDto(doctor))
-                .doctorCapacity(doctor)
-                .totalScore(totalScore)
-                .scoreBreakdown(scoreBreakdown)
-                .matchingReason(generateWorkloadAwareMatchingReason(scoreBreakdown, medicalCase, doctor))
-                .workloadPercentage(doctor.getWorkloadPercentage())
-                .emergencyMode(doctor.getEmergencyMode())
-                .canAcceptImmediately(doctor.canAcceptCase())
-                .assignmentSuccessProbability(calculateAssignmentSuccessProbability(doctor, medicalCase))
-                .build();
+        DoctorMatchingResultDto result = next.get();
+        result.setPriority(AssignmentPriority.PRIMARY);
+        List<CaseAssignment> assignments = createCaseAssignmentsWithWorkloadUpdate(medicalCase, List.of(result));
+        updateCaseAfterAssignment(medicalCase, assignments);
+        sendAssignmentNotifications(medicalCase, assignments);
 
+        log.info("Reassigned case {} to doctor {} from its cached ranking", medicalCase.getId(),
+                result.getDoctorCapacity().getDoctorId());
+        return true;
     }
 
     /**
-     * FIXED: Calculate disease expertise score using existing config service methods
+     * Next doctor of the case's cached ranking who can still take the case. The ranking holds
+     * capacity snapshots up to case.assignment.ranking-cache-ttl-minutes old, so each polled
+     * doctor's current capacity is checked with doctor-service first; doctors that became
+     * unavailable or reached their active case limit are passed over.
      */
-    private double calculateDiseaseExpertiseScoreFixed(Case medicalCase, DoctorCapacityDto doctor) {
-        try {
-            // Get disease information using existing config service method
-            DiseaseDto disease = configService.getDiseaseByCode(medicalCase.getPrimaryDiseaseCode());
-
-            if (disease != null) {
-                // Get specializations for the disease using existing method
-                List<String> diseaseSpecializations = configService.getSpecializationsForDisease(medicalCase.getPrimaryDiseaseCode());
-
-                if (diseaseSpecializations != null && diseaseSpecializations.contains(doctor.getPrimarySpecialization())) {
-                    return 85.0; // Strong disease expertise match
-                }
-
-                // Check if doctor's sub-specializations match disease requirements
-                if (doctor.getSubSpecializations() != null && diseaseSpecializations != null) {
-                    boolean hasSubSpecMatch = doctor.getSubSpecializations().stream()
-                            .anyMatch(diseaseSpecializations::contains);
-                    if (hasSubSpecMatch) {
-                        return 70.0; // Good subspecialization match
-                    }
-                }
+    private Optional<DoctorMatchingResultDto> pollNextWithCapacity(Case medicalCase, Set<Long> excludedDoctorIds) {
+        Optional<RankedCandidateCache.Candidate> next;
+        while ((next = rankedCandidateCache.pollNext(medicalCase.getId(), excludedDoctorIds)).isPresent()) {
+            DoctorMatchingResultDto result = materializeMatch(medicalCase, next.get().scores(), next.get().index());
+            if (hasCapacityForNewCase(result.getDoctorCapacity().getDoctorId())) {
+                return Optional.of(result);
             }
-
-            // Check secondary diseases if primary doesn't match well
-            if (medicalCase.getSecondaryDiseaseCodes() != null) {
-                for (String diseaseCode : medicalCase.getSecondaryDiseaseCodes()) {
-                    try {
-                        List<String> secondaryDiseaseSpecs = configService.getSpecializationsForDisease(diseaseCode);
-                        if (secondaryDiseaseSpecs != null && secondaryDiseaseSpecs.contains(doctor.getPrimarySpecialization())) {
-                            return 60.0; // Moderate disease expertise for secondary diseases
-                        }
-                    } catch (Exception e) {
-                        log.debug("Could not get specializations for secondary disease: {}", diseaseCode);
-                    }
-                }
-            }
-
-            return 40.0; // Basic expertise assumed if specialization matches case requirement
-        } catch (Exception e) {
-            log.warn("Error calculating disease expertise score for disease {}: {}",
-                    medicalCase.getPrimaryDiseaseCode(), e.getMessage());
-            return 50.0; // Neutral score on error
+            log.info("Skipping ranked doctor {} for case {}: no longer has capacity",
+                    result.getDoctorCapacity().getDoctorId(), medicalCase.getId());
         }
+        return Optional.empty();
     }
 
     /**
-     * FIXED: Calculate symptom expertise score using simplified approach
+     * Current capacity check against doctor-service: available, and in emergency mode or below
+     * the active case limit. A doctor whose capacity cannot be read is not offered the case.
      */
-    private double calculateSymptomExpertiseScoreFixed(Case medicalCase, DoctorCapacityDto doctor) {
+    private boolean hasCapacityForNewCase(Long doctorId) {
         try {
-            if (medicalCase.getSymptomCodes() == null || medicalCase.getSymptomCodes().isEmpty()) {
-                return 50.0; // Neutral if no symptoms specified
-            }
-
-            // Simplified approach: if doctor's specialization matches case requirement,
-            // assume they have symptom expertise
-            System.out.println("calculateSymptomExpertiseScoreFixed - getting RequiredSpecialization: " +
-                    medicalCase.getRequiredSpecialization() );
-            if (doctor.getPrimarySpecialization() != null && medicalCase.getRequiredSpecialization() != null &&
-                    doctor.getPrimarySpecialization().equals(medicalCase.getRequiredSpecialization())) {
-                return 75.0; // Good symptom-specialization match
-            }
-
-            // Check if any subspecializations match secondary specializations needed for the case
-            if (doctor.getSubSpecializations() != null && medicalCase.getSecondarySpecializations() != null) {
-                System.out.println("Check if any sub-specializations match secondary specializations needed for the case ");
-                System.out.println("Sub-specializations from Case: " + medicalCase.getSecondarySpecializations() );
-                System.out.println("Sub-specializations from Doctor: " + doctor.getSubSpecializations());
-
-                boolean hasMatch = doctor.getSubSpecializations().stream()
-                            .anyMatch(subSpec -> medicalCase.getSecondarySpecializations().contains(subSpec));
-
-                if (hasMatch) {
-                    return 65.0; // Moderate symptom expertise
-                }
-                else{
-                    System.out.println("No Match - Score : 45.0 // Limited symptom expertise");
-                }
+            var capacityResponse = doctorServiceClient.getDoctorCapacity(doctorId);
+            DoctorCapacityDto capacity = capacityResponse != null && capacityResponse.getBody() != null
+                    ? capacityResponse.getBody().getData() : null;
+            if (capacity == null || !Boolean.TRUE.equals(capacity.getIsAvailable())) {
+                return false;
             }
-
-            return 45.0; // Limited symptom expertise
+            return Boolean.TRUE.equals(capacity.getEmergencyMode()) ||
+                    (capacity.getActiveCases() != null && capacity.getMaxActiveCases() != null &&
+                            capacity.getActiveCases() < capacity.getMaxActiveCases());
         } catch (Exception e) {
-            log.warn("Error calculating symptom expertise score: {}", e.getMessage());
-            return 50.0; // Neutral score on error
+            log.warn("Could not verify capacity of doctor {}: {}", doctorId, e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Calculate workload and availability score (major factor)
+     * Emergency fast path: a CRITICAL case is offered to the best doctors of the local on-call
+     * pool (emergency mode first, then least loaded) without fetching candidates or scoring.
+     *
+     * @return false if the fast path does not apply or the pool has no doctor for the case
      */
-    private double calculateWorkloadAvailabilityScore(Case medicalCase, DoctorCapacityDto doctor) {
-        double score = 0.0;
-
-        // Base availability score
-        if (!doctor.getIsAvailable()) {
-            return 0.0; // Not available = zero score
-        }
-        score += 20.0; // Base score for being available
-
-        // Workload-based scoring (inverse relationship)
-        double workloadPercentage = doctor.getWorkloadPercentage();
-        if (workloadPercentage <= 30.0) {
-            score += 50.0; // Very low workload - excellent
-        } else if (workloadPercentage <= 50.0) {
-            score += 40.0; // Low workload - very good
-        } else if (workloadPercentage <= 70.0) {
-            score += 25.0; // Moderate workload - good
-        } else if (workloadPercentage <= 90.0) {
-            score += 10.0; // High workload - limited
-        } else {
-            score += 0.0; // Very high workload - poor choice
+    private boolean tryEmergencyFastPath(Case medicalCase, Set<Long> excludedDoctorIds) {
+        if (!config.getEmergencyFastPathEnabled() || medicalCase.getUrgencyLevel() != UrgencyLevel.CRITICAL) {
+            return false;
         }
 
-        // Active cases capacity score
-        double caseCapacityRatio = (double) doctor.getActiveCases() / doctor.getMaxActiveCases();
-        if (caseCapacityRatio <= 0.5) {
-            score += 20.0; // Plenty of case capacity
-        } else if (caseCapacityRatio <= 0.7) {
-            score += 15.0; // Good case capacity
-        } else if (caseCapacityRatio <= 0.9) {
-            score += 5.0; // Limited case capacity
+        Set<Long> excluded = new HashSet<>();
+        if (excludedDoctorIds != null) {
+            excluded.addAll(excludedDoctorIds);
         }
+        medicalCase.getAssignments().forEach(assignment -> excluded.add(assignment.getDoctorId()));
 
-        // Daily appointment capacity score
-        double appointmentCapacityRatio = (double) doctor.getTodayAppointments() / doctor.getMaxDailyAppointments();
-        if (appointmentCapacityRatio <= 0.5) {
-            score += 10.0; // Good appointment availability
-        } else if (appointmentCapacityRatio <= 0.8) {
-            score += 5.0; // Limited appointment availability
+        List<DoctorCapacityDto> onCallDoctors = emergencyOnCallPool.findOnCallDoctors(
+                medicalCase.getRequiredSpecialization(), config.getEmergencyFastPathOffers(), excluded);
+        if (onCallDoctors.isEmpty()) {
+            log.info("No on-call doctor for critical case {} ({}), using full matching",
+                    medicalCase.getId(), medicalCase.getRequiredSpecialization());
+            return false;
         }
 
-        // Emergency mode bonus (can handle overload)
-        if (doctor.getEmergencyMode() && isEmergencyCase(medicalCase)) {
-            score += 15.0; // Emergency mode bonus for urgent cases
+        // Ranked like a full match (the first doctor is PRIMARY), so accepting the first offer moves
+        // the case to ACCEPTED; the reason keeps the emergency origin
+        List<DoctorMatchingResultDto> selectedDoctors = new ArrayList<>();
+        for (DoctorCapacityDto doctor : onCallDoctors) {
+            selectedDoctors.add(DoctorMatchingResultDto.builder()
+                    .doctor(convertToLegacyDoctorDto(doctor))
+                    .doctorCapacity(doctor)
+                    .priority(selectedDoctors.isEmpty() ? AssignmentPriority.PRIMARY
+                            : selectedDoctors.size() == 1 ? AssignmentPriority.SECONDARY : AssignmentPriority.CONSULTANT)
+                    .matchingReason(String.format("Emergency on-call pool (%sWorkload: %.1f%%)",
+                            Boolean.TRUE.equals(doctor.getEmergencyMode()) ? "Emergency mode, " : "",
+                            doctor.getWorkloadPercentage()))
+                    .workloadPercentage(doctor.getWorkloadPercentage())
+                    .emergencyMode(doctor.getEmergencyMode())
+                    .canAcceptImmediately(true)
+                    .build());
         }
 
-        return Math.min(100.0, score);
+        List<CaseAssignment> assignments = createCaseAssignmentsWithWorkloadUpdate(medicalCase, selectedDoctors);
+        assignments.forEach(assignment -> emergencyOnCallPool.recordOffer(assignment.getDoctorId()));
+        updateCaseAfterAssignment(medicalCase, assignments);
+        sendAssignmentNotifications(medicalCase, assignments);
+
+        log.info("Critical case {} offered to {} on-call doctors via the emergency fast path",
+                medicalCase.getId(), assignments.size());
+        return true;
     }
 
     /**
-     * Calculate specialization matching score
+     * Find doctors for emergency cases (can override normal workload limits)
      */
-    private double calculateSpecializationScore(Case medicalCase, DoctorCapacityDto doctor) {
-        double score = 0.0;
-
-        // Primary specialization exact match
-        if (medicalCase.getRequiredSpecialization().equals(doctor.getPrimarySpecialization())) {
-            score += 80.0;
-        }
-
-        // Secondary specializations match
-        if (medicalCase.getSecondarySpecializations() != null && doctor.getSubSpecializations() != null) {
-            Set<String> caseSecondarySpecs = medicalCase.getSecondarySpecializations();
-            Set<String> doctorSubSpecs = doctor.getSubSpecializations();
+    private List<DoctorCapacityDto> findEmergencyEligibleDoctors(Case medicalCase) {
+        try {
+            log.info("Searching for emergency eligible doctors for critical case {}", medicalCase.getId());
 
-            long matchingSecondarySpecs = caseSecondarySpecs.stream()
-                    .mapToLong(spec -> doctorSubSpecs.contains(spec) ? 1 : 0)
-                    .sum();
+            var response = doctorServiceClient.getEmergencyAvailableDoctors(
+                    medicalCase.getRequiredSpecialization(),
+                    medicalCase.getMaxDoctorsAllowed() * 2
+            );
 
-            if (matchingSecondarySpecs > 0) {
-                score += Math.min(20.0, matchingSecondarySpecs * 10.0);
+            if (response != null && response.getBody() != null && response.getBody().getData() != null) {
+                return response.getBody().getData().stream()
+                        .filter(doctor -> doctor.getIsAvailable())
+                        .collect(Collectors.toList());
             }
-        }
-
-        return Math.min(100.0, score);
-    }
 
-    /**
-     * Calculate experience-based score
-     */
-    private double calculateExperienceScore(DoctorCapacityDto doctor) {
-        double score = 0.0;
-
-        // Consultation count score
-        int consultations = doctor.getConsultationCount();
-        if (consultations >= 1000) {
-            score += 40.0; // Very experienced
-        } else if (consultations >= 500) {
-            score += 30.0; // Experienced
-        } else if (consultations >= 100) {
-            score += 20.0; // Moderately experienced
-        } else if (consultations >= 50) {
-            score += 15.0; // Some experience
-        } else {
-            score += 10.0; // New doctor
-        }
-
-        // Rating-based experience bonus
-        if (doctor.getAverageRating() != null) {
-            if (doctor.getAverageRating() >= 4.5) {
-                score += 30.0; // Excellent rating
-            } else if (doctor.getAverageRating() >= 4.0) {
-                score += 20.0; // Good rating
-            } else if (doctor.getAverageRating() >= 3.5) {
-                score += 10.0; // Average rating
-            }
-        } else {
-            score += 15.0; // No rating yet (neutral)
+            return new ArrayList<>();
+        } catch (Exception e) {
+            log.error("Error finding emergency eligible doctors: {}", e.getMessage(), e);
+            return new ArrayList<>();
         }
-
-        return Math.min(100.0, score);
     }
 
     /**
-     * Calculate performance-based score
+     * Calculate workload-aware matching scores for all candidates of a case.
+     * Scores go into primitive arrays only; no breakdown map, DTO copy or reason string is built
+     * here. Use {@link #materializeMatch} for the few candidates that are actually selected.
+     * The disease-expertise profile is resolved once per case from the local knowledge index,
+     * so scoring all candidates is a single in-memory pass with no network I/O.
      */
-    private double calculatePerformanceScore(DoctorCapacityDto doctor) {
-        double score = 50.0; // Base neutral score
-
-        // Rating performance
-        if (doctor.getAverageRating() != null) {
-            score = doctor.getAverageRating() * 20.0; // Scale 0-5 rating to 0-100
-        }
-
-        // Consultation volume bonus (indicates reliability)
-        if (doctor.getConsultationCount() > 100) {
-            score += 10.0; // Volume bonus
-        }
+    private CandidateScores calculateWorkloadAwareMatchingScores(
+            Case medicalCase, List<DoctorCapacityDto> eligibleDoctors) {
 
-        // Completion rate bonus
-        if (doctor.getCompletionRate() != null) {
-            score += (doctor.getCompletionRate() - 80.0) * 0.5; // Bonus for high completion rates
-        }
+        MedicalKnowledgeIndex.DiseaseExpertiseProfile diseaseProfile = medicalKnowledgeIndex.profileFor(medicalCase);
+        CandidateScores scores = new CandidateScores(eligibleDoctors);
 
-        return Math.min(100.0, Math.max(0.0, score));
-    }
+        caseMatchingScorer.score(medicalCase, diseaseProfile, matchingWeightsProvider.current(), scores);
 
-    /**
-     * Calculate case preference score
-     */
-    private double calculateCasePreferenceScore(Case medicalCase, DoctorCapacityDto doctor) {
-        double score = 50.0; // Neutral base
-
-        // Emergency case preference
-        if (isEmergencyCase(medicalCase) && doctor.getEmergencyMode()) {
-            score += 25.0; // Prefers emergency cases
-        }
-
-        // Experience with case complexity
-        if (doctor.getYearsOfExperience() != null && doctor.getYearsOfExperience() > 5) {
-            score += 15.0; // Experienced doctors get preference bonus
+        if (debugScoring) {
+            for (int i = 0; i < scores.size(); i++) {
+                log.info("Scoring case {} / doctor {}: total {} {}", medicalCase.getId(),
+                        scores.doctor(i).getDoctorId(), String.format("%.2f", scores.total(i)),
+                        scores.breakdown(i));
+            }
         }
-
-        return Math.min(100.0, score);
+        return scores;
     }
 
     /**
-     * Apply workload penalty for heavily loaded doctors
+     * Build the full matching result (breakdown, legacy DTO, reason) for one scored candidate
      */
-    private double applyWorkloadPenalty(double baseScore, DoctorCapacityDto doctor) {
-        if (doctor.getWorkloadPercentage() > workloadPenaltyThreshold) {
-            double penaltyFactor = 1.0 - ((doctor.getWorkloadPercentage() - workloadPenaltyThreshold) / 100.0);
-            return baseScore * Math.max(0.3, penaltyFactor); // Minimum 30% of original score
-        }
-        return baseScore;
-    }
+    private DoctorMatchingResultDto materializeMatch(Case medicalCase, CandidateScores scores, int i) {
+        DoctorCapacityDto doctor = scores.doctor(i);
+        Map<String, Double> scoreBreakdown = scores.breakdown(i);
 
-    /**
-     * Apply urgency boost for emergency cases
-     */
-    private double applyUrgencyBoost(double baseScore, Case medicalCase, DoctorCapacityDto doctor) {
-        if (isEmergencyCase(medicalCase)) {
-            if (doctor.getEmergencyMode()) {
-                return baseScore * 1.2; // 20% boost for emergency-enabled doctors
-            } else if (doctor.getWorkloadPercentage() < 60.0) {
-                return baseScore * 1.1; // 10% boost for low-workload doctors
-            }
-        }
-        return baseScore;
+        return DoctorMatchingResultDto.builder()
+                .doctor(convertToLegacyDoctorDto(doctor))
+                .doctorCapacity(doctor)
+                .totalScore(scores.total(i))
+                .scoreBreakdown(scoreBreakdown)
+                .matchingReason(generateWorkloadAwareMatchingReason(scoreBreakdown, medicalCase, doctor))
+                .workloadPercentage(doctor.getWorkloadPercentage())
+                .emergencyMode(doctor.getEmergencyMode())
+                .canAcceptImmediately(doctor.canAcceptCase())
+                .assignmentSuccessProbability(calculateAssignmentSuccessProbability(doctor, medicalCase))
+                .build();
     }
 
     /**
@@ -712,18 +698,26 @@ public class SmartCaseAssignmentService {
      * Select best doctors with workload balancing
      */
     private List<DoctorMatchingResultDto> selectBestDoctorsWithWorkloadBalance(
-            Case medicalCase, List<DoctorMatchingResultDto> matchingResults) {
-
-        // Sort by score descending, then by workload ascending
-        List<DoctorMatchingResultDto> sortedResults = matchingResults.stream()
-                .sorted((a, b) -> {
-                    int scoreCompare = Double.compare(b.getTotalScore(), a.getTotalScore());
-                    if (scoreCompare == 0) {
-                        return Double.compare(a.getWorkloadPercentage(), b.getWorkloadPercentage());
-                    }
-                    return scoreCompare;
-                })
-                .collect(Collectors.toList());
+            Case medicalCase, CandidateScores scores) {
+
+        // Select additional doctors with workload consideration
+        int maxDoctors = medicalCase.getMaxDoctorsAllowed();
+        int minDoctors = medicalCase.getMinDoctorsRequired();
+
+        /*TODO
+        *  I've changed the max and min to /0/ to make sure the assignment will be for only
+        * one doctor (the primary one), maybe later can re-activate Secondary and Consultant*/
+
+        maxDoctors = 0;
+        minDoctors = 0;
+
+        // Top K by score descending, then by workload ascending. Only these are materialized;
+        // the extra reserve covers candidates skipped by the diversity check.
+        int[] ranked = scores.topK(1 + 2 * Math.max(maxDoctors, minDoctors), minimumScoreThreshold);
+        List<DoctorMatchingResultDto> sortedResults = new ArrayList<>(ranked.length);
+        for (int index : ranked) {
+            sortedResults.add(materializeMatch(medicalCase, scores, index));
+        }
 
         List<DoctorMatchingResultDto> selectedDoctors = new ArrayList<>();
 
@@ -737,16 +731,6 @@ public class SmartCaseAssignmentService {
                     primary.getDoctorCapacity().getDoctorId(), primary.getTotalScore(), primary.getWorkloadPercentage());
         }
 
-        // Select additional doctors with workload consideration
-        int maxDoctors = medicalCase.getMaxDoctorsAllowed();
-        int minDoctors = medicalCase.getMinDoctorsRequired();
-
-        /*TODO
-        *  I've changed the max and min to /0/ to make sure the assignment will be for only
-        * one doctor (the primary one), maybe later can re-activate Secondary and Consultant*/
-
-        maxDoctors = 0;
-        minDoctors = 0;
         for (int i = 1; i < sortedResults.size() && selectedDoctors.size() < maxDoctors; i++) {
             DoctorMatchingResultDto candidate = sortedResults.get(i);
 
@@ -831,7 +815,7 @@ public class SmartCaseAssignmentService {
 
             // Update doctor's workload
             try {
-                 patientEventProducer.sendUpdateDoctorWorkLoadTrigger(assignment.getDoctorId());
+                patientEventProducer.sendUpdateDoctorWorkLoadTrigger(assignment.getDoctorId());
                 log.info("Triggered workload update for doctor {} after case assignment",
                         result.getDoctorCapacity().getDoctorId());
             } catch (Exception e) {
@@ -853,6 +837,15 @@ public class SmartCaseAssignmentService {
                 medicalCase.getId(), doctor.getDoctorId());
         if (alreadyAssigned) return false;
 
+        return isDoctorWithinCapacity(doctor);
+    }
+
+    /**
+     * Availability and workload limits only (emergency mode overrides the limits)
+     */
+    private boolean isDoctorWithinCapacity(DoctorCapacityDto doctor) {
+        if (!doctor.getIsAvailable()) return false;
+
         if (!doctor.getEmergencyMode()) {
             if (doctor.getActiveCases() >= doctor.getMaxActiveCases()) return false;
             if (doctor.getTodayAppointments() >= doctor.getMaxDailyAppointments()) return false;
@@ -969,11 +962,20 @@ public class SmartCaseAssignmentService {
      * Update case after successful assignment
      */
     private void updateCaseAfterAssignment(Case medicalCase, List<CaseAssignment> assignments) {
+        markCaseAssigned(medicalCase);
+        caseRepository.save(medicalCase);
+    }
+
+    private void markCaseAssigned(Case medicalCase) {
+        LocalDateTime now = LocalDateTime.now();
+        if (medicalCase.getFirstAssignedAt() == null) {
+            medicalCase.setFirstAssignedAt(now);
+            assignmentLatencyTracker.recordFirstOffer(medicalCase.getUrgencyLevel(),
+                    medicalCase.getSubmittedAt(), now);
+        }
         medicalCase.setStatus(CaseStatus.ASSIGNED);
-        medicalCase.setFirstAssignedAt(LocalDateTime.now());
-        medicalCase.setLastAssignedAt(LocalDateTime.now());
+        medicalCase.setLastAssignedAt(now);
         medicalCase.setAssignmentAttempts(medicalCase.getAssignmentAttempts() + 1);
-        caseRepository.save(medicalCase);
     }
 
     /**
@@ -1051,7 +1053,7 @@ public class SmartCaseAssignmentService {
 
         // Update doctor workload
         try {
-            doctorServiceClient.updateDoctorWorkload(doctorId);
+            patientEventProducer.sendUpdateDoctorWorkLoadTrigger(doctorId);
             log.info("Updated workload for doctor {} after case acceptance", doctorId);
         } catch (Exception e) {
             log.error("Failed to update doctor workload after acceptance: {}", e.getMessage());
@@ -1085,7 +1087,7 @@ public class SmartCaseAssignmentService {
 
         // Update doctor workload
         try {
-            doctorServiceClient.updateDoctorWorkload(doctorId);
+            patientEventProducer.sendUpdateDoctorWorkLoadTrigger(doctorId);
             log.info("Updated workload for doctor {} after case rejection", doctorId);
         } catch (Exception e) {
             log.error("Failed to update doctor workload after rejection: {}", e.getMessage());
@@ -1099,9 +1101,10 @@ public class SmartCaseAssignmentService {
      * Handle case reassignment after rejection
      */
     private void handleCaseReassignmentAfterRejection(Case medicalCase, CaseAssignment rejectedAssignment) {
+        List<CaseAssignment> caseAssignments = caseAssignmentRepository.findByCaseEntityId(medicalCase.getId());
+
         // Check if we still have enough doctors assigned
-        long activeAssignments = caseAssignmentRepository.findByCaseEntityId(medicalCase.getId())
-                .stream()
+        long activeAssignments = caseAssignments.stream()
                 .filter(a -> a.getStatus() == AssignmentStatus.PENDING || a.getStatus() == AssignmentStatus.ACCEPTED)
                 .count();
 
@@ -1110,50 +1113,36 @@ public class SmartCaseAssignmentService {
                     medicalCase.getId());
 
             try {
-                // Find replacement doctor
-                List<DoctorCapacityDto> availableDoctors = findEligibleDoctorsWithWorkload(medicalCase);
-
-                // Filter out already assigned doctors
-                Set<Long> assignedDoctorIds = caseAssignmentRepository.findByCaseEntityId(medicalCase.getId())
-                        .stream()
+                // Doctors already assigned to the case (any status) are never offered it again
+                Set<Long> assignedDoctorIds = caseAssignments.stream()
                         .map(CaseAssignment::getDoctorId)
                         .collect(Collectors.toSet());
 
-                List<DoctorCapacityDto> newCandidates = availableDoctors.stream()
-                        .filter(doctor -> !assignedDoctorIds.contains(doctor.getDoctorId()))
-                        .collect(Collectors.toList());
-
-                if (!newCandidates.isEmpty()) {
-                    List<DoctorMatchingResultDto> matchingResults = calculateWorkloadAwareMatchingScores(
-                            medicalCase, newCandidates);
-
-                    if (!matchingResults.isEmpty()) {
-                        DoctorMatchingResultDto best = matchingResults.stream()
-                                .max(Comparator.comparing(DoctorMatchingResultDto::getTotalScore))
-                                .orElse(null);
-
-                        if (best != null) {
-                            // Create replacement assignment
-                            CaseAssignment replacement = CaseAssignment.builder()
-                                    .caseEntity(medicalCase)
-                                    .doctorId(best.getDoctorCapacity().getDoctorId())
-                                    .status(AssignmentStatus.PENDING)
-                                    .priority(rejectedAssignment.getPriority())
-                                    .assignedAt(LocalDateTime.now())
-                                    .expiresAt(calculateExpirationTime(medicalCase.getUrgencyLevel()))
-                                    .assignmentReason("Replacement after rejection: " + best.getMatchingReason())
-                                    .matchingScore(best.getTotalScore())
-                                    .build();
-
-                            caseAssignmentRepository.save(replacement);
-
-                            // Update workload for new doctor
-                            doctorServiceClient.updateDoctorWorkload(best.getDoctorCapacity().getDoctorId());
-
-                            log.info("Successfully assigned replacement doctor {} for case {} after rejection",
-                                    best.getDoctorCapacity().getDoctorId(), medicalCase.getId());
-                        }
-                    }
+                // Next doctor of the cached ranking with current capacity; full re-match only if
+                // the ranking is stale or exhausted
+                DoctorMatchingResultDto best = pollNextWithCapacity(medicalCase, assignedDoctorIds)
+                        .orElseGet(() -> rematchForReplacement(medicalCase, assignedDoctorIds));
+
+                if (best != null) {
+                    // Create replacement assignment
+                    CaseAssignment replacement = CaseAssignment.builder()
+                            .caseEntity(medicalCase)
+                            .doctorId(best.getDoctorCapacity().getDoctorId())
+                            .status(AssignmentStatus.PENDING)
+                            .priority(rejectedAssignment.getPriority())
+                            .assignedAt(LocalDateTime.now())
+                            .expiresAt(calculateExpirationTime(medicalCase.getUrgencyLevel()))
+                            .assignmentReason("Replacement after rejection: " + best.getMatchingReason())
+                            .matchingScore(best.getTotalScore())
+                            .build();
+
+                    caseAssignmentRepository.save(replacement);
+
+                    // Update workload for new doctor
+                    patientEventProducer.sendUpdateDoctorWorkLoadTrigger(best.getDoctorCapacity().getDoctorId());
+
+                    log.info("Successfully assigned replacement doctor {} for case {} after rejection",
+                            best.getDoctorCapacity().getDoctorId(), medicalCase.getId());
                 }
             } catch (Exception e) {
                 log.error("Failed to find replacement doctor for case {} after rejection: {}",
@@ -1162,6 +1151,24 @@ public class SmartCaseAssignmentService {
         }
     }
 
+    /**
+     * Full candidate fetch and rescoring for a replacement doctor; refreshes the cached ranking
+     */
+    private DoctorMatchingResultDto rematchForReplacement(Case medicalCase, Set<Long> assignedDoctorIds) {
+        List<DoctorCapacityDto> newCandidates = findEligibleDoctorsWithWorkload(medicalCase).stream()
+                .filter(doctor -> !assignedDoctorIds.contains(doctor.getDoctorId()))
+                .collect(Collectors.toList());
+        if (newCandidates.isEmpty()) {
+            return null;
+        }
+
+        CandidateScores matchingScores = calculateWorkloadAwareMatchingScores(medicalCase, newCandidates);
+        rankedCandidateCache.store(medicalCase.getId(), matchingScores, minimumScoreThreshold);
+        return rankedCandidateCache.pollNext(medicalCase.getId(), assignedDoctorIds)
+                .map(next -> materializeMatch(medicalCase, next.scores(), next.index()))
+                .orElse(null);
+    }
+
     /**
      * Claim case with workload validation
      */
@@ -1206,7 +1213,7 @@ public class SmartCaseAssignmentService {
             createOrUpdateCaseAssignmentWithWorkload(caseId, doctorId, note);
 
             // Update doctor workload
-            doctorServiceClient.updateDoctorWorkload(doctorId);
+            patientEventProducer.sendUpdateDoctorWorkLoadTrigger(doctorId);
 
             log.info("Case {} successfully claimed by doctor {}", caseId, doctorId);
         } catch (BusinessException e) {
@@ -1261,7 +1268,7 @@ public class SmartCaseAssignmentService {
 
             // Update doctor workload after assignment expiration
             try {
-                doctorServiceClient.updateDoctorWorkload(assignment.getDoctorId());
+                patientEventProducer.sendUpdateDoctorWorkLoadTrigger(assignment.getDoctorId());
                 log.info("Updated workload for doctor {} after assignment expiration", assignment.getDoctorId());
             } catch (Exception e) {
                 log.error("Failed to update doctor workload after expiration for doctor {}: {}",
@@ -0,0 +1,137 @@
+package com.patientservice.util;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile sketch for non-negative durations (in minutes).
+ *
+ * Values fall into logarithmic buckets whose width grows with the value, so every quantile is
+ * answered within RELATIVE_ACCURACY of the true value. Only non-empty buckets are kept; durations
+ * up to ten years need at most ~800 of them, whatever the number of values added. Two sketches
+ * merge by adding bucket counts, so sketches of different days, specializations or service
+ * instances combine into exactly the sketch of all their values.
+ */
+public final class DurationSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    // Bucket index -> count; values of 0 (or negative) are counted separately
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    public void add(long minutes) {
+        add(minutes, 1);
+    }
+
+    private void add(long minutes, long times) {
+        if (minutes <= 0) {
+            zeroCount += times;
+        } else {
+            buckets.merge((int) Math.ceil(Math.log(minutes) / LOG_GAMMA), times, Long::sum);
+        }
+        count += times;
+    }
+
+    public DurationSketch merge(DurationSketch other) {
+        if (other != null) {
+            other.buckets.forEach((index, bucketCount) -> buckets.merge(index, bucketCount, Long::sum));
+            zeroCount += other.zeroCount;
+            count += other.count;
+        }
+        return this;
+    }
+
+    /**
+     * Remove the values of another sketch that were added to this one before (a case whose duration
+     * changed or that left the bucket); counts never go below zero
+     */
+    public DurationSketch subtract(DurationSketch other) {
+        if (other != null) {
+            other.buckets.forEach((index, bucketCount) -> {
+                long current = buckets.getOrDefault(index, 0L);
+                long removed = Math.min(current, bucketCount);
+                if (current - removed > 0) {
+                    buckets.put(index, current - removed);
+                } else {
+                    buckets.remove(index);
+                }
+                count -= removed;
+            });
+            long removedZeros = Math.min(zeroCount, other.zeroCount);
+            zeroCount -= removedZeros;
+            count -= removedZeros;
+        }
+        return this;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Nearest-rank quantile (0..1) in minutes, 0 for an empty sketch
+     */
+    public double quantile(double quantile) {
+        if (count == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        if (rank <= zeroCount) {
+            return 0.0;
+        }
+        long seen = zeroCount;
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                return valueOf(bucket.getKey());
+            }
+        }
+        return valueOf(buckets.lastKey());
+    }
+
+    /**
+     * Midpoint of the bucket (gamma^(i-1), gamma^i], within RELATIVE_ACCURACY of every value in it
+     */
+    private static double valueOf(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    /**
+     * Compact binary form: zero count, then (bucket index, count) per non-empty bucket
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + buckets.size() * (Integer.BYTES + Long.BYTES));
+        buffer.putLong(zeroCount);
+        buckets.forEach((index, bucketCount) -> {
+            buffer.putInt(index);
+            buffer.putLong(bucketCount);
+        });
+        return buffer.array();
+    }
+
+    public static DurationSketch fromBytes(byte[] bytes) {
+        DurationSketch sketch = new DurationSketch();
+        if (bytes == null || bytes.length < Long.BYTES) {
+            return sketch;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        sketch.add(0, buffer.getLong());
+        while (buffer.remaining() >= Integer.BYTES + Long.BYTES) {
+            int index = buffer.getInt();
+            long bucketCount = buffer.getLong();
+            sketch.buckets.merge(index, bucketCount, Long::sum);
+            sketch.count += bucketCount;
+        }
+        return sketch;
+    }
+}
@@ -1,6 +1,8 @@
 package com.supervisorservice.feign;
 
 import com.commonlibrary.dto.ApiResponse;
+import com.commonlibrary.dto.AppointmentBatchQueryDto;
+import com.commonlibrary.dto.AppointmentBatchResultDto;
 import com.commonlibrary.dto.AppointmentDto;
 import com.commonlibrary.entity.AppointmentStatus;
 import org.springframework.cloud.openfeign.FeignClient;
@@ -44,6 +46,15 @@ public interface DoctorServiceClient {
     ResponseEntity<ApiResponse<List<AppointmentDto>>> getPatientAppointments(
             @PathVariable("patientId") Long patientId);
 
+    /**
+     * Query the appointments of many patients in one call
+     * @param query Patient IDs, statuses, time range, page, or aggregate-only for counts by status
+     * @return One page of appointments, or the counts by status
+     */
+    @PostMapping("/api/doctors-internal/appointments/patients/query")
+    ResponseEntity<ApiResponse<AppointmentBatchResultDto>> queryPatientsAppointments(
+            @RequestBody AppointmentBatchQueryDto query);
+
     /**
      * Get upcoming appointments for a patient
      * @param patientId Patient ID
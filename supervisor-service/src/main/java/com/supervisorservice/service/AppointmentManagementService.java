@@ -41,6 +41,12 @@ public class AppointmentManagementService {
     private final SupervisorValidationService validationService;
     private final SupervisorKafkaProducer eventProducer;
 
+    private static final int APPOINTMENT_PAGE_SIZE = 500;
+
+    // Same statuses as doctor-service's upcoming appointments
+    private static final List<AppointmentStatus> UPCOMING_STATUSES = List.of(
+            AppointmentStatus.SCHEDULED, AppointmentStatus.CONFIRMED, AppointmentStatus.RESCHEDULED);
+
     /**
      * Get all appointments for supervisor's assigned patients
      * @param userId Supervisor's user ID
@@ -69,19 +75,11 @@ public class AppointmentManagementService {
 
         // Fetch appointments for all assigned patients
         List<SupervisorAppointmentDto> allAppointments = new ArrayList<>();
-        
-        for (Long patientId : assignedPatientIds) {
-            try {
-                List<AppointmentDto> patientAppointments = fetchPatientAppointments(patientId, filterDto);
-                
-                // Convert and enrich appointments
-                for (AppointmentDto appointment : patientAppointments) {
-                    SupervisorAppointmentDto enrichedAppointment = enrichAppointment(appointment, supervisor.getId());
-                    allAppointments.add(enrichedAppointment);
-                }
-            } catch (Exception e) {
-                log.warn("Error fetching appointments for patient {}: {}", patientId, e.getMessage());
-            }
+
+        for (AppointmentDto appointment : fetchPatientsAppointments(assignedPatientIds, filterDto)) {
+            // Convert and enrich appointments
+            SupervisorAppointmentDto enrichedAppointment = enrichAppointment(appointment, supervisor.getId());
+            allAppointments.add(enrichedAppointment);
         }
 
         // Apply additional filters
@@ -431,23 +429,86 @@ public class AppointmentManagementService {
         }
     }
 
-    private List<AppointmentDto> fetchPatientAppointments(Long patientId, AppointmentFilterDto filter) {
-        try {
-            ApiResponse<List<AppointmentDto>> response;
-            
-            if (filter != null && Boolean.TRUE.equals(filter.getUpcomingOnly())) {
-                response = doctorServiceClient.getPatientUpcomingAppointments(patientId).getBody();
-            } else {
-                response = doctorServiceClient.getPatientAppointments(patientId).getBody();
+    /**
+     * Appointments of all the given patients, with the status and date filters applied by
+     * doctor-service, fetched page by page in as few calls as possible
+     */
+    private List<AppointmentDto> fetchPatientsAppointments(List<Long> patientIds, AppointmentFilterDto filter) {
+        AppointmentBatchQueryDto query = AppointmentBatchQueryDto.builder()
+                .patientIds(patientIds)
+                .page(0)
+                .size(APPOINTMENT_PAGE_SIZE)
+                .build();
+
+        if (filter != null) {
+            if (filter.getStatus() != null) {
+                query.setStatuses(List.of(filter.getStatus()));
+            } else if (Boolean.TRUE.equals(filter.getUpcomingOnly())) {
+                query.setStatuses(UPCOMING_STATUSES);
             }
+            if (Boolean.TRUE.equals(filter.getUpcomingOnly())) {
+                query.setFromTime(LocalDateTime.now());
+            }
+            if (filter.getDate() != null) {
+                query.setFromTime(later(query.getFromTime(), filter.getDate().atStartOfDay()));
+                query.setToTime(filter.getDate().plusDays(1).atStartOfDay());
+            }
+            if (filter.getStartDate() != null) {
+                query.setFromTime(later(query.getFromTime(), filter.getStartDate().atStartOfDay()));
+            }
+            if (filter.getEndDate() != null) {
+                LocalDateTime endExclusive = filter.getEndDate().plusDays(1).atStartOfDay();
+                if (query.getToTime() == null || endExclusive.isBefore(query.getToTime())) {
+                    query.setToTime(endExclusive);
+                }
+            }
+        }
 
-            if (response != null && response.getData() != null) {
-                return response.getData();
+        // A page that cannot be fetched fails the whole listing rather than returning a silently
+        // truncated one
+        List<AppointmentDto> appointments = new ArrayList<>();
+        while (true) {
+            AppointmentBatchResultDto page = fetchAppointmentsPage(query, patientIds.size());
+            if (page == null) {
+                break;
             }
+            appointments.addAll(page.getAppointments());
+            if (page.getTotalPages() == null || query.getPage() + 1 >= page.getTotalPages()) {
+                break;
+            }
+            query.setPage(query.getPage() + 1);
+        }
+        return appointments;
+    }
+
+    /**
+     * One page of the batch query, null when the first page comes back empty; fails for any
+     * later page that cannot be fetched
+     */
+    private AppointmentBatchResultDto fetchAppointmentsPage(AppointmentBatchQueryDto query, int patientCount) {
+        int pageNumber = query.getPage();
+        ApiResponse<AppointmentBatchResultDto> response;
+        try {
+            response = doctorServiceClient.queryPatientsAppointments(query).getBody();
         } catch (Exception e) {
-            log.warn("Error fetching appointments for patient {}: {}", patientId, e.getMessage());
+            log.error("Error fetching appointments page {} for {} patients: {}",
+                    pageNumber, patientCount, e.getMessage());
+            throw new BusinessException("Failed to fetch appointments, please try again later",
+                    HttpStatus.SERVICE_UNAVAILABLE);
         }
-        return Collections.emptyList();
+        if (response == null || response.getData() == null || response.getData().getAppointments() == null) {
+            if (pageNumber == 0) {
+                return null;
+            }
+            log.error("Empty response for appointments page {} of {} patients", pageNumber, patientCount);
+            throw new BusinessException("Failed to fetch appointments, please try again later",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return response.getData();
+    }
+
+    private static LocalDateTime later(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isAfter(current) ? candidate : current;
     }
 
     private AppointmentDto fetchAppointmentById(Long appointmentId) {
@@ -1,8 +1,10 @@
 package com.supervisorservice.service;
 
-import com.commonlibrary.dto.AppointmentDto;
+import com.commonlibrary.dto.AppointmentBatchQueryDto;
+import com.commonlibrary.dto.AppointmentBatchResultDto;
 import com.commonlibrary.dto.CaseDto;
 import com.commonlibrary.dto.PaymentHistoryDto;
+import com.commonlibrary.entity.AppointmentStatus;
 import com.commonlibrary.entity.CaseStatus;
 import com.supervisorservice.feign.DoctorServiceClient;
 import com.supervisorservice.feign.PatientServiceClient;
@@ -100,38 +102,28 @@ public class SupervisorDashboardService {
         Integer completedAppointments = 0;
 
         try {
-            List<AppointmentDto> allAppointments = new ArrayList<>();
-
-            for (Long patientId : patientIds) {
-                try {
-                    List<AppointmentDto> appointments = doctorServiceClient
-                            .getPatientAppointments(patientId).getBody().getData();
-                    if (appointments != null) {
-                        allAppointments.addAll(appointments);
-                    }
-                } catch (Exception e) {
-                    log.error("Error fetching appointments for patient {}: {}", patientId, e.getMessage());
+            if (patientIds != null && !patientIds.isEmpty()) {
+                // Counts by status of all assigned patients in one call
+                AppointmentBatchResultDto counts = doctorServiceClient.queryPatientsAppointments(
+                        AppointmentBatchQueryDto.builder()
+                                .patientIds(patientIds)
+                                .aggregateOnly(true)
+                                .build()).getBody().getData();
+
+                if (counts != null && counts.getCountsByStatus() != null) {
+                    totalAppointments = counts.getCountsByStatus().values().stream()
+                            .mapToInt(Long::intValue)
+                            .sum();
+
+                    upcomingAppointments = counts.getUpcomingCountsByStatus()
+                            .getOrDefault(AppointmentStatus.SCHEDULED, 0L).intValue();
+                    log.info("UpcomingAppointments cases count: {}", upcomingAppointments);
+
+                    completedAppointments = counts.getCountsByStatus()
+                            .getOrDefault(AppointmentStatus.COMPLETED, 0L).intValue();
+                    log.info("CompletedAppointments cases count: {}", completedAppointments);
                 }
             }
-
-            if (!allAppointments.isEmpty()) {
-                totalAppointments = allAppointments.size();
-
-                upcomingAppointments = (int) allAppointments.stream()
-                        .filter(a -> a.getStatus() != null &&
-                                "SCHEDULED".equals(a.getStatus().name()) &&
-                                a.getScheduledTime() != null &&
-                                a.getScheduledTime().isAfter(LocalDateTime.now()))
-                        .count();
-
-                log.info("UpcomingAppointments cases count: {}", upcomingAppointments);
-
-                completedAppointments = (int) allAppointments.stream()
-                        .filter(a -> a.getStatus() != null &&
-                                "COMPLETED".equals(a.getStatus().name()))
-                        .count();
-                log.info("CompletedAppointments cases count: {}", completedAppointments);
-            }
         } catch (Exception e) {
             log.error("Error fetching appointment statistics from doctor-service: {}", e.getMessage());
         }